@@ -39,7 +39,7 @@ public class ArffLoader {
     /**
      * The stream tokenizer.
      */
-    protected StreamTokenizer streamTokenizer;
+    protected ArffTokenizer streamTokenizer;
 
     /**
      * Instantiates a new arff loader.
@@ -81,17 +81,7 @@ public class ArffLoader {
         BufferedReader br = new BufferedReader(reader);
 
         //Init streamTokenizer
-        streamTokenizer = new StreamTokenizer(br);
-        streamTokenizer.resetSyntax();
-        streamTokenizer.whitespaceChars(0, ' ');
-        streamTokenizer.wordChars(' ' + 1, '\u00FF');
-        streamTokenizer.whitespaceChars(',', ',');
-        streamTokenizer.commentChar('%');
-        streamTokenizer.quoteChar('"');
-        streamTokenizer.quoteChar('\'');
-        streamTokenizer.ordinaryChar('{');
-        streamTokenizer.ordinaryChar('}');
-        streamTokenizer.eolIsSignificant(true);
+        streamTokenizer = new ArffTokenizer(br);
 
         this.instanceInformation = this.getHeader();
 
@@ -152,17 +142,17 @@ public class ArffLoader {
                         this.setValue(instance, numAttribute, streamTokenizer.nval, true);
                         numAttribute++;
 
-                    } else if (streamTokenizer.sval != null && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
+                    } else if (streamTokenizer.hasChars() && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
                             || streamTokenizer.ttype == 34 || streamTokenizer.ttype == 39)) {
                         //System.out.println(streamTokenizer.sval + "Str");
                         boolean isNumeric = this.instanceInformation.attribute(numAttribute).isNumeric();
                         double value;
-                        if ("?".equals(streamTokenizer.sval)) {
+                        if (streamTokenizer.charsEqual("?")) {
                             value = Double.NaN; //Utils.missingValue();
                         } else if (isNumeric == true) {
-                            value = Double.valueOf(streamTokenizer.sval).doubleValue();
+                            value = Double.valueOf(streamTokenizer.sval()).doubleValue();
                         } else {
-                            value = this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.sval);
+                            value = this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.chars(), 0, streamTokenizer.length());
                         }
 
                         this.setValue(instance, numAttribute, value, isNumeric);
@@ -228,7 +218,7 @@ public class ArffLoader {
                     if (streamTokenizer.ttype == StreamTokenizer.TT_NUMBER) {
                         numAttribute = (int) streamTokenizer.nval;
                     } else {
-                        numAttribute = Integer.parseInt(streamTokenizer.sval);
+                        numAttribute = Integer.parseInt(streamTokenizer.sval());
                     }
                     streamTokenizer.nextToken();
 
@@ -237,13 +227,13 @@ public class ArffLoader {
                         this.setSparseValue(instance, indexValues, attributeValues, numAttribute, streamTokenizer.nval, true);
                         //numAttribute++;
 
-                    } else if (streamTokenizer.sval != null && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
+                    } else if (streamTokenizer.hasChars() && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
                             || streamTokenizer.ttype == 34)) {
                         //System.out.print(streamTokenizer.sval + "-");
                         if (this.auxAttributes.get(numAttribute).isNumeric()) {
-                            this.setSparseValue(instance, indexValues, attributeValues, numAttribute, Double.valueOf(streamTokenizer.sval).doubleValue(), true);
+                            this.setSparseValue(instance, indexValues, attributeValues, numAttribute, Double.valueOf(streamTokenizer.sval()).doubleValue(), true);
                         } else {
-                            this.setSparseValue(instance, indexValues, attributeValues, numAttribute, this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.sval), false);
+                            this.setSparseValue(instance, indexValues, attributeValues, numAttribute, this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.chars(), 0, streamTokenizer.length()), false);
                         }
                     }
                     streamTokenizer.nextToken();
@@ -314,13 +304,13 @@ public class ArffLoader {
                         this.setValue(instance, numAttribute, streamTokenizer.nval, true);
                         //numAttribute++;
 
-                    } else if (streamTokenizer.sval != null && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
+                    } else if (streamTokenizer.hasChars() && (streamTokenizer.ttype == StreamTokenizer.TT_WORD
                             || streamTokenizer.ttype == 34)) {
                         //System.out.print(streamTokenizer.sval + "/"+this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.sval)+" ");
                         if (this.auxAttributes.get(numAttribute).isNumeric()) {
-                            this.setValue(instance, numAttribute, Double.valueOf(streamTokenizer.sval).doubleValue(), true);
+                            this.setValue(instance, numAttribute, Double.valueOf(streamTokenizer.sval()).doubleValue(), true);
                         } else {
-                            this.setValue(instance, numAttribute, this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.sval), false);
+                            this.setValue(instance, numAttribute, this.instanceInformation.attribute(numAttribute).indexOfValue(streamTokenizer.chars(), 0, streamTokenizer.length()), false);
                             //numAttribute++;
                         }
                     }
@@ -358,30 +348,30 @@ public class ArffLoader {
             while (streamTokenizer.ttype != StreamTokenizer.TT_EOF) {
                 //For each line
                 //if (streamTokenizer.ttype == '@') {
-                if (streamTokenizer.ttype == StreamTokenizer.TT_WORD && streamTokenizer.sval.startsWith("@") == true) {
+                if (streamTokenizer.ttype == StreamTokenizer.TT_WORD && streamTokenizer.sval().startsWith("@") == true) {
                     //streamTokenizer.nextToken();
-                    String token = streamTokenizer.sval.toUpperCase();
+                    String token = streamTokenizer.sval().toUpperCase();
                     if (token.startsWith("@RELATION")) {
                         streamTokenizer.nextToken();
-                        relation = streamTokenizer.sval;
+                        relation = streamTokenizer.sval();
                       //  System.out.println("RELATION " + relation);
                     } else if (token.startsWith("@ATTRIBUTE")) {
                         streamTokenizer.nextToken();
-                        String name = streamTokenizer.sval;
+                        String name = streamTokenizer.sval();
                         //System.out.println("* " + name);
                         if (name == null) {
                             name = Double.toString(streamTokenizer.nval);
                         }
                         streamTokenizer.nextToken();
-                        String type = streamTokenizer.sval;
+                        String type = streamTokenizer.sval();
                        // System.out.println("* " + name + ":" + type + " ");
                         if (streamTokenizer.ttype == '{') {
                             streamTokenizer.nextToken();
                             List<String> attributeLabels = new ArrayList<String>();
                             while (streamTokenizer.ttype != '}') {
 
-                                if (streamTokenizer.sval != null) {
-                                    attributeLabels.add(streamTokenizer.sval);
+                                if (streamTokenizer.sval() != null) {
+                                    attributeLabels.add(streamTokenizer.sval());
                                    // System.out.print(streamTokenizer.sval + ",");
                                 } else {
                                     attributeLabels.add(Double.toString(streamTokenizer.nval));
@@ -442,7 +432,10 @@ public class ArffLoader {
             Logger.getLogger(ArffLoader.class.getName()).log(Level.SEVERE, null, ex);
         }
         // this.range.setUpper(inputAttributes.size()+outputAttributes.size());
-        return new InstanceInformation(relation, auxAttributes);
+        // shares the attributes with the loaders of the same header
+        InstancesHeader header = InstancesHeader.intern(
+                new InstancesHeader(new Instances(relation, auxAttributes, 0)));
+        return new InstanceInformation(header.getInstanceInformation());
     }
 
     protected Instance newSparseInstance(double d, double[] res) {
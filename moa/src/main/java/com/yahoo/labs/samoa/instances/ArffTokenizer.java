@@ -0,0 +1,262 @@
+/*
+ *    ArffTokenizer.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StreamTokenizer;
+import java.util.Arrays;
+
+/**
+ * Tokenizer of ARFF files, splitting them as a StreamTokenizer with the
+ * syntax of ArffLoader does: words and quoted strings separated by
+ * whitespace and commas, the braces of sparse instances, significant ends of
+ * lines, and comments from '%' to the end of the line.
+ *
+ * Unlike a StreamTokenizer, which creates a string for each word, it keeps
+ * the characters of the current word or quoted string in a buffer, so that
+ * they can be matched, for instance by Attribute.indexOfValue, without
+ * creating a string. The string is only created when asked for.
+ *
+ * The token types are those of StreamTokenizer. Numbers are not parsed: they
+ * are words.
+ */
+public class ArffTokenizer {
+
+    protected static final int NEED_CHAR = Integer.MAX_VALUE;
+
+    protected static final int SKIP_LF = Integer.MAX_VALUE - 1;
+
+    protected final Reader reader;
+
+    /**
+     * The type of the current token: StreamTokenizer.TT_WORD, TT_EOL,
+     * TT_EOF, the quote character of a quoted string, or the character of
+     * an ordinary token.
+     */
+    public int ttype = -4;
+
+    /**
+     * Kept for the code written for StreamTokenizer: always 0, as numbers
+     * are not parsed.
+     */
+    public double nval;
+
+    // the characters of the current word or quoted string
+    protected char[] buf = new char[32];
+
+    protected int length;
+
+    protected String sval;
+
+    protected int peekc = NEED_CHAR;
+
+    public ArffTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    protected static boolean isWhitespace(int c) {
+        return (c <= ' ') || (c == ',');
+    }
+
+    protected static boolean isQuote(int c) {
+        return (c == '"') || (c == '\'');
+    }
+
+    protected static boolean isWordChar(int c) {
+        return !isWhitespace(c) && !isQuote(c) && (c != '%') && (c != '{') && (c != '}');
+    }
+
+    protected void append(int c) {
+        if (this.length == this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, 2 * this.buf.length);
+        }
+        this.buf[this.length++] = (char) c;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the type of the token
+     * @throws IOException if reading fails
+     */
+    public int nextToken() throws IOException {
+        this.sval = null;
+        this.length = 0;
+        int c = this.peekc;
+        if (c < 0) {
+            c = NEED_CHAR;
+        }
+        if (c == SKIP_LF) {
+            c = this.reader.read();
+            if (c < 0) {
+                return this.ttype = StreamTokenizer.TT_EOF;
+            }
+            if (c == '\n') {
+                c = NEED_CHAR;
+            }
+        }
+        if (c == NEED_CHAR) {
+            c = this.reader.read();
+            if (c < 0) {
+                return this.ttype = StreamTokenizer.TT_EOF;
+            }
+        }
+        this.ttype = c;
+        this.peekc = NEED_CHAR;
+
+        while (isWhitespace(c)) {
+            if (c == '\r') {
+                this.peekc = SKIP_LF;
+                return this.ttype = StreamTokenizer.TT_EOL;
+            }
+            if (c == '\n') {
+                return this.ttype = StreamTokenizer.TT_EOL;
+            }
+            c = this.reader.read();
+            if (c < 0) {
+                return this.ttype = StreamTokenizer.TT_EOF;
+            }
+        }
+
+        if (isWordChar(c)) {
+            do {
+                append(c);
+                c = this.reader.read();
+            } while ((c >= 0) && isWordChar(c));
+            this.peekc = c;
+            return this.ttype = StreamTokenizer.TT_WORD;
+        }
+
+        if (isQuote(c)) {
+            this.ttype = c;
+            // as StreamTokenizer: up to the closing quote or the end of the
+            // line, with the escapes of Java
+            int d = this.reader.read();
+            while ((d >= 0) && (d != this.ttype) && (d != '\n') && (d != '\r')) {
+                if (d == '\\') {
+                    c = this.reader.read();
+                    int first = c;
+                    if ((c >= '0') && (c <= '7')) {
+                        c = c - '0';
+                        int c2 = this.reader.read();
+                        if (('0' <= c2) && (c2 <= '7')) {
+                            c = (c << 3) + (c2 - '0');
+                            c2 = this.reader.read();
+                            if (('0' <= c2) && (c2 <= '7') && (first <= '3')) {
+                                c = (c << 3) + (c2 - '0');
+                                c2 = this.reader.read();
+                            }
+                        }
+                        d = c2;
+                    } else {
+                        switch (c) {
+                            case 'a':
+                                c = 0x7;
+                                break;
+                            case 'b':
+                                c = '\b';
+                                break;
+                            case 'f':
+                                c = 0xC;
+                                break;
+                            case 'n':
+                                c = '\n';
+                                break;
+                            case 'r':
+                                c = '\r';
+                                break;
+                            case 't':
+                                c = '\t';
+                                break;
+                            case 'v':
+                                c = 0xB;
+                                break;
+                        }
+                        d = this.reader.read();
+                    }
+                } else {
+                    c = d;
+                    d = this.reader.read();
+                }
+                append(c);
+            }
+            this.peekc = (d == this.ttype) ? NEED_CHAR : d;
+            return this.ttype;
+        }
+
+        if (c == '%') {
+            while (((c = this.reader.read()) != '\n') && (c != '\r') && (c >= 0)) {
+                // skips the comment
+            }
+            this.peekc = c;
+            return nextToken();
+        }
+
+        return this.ttype = c;
+    }
+
+    /**
+     * Returns whether the current token is a word or a quoted string.
+     */
+    public boolean hasChars() {
+        return (this.ttype == StreamTokenizer.TT_WORD) || isQuote(this.ttype);
+    }
+
+    /**
+     * Returns the buffer holding the characters of the current word or
+     * quoted string, from 0 to length(). The buffer is reused by the next
+     * tokens.
+     */
+    public char[] chars() {
+        return this.buf;
+    }
+
+    /**
+     * Returns the number of characters of the current word or quoted string.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns whether the current word or quoted string is a given string.
+     */
+    public boolean charsEqual(String s) {
+        if (!hasChars() || (s.length() != this.length)) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i++) {
+            if (s.charAt(i) != this.buf[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current word or quoted string as a string, as the sval of
+     * a StreamTokenizer, or null for the other tokens.
+     */
+    public String sval() {
+        if ((this.sval == null) && hasChars()) {
+            this.sval = new String(this.buf, 0, this.length);
+        }
+        return this.sval;
+    }
+}
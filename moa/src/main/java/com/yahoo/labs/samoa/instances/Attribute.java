@@ -25,6 +25,8 @@ import moa.core.Utils;
  */
 public class Attribute implements Serializable {
 
+    private static final long serialVersionUID = -4197880361833187660L;
+
     /** The keyword used to denote the start of an arff attribute declaration */
     public final static String ARFF_ATTRIBUTE = "@attribute";
 
@@ -78,9 +80,16 @@ public class Attribute implements Serializable {
     protected String name;
 
     /**
-     * The attribute values.
+     * The attribute values, copied on write: a new value is added to a copy
+     * then published, so that the values can be read without locking.
      */
-    protected List<String> attributeValues;
+    protected volatile List<String> attributeValues;
+
+    /**
+     * Whether the values and their dictionary are shared with other
+     * attributes, see copySharingValues, so that adding a value copies them.
+     */
+    protected boolean valuesShared;
 
     /**
      * Gets the attribute values.
@@ -122,7 +131,6 @@ public class Attribute implements Serializable {
      */
     public Attribute(String attributeName, String dateFormat) {
         this.name = attributeName;        
-        this.valuesStringAttribute = null;
         this.isDate = true;
         
         if (dateFormat != null) {
@@ -139,6 +147,28 @@ public class Attribute implements Serializable {
         this("");
     }
 
+    /**
+     * Returns a copy of this attribute that shares its values, and their
+     * dictionary, until a value is added to either: the one the value is
+     * added to then copies them first, so that the other does not see it.
+     *
+     * @return the copy
+     */
+    public synchronized Attribute copySharingValues() {
+        Attribute copy = new Attribute(this.name);
+        copy.isNominal = this.isNominal;
+        copy.isNumeric = this.isNumeric;
+        copy.isDate = this.isDate;
+        copy.m_DateFormat = this.m_DateFormat;
+        if (this.isNominal) {
+            copy.attributeValues = this.attributeValues;
+            copy.valueDictionary = valueDictionary();
+            copy.valuesShared = true;
+            this.valuesShared = true;
+        }
+        return copy;
+    }
+
     /**
      * Checks if is nominal.
      *
@@ -164,7 +194,7 @@ public class Attribute implements Serializable {
      * @return the string
      */
     public String value(int value) {
-        return attributeValues.get(value);
+        return this.attributeValues.get(value);
     }
 
     /**
@@ -185,7 +215,7 @@ public class Attribute implements Serializable {
         if (isNumeric()) {
             return 0;
         } else {
-            return attributeValues.size();
+            return this.attributeValues.size();
         }
     }
 
@@ -218,9 +248,28 @@ public class Attribute implements Serializable {
     }
 
     /**
-     * The values string attribute.
+     * The dictionary of the values, built on first use.
      */
-    private Map<String, Integer> valuesStringAttribute;
+    private transient volatile NominalDictionary valueDictionary;
+
+    /**
+     * Gets the dictionary of the values, building it if needed.
+     *
+     * @return the dictionary of the values
+     */
+    protected final NominalDictionary valueDictionary() {
+        NominalDictionary dictionary = this.valueDictionary;
+        if (dictionary == null) {
+            synchronized (this) {
+                dictionary = this.valueDictionary;
+                if (dictionary == null) {
+                    dictionary = new NominalDictionary(this.attributeValues);
+                    this.valueDictionary = dictionary;
+                }
+            }
+        }
+        return dictionary;
+    }
 
     /**
      * Index of value.
@@ -233,26 +282,55 @@ public class Attribute implements Serializable {
         if (isNominal() == false) {
             return -1;
         }
-        if (this.valuesStringAttribute == null) {
-            this.valuesStringAttribute = new HashMap<String, Integer>();
-            int count = 0;
-            for (String stringValue : attributeValues) {
-                this.valuesStringAttribute.put(stringValue, count);
-                count++;
-            }
-        }
-        Integer val = (Integer) this.valuesStringAttribute.get(value);
+        int index = valueDictionary().indexOf(value);
         
         // in case value was not on a list of unique values of nominal attribute yet, add it
         // Hence, the list of values can be extended with new entries arriving in the stream
-        if (val == null) {
-          int currentValueCount=this.valuesStringAttribute.size();
-          this.valuesStringAttribute.put(value,currentValueCount);
-          this.attributeValues.add(value);
-          return currentValueCount;
-        } else {
-            return val.intValue();
+        return index >= 0 ? index : addValue(value);
+    }
+
+    /**
+     * Index of the value made of a slice of characters, matched without
+     * creating a string unless the value is new.
+     *
+     * @param chars the characters
+     * @param start the position of the first character of the value
+     * @param length the number of characters of the value
+     * @return the int
+     */
+    public final int indexOfValue(char[] chars, int start, int length) {
+
+        if (isNominal() == false) {
+            return -1;
+        }
+        int index = valueDictionary().indexOf(chars, start, length);
+        return index >= 0 ? index : addValue(new String(chars, start, length));
+    }
+
+    /**
+     * Adds a value to the list of values, unless another thread just did.
+     *
+     * @param value the value
+     * @return the index of the value
+     */
+    private synchronized int addValue(String value) {
+        NominalDictionary dictionary = valueDictionary();
+        int index = dictionary.indexOf(value);
+        if (index < 0) {
+            index = dictionary.size();
+            // the value is published before its index can be looked up
+            List<String> values = new ArrayList<String>(this.attributeValues);
+            values.add(value);
+            this.attributeValues = values;
+            if (this.valuesShared) {
+                // the other attributes keep the dictionary without the value
+                this.valueDictionary = new NominalDictionary(values);
+                this.valuesShared = false;
+            } else {
+                dictionary.put(value, index);
+            }
         }
+        return index;
     }
     
     /**
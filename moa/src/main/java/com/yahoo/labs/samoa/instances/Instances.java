@@ -57,9 +57,14 @@ public class Instances implements Serializable {
     protected ArffLoader arff;
 
     /**
-     * A Hash that stores the indices of features.
+     * A Hash that stores the indices of features, built on first use.
      */
-    protected HashMap<String, Integer> hsAttributesIndices;
+    protected volatile HashMap<String, Integer> hsAttributesIndices;
+
+    /**
+     * The names of the attributes when the indices were last computed.
+     */
+    protected String[] attributeNames;
 
     /**
      * Indices of relevant features.
@@ -618,19 +623,50 @@ public class Instances implements Serializable {
      * @param att, the attribute.
      */
     protected int indexOf(Attribute att) {
-        return this.hsAttributesIndices.get(att.name());
+        HashMap<String, Integer> indices = this.hsAttributesIndices;
+        if (indices == null) {
+            indices = buildAttributesIndices();
+        }
+        return indices.get(att.name());
     }
 
     /**
-     * Completes the hashset with attributes indices.
+     * Records the names of the attributes, whose indices are hashed on first
+     * use, so that copies of large headers that never look attributes up do
+     * not build the hashset.
      */
     private void computeAttributesIndices() {
-        this.hsAttributesIndices = new HashMap<String, Integer>();
-        // iterates through all existing attributes 
-        // and sets an unique identifier for each one of them
-        for (int i = 0; i < this.numAttributes(); i++) {
-            hsAttributesIndices.put(this.attribute(i).name(), i);
+        this.hsAttributesIndices = null;
+        if (this.instanceInformation == null) {
+            this.attributeNames = null;
+            return;
+        }
+        this.attributeNames = new String[this.numAttributes()];
+        for (int i = 0; i < this.attributeNames.length; i++) {
+            this.attributeNames[i] = this.attribute(i).name();
+        }
+    }
+
+    /**
+     * Completes the hashset with attributes indices.
+     */
+    private synchronized HashMap<String, Integer> buildAttributesIndices() {
+        if (this.hsAttributesIndices == null) {
+            HashMap<String, Integer> indices = new HashMap<String, Integer>();
+            // iterates through all existing attributes 
+            // and sets an unique identifier for each one of them
+            if (this.attributeNames == null) {
+                for (int i = 0; i < this.numAttributes(); i++) {
+                    indices.put(this.attribute(i).name(), i);
+                }
+            } else {
+                for (int i = 0; i < this.attributeNames.length; i++) {
+                    indices.put(this.attributeNames[i], i);
+                }
+            }
+            this.hsAttributesIndices = indices;
         }
+        return this.hsAttributesIndices;
     }
 
     /**
@@ -15,6 +15,13 @@
  */
 package com.yahoo.labs.samoa.instances;
 
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Class for storing the header or context of a data stream. It allows to know
  * the number of attributes and classes.
@@ -25,6 +32,8 @@ public class InstancesHeader extends Instances {
 
     private static final long serialVersionUID = 1L;
 
+    protected static final Map<String, SoftReference<InstancesHeader>> internedHeaders = new HashMap<String, SoftReference<InstancesHeader>>();
+
     public InstancesHeader(Instances i) {
         super(i, 0);
     }
@@ -33,6 +42,51 @@ public class InstancesHeader extends Instances {
         super();
     }
 
+    /**
+     * Returns a header equal to a header, whose nominal attributes share the
+     * values, and their dictionaries, of the canonical header with the same
+     * relation name and attributes: the first such header interned, while it
+     * is softly reachable. The headers interned then keep a single copy of
+     * the values rather than each having its own.
+     *
+     * Each header returned has its own attributes: a nominal value added to
+     * one of them as it is met in the data copies its values first, and the
+     * other headers do not see it.
+     *
+     * @param header the header, which must not be modified afterwards
+     * @return a header sharing the values of the canonical header
+     */
+    public static InstancesHeader intern(InstancesHeader header) {
+        StringBuilder key = new StringBuilder();
+        key.append(header.getRelationName()).append('\n');
+        for (int i = 0; i < header.numAttributes(); i++) {
+            key.append(header.attribute(i)).append('\n');
+        }
+        synchronized (internedHeaders) {
+            SoftReference<InstancesHeader> reference = internedHeaders.get(key.toString());
+            InstancesHeader canonical = reference == null ? null : reference.get();
+            if (canonical == null) {
+                // forgets the headers no longer reachable
+                Iterator<SoftReference<InstancesHeader>> references = internedHeaders.values().iterator();
+                while (references.hasNext()) {
+                    if (references.next().get() == null) {
+                        references.remove();
+                    }
+                }
+                canonical = header;
+                internedHeaders.put(key.toString(), new SoftReference<InstancesHeader>(canonical));
+            }
+            List<Attribute> attributes = new ArrayList<Attribute>(canonical.numAttributes());
+            for (int i = 0; i < canonical.numAttributes(); i++) {
+                attributes.add(canonical.attribute(i).copySharingValues());
+            }
+            InstancesHeader result = new InstancesHeader(new Instances(header.getRelationName(), attributes, 0));
+            result.instanceInformation.classIndex = header.instanceInformation.classIndex;
+            result.instanceInformation.range = header.instanceInformation.range;
+            return result;
+        }
+    }
+
     public static String getClassNameString(InstancesHeader context) {
         if (context == null) {
             return "[class]";
@@ -0,0 +1,200 @@
+/*
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.  
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Dictionary of the values of a nominal attribute, mapping them to their
+ * indexes without boxing. Values can be looked up as strings, or as slices of
+ * characters without creating strings.
+ *
+ * The values are kept in an open addressing table of immutable entries.
+ * Lookups do not lock and can run while values are added: a lookup that
+ * misses a value being added returns -1, and the caller adds the value, which
+ * is synchronized, and finds it then.
+ */
+public class NominalDictionary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final String value;
+
+        protected final int hash;
+
+        protected final int index;
+
+        protected Entry(String value, int hash, int index) {
+            this.value = value;
+            this.hash = hash;
+            this.index = index;
+        }
+    }
+
+    // power of two length, at most half full
+    protected volatile Entry[] table;
+
+    protected int size;
+
+    /**
+     * Creates the dictionary of a list of values, indexed by their positions
+     * in the list. The last of repeated values wins.
+     */
+    public NominalDictionary(List<String> values) {
+        int length = 16;
+        while (length < 2 * values.size()) {
+            length *= 2;
+        }
+        this.table = new Entry[length];
+        for (int i = 0; i < values.size(); i++) {
+            put(values.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the number of distinct values.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    protected static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the index of a value, or -1 if it is not in the dictionary.
+     */
+    public int indexOf(String value) {
+        int hash = value.hashCode();
+        Entry[] entries = this.table;
+        int mask = entries.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.hash == hash && entry.value.equals(value)) {
+                return entry.index;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the value made of a slice of characters, or -1 if
+     * it is not in the dictionary.
+     */
+    public int indexOf(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        Entry[] entries = this.table;
+        int mask = entries.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.hash == hash && matches(entry.value, chars, start, length)) {
+                return entry.index;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the value made of a sequence of characters, or -1
+     * if it is not in the dictionary.
+     */
+    public int indexOf(CharSequence chars) {
+        if (chars instanceof String) {
+            return indexOf((String) chars);
+        }
+        int length = chars.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        Entry[] entries = this.table;
+        int mask = entries.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.hash == hash && entry.value.contentEquals(chars)) {
+                return entry.index;
+            }
+        }
+    }
+
+    protected static boolean matches(String value, char[] chars, int start, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a value, or changes its index if it is in the dictionary already.
+     */
+    public synchronized void put(String value, int index) {
+        int hash = value.hashCode();
+        Entry[] entries = this.table;
+        int mask = entries.length - 1;
+        int i = spread(hash) & mask;
+        while (entries[i] != null) {
+            if (entries[i].hash == hash && entries[i].value.equals(value)) {
+                entries[i] = new Entry(value, hash, index);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (2 * (this.size + 1) > entries.length) {
+            // grows the table, publishing it once filled
+            Entry[] newEntries = new Entry[2 * entries.length];
+            int newMask = newEntries.length - 1;
+            for (Entry entry : entries) {
+                if (entry != null) {
+                    int j = spread(entry.hash) & newMask;
+                    while (newEntries[j] != null) {
+                        j = (j + 1) & newMask;
+                    }
+                    newEntries[j] = entry;
+                }
+            }
+            i = spread(hash) & newMask;
+            while (newEntries[i] != null) {
+                i = (i + 1) & newMask;
+            }
+            newEntries[i] = new Entry(value, hash, index);
+            this.table = newEntries;
+        } else {
+            entries[i] = new Entry(value, hash, index);
+        }
+        this.size++;
+    }
+}
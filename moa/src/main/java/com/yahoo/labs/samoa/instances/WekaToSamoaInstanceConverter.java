@@ -91,7 +91,9 @@ public class WekaToSamoaInstanceConverter implements Serializable{
         for (int i = 0; i < instances.numAttributes(); i++) {
             attInfo.add(samoaAttribute(i, instances.attribute(i)));
         }
-        samoaInstances = new Instances(instances.relationName(), attInfo, 0);
+        // shares the attributes with the conversions of the same header
+        samoaInstances = new Instances(InstancesHeader.intern(new InstancesHeader(
+                new Instances(instances.relationName(), attInfo, 0))), 0);
         
         if(instances.classIndex() >= 0) { // class attribute is present
             samoaInstances.setClassIndex(instances.classIndex());
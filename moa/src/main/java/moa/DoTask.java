@@ -20,11 +20,13 @@
 package moa;
 
 import weka.core.Version;
+import moa.core.ComputeExecutor;
 import moa.core.Globals;
 import moa.core.Measurement;
 import moa.core.StringUtils;
 import moa.core.TimingUtils;
 import moa.core.WekaUtils;
+import moa.evaluation.preview.LearningCurve;
 import moa.options.ClassOption;
 import moa.tasks.AbstractTask;
 import moa.tasks.FailedTaskReport;
@@ -147,9 +149,18 @@ public class DoTask {
                         'F',
                         "How many milliseconds to wait between status updates.",
                         1000, 0, Integer.MAX_VALUE);
+                IntOption computeThreadsOption = new IntOption(
+                        "computeThreads",
+                        'C',
+                        "How many threads learners share to run work in parallel (0 = as many as processors).",
+                        0, 0, Integer.MAX_VALUE);
+                FlagOption computeMetricsOption = new FlagOption(
+                        "computeMetrics", 'M',
+                        "Print the work run by the shared threads to stderr once the task is done.");
                 Option[] extraOptions = new Option[]{
                     suppressStatusOutputOption, suppressResultOutputOption,
-                    statusUpdateFrequencyOption};
+                    statusUpdateFrequencyOption, computeThreadsOption,
+                    computeMetricsOption};
                 // build a single string by concatenating cli options
                 StringBuilder cliString = new StringBuilder();
                 for (int i = 0; i < args.length; i++) {
@@ -165,11 +176,15 @@ public class DoTask {
             		task = (AbstractTask) ClassOption.cliStringToObject(
             				cliString.toString(), MetaMainTask.class, extraOptions);
                 }
+                if (computeThreadsOption.getValue() > 0) {
+                    ComputeExecutor.setNumThreads(computeThreadsOption.getValue());
+                }
                 task.prepareForUse();
                 
                 Object result = null;
                 if (suppressStatusOutputOption.isSet()) {
                     result = task.doTask();
+                    ComputeExecutor.shutdown();
                 } else {
                     System.err.println();
                     System.err.println(Globals.getWorkbenchInfoString());
@@ -220,6 +235,7 @@ public class DoTask {
                     }
                     System.err.println(cleanupString);
                     result = taskThread.getFinalResult();
+                    ComputeExecutor.shutdown();
                     if (!(result instanceof FailedTaskReport)) {
                         System.err.print("Task completed in "
                                 + StringUtils.secondsToDHMSString(taskThread.getCPUSecondsElapsed()));
@@ -230,6 +246,11 @@ public class DoTask {
                         System.err.println();
                     }
                 }
+                if (computeMetricsOption.isSet()) {
+                    StringBuilder metrics = new StringBuilder();
+                    ComputeExecutor.getMetricsDescription(metrics);
+                    System.err.print(metrics);
+                }
                 if (result instanceof FailedTaskReport) {
                     System.err.println("Task failed. Reason: ");
                     ((FailedTaskReport) result).getFailureReason().printStackTrace();
@@ -240,6 +261,8 @@ public class DoTask {
                             Measurement.getMeasurementsDescription(
                                     (Measurement[]) result, sb, 0);
                             System.out.println(sb.toString());
+                        } else if (result instanceof LearningCurve) {
+                            ((LearningCurve) result).writeCSV(System.out);
                         } else {
                             System.out.println(result);
                         }
@@ -140,13 +140,15 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
         for (int classIndex = 0; classIndex < votes.length; classIndex++) {
             votes[classIndex] = observedClassDistribution.getValue(classIndex)
                     / observedClassSum;
-            for (int attIndex = 0; attIndex < inst.numAttributes() - 1; attIndex++) {
-                int instAttIndex = modelAttIndexToInstanceAttIndex(attIndex,
-                        inst);
-                AttributeClassObserver obs = attributeObservers.get(attIndex);
-                if ((obs != null) && !inst.isMissing(instAttIndex)) {
-                    votes[classIndex] *= obs.probabilityOfAttributeValueGivenClass(inst.value(instAttIndex), classIndex);
-                }
+        }
+        // the votes of all the classes are updated attribute by attribute,
+        // in the same order as one class at a time
+        for (int attIndex = 0; attIndex < inst.numAttributes() - 1; attIndex++) {
+            int instAttIndex = modelAttIndexToInstanceAttIndex(attIndex,
+                    inst);
+            AttributeClassObserver obs = attributeObservers.get(attIndex);
+            if ((obs != null) && !inst.isMissing(instAttIndex)) {
+                obs.multiplyByProbabilitiesOfAttributeValue(inst.value(instAttIndex), votes);
             }
         }
         // TODO: need logic to prevent underflow?
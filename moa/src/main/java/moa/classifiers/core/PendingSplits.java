@@ -0,0 +1,193 @@
+/*
+ *    PendingSplits.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.ComputeExecutor;
+
+/**
+ * Split attempts of the leaves of a tree that are evaluated in the
+ * background, on the compute executor, and decided a number of instances
+ * later.
+ *
+ * A leaf stops learning while its split attempt is pending: the instances it
+ * receives are buffered, to be learned once the decision is applied, so that
+ * its statistics do not change while they are evaluated and the tree does not
+ * depend on how long the evaluation takes. Pending splits are serialized with
+ * their suggestions and buffered instances, so that a copy of the tree goes
+ * on as the tree would.
+ *
+ * @param <N> the type of the leaves
+ * @param <S> the type of the split suggestions
+ */
+public class PendingSplits<N, S> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Split attempt of a leaf, extended by trees that need to know more
+     * about the leaf to apply the decision.
+     */
+    public static class PendingSplit<N, S> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final N node;
+
+        protected long applyAt;
+
+        protected transient CompletableFuture<S[]> suggestions;
+
+        // instances that reached the node while its split was evaluated
+        protected final List<Instance> instances = new ArrayList<Instance>();
+
+        protected boolean growthAllowed = true;
+
+        public PendingSplit(N node) {
+            this.node = node;
+        }
+
+        public N getNode() {
+            return this.node;
+        }
+
+        /**
+         * Returns the split suggestions of the leaf, waiting for their
+         * evaluation if needed.
+         */
+        public S[] getSuggestions() {
+            return this.suggestions.join();
+        }
+
+        public List<Instance> getInstances() {
+            return this.instances;
+        }
+
+        /**
+         * Returns whether the leaf was allowed to grow when it last
+         * received an instance.
+         */
+        public boolean isGrowthAllowed() {
+            return this.growthAllowed;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeObject(getSuggestions());
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            this.suggestions = CompletableFuture.completedFuture((S[]) in.readObject());
+        }
+    }
+
+    // name the evaluations are counted under by the compute executor
+    protected final String owner;
+
+    protected long instancesSeen;
+
+    // by application time
+    protected final ArrayDeque<PendingSplit<N, S>> splits = new ArrayDeque<PendingSplit<N, S>>();
+
+    protected final Map<N, PendingSplit<N, S>> splitsByNode = new IdentityHashMap<N, PendingSplit<N, S>>();
+
+    /**
+     * @param owner the name the evaluations are counted under, usually the
+     * class of the tree
+     */
+    public PendingSplits(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Counts an instance given to the tree, which brings the pending splits
+     * closer to their decision.
+     */
+    public void countInstance() {
+        this.instancesSeen++;
+    }
+
+    /**
+     * Starts evaluating the split suggestions of a leaf, to be decided a
+     * number of instances later.
+     *
+     * @param split the split attempt of the leaf
+     * @param delay the number of instances after which it is decided
+     * @param evaluation returns the split suggestions of the leaf, run in the
+     * background
+     */
+    public void add(PendingSplit<N, S> split, int delay, Supplier<S[]> evaluation) {
+        split.applyAt = this.instancesSeen + delay;
+        split.suggestions = ComputeExecutor.submit(this.owner, evaluation::get);
+        this.splits.add(split);
+        this.splitsByNode.put(split.node, split);
+    }
+
+    /**
+     * Buffers an instance reaching a leaf if its split attempt is pending.
+     *
+     * @param node the leaf reached by the instance
+     * @param inst the instance
+     * @param growthAllowed whether the leaf is allowed to grow
+     * @return whether the instance was buffered
+     */
+    public boolean bufferInstance(Object node, Instance inst, boolean growthAllowed) {
+        PendingSplit<N, S> split = this.splitsByNode.get(node);
+        if (split == null) {
+            return false;
+        }
+        split.instances.add(inst);
+        split.growthAllowed = growthAllowed;
+        return true;
+    }
+
+    /**
+     * Removes the next split attempt that is due, or the next one whether it
+     * is due or not.
+     *
+     * @param all whether to return split attempts that are not due yet
+     * @return the split attempt, or null if there is none
+     */
+    public PendingSplit<N, S> poll(boolean all) {
+        PendingSplit<N, S> split = this.splits.peek();
+        if (split == null || (!all && split.applyAt > this.instancesSeen)) {
+            return null;
+        }
+        this.splits.poll();
+        this.splitsByNode.remove(split.node);
+        return split;
+    }
+
+    public boolean isEmpty() {
+        return this.splits.isEmpty();
+    }
+}
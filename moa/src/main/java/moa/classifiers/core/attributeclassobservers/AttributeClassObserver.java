@@ -54,6 +54,41 @@ public interface AttributeClassObserver extends OptionHandler {
     public double probabilityOfAttributeValueGivenClass(double attVal,
             int classVal);
 
+    /**
+     * Multiplies the votes for the classes by the probabilities of an
+     * attribute value given each class, in one pass over the classes
+     *
+     * @param attVal the attribute value
+     * @param votes the votes for the classes, updated in place
+     */
+    default void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes) {
+        for (int classVal = 0; classVal < votes.length; classVal++) {
+            votes[classVal] *= probabilityOfAttributeValueGivenClass(attVal, classVal);
+        }
+    }
+
+    /**
+     * Multiplies the votes for the classes by the probabilities of an
+     * attribute value given each class, as if zeros of each class had been
+     * observed on top of the values observed so far, without changing this
+     * observer. Used by sparse learning, which leaves the zeros out.
+     *
+     * @param attVal the attribute value
+     * @param votes the votes for the classes, updated in place
+     * @param zeroWeights the weight of the zeros not observed, per class
+     */
+    default void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes, double[] zeroWeights) {
+        AttributeClassObserver withZeros = (AttributeClassObserver) copy();
+        for (int classVal = 0; classVal < zeroWeights.length; classVal++) {
+            if (zeroWeights[classVal] > 0.0) {
+                withZeros.observeAttributeClass(0.0, classVal, zeroWeights[classVal]);
+            }
+        }
+        withZeros.multiplyByProbabilitiesOfAttributeValue(attVal, votes);
+    }
+
     /**
      * Gets the best split suggestion given a criterion and a class distribution
      *
@@ -67,7 +102,13 @@ public interface AttributeClassObserver extends OptionHandler {
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
             boolean binaryOnly);
 
-
+    /**
+     * Updates statistics of this observer given an attribute value and a
+     * numeric target, for the observers of regression learners
+     *
+     * @param attVal the value of the attribute
+     * @param target the target of the instance
+     */
     public void observeAttributeTarget(double attVal, double target);
 
     /**
@@ -0,0 +1,336 @@
+/*
+ *    BinnedNumericAttributeClassObserver.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.AttributeSplitSuggestionHistrogram;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.ObjectRepository;
+import moa.core.StringUtils;
+import moa.core.Utils;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+import com.github.javacliparser.IntOption;
+
+/**
+ * Class for observing the class data distribution for a numeric attribute
+ * using a fixed number of equal-width bins.
+ * This observer monitors the class distribution of a given attribute.
+ * Used in naive Bayes and decision trees to monitor data statistics on leaves.
+ *
+ * Unlike the binary tree observer, its memory does not grow with the number
+ * of distinct values observed: the weight (and number) of the observations of
+ * each class falling in each bin are kept in primitive arrays. The range of
+ * the bins adapts to the values observed by doubling the width of the bins,
+ * merging them by pairs, whenever a value falls outside of it. An observation
+ * costs O(1) and the evaluation of the splits, at the boundaries of the bins,
+ * O(bins x classes).
+ */
+public class BinnedNumericAttributeClassObserver extends AbstractOptionHandler
+        implements NumericAttributeClassObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption numBinsOption = new IntOption("numBins", 'n',
+            "The number of bins (rounded up to an even number).", 32, 2, Integer.MAX_VALUE);
+
+    protected int numBins;
+
+    protected int numClasses;
+
+    // bins cover [lowerBound, lowerBound + numBins * binWidth), a width of
+    // zero meaning that a single value has been observed
+    protected double lowerBound;
+
+    protected double binWidth;
+
+    // per bin and class, at [bin * numClasses + class]
+    protected double[] weights;
+
+    protected double[] counts;
+
+    protected double[] classWeights;
+
+    @Override
+    public void observeAttributeClass(double attVal, int classVal, double weight) {
+        if (Utils.isMissingValue(attVal) || Double.isInfinite(attVal)) {
+            return;
+        }
+        if (this.weights == null) {
+            this.numBins = (this.numBinsOption.getValue() + 1) & ~1;
+            this.lowerBound = attVal;
+            this.binWidth = 0.0;
+            allocate(classVal + 1);
+        } else if (classVal >= this.numClasses) {
+            allocate(classVal + 1);
+        }
+        int bin = binFor(attVal);
+        this.weights[bin * this.numClasses + classVal] += weight;
+        this.counts[bin * this.numClasses + classVal]++;
+        this.classWeights[classVal] += weight;
+    }
+
+    /**
+     * Not supported: the bins keep the weights of the classes, which a
+     * numeric target does not have. Regression learners use
+     * BinaryTreeNumericAttributeClassObserverRegression or
+     * FIMTDDNumericAttributeClassObserver instead.
+     */
+    @Override
+    public void observeAttributeTarget(double attVal, double target) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    /**
+     * Returns the bin of a value, adapting the range of the bins first if
+     * needed.
+     */
+    protected int binFor(double value) {
+        if (this.binWidth == 0.0) {
+            if (value == this.lowerBound) {
+                return 0;
+            }
+            // the second distinct value sets the initial width
+            double firstValue = this.lowerBound;
+            this.binWidth = Math.max(Math.abs(value - firstValue) / (this.numBins - 1), Double.MIN_VALUE);
+            if (value < firstValue) {
+                this.lowerBound = value;
+                moveBin(0, Math.min(index(firstValue), this.numBins - 1));
+            }
+        }
+        while (value < this.lowerBound) {
+            // the bins become the upper half of the range
+            mergeBins(this.numBins / 2);
+            this.lowerBound -= this.numBins * this.binWidth;
+            this.binWidth *= 2.0;
+        }
+        while (index(value) >= this.numBins) {
+            mergeBins(0);
+            this.binWidth *= 2.0;
+        }
+        return index(value);
+    }
+
+    protected int index(double value) {
+        double position = (value - this.lowerBound) / this.binWidth;
+        return position < this.numBins ? (int) position : this.numBins;
+    }
+
+    protected void allocate(int classes) {
+        int size = this.numBins * classes;
+        double[] newWeights = new double[size];
+        double[] newCounts = new double[size];
+        for (int bin = 0; bin < this.numBins && this.weights != null; bin++) {
+            System.arraycopy(this.weights, bin * this.numClasses, newWeights, bin * classes, this.numClasses);
+            System.arraycopy(this.counts, bin * this.numClasses, newCounts, bin * classes, this.numClasses);
+        }
+        this.weights = newWeights;
+        this.counts = newCounts;
+        this.classWeights = this.classWeights == null ? new double[classes] : Arrays.copyOf(this.classWeights, classes);
+        this.numClasses = classes;
+    }
+
+    protected void moveBin(int from, int to) {
+        if (from != to) {
+            System.arraycopy(this.weights, from * this.numClasses, this.weights, to * this.numClasses, this.numClasses);
+            System.arraycopy(this.counts, from * this.numClasses, this.counts, to * this.numClasses, this.numClasses);
+            Arrays.fill(this.weights, from * this.numClasses, (from + 1) * this.numClasses, 0.0);
+            Arrays.fill(this.counts, from * this.numClasses, (from + 1) * this.numClasses, 0.0);
+        }
+    }
+
+    /**
+     * Merges the bins by pairs into numBins / 2 consecutive bins starting at
+     * the given one, emptying the others.
+     */
+    protected void mergeBins(int first) {
+        double[] newWeights = new double[this.weights.length];
+        double[] newCounts = new double[this.counts.length];
+        for (int bin = 0; bin < this.numBins; bin++) {
+            int to = (first + bin / 2) * this.numClasses;
+            for (int c = 0; c < this.numClasses; c++) {
+                newWeights[to + c] += this.weights[bin * this.numClasses + c];
+                newCounts[to + c] += this.counts[bin * this.numClasses + c];
+            }
+        }
+        this.weights = newWeights;
+        this.counts = newCounts;
+    }
+
+    @Override
+    public double probabilityOfAttributeValueGivenClass(double attVal,
+            int classVal) {
+        if (this.weights == null || classVal >= this.numClasses || this.classWeights[classVal] == 0.0) {
+            return 0.0;
+        }
+        // Laplace correction over the bins, so that an empty bin does not
+        // rule a class out
+        double binWeight = 0.0;
+        if (this.binWidth == 0.0) {
+            if (attVal == this.lowerBound) {
+                binWeight = this.weights[classVal];
+            }
+        } else if (attVal >= this.lowerBound) {
+            int bin = index(attVal);
+            if (bin < this.numBins) {
+                binWeight = this.weights[bin * this.numClasses + classVal];
+            }
+        }
+        double probability = (binWeight + 1.0) / (this.classWeights[classVal] + this.numBins);
+        return this.binWidth > 0.0 ? probability / this.binWidth : probability;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        AttributeSplitSuggestion bestSuggestion = null;
+        if (this.weights == null) {
+            return null;
+        }
+        double[] lhsDist = new double[this.numClasses];
+        double[] rhsDist = Arrays.copyOf(this.classWeights, this.numClasses);
+        int lastBin = lastNonEmptyBin();
+        for (int bin = 0; bin < lastBin; bin++) {
+            if (!addBin(bin, this.weights, lhsDist, rhsDist)) {
+                continue;
+            }
+            double[][] postSplitDists = new double[][]{lhsDist.clone(), rhsDist.clone()};
+            double merit = criterion.getMeritOfSplit(preSplitDist, postSplitDists);
+            if ((bestSuggestion == null) || (merit > bestSuggestion.merit)) {
+                bestSuggestion = new AttributeSplitSuggestion(
+                        new NumericAttributeBinaryTest(attIndex, splitValue(bin),
+                        false), postSplitDists, merit);
+            }
+        }
+        return bestSuggestion;
+    }
+
+    @Override
+    public AttributeSplitSuggestionHistrogram getBestEvaluatedSplitSuggestionHistogram(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        AttributeSplitSuggestionHistrogram bestSuggestion = null;
+        if (this.weights == null) {
+            return null;
+        }
+        double[] lhsDist = new double[this.numClasses];
+        double[] rhsDist = Arrays.copyOf(this.classWeights, this.numClasses);
+        double[] lhsCounts = new double[this.numClasses];
+        double[] rhsCounts = new double[this.numClasses];
+        for (int i = 0; i < this.counts.length; i++) {
+            rhsCounts[i % this.numClasses] += this.counts[i];
+        }
+        int lastBin = lastNonEmptyBin();
+        for (int bin = 0; bin < lastBin; bin++) {
+            addBin(bin, this.counts, lhsCounts, rhsCounts);
+            if (!addBin(bin, this.weights, lhsDist, rhsDist)) {
+                continue;
+            }
+            double[][] postSplitDists = new double[][]{lhsDist.clone(), rhsDist.clone()};
+            double merit = criterion.getMeritOfSplit(preSplitDist, postSplitDists);
+            if ((bestSuggestion == null) || (merit > bestSuggestion.merit)) {
+                bestSuggestion = new AttributeSplitSuggestionHistrogram(
+                        new NumericAttributeBinaryTest(attIndex, splitValue(bin),
+                        false), postSplitDists,
+                        new double[][]{lhsCounts.clone(), rhsCounts.clone()}, merit);
+            }
+        }
+        return bestSuggestion;
+    }
+
+    /**
+     * Moves the statistics of a bin from rhs to lhs, returning false if the
+     * bin is empty.
+     */
+    protected boolean addBin(int bin, double[] stats, double[] lhs, double[] rhs) {
+        boolean empty = true;
+        for (int c = 0; c < this.numClasses; c++) {
+            double w = stats[bin * this.numClasses + c];
+            if (w != 0.0) {
+                lhs[c] += w;
+                rhs[c] -= w;
+                empty = false;
+            }
+        }
+        return !empty;
+    }
+
+    protected int lastNonEmptyBin() {
+        for (int i = this.counts.length - 1; i >= 0; i--) {
+            if (this.counts[i] != 0.0) {
+                return i / this.numClasses;
+            }
+        }
+        return -1;
+    }
+
+    // values lower than the upper boundary of the bin go to lhs
+    protected double splitValue(int bin) {
+        return this.lowerBound + (bin + 1) * this.binWidth;
+    }
+
+    /**
+     * Draws a value of the given class from the bins, uniformly within the
+     * bin, or returns 0 if no value of the class has been observed.
+     */
+    public double getSample(int classVal, Random random) {
+        if (this.weights == null || classVal >= this.numClasses || this.classWeights[classVal] <= 0.0) {
+            return 0.0;
+        }
+        double target = random.nextDouble() * this.classWeights[classVal];
+        int bin = 0;
+        double sum = 0.0;
+        for (; bin < this.numBins - 1; bin++) {
+            sum += this.weights[bin * this.numClasses + classVal];
+            if (sum > target) {
+                break;
+            }
+        }
+        return this.lowerBound + (bin + random.nextDouble()) * this.binWidth;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        if (this.weights == null) {
+            sb.append("No value observed");
+            return;
+        }
+        sb.append(this.numBins);
+        sb.append(" bins of width ");
+        sb.append(StringUtils.doubleToString(this.binWidth, 3));
+        sb.append(" from ");
+        sb.append(StringUtils.doubleToString(this.lowerBound, 3));
+        sb.append(", class weights ");
+        sb.append(Arrays.toString(this.classWeights));
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+        // the bins are allocated by the first observation, so that an
+        // observer prepared again forgets the previous ones
+        this.weights = null;
+        this.counts = null;
+        this.classWeights = null;
+        this.numClasses = 0;
+    }
+}
@@ -32,6 +32,7 @@ import moa.classifiers.core.splitcriteria.SplitCriterion;
 
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
+import moa.core.GaussianDensities;
 import moa.core.GaussianEstimator;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
@@ -55,6 +56,11 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
 
     protected AutoExpandVector<GaussianEstimator> attValDistPerClass = new AutoExpandVector<GaussianEstimator>();
 
+    // densities of the classes, computed again once a value is observed and
+    // published whole, so that concurrent predictions never see them half
+    // computed
+    protected transient volatile GaussianDensities densities;
+
     public IntOption numBinsOption = new IntOption("numBins", 'n',
             "The number of bins.", 10, 1, Integer.MAX_VALUE);
 
@@ -77,6 +83,7 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
                 }
             }
             valDist.addObservation(attVal, weight);
+            this.densities = null;
         }
     }
 
@@ -87,6 +94,36 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         return obs != null ? obs.probabilityDensity(attVal) : 0.0;
     }
 
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes) {
+        GaussianDensities densities = this.densities;
+        if (densities == null) {
+            densities = new GaussianDensities(this.attValDistPerClass.size());
+            for (int classVal = 0; classVal < this.attValDistPerClass.size(); classVal++) {
+                GaussianEstimator obs = this.attValDistPerClass.get(classVal);
+                if (obs != null) {
+                    densities.setClass(classVal, obs.getTotalWeightObserved(), obs.getMean(), obs.getStdDev());
+                }
+            }
+            this.densities = densities;
+        }
+        densities.multiplyByDensities(attVal, votes);
+    }
+
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes, double[] zeroWeights) {
+        for (int classVal = 0; classVal < votes.length; classVal++) {
+            GaussianEstimator obs = this.attValDistPerClass.get(classVal);
+            if (classVal < zeroWeights.length && zeroWeights[classVal] > 0.0) {
+                obs = obs != null ? new GaussianEstimator(obs) : new GaussianEstimator();
+                obs.addObservation(0.0, zeroWeights[classVal]);
+            }
+            votes[classVal] *= obs != null ? obs.probabilityDensity(attVal) : 0.0;
+        }
+    }
+
     @Override
     public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
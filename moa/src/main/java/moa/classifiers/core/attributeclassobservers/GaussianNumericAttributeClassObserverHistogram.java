@@ -36,6 +36,7 @@ import moa.classifiers.core.splitcriteria.SplitCriterion;
 
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
+import moa.core.GaussianDensities;
 import moa.core.GaussianEstimatorHistogram;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
@@ -59,6 +60,11 @@ public class GaussianNumericAttributeClassObserverHistogram extends AbstractOpti
 
     protected AutoExpandVector<GaussianEstimatorHistogram> attValDistPerClass = new AutoExpandVector<GaussianEstimatorHistogram>();        
 
+    // densities of the classes, computed again once a value is observed and
+    // published whole, so that concurrent predictions never see them half
+    // computed
+    protected transient volatile GaussianDensities densities;
+
     public IntOption numBinsOption = new IntOption("numBins", 'n',
             "The number of bins.", 10, 1, Integer.MAX_VALUE);
     
@@ -113,6 +119,7 @@ public class GaussianNumericAttributeClassObserverHistogram extends AbstractOpti
                 }
             }
             valDist.addObservation(attVal, weight);
+            this.densities = null;
         }
     }
 
@@ -123,6 +130,23 @@ public class GaussianNumericAttributeClassObserverHistogram extends AbstractOpti
         return obs != null ? obs.probabilityDensity(attVal) : 0.0;
     }
 
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes) {
+        GaussianDensities densities = this.densities;
+        if (densities == null) {
+            densities = new GaussianDensities(this.attValDistPerClass.size());
+            for (int classVal = 0; classVal < this.attValDistPerClass.size(); classVal++) {
+                GaussianEstimatorHistogram obs = this.attValDistPerClass.get(classVal);
+                if (obs != null) {
+                    densities.setClass(classVal, obs.getTotalWeightObserved(), obs.getMean(), obs.getStdDev());
+                }
+            }
+            this.densities = densities;
+        }
+        densities.multiplyByDensities(attVal, votes);
+    }
+
     @Override
     public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
@@ -51,6 +51,11 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
 
     public AutoExpandVector<DoubleVector> attValDistPerClass = new AutoExpandVector<DoubleVector>();
 
+    // denominators of the probabilities of the classes, computed again once
+    // a value is observed and published whole, so that concurrent
+    // predictions never see them half computed
+    protected transient volatile double[] probabilityDenominators;
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Utils.isMissingValue(attVal)) {
@@ -63,6 +68,7 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
                 this.attValDistPerClass.set(classVal, valDist);
             }
             valDist.addToValue(attValInt, weight);
+            this.probabilityDenominators = null;
         }
         this.totalWeightObserved += weight;
     }
@@ -75,6 +81,42 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
                 / (obs.sumOfValues() + obs.numValues()) : 0.0;
     }
 
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes) {
+        double[] denominators = this.probabilityDenominators;
+        if (denominators == null) {
+            denominators = new double[this.attValDistPerClass.size()];
+            for (int classVal = 0; classVal < denominators.length; classVal++) {
+                DoubleVector obs = this.attValDistPerClass.get(classVal);
+                if (obs != null) {
+                    denominators[classVal] = obs.sumOfValues() + obs.numValues();
+                }
+            }
+            this.probabilityDenominators = denominators;
+        }
+        for (int classVal = 0; classVal < votes.length; classVal++) {
+            DoubleVector obs = classVal < denominators.length
+                    ? this.attValDistPerClass.get(classVal) : null;
+            votes[classVal] *= obs != null ? (obs.getValue((int) attVal) + 1.0)
+                    / denominators[classVal] : 0.0;
+        }
+    }
+
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes, double[] zeroWeights) {
+        for (int classVal = 0; classVal < votes.length; classVal++) {
+            DoubleVector obs = this.attValDistPerClass.get(classVal);
+            if (classVal < zeroWeights.length && zeroWeights[classVal] > 0.0) {
+                obs = obs != null ? new DoubleVector(obs) : new DoubleVector();
+                obs.addToValue(0, zeroWeights[classVal]);
+            }
+            votes[classVal] *= obs != null ? (obs.getValue((int) attVal) + 1.0)
+                    / (obs.sumOfValues() + obs.numValues()) : 0.0;
+        }
+    }
+
     public double totalWeightOfClassObservations() {
         return this.totalWeightObserved;
     }
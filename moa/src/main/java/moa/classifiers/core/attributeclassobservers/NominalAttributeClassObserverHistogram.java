@@ -55,6 +55,11 @@ public class NominalAttributeClassObserverHistogram extends AbstractOptionHandle
     
     public AutoExpandVector<DoubleVector> attValDistPerClassSimple = new AutoExpandVector<DoubleVector>();
 
+    // denominators of the probabilities of the classes, computed again once
+    // a value is observed and published whole, so that concurrent
+    // predictions never see them half computed
+    protected transient volatile double[] probabilityDenominators;
+
     @Override
     public void observeAttributeClass(double attVal, int classVal, double weight) {
         if (Utils.isMissingValue(attVal)) {
@@ -72,6 +77,7 @@ public class NominalAttributeClassObserverHistogram extends AbstractOptionHandle
             }
             valDist.addToValue(attValInt, weight);
             valDistSimple.addToValue(attValInt, 1);
+            this.probabilityDenominators = null;
         }
         this.totalWeightObserved += weight;
         this.totalInstancesObserved += 1;
@@ -85,6 +91,28 @@ public class NominalAttributeClassObserverHistogram extends AbstractOptionHandle
                 / (obs.sumOfValues() + obs.numValues()) : 0.0;
     }
 
+    @Override
+    public void multiplyByProbabilitiesOfAttributeValue(double attVal,
+            double[] votes) {
+        double[] denominators = this.probabilityDenominators;
+        if (denominators == null) {
+            denominators = new double[this.attValDistPerClass.size()];
+            for (int classVal = 0; classVal < denominators.length; classVal++) {
+                DoubleVector obs = this.attValDistPerClass.get(classVal);
+                if (obs != null) {
+                    denominators[classVal] = obs.sumOfValues() + obs.numValues();
+                }
+            }
+            this.probabilityDenominators = denominators;
+        }
+        for (int classVal = 0; classVal < votes.length; classVal++) {
+            DoubleVector obs = classVal < denominators.length
+                    ? this.attValDistPerClass.get(classVal) : null;
+            votes[classVal] *= obs != null ? (obs.getValue((int) attVal) + 1.0)
+                    / denominators[classVal] : 0.0;
+        }
+    }
+
     public double totalWeightOfClassObservations() {
         return this.totalWeightObserved;
     }
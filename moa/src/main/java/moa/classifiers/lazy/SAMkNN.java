@@ -15,17 +15,17 @@
  *    
  */
 package moa.classifiers.lazy;
+import java.io.Serializable;
 import java.util.*;
 
-import com.yahoo.labs.samoa.instances.InstanceImpl;
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.core.ComputeExecutor;
 import moa.core.Measurement;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.FloatOption;
@@ -80,8 +80,8 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
         return "SAMkNN: special.";
     }
 
-    private Instances stm;
-	private Instances ltm;
+    private Memory stm;
+	private Memory ltm;
 	private int maxLTMSize;
 	private int maxSTMSize;
 	private List<Integer> stmHistory;
@@ -92,13 +92,20 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
 	private Map<Integer, List<Integer>> predictionHistories;
 	private Random random;
 
+	/**
+	 * Number of distance evaluations (samples times dimensions) from which on the distances of one
+	 * sample to a memory are computed in parallel.
+	 */
+	private static final int PARALLEL_DISTANCE_THRESHOLD = 1 << 18;
+
     protected void init(){
     	this.maxLTMSize = (int)(relativeLTMSizeOption.getValue() * limitOption.getValue());
     	this.maxSTMSize = limitOption.getValue() - this.maxLTMSize;
     	this.stmHistory = new ArrayList<>();
     	this.ltmHistory = new ArrayList<>();
     	this.cmHistory = new ArrayList<>();
-    	//store calculated STM distances in a matrix to avoid recalculation, are reused in the STM adaption phase
+    	//store calculated STM distances in a matrix to avoid recalculation, are reused in the STM adaption phase.
+		//Rows and columns are indexed by the slot of the STM ring buffer, so that shrinking the STM never moves them.
 		this.distanceMatrixSTM = new double[limitOption.getValue()+1][limitOption.getValue()+1];
 		this.predictionHistories = new HashMap<>();
 		this.random = new Random();
@@ -108,10 +115,9 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
-			this.stm = new Instances(context,0);
-			this.stm.setClassIndex(context.classIndex());
-			this.ltm = new Instances(context,0); 
-			this.ltm.setClassIndex(context.classIndex());
+			int numInputAttributes = context.numInputAttributes();
+			this.stm = new Memory(numInputAttributes, limitOption.getValue()+1);
+			this.ltm = new Memory(numInputAttributes, 16);
 			this.init();
 		} catch(Exception e) {
 			System.err.println("Error: no Model Context available.");
@@ -136,29 +142,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
         //this.trainStepCount++;
 		if (inst.classValue() > maxClassValue)
 			maxClassValue = (int)inst.classValue();
-		this.stm.add(inst);
+		double[] sample = toSample(inst);
+		this.stm.add(sample, inst.classValue());
 		memorySizeCheck();
 		clean(this.stm, this.ltm, true);
-		double distancesSTM[] = this.get1ToNDistances(inst, this.stm);
-		for (int i =0; i < this.stm.numInstances();i++){
-			this.distanceMatrixSTM[this.stm.numInstances()-1][i] = distancesSTM[i];
+		double distancesSTM[] = this.get1ToNDistances(sample, this.stm);
+		double[] distanceRow = this.distanceMatrixSTM[this.stm.slot(this.stm.size()-1)];
+		for (int i =0; i < this.stm.size();i++){
+			distanceRow[this.stm.slot(i)] = distancesSTM[i];
 		}
-		int oldWindowSize = this.stm.numInstances();
+		int oldWindowSize = this.stm.size();
 		int newWindowSize = this.getNewSTMSize(recalculateSTMErrorOption.isSet());
 
 		if (newWindowSize < oldWindowSize) {
 			int diff = oldWindowSize - newWindowSize;
-			Instances discardedSTMInstances = new Instances(this.stm, 0);
-
-			for (int i = diff; i>0;i--){
-				discardedSTMInstances.add(this.stm.get(0).copy());
-				this.stm.delete(0);
-			}
-			for (int i = 0; i < this.stm.numInstances(); i++){
-				for (int j = 0; j < this.stm.numInstances(); j++){
-					this.distanceMatrixSTM[i][j] = this.distanceMatrixSTM[diff+i][diff+j];
-				}
-			}
+			Memory discardedSTMInstances = this.stm.copyOfRange(0, diff);
+			this.stm.removeFirst(diff);
 			for (int i = 0; i < diff; i++) {
 				this.stmHistory.remove(0);
 				this.ltmHistory.remove(0);
@@ -166,9 +165,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
 			}
 
 			this.clean(this.stm, discardedSTMInstances, false);
-			for (int i = 0; i < discardedSTMInstances.numInstances(); i++){
-				this.ltm.add(discardedSTMInstances.get(i).copy());
-			}
+			this.ltm.addAll(discardedSTMInstances);
 			memorySizeCheck();
 		}
     }
@@ -188,15 +185,16 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
         int predClassLTM = 0;
         int predClassCM = 0;
 		try {
-			if (this.stm.numInstances()>0) {
-				distancesSTM = get1ToNDistances(inst, this.stm);
+			if (this.stm.size()>0) {
+				double[] sample = toSample(inst);
+				distancesSTM = get1ToNDistances(sample, this.stm);
 				int nnIndicesSTM[] = nArgMin(Math.min(distancesSTM.length, this.kOption.getValue()), distancesSTM);
 				vSTM = getDistanceWeightedVotes(distancesSTM, nnIndicesSTM, this.stm);
                 predClassSTM = this.getClassFromVotes(vSTM);
-                distancesLTM = get1ToNDistances(inst, this.ltm);
+                distancesLTM = get1ToNDistances(sample, this.ltm);
                 vCM = getCMVotes(distancesSTM, this.stm, distancesLTM, this.ltm);
                 predClassCM = this.getClassFromVotes(vCM);
-				if (this.ltm.numInstances() >= 0) {
+				if (this.ltm.size() >= 0) {
                     int nnIndicesLTM[] = nArgMin(Math.min(distancesLTM.length, this.kOption.getValue()), distancesLTM);
                     vLTM = getDistanceWeightedVotes(distancesLTM, nnIndicesLTM, this.ltm);
                     predClassLTM = this.getClassFromVotes(vLTM);
@@ -258,40 +256,29 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
 	 * Performs classwise kMeans++ clustering for given samples with corresponding labels. The number of samples is halved per class.
 	 */
 	private void clusterDown(){
-		int classIndex = this.ltm.classIndex();
+		int dimensions = this.ltm.dimensions();
 		for (int c = 0; c <= this.maxClassValue; c++){
 			List<double[]> classSamples = new ArrayList<>();
-			for (int i = this.ltm.numInstances()-1; i >-1 ; i--) {
-				if (this.ltm.get(i).classValue() == c) {
-					classSamples.add(this.ltm.get(i).toDoubleArray());
-					this.ltm.delete(i);
+			boolean[] keep = new boolean[this.ltm.size()];
+			for (int i = this.ltm.size()-1; i >-1 ; i--) {
+				if (this.ltm.label(i) == c) {
+					//used kMeans++ implementation expects the weight of each sample at the first index
+					double[] sample = new double[dimensions + 1];
+					sample[0] = 1;
+					this.ltm.copyTo(i, sample, 1);
+					classSamples.add(sample);
+				} else {
+					keep[i] = true;
 				}
 			}
 			if (classSamples.size() > 0) {
-				//used kMeans++ implementation expects the weight of each sample at the first index,
-				// make sure that the first value gets the uniform weight 1, overwrite class value
-				for (double[] sample : classSamples) {
-					if (classIndex != 0) {
-						sample[classIndex] = sample[0];
-					}
-					sample[0] = 1;
-				}
+				this.ltm.retain(keep);
 
 				List<double[]> centroids = this.kMeans(classSamples, Math.max(classSamples.size() / 2, 1));
 
+				//returned centroids do not contain the weight anymore, but simply the data
 				for (double[] centroid : centroids) {
-
-					double[] attributes = new double[this.ltm.numAttributes()];
-					//returned centroids do not contain the weight anymore, but simply the data
-					System.arraycopy(centroid, 0, attributes, 1, this.ltm.numAttributes() - 1);
-					//switch back if necessary
-					if (classIndex != 0) {
-						attributes[0] = attributes[classIndex];
-					}
-					attributes[classIndex] = c;
-					Instance inst = new InstanceImpl(1, attributes);
-					inst.setDataset(this.ltm);
-					this.ltm.add(inst);
+					this.ltm.add(centroid, c);
 				}
 			}
 
@@ -302,66 +289,69 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
      * Makes sure that the STM and LTM combined doe not surpass the maximum size.
      */
 	private void memorySizeCheck(){
-		if (this.stm.numInstances() + this.ltm.numInstances() > this.maxSTMSize + this.maxLTMSize){
-			if (this.ltm.numInstances() > this.maxLTMSize){
+		if (this.stm.size() + this.ltm.size() > this.maxSTMSize + this.maxLTMSize){
+			if (this.ltm.size() > this.maxLTMSize){
 				this.clusterDown();
 			}else{ //shift values from STM directly to LTM since STM is full
-				int numShifts = this.maxLTMSize - this.ltm.numInstances() + 1;
+				int numShifts = this.maxLTMSize - this.ltm.size() + 1;
+				this.ltm.addAll(this.stm.copyOfRange(0, numShifts));
+				this.stm.removeFirst(numShifts);
 				for (int i = 0; i < numShifts; i++){
-					this.ltm.add(this.stm.get(0).copy());
-					this.stm.delete(0);
 					this.stmHistory.remove(0);
 					this.ltmHistory.remove(0);
 					this.cmHistory.remove(0);
 				}
 				this.clusterDown();
 				this.predictionHistories.clear();
-				for (int i = 0; i < this.stm.numInstances(); i++){
-					for (int j = 0; j < this.stm.numInstances(); j++){
-						this.distanceMatrixSTM[i][j] = this.distanceMatrixSTM[numShifts+i][numShifts+j];
-					}
-				}
 			}
 		}
 	}
 
-	private void cleanSingle(Instances cleanAgainst, int cleanAgainstindex, Instances toClean){
-		Instances cleanAgainstTmp = new Instances(cleanAgainst);
-		cleanAgainstTmp.delete(cleanAgainstindex);
-		double distancesSTM[] = get1ToNDistances(cleanAgainst.get(cleanAgainstindex), cleanAgainstTmp);
+	private void cleanSingle(Memory cleanAgainst, int cleanAgainstindex, Memory toClean){
+		double[] sample = cleanAgainst.sample(cleanAgainstindex);
+		double label = cleanAgainst.label(cleanAgainstindex);
+		//distances to all other samples of cleanAgainst, indices above cleanAgainstindex are shifted by one
+		double distancesAll[] = get1ToNDistances(sample, cleanAgainst);
+		double distancesSTM[] = new double[distancesAll.length - 1];
+		System.arraycopy(distancesAll, 0, distancesSTM, 0, cleanAgainstindex);
+		System.arraycopy(distancesAll, cleanAgainstindex + 1, distancesSTM, cleanAgainstindex, distancesSTM.length - cleanAgainstindex);
 		int nnIndicesSTM[] = nArgMin(Math.min(this.kOption.getValue(), distancesSTM.length), distancesSTM);
 
-		double distancesLTM[] = get1ToNDistances(cleanAgainst.get(cleanAgainstindex), toClean);
+		double distancesLTM[] = get1ToNDistances(sample, toClean);
 		int nnIndicesLTM[] = nArgMin(Math.min(this.kOption.getValue(), distancesLTM.length), distancesLTM);
 		double distThreshold = 0;
 		for (int nnIdx: nnIndicesSTM){
-			if (cleanAgainstTmp.get(nnIdx).classValue() == cleanAgainst.get(cleanAgainstindex).classValue()){
+			int idx = (nnIdx < cleanAgainstindex) ? nnIdx : nnIdx + 1;
+			if (cleanAgainst.label(idx) == label){
 				if (distancesSTM[nnIdx] > distThreshold){
 					distThreshold = distancesSTM[nnIdx];
 				}
 			}
 		}
-		List<Integer> delIndices = new ArrayList<>();
+		boolean[] keep = null;
         for (int nnIdx: nnIndicesLTM){
-			if (toClean.get(nnIdx).classValue() != cleanAgainst.get(cleanAgainstindex).classValue()) {
+			if (toClean.label(nnIdx) != label) {
 				if (distancesLTM[nnIdx] <= distThreshold){
-					delIndices.add(nnIdx);
+					if (keep == null) {
+						keep = new boolean[toClean.size()];
+						Arrays.fill(keep, true);
+					}
+					keep[nnIdx] = false;
 				}
 			}
 		}
-		Collections.sort(delIndices, Collections.reverseOrder());
-		for (Integer idx : delIndices)
-			toClean.delete(idx);
+		if (keep != null)
+			toClean.retain(keep);
 	}
     /**
      * Removes distance-based all instances from the input samples that contradict those in the STM.
      */
-	private void clean(Instances cleanAgainst, Instances toClean, boolean onlyLast) {
-		if (cleanAgainst.numInstances() > this.kOption.getValue() && toClean.numInstances() > 0){
+	private void clean(Memory cleanAgainst, Memory toClean, boolean onlyLast) {
+		if (cleanAgainst.size() > this.kOption.getValue() && toClean.size() > 0){
 			if (onlyLast){
-				cleanSingle(cleanAgainst, (cleanAgainst.numInstances()-1), toClean);
+				cleanSingle(cleanAgainst, (cleanAgainst.size()-1), toClean);
 			}else{
-				for (int i=0; i < cleanAgainst.numInstances(); i++){
+				for (int i=0; i < cleanAgainst.size(); i++){
 					cleanSingle(cleanAgainst, i, toClean);
 				}
 			}
@@ -370,22 +360,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
     /**
      * Returns the distance weighted votes.
      */
-	private double [] getDistanceWeightedVotes(double distances[], int[] nnIndices, Instances instances){
+	private double [] getDistanceWeightedVotes(double distances[], int[] nnIndices, Memory memory){
 
 		double v[] = new double[this.maxClassValue +1];
         for (int nnIdx : nnIndices) {
-            v[(int)instances.instance(nnIdx).classValue()] += 1./Math.max(distances[nnIdx], 0.000000001);
+            v[(int)memory.label(nnIdx)] += 1./Math.max(distances[nnIdx], 0.000000001);
         }
 		return v;
 	}
 
-	private double [] getDistanceWeightedVotesCM(double distances[], int[] nnIndices, Instances stm, Instances ltm){
+	private double [] getDistanceWeightedVotesCM(double distances[], int[] nnIndices, Memory stm, Memory ltm){
 		double v[] = new double[this.maxClassValue +1];
         for (int nnIdx : nnIndices) {
-			if (nnIdx < stm.numInstances()) {
-				v[(int) stm.instance(nnIdx).classValue()] += 1. / Math.max(distances[nnIdx], 0.000000001);
+			if (nnIdx < stm.size()) {
+				v[(int) stm.label(nnIdx)] += 1. / Math.max(distances[nnIdx], 0.000000001);
 			} else{
-				v[(int) ltm.instance((nnIdx-stm.numInstances())).classValue()] += 1. / Math.max(distances[nnIdx], 0.000000001);
+				v[(int) ltm.label(nnIdx-stm.size())] += 1. / Math.max(distances[nnIdx], 0.000000001);
 			}
 		}
 		return v;
@@ -394,7 +384,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
     /**
      * Returns the distance weighted votes for the combined memory (CM).
      */
-	private double [] getCMVotes(double distancesSTM[], Instances stm, double distancesLTM[], Instances ltm){
+	private double [] getCMVotes(double distancesSTM[], Memory stm, double distancesLTM[], Memory ltm){
 		double[] distancesCM = new double[distancesSTM.length + distancesLTM.length];
 		System.arraycopy(distancesSTM, 0, distancesCM, 0, distancesSTM.length);
 		System.arraycopy(distancesLTM, 0, distancesCM, distancesSTM.length, distancesLTM.length);
@@ -417,33 +407,47 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
 		return maxVoteClass;
 	}
 
-	private int getLabelFct(double distances[], Instances instances, int startIdx, int endIdx){
-		int nnIndices[] = nArgMin(Math.min(this.kOption.getValue(), distances.length), distances, startIdx, endIdx);
-		double votes[] = getDistanceWeightedVotes(distances, nnIndices, instances);
-		return this.getClassFromVotes(votes);
+	/**
+	 * Predicts the label of the STM sample at index sampleIdx by its neighbours among the STM samples startIdx to endIdx,
+	 * using the stored distance matrix.
+	 */
+	private int getLabelFct(int sampleIdx, int startIdx, int endIdx){
+		double[] distanceRow = this.distanceMatrixSTM[this.stm.slot(sampleIdx)];
+		double distances[] = new double[endIdx - startIdx + 1];
+		for (int j = startIdx; j <= endIdx; j++){
+			distances[j - startIdx] = distanceRow[this.stm.slot(j)];
+		}
+		int nnIndices[] = nArgMin(Math.min(this.kOption.getValue(), distances.length), distances);
+		double v[] = new double[this.maxClassValue +1];
+		for (int nnIdx : nnIndices) {
+			v[(int)this.stm.label(startIdx + nnIdx)] += 1./Math.max(distances[nnIdx], 0.000000001);
+		}
+		return this.getClassFromVotes(v);
 	}
 
-    /**
-     * Returns the Euclidean distance.
-     */
-	private double getDistance(Instance sample, Instance sample2)
-    {
-        double sum=0;
-        for (int i=0; i<sample.numInputAttributes(); i++)
-        {
-            double diff = sample.valueInputAttribute(i)-sample2.valueInputAttribute(i);
-            sum += diff*diff;
-        }
-        return Math.sqrt(sum);
-    }
+	/**
+	 * Returns the input attribute values of an instance.
+	 */
+	private double[] toSample(Instance inst){
+		double[] sample = new double[inst.numInputAttributes()];
+		for (int i=0; i<sample.length; i++){
+			sample[i] = inst.valueInputAttribute(i);
+		}
+		return sample;
+	}
 
     /**
      * Returns the Euclidean distance between one sample and a collection of samples in an 1D-array.
      */
-	private double[] get1ToNDistances(Instance sample, Instances samples){
-		double distances[] = new double[samples.numInstances()];
-		for (int i=0; i<samples.numInstances(); i++){
-			distances[i] = this.getDistance(sample, samples.get(i));
+	private double[] get1ToNDistances(double[] sample, Memory samples){
+		double distances[] = new double[samples.size()];
+		if ((long) samples.size() * samples.dimensions() < PARALLEL_DISTANCE_THRESHOLD) {
+			samples.distances(sample, distances, 0, distances.length);
+		} else {
+			int numChunks = Math.min(ComputeExecutor.getNumThreads(), distances.length);
+			int chunkSize = (distances.length + numChunks - 1) / numChunks;
+			ComputeExecutor.forEachIndex("SAMkNN", numChunks, -1, chunk ->
+					samples.distances(sample, distances, chunk * chunkSize, Math.min(distances.length, (chunk + 1) * chunkSize)));
 		}
 		return distances;
 	}
@@ -495,19 +499,19 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
     /**
      * Creates a prediction history incrementally by using the previous predictions.
      */
-	private List<Integer> getIncrementalTestTrainPredHistory(Instances instances, int startIdx, List<Integer> predictionHistory){
-		for (int i= startIdx + this.kOption.getValue() + predictionHistory.size(); i < instances.numInstances(); i++){
-			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx,  i-1)==instances.get(i).classValue()) ? 1 : 0);
+	private List<Integer> getIncrementalTestTrainPredHistory(Memory instances, int startIdx, List<Integer> predictionHistory){
+		for (int i= startIdx + this.kOption.getValue() + predictionHistory.size(); i < instances.size(); i++){
+			predictionHistory.add((this.getLabelFct(i, startIdx,  i-1)==instances.label(i)) ? 1 : 0);
 		}
 		return predictionHistory;
 	}
     /**
      * Creates a prediction history from the scratch.
      */
-	private List<Integer> getTestTrainPredHistory(Instances instances, int startIdx){
+	private List<Integer> getTestTrainPredHistory(Memory instances, int startIdx){
 		List<Integer> predictionHistory = new ArrayList<>();
-		for (int i= startIdx + this.kOption.getValue(); i < instances.numInstances(); i++){
-			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx, i-1)==instances.get(i).classValue()) ? 1 : 0);
+		for (int i= startIdx + this.kOption.getValue(); i < instances.size(); i++){
+			predictionHistory.add((this.getLabelFct(i, startIdx, i-1)==instances.label(i)) ? 1 : 0);
 		}
 		return predictionHistory;
 	}
@@ -516,7 +520,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
      */
 	private int getMinErrorRateWindowSize() {
 
-		int numSamples = this.stm.numInstances();
+		int numSamples = this.stm.size();
 		if (numSamples < 2 * this.minSTMSizeOption.getValue()) {
 			return numSamples;
 		} else {
@@ -567,7 +571,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
      * Returns the window size with the minimum Interleaved test-train error, using bisection (without recalculation using an incremental approximation).
      */
 	private int getMinErrorRateWindowSizeIncremental() {
-		int numSamples = this.stm.numInstances();
+		int numSamples = this.stm.size();
 		if (numSamples < 2 * this.minSTMSizeOption.getValue()) {
 			return numSamples;
 		} else {
@@ -629,4 +633,136 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier,
     else
       return new ImmutableCapabilities(Capability.VIEW_STANDARD);
   }
+
+	/**
+	 * Samples and labels of a memory, stored as contiguous rows of input attribute values in a ring buffer.
+	 * Removing the oldest samples only advances the head, so the slot of a sample stays fixed while it is stored.
+	 */
+	private static class Memory implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int dimensions;
+		private double[] rows;
+		private double[] labels;
+		private int head;
+		private int size;
+
+		Memory(int dimensions, int capacity) {
+			this.dimensions = dimensions;
+			this.rows = new double[Math.max(capacity, 1) * dimensions];
+			this.labels = new double[Math.max(capacity, 1)];
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		int dimensions() {
+			return this.dimensions;
+		}
+
+		/**
+		 * Returns the ring buffer slot of the sample at the given index, 0 being the oldest sample.
+		 */
+		int slot(int index) {
+			int slot = this.head + index;
+			return (slot >= this.labels.length) ? slot - this.labels.length : slot;
+		}
+
+		double label(int index) {
+			return this.labels[slot(index)];
+		}
+
+		double[] sample(int index) {
+			double[] sample = new double[this.dimensions];
+			copyTo(index, sample, 0);
+			return sample;
+		}
+
+		void copyTo(int index, double[] dest, int destPos) {
+			System.arraycopy(this.rows, slot(index) * this.dimensions, dest, destPos, this.dimensions);
+		}
+
+		/**
+		 * Appends a sample. The capacity is doubled when full, which moves the samples to new slots; the STM is
+		 * sized up front so that this never happens to it.
+		 */
+		void add(double[] sample, double label) {
+			if (this.size == this.labels.length) {
+				double[] newRows = new double[2 * this.rows.length];
+				double[] newLabels = new double[2 * this.labels.length];
+				for (int i = 0; i < this.size; i++) {
+					copyTo(i, newRows, i * this.dimensions);
+					newLabels[i] = label(i);
+				}
+				this.rows = newRows;
+				this.labels = newLabels;
+				this.head = 0;
+			}
+			int slot = slot(this.size);
+			System.arraycopy(sample, 0, this.rows, slot * this.dimensions, this.dimensions);
+			this.labels[slot] = label;
+			this.size++;
+		}
+
+		void addAll(Memory other) {
+			double[] sample = new double[this.dimensions];
+			for (int i = 0; i < other.size; i++) {
+				other.copyTo(i, sample, 0);
+				add(sample, other.label(i));
+			}
+		}
+
+		Memory copyOfRange(int from, int to) {
+			Memory copy = new Memory(this.dimensions, to - from);
+			double[] sample = new double[this.dimensions];
+			for (int i = from; i < to; i++) {
+				copyTo(i, sample, 0);
+				copy.add(sample, label(i));
+			}
+			return copy;
+		}
+
+		void removeFirst(int n) {
+			this.head = slot(n);
+			this.size -= n;
+		}
+
+		/**
+		 * Keeps the samples whose flag is set, preserving their order.
+		 */
+		void retain(boolean[] keep) {
+			int kept = 0;
+			for (int i = 0; i < this.size; i++) {
+				if (keep[i]) {
+					if (kept != i) {
+						int from = slot(i);
+						int to = slot(kept);
+						System.arraycopy(this.rows, from * this.dimensions, this.rows, to * this.dimensions, this.dimensions);
+						this.labels[to] = this.labels[from];
+					}
+					kept++;
+				}
+			}
+			this.size = kept;
+		}
+
+		/**
+		 * Computes the Euclidean distances of the given sample to the samples from index from (inclusive) to to (exclusive).
+		 */
+		void distances(double[] sample, double[] distances, int from, int to) {
+			double[] rows = this.rows;
+			int dimensions = this.dimensions;
+			for (int i = from; i < to; i++) {
+				int offset = slot(i) * dimensions;
+				double sum = 0;
+				for (int j = 0; j < dimensions; j++) {
+					double diff = sample[j] - rows[offset + j];
+					sum += diff * diff;
+				}
+				distances[i] = Math.sqrt(sum);
+			}
+		}
+	}
 }
@@ -17,7 +17,6 @@
  */
 package moa.classifiers.lazy;
 
-import java.io.StringReader;
 import java.util.Arrays;
 
 import com.github.javacliparser.FlagOption;
@@ -25,8 +24,8 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.Regressor;
 import moa.classifiers.lazy.neighboursearch.KDTree;
-import moa.classifiers.lazy.neighboursearch.LinearNNSearch;
 import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
+import moa.classifiers.lazy.neighboursearch.SlidingWindowIndex;
 import moa.core.Measurement;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -70,13 +69,12 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
         return "kNN: special.";
     }
 
-    protected Instances window; 
+    protected SlidingWindowIndex window; 
 
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
-			this.window = new Instances(context,0); //new StringReader(context.toString())
-			this.window.setClassIndex(context.classIndex());
+			this.window = newWindow(context);
 		} catch(Exception e) {
 			System.err.println("Error: no Model Context available.");
 			e.printStackTrace();
@@ -89,15 +87,24 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 		this.window = null;
     }
 
+	/**
+	 * Creates the window of stored instances. The window keeps primitive rows
+	 * in a ring buffer, so expiring the oldest instance does not shift the
+	 * whole window.
+	 */
+	protected SlidingWindowIndex newWindow(Instances header) {
+		return new SlidingWindowIndex(header, Math.min(this.limitOption.getValue(), 1024));
+	}
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
 		if (inst.classValue() > C)
 			C = (int)inst.classValue();
 		if (this.window == null) {
-			this.window = new Instances(inst.dataset());
+			this.window = newWindow(inst.dataset());
 		}
-		if (this.limitOption.getValue() <= this.window.numInstances()) {
-			this.window.delete(0);
+		if (this.limitOption.getValue() <= this.window.size()) {
+			this.window.removeOldest();
 		}
 		this.window.add(inst);
     }
@@ -106,29 +113,39 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
     public double[] getVotesForInstance(Instance inst) {
 		double v[] = new double[C+1];
 		try {
-			NearestNeighbourSearch search;
-			if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
-				search = new LinearNNSearch(this.window);  
-			} else {
-				search = new KDTree();
-				search.setInstances(this.window);
-			}	
-			if (this.window.numInstances()>0) {	
-				Instances neighbours = search.kNearestNeighbours(inst,Math.min(kOption.getValue(),this.window.numInstances()));
+			if (this.window.size()>0) {	
+				int k = Math.min(kOption.getValue(),this.window.size());
+				// class values of the k nearest neighbours (and of any ties with the k-th one)
+				double[] neighbours;
+				if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
+					int[] positions = this.window.kNearestNeighbours(inst, k);
+					neighbours = new double[positions.length];
+					for (int i = 0; i < positions.length; i++) {
+						neighbours[i] = this.window.classValue(positions[i]);
+					}
+				} else {
+					NearestNeighbourSearch search = new KDTree();
+					search.setInstances(this.window.toInstances());
+					Instances found = search.kNearestNeighbours(inst, k);
+					neighbours = new double[found.numInstances()];
+					for (int i = 0; i < neighbours.length; i++) {
+						neighbours[i] = found.instance(i).classValue();
+					}
+				}
 				//================== Regression ====================
 				if(inst.classAttribute().isNumeric()){
 					double[] result = new double[1];
 					// For storing the sum of class values of all the k nearest neighbours
 					double sum = 0;
 					// For storing the number of the nearest neighbours
-					int num = neighbours.numInstances();
+					int num = neighbours.length;
 					//================== Median ====================
 					if(medianOption.isSet()){
 						// For storing every neighbour's class value
 						double[] classValues = new double[num];
 
 						for(int i=0;i<num;i++){
-							classValues[i] = neighbours.instance(i).classValue();
+							classValues[i] = neighbours[i];
 						}
 						// Sort the class values
 						Arrays.sort(classValues);
@@ -143,7 +160,7 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 					}else{
 						//================== Mean ==================
 						for(int i=0;i<num;i++){
-							sum += neighbours.instance(i).classValue();
+							sum += neighbours[i];
 						}
 						// Calculate the mean of all k nearest neighbours' class values
 						result[0] = sum / num;
@@ -152,8 +169,8 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 					}
 					//============= End of Regression ==============
 				}else{
-					for (int i = 0; i < neighbours.numInstances(); i++) {
-						v[(int) neighbours.instance(i).classValue()]++;
+					for (int i = 0; i < neighbours.length; i++) {
+						v[(int) neighbours[i]]++;
 					}
 				}
 			}
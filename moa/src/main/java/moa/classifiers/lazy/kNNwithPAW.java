@@ -17,10 +17,10 @@
  */
 package moa.classifiers.lazy;
 
+import java.util.Arrays;
+
 import moa.classifiers.MultiClassClassifier;
-import moa.classifiers.core.driftdetection.ADWIN;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * k Nearest Neighbor ADAPTIVE with PAW.<p>
@@ -58,14 +58,21 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
             C = (int) inst.classValue();
         }
         if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+            this.window = newWindow(inst.dataset());
         }
 
-        for (int i = 0; i < this.window.size(); i++) {
+        // the row following a removed one is not considered for removal in
+        // the same step, as with the former in-place deletion from the window
+        int size = this.window.size();
+        boolean[] keep = new boolean[size];
+        Arrays.fill(keep, true);
+        for (int i = 0; i < size; i++) {
             if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
+                keep[i] = false;
+                i++;
             }
         }
+        this.window.retain(keep);
         this.window.add(inst);
 
     }
@@ -17,12 +17,11 @@
  */
 package moa.classifiers.lazy;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ADWIN;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * k Nearest Neighbor ADAPTIVE with ADWIN+PAW.<p>
@@ -43,8 +42,6 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
 
     protected int marker = 0;
 
-    protected ArrayList<Integer> timeStamp;
-
     @Override
     public String getPurposeString() {
         return "kNNwithPAWandADWIN: kNN with Probabilistic Approximate Window and ADWIN";
@@ -69,31 +66,37 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
         }
         // ADWIN
         if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+            this.window = newWindow(inst.dataset());
         }
 
-        if (this.timeStamp == null) {
-            this.timeStamp = new ArrayList<Integer>(10);
-        }
-        for (int i = 0; i < this.window.size(); i++) {
+        // the row following a removed one is not considered for removal in
+        // the same step, as with the former in-place deletion from the window
+        int windowSize = this.window.size();
+        boolean[] keep = new boolean[windowSize];
+        Arrays.fill(keep, true);
+        for (int i = 0; i < windowSize; i++) {
             if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
-                this.timeStamp.remove(i);
+                keep[i] = false;
+                i++;
             }
         }
-        this.window.add(inst);
-        this.timeStamp.add(this.time);
+        this.window.retain(keep);
+        this.window.add(inst, this.time);
         this.time++;
         boolean correctlyClassifies = this.correctlyClassifies(inst);
         if (this.adwin.setInput(correctlyClassifies ? 0 : 1)) {
             //Change
             int size = (int) this.adwin.getWidth();
-            for (int i = 0; i < this.window.size(); i++) {
-                if (this.timeStamp.get(i) < this.time - size) {
-                    this.window.delete(i);
-                    this.timeStamp.remove(i);
+            windowSize = this.window.size();
+            keep = new boolean[windowSize];
+            Arrays.fill(keep, true);
+            for (int i = 0; i < windowSize; i++) {
+                if (this.window.stamp(i) < this.time - size) {
+                    keep[i] = false;
+                    i++;
                 }
             }
+            this.window.retain(keep);
         }
 
     }
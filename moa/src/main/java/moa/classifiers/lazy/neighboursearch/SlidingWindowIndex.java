@@ -0,0 +1,529 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ *    SlidingWindowIndex.java
+ */
+
+package moa.classifiers.lazy.neighboursearch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Persistent brute force nearest neighbour index over a sliding window of
+ * instances. The window is kept as a ring buffer of primitive rows, so adding
+ * and expiring instances does not shift the stored data, and the attribute
+ * ranges used for normalisation are maintained incrementally instead of being
+ * recomputed for every query.
+ * <p/>
+ * Distances are the normalised Euclidean distances computed by
+ * EuclideanDistance, and ties with the k-th nearest neighbour are returned in
+ * the same way as LinearNNSearch does.
+ *
+ * @see EuclideanDistance
+ * @see LinearNNSearch
+ */
+public class SlidingWindowIndex
+  implements Serializable {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** attribute kind: not used in the distance (class attribute). */
+  protected static final byte SKIP = 0;
+
+  /** attribute kind: nominal. */
+  protected static final byte NOMINAL = 1;
+
+  /** attribute kind: numeric. */
+  protected static final byte NUMERIC = 2;
+
+  /** the header of the stored instances. */
+  protected Instances m_Header;
+
+  /** the number of attributes of each row. */
+  protected int m_NumAttributes;
+
+  /** the kind of each attribute. */
+  protected byte[] m_Kinds;
+
+  /** the rows, stored contiguously with m_NumAttributes values per slot. */
+  protected double[] m_Rows;
+
+  /** the class value of each slot. */
+  protected double[] m_ClassValues;
+
+  /** a user supplied stamp (e.g. arrival time) of each slot. */
+  protected long[] m_Stamps;
+
+  /** the slot holding the oldest row. */
+  protected int m_Head;
+
+  /** the number of rows in the window. */
+  protected int m_Size;
+
+  /** the minimum of each attribute over the window. */
+  protected double[] m_Min;
+
+  /** the maximum of each attribute over the window. */
+  protected double[] m_Max;
+
+  /** whether the ranges have to be recomputed before the next query. */
+  protected boolean m_RangesDirty;
+
+  /** the squared distances of the last query, indexed by window position. */
+  protected transient double[] m_Distances;
+
+  /** the distances of the neighbours returned by the last query. */
+  protected double[] m_NeighbourDistances;
+
+  /**
+   * Constructor.
+   *
+   * @param header		the header of the instances to store
+   * @param initialCapacity	the number of rows to allocate up front
+   */
+  public SlidingWindowIndex(Instances header, int initialCapacity) {
+    m_Header = new Instances(header, 0);
+    m_NumAttributes = header.numAttributes();
+    m_Kinds = new byte[m_NumAttributes];
+    for (int j = 0; j < m_NumAttributes; j++) {
+      if (j == header.classIndex())
+        m_Kinds[j] = SKIP;
+      else if (header.attribute(j).isNominal())
+        m_Kinds[j] = NOMINAL;
+      else
+        m_Kinds[j] = NUMERIC;
+    }
+    int capacity = Math.max(1, initialCapacity);
+    m_Rows = new double[capacity * m_NumAttributes];
+    m_ClassValues = new double[capacity];
+    m_Stamps = new long[capacity];
+    m_Min = new double[m_NumAttributes];
+    m_Max = new double[m_NumAttributes];
+    clear();
+  }
+
+  /**
+   * Removes all rows from the window.
+   */
+  public void clear() {
+    m_Head = 0;
+    m_Size = 0;
+    Arrays.fill(m_Min, Double.POSITIVE_INFINITY);
+    Arrays.fill(m_Max, Double.NEGATIVE_INFINITY);
+    m_RangesDirty = false;
+  }
+
+  /**
+   * Returns the number of rows in the window.
+   *
+   * @return		the number of rows
+   */
+  public int size() {
+    return m_Size;
+  }
+
+  /**
+   * Returns the header of the stored instances.
+   *
+   * @return		the header
+   */
+  public Instances getHeader() {
+    return m_Header;
+  }
+
+  /**
+   * Returns the slot of the row at the given window position.
+   *
+   * @param i		the position, 0 being the oldest row
+   * @return		the slot
+   */
+  protected int slot(int i) {
+    int s = m_Head + i;
+    return (s >= m_ClassValues.length) ? s - m_ClassValues.length : s;
+  }
+
+  /**
+   * Appends an instance as the newest row of the window.
+   *
+   * @param inst	the instance to add
+   */
+  public void add(Instance inst) {
+    add(inst, 0);
+  }
+
+  /**
+   * Appends an instance as the newest row of the window.
+   *
+   * @param inst	the instance to add
+   * @param stamp	a value stored alongside the row, see stamp(int)
+   */
+  public void add(Instance inst, long stamp) {
+    if (m_Size == m_ClassValues.length)
+      grow();
+    int s = slot(m_Size);
+    int offset = s * m_NumAttributes;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      double value = inst.value(j);
+      m_Rows[offset + j] = value;
+      if (!Double.isNaN(value)) {
+        if (value < m_Min[j])
+          m_Min[j] = value;
+        if (value > m_Max[j])
+          m_Max[j] = value;
+      }
+    }
+    m_ClassValues[s] = inst.classValue();
+    m_Stamps[s] = stamp;
+    m_Size++;
+  }
+
+  /**
+   * Doubles the capacity, unrolling the ring so that the oldest row is in
+   * the first slot.
+   */
+  protected void grow() {
+    int capacity = m_ClassValues.length;
+    double[] rows = new double[2 * capacity * m_NumAttributes];
+    double[] classValues = new double[2 * capacity];
+    long[] stamps = new long[2 * capacity];
+    int first = capacity - m_Head;
+    System.arraycopy(m_Rows, m_Head * m_NumAttributes, rows, 0, first * m_NumAttributes);
+    System.arraycopy(m_Rows, 0, rows, first * m_NumAttributes, m_Head * m_NumAttributes);
+    System.arraycopy(m_ClassValues, m_Head, classValues, 0, first);
+    System.arraycopy(m_ClassValues, 0, classValues, first, m_Head);
+    System.arraycopy(m_Stamps, m_Head, stamps, 0, first);
+    System.arraycopy(m_Stamps, 0, stamps, first, m_Head);
+    m_Rows = rows;
+    m_ClassValues = classValues;
+    m_Stamps = stamps;
+    m_Head = 0;
+  }
+
+  /**
+   * Removes the oldest row of the window.
+   */
+  public void removeOldest() {
+    if (m_Size == 0)
+      return;
+    checkRangeBoundary(m_Head);
+    m_Head = slot(1);
+    m_Size--;
+  }
+
+  /**
+   * Keeps only the rows whose flag is set, preserving their order.
+   *
+   * @param keep	one flag per window position
+   */
+  public void retain(boolean[] keep) {
+    int capacity = m_ClassValues.length;
+    int kept = 0;
+    for (int i = 0; i < m_Size; i++) {
+      int s = slot(i);
+      if (!keep[i]) {
+        checkRangeBoundary(s);
+        continue;
+      }
+      // compact towards the head, so the target slot never overtakes s
+      int t = m_Head + kept;
+      if (t >= capacity)
+        t -= capacity;
+      if (t != s) {
+        System.arraycopy(m_Rows, s * m_NumAttributes, m_Rows, t * m_NumAttributes, m_NumAttributes);
+        m_ClassValues[t] = m_ClassValues[s];
+        m_Stamps[t] = m_Stamps[s];
+      }
+      kept++;
+    }
+    m_Size = kept;
+  }
+
+  /**
+   * Flags the ranges for recomputation if the row in the given slot holds
+   * the current minimum or maximum of an attribute.
+   *
+   * @param s		the slot of the row that is being removed
+   */
+  protected void checkRangeBoundary(int s) {
+    if (m_RangesDirty)
+      return;
+    int offset = s * m_NumAttributes;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      double value = m_Rows[offset + j];
+      if (value == m_Min[j] || value == m_Max[j]) {
+        m_RangesDirty = true;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Recomputes the attribute ranges from the rows in the window.
+   */
+  protected void updateRanges() {
+    Arrays.fill(m_Min, Double.POSITIVE_INFINITY);
+    Arrays.fill(m_Max, Double.NEGATIVE_INFINITY);
+    for (int i = 0; i < m_Size; i++) {
+      int offset = slot(i) * m_NumAttributes;
+      for (int j = 0; j < m_NumAttributes; j++) {
+        double value = m_Rows[offset + j];
+        if (!Double.isNaN(value)) {
+          if (value < m_Min[j])
+            m_Min[j] = value;
+          if (value > m_Max[j])
+            m_Max[j] = value;
+        }
+      }
+    }
+    m_RangesDirty = false;
+  }
+
+  /**
+   * Returns the class value of the row at the given window position.
+   *
+   * @param i		the position, 0 being the oldest row
+   * @return		the class value
+   */
+  public double classValue(int i) {
+    return m_ClassValues[slot(i)];
+  }
+
+  /**
+   * Returns the stamp given to the row at the given window position.
+   *
+   * @param i		the position, 0 being the oldest row
+   * @return		the stamp
+   */
+  public long stamp(int i) {
+    return m_Stamps[slot(i)];
+  }
+
+  /**
+   * Returns the value of an attribute of the row at the given window position.
+   *
+   * @param i		the position, 0 being the oldest row
+   * @param attIndex	the attribute index
+   * @return		the value
+   */
+  public double value(int i, int attIndex) {
+    return m_Rows[slot(i) * m_NumAttributes + attIndex];
+  }
+
+  /**
+   * Normalizes a value as NormalizableDistance.norm does.
+   *
+   * @param x		the value
+   * @param j		the attribute index
+   * @return		the normalized value
+   */
+  protected double norm(double x, int j) {
+    if (Double.isNaN(m_Min[j]) || (m_Max[j] == m_Min[j]))
+      return 0;
+    else
+      return (x - m_Min[j]) / (m_Max[j] - m_Min[j]);
+  }
+
+  /**
+   * Returns the window positions of the k nearest rows to the target,
+   * including all rows that are as far away as the k-th nearest one. The
+   * positions are sorted by window position, the distances are available
+   * through getDistances().
+   *
+   * @param target	the instance to find the neighbours for
+   * @param k		the number of neighbours
+   * @return		the window positions of the neighbours
+   */
+  public int[] kNearestNeighbours(Instance target, int k) {
+    if (m_RangesDirty)
+      updateRanges();
+    k = Math.min(k, m_Size);
+    if (k <= 0) {
+      m_NeighbourDistances = new double[0];
+      return new int[0];
+    }
+
+    // the target is normalized once, the rows on the fly
+    double[] query = new double[m_NumAttributes];
+    double[] width = new double[m_NumAttributes];
+    for (int j = 0; j < m_NumAttributes; j++) {
+      query[j] = target.value(j);
+      width[j] = m_Max[j] - m_Min[j];
+      if (m_Kinds[j] == NUMERIC && !Double.isNaN(query[j]))
+        query[j] = norm(query[j], j);
+    }
+
+    if (m_Distances == null || m_Distances.length < m_Size)
+      m_Distances = new double[m_ClassValues.length];
+    double[] distances = m_Distances;
+
+    // max-heap of the k smallest squared distances seen so far
+    double[] heap = new double[k];
+    int heapSize = 0;
+    double cutOff = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < m_Size; i++) {
+      double distance = distance(query, width, slot(i) * m_NumAttributes, cutOff);
+      distances[i] = distance;
+      if (heapSize < k) {
+        heapSize = heapPush(heap, heapSize, distance);
+        if (heapSize == k)
+          cutOff = heap[0];
+      }
+      else if (distance < cutOff) {
+        heapReplaceTop(heap, heapSize, distance);
+        cutOff = heap[0];
+      }
+    }
+
+    int count = 0;
+    for (int i = 0; i < m_Size; i++) {
+      if (distances[i] <= cutOff)
+        count++;
+    }
+    int[] result = new int[count];
+    m_NeighbourDistances = new double[count];
+    count = 0;
+    for (int i = 0; i < m_Size; i++) {
+      if (distances[i] <= cutOff) {
+        result[count] = i;
+        m_NeighbourDistances[count] = Math.sqrt(distances[i]);
+        count++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the distances of the neighbours found by the last call to
+   * kNearestNeighbours, in the same order as the returned positions.
+   *
+   * @return		the distances
+   */
+  public double[] getDistances() {
+    return m_NeighbourDistances;
+  }
+
+  /**
+   * Computes the squared distance between the normalized query and a row,
+   * giving up once the cut off value is exceeded.
+   *
+   * @param query	the normalized query
+   * @param width	the width of each attribute range
+   * @param offset	the offset of the row in m_Rows
+   * @param cutOff	the cut off value
+   * @return		the squared distance, or Double.POSITIVE_INFINITY if
+   * 			larger than the cut off value
+   */
+  protected double distance(double[] query, double[] width, int offset, double cutOff) {
+    double[] rows = m_Rows;
+    double distance = 0;
+    for (int j = 0; j < m_NumAttributes; j++) {
+      byte kind = m_Kinds[j];
+      if (kind == SKIP)
+        continue;
+      double q = query[j];
+      double r = rows[offset + j];
+      double diff;
+      if (kind == NOMINAL) {
+        diff = (Double.isNaN(q) || Double.isNaN(r) || (int) q != (int) r) ? 1 : 0;
+      }
+      else if (!Double.isNaN(q) && !Double.isNaN(r)) {
+        double min = m_Min[j];
+        double w = width[j];
+        diff = q - ((Double.isNaN(min) || w == 0) ? 0 : (r - min) / w);
+      }
+      else if (Double.isNaN(q) && Double.isNaN(r)) {
+        diff = 1;
+      }
+      else {
+        diff = Double.isNaN(r) ? q : norm(r, j);
+        if (diff < 0.5)
+          diff = 1.0 - diff;
+      }
+      distance += diff * diff;
+      if (distance > cutOff)
+        return Double.POSITIVE_INFINITY;
+    }
+    return distance;
+  }
+
+  /**
+   * Adds a value to a max-heap.
+   *
+   * @param heap	the heap
+   * @param size	the current heap size
+   * @param value	the value to add
+   * @return		the new heap size
+   */
+  protected static int heapPush(double[] heap, int size, double value) {
+    int i = size;
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (heap[parent] >= value)
+        break;
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = value;
+    return size + 1;
+  }
+
+  /**
+   * Replaces the top of a max-heap with a smaller value.
+   *
+   * @param heap	the heap
+   * @param size	the heap size
+   * @param value	the new value
+   */
+  protected static void heapReplaceTop(double[] heap, int size, double value) {
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size)
+        break;
+      if (child + 1 < size && heap[child + 1] > heap[child])
+        child++;
+      if (heap[child] <= value)
+        break;
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = value;
+  }
+
+  /**
+   * Materializes the window as instances (with unit weight), oldest first.
+   *
+   * @return		the instances
+   */
+  public Instances toInstances() {
+    Instances result = new Instances(m_Header, m_Size);
+    for (int i = 0; i < m_Size; i++) {
+      double[] values = new double[m_NumAttributes];
+      System.arraycopy(m_Rows, slot(i) * m_NumAttributes, values, 0, m_NumAttributes);
+      Instance inst = new DenseInstance(1.0, values);
+      inst.setDataset(result);
+      result.add(inst);
+    }
+    return result;
+  }
+}
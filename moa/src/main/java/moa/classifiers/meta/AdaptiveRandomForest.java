@@ -36,14 +36,13 @@ import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import moa.classifiers.trees.ARFHoeffdingTree;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import moa.core.ComputeExecutor;
 import moa.AbstractMOAObject;
 import moa.classifiers.core.driftdetection.ChangeDetector;
 
@@ -142,7 +141,8 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
     protected int subspaceSize;
     protected BasicClassificationPerformanceEvaluator evaluator;
 
-    private ExecutorService executor;
+    // members trained on the shared compute executor, 0 or 1 for in place
+    private int numberOfJobs;
     
     @Override
     public void resetLearningImpl() {
@@ -153,15 +153,10 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         this.evaluator = new BasicClassificationPerformanceEvaluator();
         
         // Multi-threading
-        int numberOfJobs;
         if(this.numberOfJobsOption.getValue() == -1) 
-            numberOfJobs = Runtime.getRuntime().availableProcessors();
+            this.numberOfJobs = Runtime.getRuntime().availableProcessors();
         else 
-            numberOfJobs = this.numberOfJobsOption.getValue();
-        // SINGLE_THREAD and requesting for only 1 thread are equivalent. 
-        // this.executor will be null and not used...
-        if(numberOfJobs != AdaptiveRandomForest.SINGLE_THREAD && numberOfJobs != 1)
-            this.executor = Executors.newFixedThreadPool(numberOfJobs);
+            this.numberOfJobs = this.numberOfJobsOption.getValue();
     }
 
     @Override
@@ -170,14 +165,16 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         if(this.ensemble == null) 
             initEnsemble(instance);
         
-        Collection<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
+        // SINGLE_THREAD and requesting for only 1 thread are equivalent. 
+        boolean inPlace = this.numberOfJobs == AdaptiveRandomForest.SINGLE_THREAD || this.numberOfJobs == 1;
+        List<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
         for (int i = 0 ; i < this.ensemble.length ; i++) {
             DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(instance));
             InstanceExample example = new InstanceExample(instance);
             this.ensemble[i].evaluator.addResult(example, vote.getArrayRef());
             int k = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
             if (k > 0) {
-                if(this.executor != null) {
+                if(!inPlace) {
                     TrainingRunnable trainer = new TrainingRunnable(this.ensemble[i], 
                         instance, k, this.instancesSeen);
                     trainers.add(trainer);
@@ -187,12 +184,8 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
                 }
             }
         }
-        if(this.executor != null) {
-            try {
-                this.executor.invokeAll(trainers);
-            } catch (InterruptedException ex) {
-                throw new RuntimeException("Could not call invokeAll() on training threads.");
-            }
+        if(!inPlace) {
+            ComputeExecutor.invokeAll("AdaptiveRandomForest", trainers, this.numberOfJobs);
         }
     }
 
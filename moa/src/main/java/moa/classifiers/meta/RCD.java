@@ -24,17 +24,12 @@ import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import moa.classifiers.Classifier;
 import moa.classifiers.core.statisticaltests.StatisticalTest;
 import moa.classifiers.drift.SingleClassifierDrift;
+import moa.core.ComputeExecutor;
 import moa.core.MiscUtils;
 import moa.options.ClassOption;
 
@@ -102,7 +97,7 @@ public class RCD extends SingleClassifierDrift {
             Integer.MAX_VALUE);
 
     public IntOption threadSizeOption = new IntOption("threadSize",
-            'm', "The thread pool size, indicating how many simultaneous tests are allowed.", 4, 1,
+            'm', "The number of simultaneous tests allowed, run on the shared compute threads.", 4, 1,
             Integer.MAX_VALUE);
 
     public IntOption quantityClassifiersTestOption = new IntOption("quantityClassifiersTest",
@@ -243,9 +238,9 @@ public class RCD extends SingleClassifierDrift {
      */
     private ClassifierKS getPreviousClassifier(Classifier classifier,
             List<Instance> instances) {
-        ExecutorService threadPool = Executors.newFixedThreadPool(this.threadSizeOption.getValue());
         int SIZE = this.classifiers.size();
-        Map<Integer, Future<Double>> futures = new HashMap<>();
+        List<Integer> tested = new ArrayList<>();
+        List<StatisticalTest> tests = new ArrayList<>();
         for (int i = 0; i < SIZE; i++) {
             ClassifierKS cs = this.classifiers.get(i);
             if (cs != null) {
@@ -253,33 +248,26 @@ public class RCD extends SingleClassifierDrift {
                     StatisticalTest st = (StatisticalTest) getPreparedClassOption(this.statisticalTestOption);
                     StatisticalTest temp = (StatisticalTest) st.copy();
                     temp.set(instances, cs.getInstances());
-                    futures.put(i, threadPool.submit(temp));
+                    tested.add(i);
+                    tests.add(temp);
                 }
             } else {
                 break;
             }
         }
+        List<Double> pValues = ComputeExecutor.invokeAll("RCD", tests,
+                this.threadSizeOption.getValue());
         ClassifierKS cks = null;
         int qtd = this.quantityClassifiersTestOption.getValue();
         double maxPValue = this.similarityBetweenDistributionsOption.getValue();
-        try {
-            for (int i = 0; i < SIZE && qtd > 0; i++) {
-                Future<Double> f = futures.get(i);
-                if (f != null) {
-                    double p = f.get();
-                    if (p < maxPValue) {
-                        maxPValue = p;
-                        cks = this.classifiers.get(i);
-                        qtd--;
-                    }
-                }
+        for (int t = 0; t < tested.size() && qtd > 0; t++) {
+            double p = pValues.get(t);
+            if (p < maxPValue) {
+                maxPValue = p;
+                cks = this.classifiers.get(tested.get(t));
+                qtd--;
             }
-        } catch (InterruptedException e) {
-            System.out.println("Processing interrupted.");
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Error computing statistical test.", e);
         }
-        threadPool.shutdownNow();
         return cks;
     }
 }
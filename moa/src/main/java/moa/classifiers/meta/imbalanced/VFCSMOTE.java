@@ -24,6 +24,7 @@ import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.Classifier;
 import moa.classifiers.EnsembleBaseLearner;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.BinnedNumericAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserverHistogram;
 import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserverHistogram;
 import moa.classifiers.core.driftdetection.ChangeDetector;
@@ -233,6 +234,9 @@ public class VFCSMOTE extends AbstractClassifier implements MultiClassClassifier
             			values[instAttIndex] = ((GaussianNumericAttributeClassObserverHistogram) obs).getSampleFromBeta(minClass);	                                			
             		}                	
                 }
+                else if (obs instanceof BinnedNumericAttributeClassObserver) {
+                	values[instAttIndex] = ((BinnedNumericAttributeClassObserver) obs).getSample(minClass, this.classifierRandom);
+                }
                 else if (obs instanceof NominalAttributeClassObserverHistogram) {
                 	if (((NominalAttributeClassObserverHistogram) obs).attValDistPerClassSimple.get(minClass) == null) {                		
                 		values[instAttIndex] = this.classifierRandom.nextInt(instance.attribute(instAttIndex).numValues());
@@ -34,6 +34,7 @@ import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.MultiLabelInstance;
 import com.yahoo.labs.samoa.instances.MultiLabelPrediction;
 import com.yahoo.labs.samoa.instances.Prediction;
@@ -41,6 +42,7 @@ import com.yahoo.labs.samoa.instances.Prediction;
 import moa.AbstractMOAObject;
 import moa.classifiers.AbstractMultiLabelLearner;
 import moa.classifiers.MultiTargetRegressor;
+import moa.classifiers.core.PendingSplits;
 import moa.classifiers.multilabel.core.splitcriteria.ICVarianceReduction;
 import moa.classifiers.rules.core.Predicate;
 import moa.classifiers.rules.multilabel.attributeclassobservers.AttributeStatisticsObserver;
@@ -80,6 +82,9 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 
 	public int maxID = 0;
 
+	// split attempts evaluated in the background
+	protected PendingSplits<LeafNode, AttributeExpansionSuggestion> pendingSplits;
+
 	//region ================ OPTIONS ================
 
 	public IntOption gracePeriodOption = new IntOption(
@@ -157,6 +162,12 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 			'n',
 			"Don't normalize.");
 
+	public IntOption splitDelayOption = new IntOption(
+			"splitDelay",
+			'D',
+			"The number of instances after which the decision of a split attempt, evaluated in the background, is applied (0 to decide at once).",
+			0, 0, Integer.MAX_VALUE);
+
 
 	//endregion ================ OPTIONS ================
 
@@ -304,26 +315,48 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		 * attribute observer
 		 */
 		public void learnFromInstance(MultiLabelInstance inst, double[] prediction, boolean growthAllowed) {
+			if (tree.pendingSplits != null && tree.pendingSplits.bufferInstance(this, inst, growthAllowed)) {
+				// the statistics of the node are being evaluated
+				return;
+			}
+			int numOutputs = tree.getModelContext().numOutputAttributes();
+			double weight = inst.weight();
+			double[] targets = new double[numOutputs];
+			for (int i = 0; i < numOutputs; i++) {
+				targets[i] = inst.valueOutputAttribute(i);
+			}
+
 			// Update the statistics for this node
-			double[] predictionP = tree.buildingModelTree() ? getPredictionModel(inst) : null;
+			// The normalized prediction of the perceptron is also the one it is updated from
+			double[] normalizedInput = null;
+			double[] normalizedPrediction = null;
+			double[] predictionP = null;
+			if (tree.buildingModelTree()) {
+				normalizedInput = tree.normalizedInputVector(inst);
+				normalizedPrediction = learningModel.prediction(normalizedInput);
+				predictionP = learningModel.denormalizePrediction(normalizedPrediction);
+			}
 			double[] predictionM = getPredictionTargetMean(inst);
 
 			// number of instances passing through the node
-			examplesSeen += inst.weight();
+			examplesSeen += weight;
 
-			for (int i = 0; i < tree.getModelContext().numOutputAttributes(); i++) {
+			for (int i = 0; i < numOutputs; i++) {
 				// sum of y values
-				sumOfValues.addToValue(i, inst.weight() * inst.valueOutputAttribute(i));
+				sumOfValues.addToValue(i, weight * targets[i]);
 
 				// sum of squared y values
-				sumOfSquares.addToValue(i, inst.weight() * inst.valueOutputAttribute(i) * inst.valueOutputAttribute(i));
+				sumOfSquares.addToValue(i, weight * targets[i] * targets[i]);
 
 				if (tree.buildingModelTree()) {
-					errorP.setValue(i, errorP.getValue(i) * 0.95 + Math.abs(predictionP[i] - inst.valueOutputAttribute(i)));
-					errorM.setValue(i, errorM.getValue(i) * 0.95 + Math.abs(predictionM[i] - inst.valueOutputAttribute(i)));
+					errorP.setValue(i, errorP.getValue(i) * 0.95 + Math.abs(predictionP[i] - targets[i]));
+					errorM.setValue(i, errorM.getValue(i) * 0.95 + Math.abs(predictionM[i] - targets[i]));
 				}
 			}
-			if (tree.buildingModelTree()) learningModel.updatePerceptron(inst);
+			if (tree.buildingModelTree()) learningModel.updatePerceptron(inst, normalizedInput, normalizedPrediction);
+
+			// The observers copy the statistics they observe, which are the same for all the attributes
+			DoubleVector[] observations = null;
 
 			for (int i = 0; i < inst.numInputAttributes(); i++) {
 				AttributeStatisticsObserver obs = attributeObservers.get(i);
@@ -339,12 +372,11 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 
 				}
 				if (obs != null) {
-					DoubleVector[] observations = new DoubleVector[inst.numOutputAttributes()];
-					for (int j = 0; j < inst.numOutputAttributes(); j++) {
-						observations[j] = new DoubleVector();
-						observations[j].setValue(0, inst.weight());
-						observations[j].setValue(1, inst.weight() * inst.valueOutputAttribute(j));
-						observations[j].setValue(2, inst.weight() * inst.valueOutputAttribute(j) * inst.valueOutputAttribute(j));
+					if (observations == null) {
+						observations = new DoubleVector[numOutputs];
+						for (int j = 0; j < numOutputs; j++) {
+							observations[j] = new DoubleVector(new double[] {weight, weight * targets[j], weight * targets[j] * targets[j]});
+						}
 					}
 					obs.observeAttribute(inst.valueInputAttribute(i), observations);
 
@@ -429,8 +461,12 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		public void checkForSplit() {
 			// If it has seen Nmin examples since it was last tested for splitting, attempt a split of this node
 			if (examplesSeen - examplesSeenAtLastSplitEvaluation >= tree.gracePeriodOption.getValue()) {
-				int index = (parent != null) ? parent.getChildIndex(this) : 0;
-				tree.attemptToSplit(this, parent, index);
+				if (tree.splitDelayOption.getValue() > 0) {
+					tree.attemptToSplitInBackground(this);
+				} else {
+					int index = (parent != null) ? parent.getChildIndex(this) : 0;
+					tree.attemptToSplit(this, parent, index);
+				}
 
 				// Take note of how many instances were seen when this split evaluation was made, so we know when to perform the next split evaluation
 				examplesSeenAtLastSplitEvaluation = examplesSeen;
@@ -635,6 +671,14 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		 * Update the model using the provided instance
 		 */
 		public void updatePerceptron(MultiLabelInstance inst) {
+			updatePerceptron(inst, null, null);
+		}
+
+		/**
+		 * Update the model using the provided instance, given its normalized input and the normalized
+		 * prediction of the current weights for it when they are already computed (null otherwise)
+		 */
+		public void updatePerceptron(MultiLabelInstance inst, double[] normalizedInput, double[] normalizedPrediction) {
 			// Update attribute statistics
 			instancesSeen += inst.weight();
 			
@@ -648,21 +692,32 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 
 			// Loop for compatibility with bagging methods 
 			for (int i = 0; i < (int) inst.weight(); i++) {
-				updateWeights(inst, learningRatio);
+				updateWeights(inst, learningRatio, normalizedInput, normalizedPrediction);
+				// the weights have changed
+				normalizedPrediction = null;
 			}
 		}
 
 		public void updateWeights(MultiLabelInstance inst, double learningRatio) {
+			updateWeights(inst, learningRatio, null, null);
+		}
+
+		public void updateWeights(MultiLabelInstance inst, double learningRatio, double[] normalizedInput, double[] normalizedPrediction) {
 			if (instancesSeen > 1.0) {
 				// Compute the normalized instance and the delta
-				double[] normalizedInput = tree.normalizedInputVector(inst); 
-			    double[] normalizedPrediction = prediction(normalizedInput);
+				if (normalizedInput == null) {
+					normalizedInput = tree.normalizedInputVector(inst);
+				}
+				if (normalizedPrediction == null) {
+					normalizedPrediction = prediction(normalizedInput);
+				}
 
 				double[] normalizedTarget = tree.normalizedTargetVector(inst);
 				for (int i = 0; i < inst.numOutputAttributes(); i++){
-					double delta = normalizedTarget[i] - normalizedPrediction[i];
+					double[] targetWeights = weights[i];
+					double step = (normalizedTarget[i] - normalizedPrediction[i]) * learningRatio;
 					for (int j = 0; j < normalizedInput.length; j++) {
-						weights[i][j] += delta * learningRatio * normalizedInput[j];
+						targetWeights[j] += step * normalizedInput[j];
 					}
 				}
 				normalizeWeights();
@@ -684,11 +739,13 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		 */
 		public double[] prediction(double[] instanceValues) {
 			double[] out = new double[tree.getModelContext().numOutputAttributes()];
-			for (int i = 0; i < tree.getModelContext().numOutputAttributes(); i++) {
-				out[i] = 0;
+			for (int i = 0; i < out.length; i++) {
+				double[] targetWeights = weights[i];
+				double sum = 0;
 				for (int j = 0; j < instanceValues.length; j++) {
-					out[i] += weights[i][j] * instanceValues[j];
+					sum += targetWeights[j] * instanceValues[j];
 				}
+				out[i] = sum;
 			}
 			return out;
 		}
@@ -749,6 +806,7 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		leafNodeCount = 0;
 		splitNodeCount = 0;
 		maxID = 0;
+		pendingSplits = null;
 	}
 
 	public boolean isRandomizable() {
@@ -897,6 +955,10 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 	public void trainOnInstanceImpl(MultiLabelInstance inst) {
 		if (inst.weight() > 0) {
 			checkRoot();
+			if (pendingSplits != null) {
+				pendingSplits.countInstance();
+				applyPendingSplits(false);
+			}
 
 			double[] prediction = treeRoot.getPrediction(inst);
 			double[] normalError = getNormalizedError(inst, prediction);
@@ -1049,6 +1111,66 @@ public class ISOUPTree extends AbstractMultiLabelLearner implements MultiTargetR
 		AttributeExpansionSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion); // TODO update with split criterion option
 		Arrays.sort(bestSplitSuggestions);
 
+		applySplitSuggestions(node, parent, parentIndex, bestSplitSuggestions);
+	}
+
+	/**
+	 * Starts evaluating the split suggestions of a leaf on the compute executor.
+	 * The leaf stops learning until the decision is applied, splitDelay instances later,
+	 * so that its statistics do not change while they are evaluated.
+	 */
+	protected void attemptToSplitInBackground(final LeafNode node) {
+		if (pendingSplits == null) {
+			pendingSplits = new PendingSplits<LeafNode, AttributeExpansionSuggestion>(getClass().getSimpleName());
+		}
+		pendingSplits.add(new PendingSplits.PendingSplit<LeafNode, AttributeExpansionSuggestion>(node),
+				splitDelayOption.getValue(), () -> {
+			AttributeExpansionSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(new ICVarianceReduction());
+			Arrays.sort(bestSplitSuggestions);
+			return bestSplitSuggestions;
+		});
+	}
+
+	/**
+	 * Applies the decisions of the background split attempts that are due (or all of them),
+	 * waiting for their evaluation if needed, and learns the instances their leaves received
+	 * in the meantime in the subtree that replaced them.
+	 */
+	public void applyPendingSplits(boolean all) {
+		PendingSplits.PendingSplit<LeafNode, AttributeExpansionSuggestion> pending;
+		while (pendingSplits != null && (pending = pendingSplits.poll(all)) != null) {
+			LeafNode node = pending.getNode();
+			if (!isAttached(node)) {
+				continue;
+			}
+			SplitNode parent = node.parent;
+			int parentIndex = (parent != null) ? parent.getChildIndex(node) : 0;
+			applySplitSuggestions(node, parent, parentIndex, pending.getSuggestions());
+			Node subtree = (parent != null) ? parent.getChild(parentIndex)
+					: (node.originalNode != null) ? node.originalNode.alternateTree : treeRoot;
+			for (Instance inst : pending.getInstances()) {
+				processInstance((MultiLabelInstance) inst, subtree, null, null, pending.isGrowthAllowed(), false);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a node is still reachable from the root of the tree, or of an alternate tree in it.
+	 */
+	protected boolean isAttached(Node node) {
+		if (node.parent != null) {
+			return node.parent.getChildIndex(node) >= 0 && isAttached(node.parent);
+		} else if (node.originalNode != null) {
+			return node.originalNode.alternateTree == node && isAttached(node.originalNode);
+		}
+		return treeRoot == node;
+	}
+
+	/**
+	 * Decides whether to split a leaf given its sorted split suggestions, and applies the decision.
+	 */
+	protected void applySplitSuggestions(LeafNode node, SplitNode parent, int parentIndex,
+			AttributeExpansionSuggestion[] bestSplitSuggestions) {
 		// Declare a variable to determine if any of the splits should be performed
 		boolean shouldSplit = false;
 
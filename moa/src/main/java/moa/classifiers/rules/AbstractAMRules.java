@@ -31,14 +31,19 @@ package moa.classifiers.rules;
  * 
  **/
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import moa.classifiers.AbstractClassifier;
+import moa.classifiers.rules.core.Predicate;
 import moa.classifiers.rules.core.Rule;
 import moa.classifiers.rules.core.Rule.Builder;
 import moa.classifiers.rules.core.RuleActiveLearningNode;
+import moa.classifiers.rules.core.RuleCoverageIndex;
 import moa.classifiers.rules.core.RuleSet;
+import moa.classifiers.rules.core.RuleSplitNode;
 import moa.classifiers.rules.core.attributeclassobservers.FIMTDDNumericAttributeClassLimitObserver;
 import moa.classifiers.rules.core.voting.ErrorWeightedVote;
 import moa.classifiers.rules.core.voting.Vote;
@@ -103,6 +108,9 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 	public FlagOption unorderedRulesOption = new FlagOption("setUnorderedRulesOn", 'U',
 			"unorderedRules.");
 
+	public FlagOption coverageIndexOption = new FlagOption("useCoverageIndex", 'X',
+			"Look up the rules covering an instance in an index of their predicates.");
+
 	public IntOption VerbosityOption = new IntOption(
 			"verbosity",
 			'v',
@@ -116,6 +124,8 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 	
 
 	protected double attributesPercentage;
+
+	protected transient RuleCoverageIndex<Rule> coverageIndex;
 	
 	public double getAttributesPercentage() {
 		return attributesPercentage;
@@ -198,10 +208,13 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 		debug("Train",3);
 		debug("Nº instance "+numInstances + " - " + instance.toString(),3);
 		boolean rulesCoveringInstance = false;
+		long[] candidates = getCoveringCandidates(instance);
+		int position = -1;
 		Iterator<Rule> ruleIterator= this.ruleSet.iterator();
 		while (ruleIterator.hasNext()) { 
 			Rule rule = ruleIterator.next();
-			if (rule.isCovering(instance) == true) {
+			position++;
+			if (RuleCoverageIndex.isCandidate(candidates, position) && rule.isCovering(instance) == true) {
 				rulesCoveringInstance = true;
 				if (isAnomaly(instance, rule) == false) {
 					//Update Change Detection Tests
@@ -211,6 +224,7 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 						debug("I) Drift Detected. Exa. : " +  this.numInstances + " (" + rule.getInstancesSeen() +") Remove Rule: " +rule.getRuleNumberID(),1);
 
 						ruleIterator.remove();
+						invalidateCoverageIndex();
 						this.numChangesDetected+=instance.weight();  //Just for statistics 
 					} else {
 						rule.updateStatistics(instance);
@@ -218,6 +232,7 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 							if (rule.tryToExpand(this.splitConfidenceOption.getValue(), this.tieThresholdOption.getValue()) ) 
 							{
 								rule.split();
+								invalidateCoverageIndex();
 								debug("Rule Expanded:",2);
 								debug(rule.printRule(),2);
 							}	
@@ -243,6 +258,7 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 					defaultRule.split();
 					defaultRule.setRuleNumberID(++ruleNumberID);
 					this.ruleSet.add(this.defaultRule);
+					invalidateCoverageIndex();
 
 					debug("Default rule expanded! New Rule:",2);
 					debug(defaultRule.printRule(),2);
@@ -373,8 +389,41 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 
 	@Override
 	public void resetLearningImpl() {
-		
+		invalidateCoverageIndex();
+
+	}
+
+	/**
+	 * Returns the positions in the rule set of the rules that may cover the
+	 * instance, or null to check all the rules when the index is not used.
+	 */
+	protected long[] getCoveringCandidates(Instance instance) {
+		if (!this.coverageIndexOption.isSet()) {
+			return null;
+		}
+		if (this.coverageIndex == null) {
+			this.coverageIndex = new RuleCoverageIndex<Rule>() {
+				@Override
+				protected List<Predicate> getPredicates(Rule rule) {
+					List<Predicate> predicates = new ArrayList<Predicate>();
+					for (RuleSplitNode node : rule.getNodeList()) {
+						predicates.add((Predicate) node.getSplitTest());
+					}
+					return predicates;
+				}
+			};
+		}
+		return this.coverageIndex.getCandidates(this.ruleSet, instance);
+	}
 
+	/**
+	 * Invalidates the index of the rules, to call when the rule set or the
+	 * predicates of a rule change.
+	 */
+	protected void invalidateCoverageIndex() {
+		if (this.coverageIndex != null) {
+			this.coverageIndex.invalidate();
+		}
 	}
 
 	/**
@@ -407,8 +456,11 @@ public abstract class AbstractAMRules extends AbstractClassifier {
 		int numberOfRulesCovering = 0;
 
 		VerboseToConsole(instance); // Verbose to console Dataset name.
+		long[] candidates = getCoveringCandidates(instance);
+		int position = -1;
 		for (Rule rule : ruleSet) {
-			if (rule.isCovering(instance) == true){
+			position++;
+			if (RuleCoverageIndex.isCandidate(candidates, position) && rule.isCovering(instance) == true){
 				numberOfRulesCovering++;
 				//DoubleVector vote = new DoubleVector(rule.getPrediction(instance));
 				double [] vote=rule.getPrediction(instance);
@@ -0,0 +1,303 @@
+/*
+ *    RuleCoverageIndex.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+package moa.classifiers.rules.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import moa.classifiers.rules.core.conditionaltests.NominalAttributeBinaryRulePredicate;
+import moa.classifiers.rules.core.conditionaltests.NumericAttributeBinaryRulePredicate;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Index of the predicates of a list of rules, that finds the rules that may
+ * cover an instance without evaluating the predicates of every rule.
+ *
+ * The numeric bounds of the rules are kept sorted per attribute, so that the
+ * bounds an instance violates are contiguous, and the nominal predicates as
+ * bitsets of rules per attribute value. The candidates are the rules
+ * violating none of them, as a bitset of positions in the list of rules.
+ * Predicates that are not indexed, and missing values, do not exclude rules,
+ * so the candidates include every covering rule and must still be checked.
+ *
+ * The index is built from the list of rules on the first lookup after being
+ * invalidated: it must be invalidated whenever rules are added, removed or
+ * expanded.
+ */
+public abstract class RuleCoverageIndex<R> {
+
+	protected static class Bound implements Comparable<Bound> {
+
+		protected final double value;
+
+		protected final int position;
+
+		protected Bound(double value, int position) {
+			this.value = value;
+			this.position = position;
+		}
+
+		@Override
+		public int compareTo(Bound other) {
+			return Double.compare(this.value, other.value);
+		}
+	}
+
+	protected static class NumericBounds {
+
+		protected int attIndex;
+
+		// rules requiring a value greater than the bound, sorted by bound
+		protected double[] lowerValues;
+
+		protected int[] lowerPositions;
+
+		// rules requiring a value lower than or equal to the bound, sorted by bound
+		protected double[] upperValues;
+
+		protected int[] upperPositions;
+	}
+
+	protected static class NominalValues {
+
+		protected int attIndex;
+
+		// rules requiring some value of the attribute
+		protected long[] equalRules;
+
+		// rules requiring each value, and rules excluding each value
+		protected long[][] equalValueRules;
+
+		protected long[][] notEqualValueRules;
+	}
+
+	protected Object[] rules = new Object[0];
+
+	protected int numWords;
+
+	protected NumericBounds[] numericBounds = new NumericBounds[0];
+
+	protected NominalValues[] nominalValues = new NominalValues[0];
+
+	protected boolean isValid;
+
+	/**
+	 * Returns the predicates of a rule, all of which must hold for the rule to
+	 * cover an instance.
+	 */
+	protected abstract List<Predicate> getPredicates(R rule);
+
+	public void invalidate() {
+		this.isValid = false;
+	}
+
+	/**
+	 * Returns the positions in the list of rules of the rules that may cover
+	 * an instance, as a bitset.
+	 */
+	public long[] getCandidates(List<R> ruleList, Instance instance) {
+		if (!this.isValid || ruleList.size() != this.rules.length) {
+			build(ruleList);
+		}
+		long[] candidates = new long[this.numWords];
+		for (int i = 0; i < this.rules.length; i++) {
+			candidates[i >>> 6] |= 1L << i;
+		}
+		for (NumericBounds bounds : this.numericBounds) {
+			double value = instance.valueInputAttribute(bounds.attIndex);
+			if (Double.isNaN(value)) {
+				continue;
+			}
+			for (int i = firstNotLower(bounds.lowerValues, value); i < bounds.lowerValues.length; i++) {
+				clear(candidates, bounds.lowerPositions[i]);
+			}
+			int numViolated = firstNotLower(bounds.upperValues, value);
+			for (int i = 0; i < numViolated; i++) {
+				clear(candidates, bounds.upperPositions[i]);
+			}
+		}
+		for (NominalValues values : this.nominalValues) {
+			double value = instance.valueInputAttribute(values.attIndex);
+			if (value < 0 || value != (int) value) {
+				continue;
+			}
+			long[] equalValueRules = (int) value < values.equalValueRules.length ? values.equalValueRules[(int) value] : null;
+			long[] notEqualValueRules = (int) value < values.notEqualValueRules.length ? values.notEqualValueRules[(int) value] : null;
+			for (int w = 0; w < this.numWords; w++) {
+				long violated = values.equalRules[w];
+				if (equalValueRules != null) {
+					violated &= ~equalValueRules[w];
+				}
+				if (notEqualValueRules != null) {
+					violated |= notEqualValueRules[w];
+				}
+				candidates[w] &= ~violated;
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns whether the rule at a position is a candidate; null candidates
+	 * stand for all the rules.
+	 */
+	public static boolean isCandidate(long[] candidates, int position) {
+		return candidates == null || (candidates[position >>> 6] & (1L << position)) != 0;
+	}
+
+	protected static void clear(long[] bits, int position) {
+		bits[position >>> 6] &= ~(1L << position);
+	}
+
+	protected static int firstNotLower(double[] values, double value) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void build(List<R> ruleList) {
+		this.rules = ruleList.toArray();
+		this.numWords = (this.rules.length + 63) >>> 6;
+		Map<Integer, List<Bound>> lowerBounds = new TreeMap<Integer, List<Bound>>();
+		Map<Integer, List<Bound>> upperBounds = new TreeMap<Integer, List<Bound>>();
+		Map<Integer, NominalValues> nominals = new TreeMap<Integer, NominalValues>();
+		for (int position = 0; position < this.rules.length; position++) {
+			for (Predicate predicate : getPredicates((R) this.rules[position])) {
+				if (predicate instanceof NumericAttributeBinaryRulePredicate) {
+					NumericAttributeBinaryRulePredicate numeric = (NumericAttributeBinaryRulePredicate) predicate;
+					if (numeric.getOperator() != 0) { // equality tests are not indexed
+						boolean isEqualOrLess = (numeric.getOperator() == 1) == numeric.isEqualOrLess();
+						addBound(isEqualOrLess ? upperBounds : lowerBounds, numeric.getAttributeIndex(),
+								numeric.getSplitValue(), position);
+					}
+				} else if (predicate instanceof NumericRulePredicate) {
+					NumericRulePredicate numeric = (NumericRulePredicate) predicate;
+					addBound(numeric.isEqualOrLess() ? upperBounds : lowerBounds, numeric.getAttributeIndex(),
+							numeric.getAttributeValue(), position);
+				} else if (predicate instanceof NominalAttributeBinaryRulePredicate) {
+					NominalAttributeBinaryRulePredicate nominal = (NominalAttributeBinaryRulePredicate) predicate;
+					addValue(nominals, nominal.getAttributeIndex(), nominal.getAttributeValue(),
+							nominal.isEqualOrLess(), position);
+				} else if (predicate instanceof NominalRulePredicate) {
+					NominalRulePredicate nominal = (NominalRulePredicate) predicate;
+					double value = nominal.getAttributeValue();
+					if (value >= 0 && value == (int) value) {
+						addValue(nominals, nominal.getAttributeIndex(), (int) value,
+								nominal.isEqualOrLess(), position);
+					}
+				}
+			}
+		}
+
+		Set<Integer> attIndices = new TreeSet<Integer>(lowerBounds.keySet());
+		attIndices.addAll(upperBounds.keySet());
+		this.numericBounds = new NumericBounds[attIndices.size()];
+		int i = 0;
+		for (Integer attIndex : attIndices) {
+			NumericBounds bounds = new NumericBounds();
+			bounds.attIndex = attIndex;
+			List<Bound> lower = sorted(lowerBounds.get(attIndex));
+			bounds.lowerValues = new double[lower.size()];
+			bounds.lowerPositions = new int[lower.size()];
+			for (int j = 0; j < lower.size(); j++) {
+				bounds.lowerValues[j] = lower.get(j).value;
+				bounds.lowerPositions[j] = lower.get(j).position;
+			}
+			List<Bound> upper = sorted(upperBounds.get(attIndex));
+			bounds.upperValues = new double[upper.size()];
+			bounds.upperPositions = new int[upper.size()];
+			for (int j = 0; j < upper.size(); j++) {
+				bounds.upperValues[j] = upper.get(j).value;
+				bounds.upperPositions[j] = upper.get(j).position;
+			}
+			this.numericBounds[i++] = bounds;
+		}
+		this.nominalValues = nominals.values().toArray(new NominalValues[nominals.size()]);
+		this.isValid = true;
+	}
+
+	protected static List<Bound> sorted(List<Bound> bounds) {
+		if (bounds == null) {
+			return Collections.emptyList();
+		}
+		Collections.sort(bounds);
+		return bounds;
+	}
+
+	protected static void addBound(Map<Integer, List<Bound>> bounds, int attIndex,
+			double value, int position) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		List<Bound> attBounds = bounds.get(attIndex);
+		if (attBounds == null) {
+			attBounds = new ArrayList<Bound>();
+			bounds.put(attIndex, attBounds);
+		}
+		attBounds.add(new Bound(value, position));
+	}
+
+	protected void addValue(Map<Integer, NominalValues> nominals, int attIndex,
+			int value, boolean isEqual, int position) {
+		if (value < 0) {
+			return;
+		}
+		NominalValues values = nominals.get(attIndex);
+		if (values == null) {
+			values = new NominalValues();
+			values.attIndex = attIndex;
+			values.equalRules = new long[this.numWords];
+			values.equalValueRules = new long[0][];
+			values.notEqualValueRules = new long[0][];
+			nominals.put(attIndex, values);
+		}
+		long[][] valueRules = isEqual ? values.equalValueRules : values.notEqualValueRules;
+		if (value >= valueRules.length) {
+			long[][] newValueRules = new long[value + 1][];
+			System.arraycopy(valueRules, 0, newValueRules, 0, valueRules.length);
+			valueRules = newValueRules;
+			if (isEqual) {
+				values.equalValueRules = valueRules;
+			} else {
+				values.notEqualValueRules = valueRules;
+			}
+		}
+		if (valueRules[value] == null) {
+			valueRules[value] = new long[this.numWords];
+		}
+		valueRules[value][position >>> 6] |= 1L << position;
+		if (isEqual) {
+			values.equalRules[position >>> 6] |= 1L << position;
+		}
+	}
+}
@@ -76,6 +76,10 @@ public class NominalAttributeBinaryRulePredicate extends NominalAttributeBinaryT
 		return attIndex;
 	}
 
+	public int getAttributeValue() {
+		return attValue;
+	}
+
 	@Override
 	public boolean isEqualOrLess() {
 		return state;
@@ -20,11 +20,15 @@
 
 package moa.classifiers.rules.multilabel;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ListIterator;
 
 import moa.classifiers.AbstractMultiLabelLearner;
 import moa.classifiers.MultiLabelLearner;
 import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.classifiers.rules.core.Predicate;
+import moa.classifiers.rules.core.RuleCoverageIndex;
 import moa.classifiers.rules.core.anomalydetection.AnomalyDetector;
 import moa.classifiers.rules.core.anomalydetection.OddsRatioScore;
 import moa.classifiers.rules.featureranking.FeatureRanking;
@@ -33,6 +37,7 @@ import moa.classifiers.rules.featureranking.messages.ChangeDetectedMessage;
 import moa.classifiers.rules.functions.Perceptron;
 import moa.classifiers.rules.multilabel.attributeclassobservers.NominalStatisticsObserver;
 import moa.classifiers.rules.multilabel.attributeclassobservers.NumericStatisticsObserver;
+import moa.classifiers.rules.multilabel.core.Literal;
 import moa.classifiers.rules.multilabel.core.MultiLabelRule;
 import moa.classifiers.rules.multilabel.core.MultiLabelRuleSet;
 import moa.classifiers.rules.multilabel.core.ObserverMOAObject;
@@ -97,6 +102,9 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 	public FlagOption dropOldRuleAfterExpansionOption = new FlagOption("dropOldRuleAfterExpansion", 'D',
 			"Drop old rule if it expanded (by default the rule is kept for the set of outputs not selected for expansion.)");
 
+	public FlagOption coverageIndexOption = new FlagOption("useCoverageIndex", 'X',
+			"Look up the rules covering an instance in an index of their predicates.");
+
 	public ClassOption changeDetector = new ClassOption("changeDetector",
 			'H', "Change Detector.", 
 			ChangeDetector.class,
@@ -155,6 +163,8 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 	
 	protected double attributesPercentage;
 
+	protected transient RuleCoverageIndex<MultiLabelRule> coverageIndex;
+
 	public double getAttributesPercentage() {
 		return attributesPercentage;
 	}
@@ -202,8 +212,11 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 		//int numberOfRulesCovering = 0;
 
 		VerboseToConsole(instance); // Verbose to console Dataset name.
+		long[] candidates = getCoveringCandidates(instance);
+		int position = -1;
 		for (MultiLabelRule rule : ruleSet) {
-			if (rule.isCovering(instance) == true){
+			position++;
+			if (RuleCoverageIndex.isCandidate(candidates, position) && rule.isCovering(instance) == true){
 				//numberOfRulesCovering++;
 				Prediction vote=rule.getPredictionForInstance(instance);
 				if (vote!=null){ //should only happen for first instance
@@ -306,15 +319,19 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 		debug("Train",3);
 		debug("Nº instance "+numInstances + " - " + instance.toString(),3);
 		boolean rulesCoveringInstance = false;
+		long[] candidates = getCoveringCandidates(instance);
+		int position = -1;
 		ListIterator<MultiLabelRule> ruleIterator= this.ruleSet.listIterator();
 		while (ruleIterator.hasNext()) { 
 			MultiLabelRule rule = ruleIterator.next();
-			if (rule.isCovering(instance) == true) {
+			position++; // rules added by the iterator are not returned, and keep positions
+			if (RuleCoverageIndex.isCandidate(candidates, position) && rule.isCovering(instance) == true) {
 				rulesCoveringInstance = true;
 				if (!rule.updateAnomalyDetection(instance)) {
 					if (rule.updateChangeDetection(instance)) {
 						debug("I) Drift Detected. Exa. : " +  this.numInstances + " (" + rule.getWeightSeenSinceExpansion() +") Remove Rule: " +rule.getRuleNumberID(),1);
 						ruleIterator.remove();
+						invalidateCoverageIndex();
 
 						//Rule expansion event
 						rule.notifyAll(new ChangeDetectedMessage());
@@ -325,6 +342,7 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 						if (rule.getWeightSeenSinceExpansion()  % this.gracePeriodOption.getValue() == 0.0) {
 							if (rule.tryToExpand(this.splitConfidenceOption.getValue(), this.tieThresholdOption.getValue()) ) 
 							{
+								invalidateCoverageIndex();
 
 								MultiLabelRule otherMultiLabelRule=rule.getNewRuleFromOtherOutputs(); //Need to be outside to make sure other rules are cleaned
 								if(!dropOldRuleAfterExpansionOption.isSet() && rule.hasNewRuleFromOtherOutputs()){
@@ -366,6 +384,7 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 					//Add expanded rule to ruleset
 					setRuleOptions(defaultRule);
 					ruleSet.add(this.defaultRule);
+					invalidateCoverageIndex();
 
 
 					debug("Default rule expanded! New Rule:",2);
@@ -525,6 +544,7 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 		defaultRule.setInstanceTransformer(new NoInstanceTransformation());
 		setRuleOptions(defaultRule);
 		ruleSet = new MultiLabelRuleSet();
+		invalidateCoverageIndex();
 		ruleNumberID=1;
 		statistics=null;
 		this.featureRanking=(FeatureRanking) getPreparedClassOption(this.featureRankingOption);
@@ -532,6 +552,39 @@ public abstract class AMRulesMultiLabelLearner extends AbstractMultiLabelLearner
 	}
 
 
+	/**
+	 * Returns the positions in the rule set of the rules that may cover the
+	 * instance, or null to check all the rules when the index is not used.
+	 */
+	protected long[] getCoveringCandidates(MultiLabelInstance instance) {
+		if (!this.coverageIndexOption.isSet()) {
+			return null;
+		}
+		if (this.coverageIndex == null) {
+			this.coverageIndex = new RuleCoverageIndex<MultiLabelRule>() {
+				@Override
+				protected List<Predicate> getPredicates(MultiLabelRule rule) {
+					List<Predicate> predicates = new ArrayList<Predicate>();
+					for (Literal literal : rule.getLiterals()) {
+						predicates.add(literal.getPredicate());
+					}
+					return predicates;
+				}
+			};
+		}
+		return this.coverageIndex.getCandidates(this.ruleSet, instance);
+	}
+
+	/**
+	 * Invalidates the index of the rules, to call when the rule set or the
+	 * literals of a rule change.
+	 */
+	protected void invalidateCoverageIndex() {
+		if (this.coverageIndex != null) {
+			this.coverageIndex.invalidate();
+		}
+	}
+
 	protected void setRuleOptions(MultiLabelRule rule){
 		rule.setSplitCriterion((MultiLabelSplitCriterion)((MultiLabelSplitCriterion)getPreparedClassOption(splitCriterionOption)).copy());
 		rule.setChangeDetector((ChangeDetector)((ChangeDetector)getPreparedClassOption(changeDetector)).copy());
@@ -23,6 +23,10 @@ public class Literal extends AbstractMOAObject{
 	public int getAttributeIndex(){
 		return this.predicate.getAttributeIndex();
 	}
+
+	public Predicate getPredicate(){
+		return this.predicate;
+	}
 	
 
 	public boolean evaluate(Instance inst) {
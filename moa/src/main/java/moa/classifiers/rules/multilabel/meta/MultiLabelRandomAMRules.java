@@ -21,6 +21,11 @@
 
 package moa.classifiers.rules.multilabel.meta;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
 import moa.classifiers.AbstractMultiLabelLearner;
 import moa.classifiers.MultiTargetRegressor;
 import moa.classifiers.rules.featureranking.BasicFeatureRanking;
@@ -31,6 +36,7 @@ import moa.classifiers.rules.multilabel.core.voting.ErrorWeightedVoteMultiLabel;
 import moa.classifiers.rules.multilabel.core.voting.UniformWeightedVoteMultiLabel;
 import moa.classifiers.rules.multilabel.errormeasurers.AbstractMultiTargetErrorMeasurer;
 import moa.classifiers.rules.multilabel.errormeasurers.MultiLabelErrorMeasurer;
+import moa.core.ComputeExecutor;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
@@ -86,6 +92,10 @@ implements MultiTargetRegressor {
 
 	public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
 			"Seed for random behaviour of the classifier.", 1);
+
+	public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+			"Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
 	protected AMRulesMultiLabelLearner [] ensemble;
 
 	protected MultiLabelErrorMeasurer [] errorMeasurer;
@@ -103,6 +113,7 @@ implements MultiTargetRegressor {
 
 	protected boolean isRegression;
 	protected FeatureRanking featureRanking;
+
 	
 	
 	@Override
@@ -134,25 +145,63 @@ implements MultiTargetRegressor {
 			}
 			nAttributes=instance.numInputAttributes();
 		}
+		// bagging weights are drawn up front, in the order of the members, so
+		// that they do not depend on the number of jobs
+		int [] weights = new int[this.ensemble.length];
 		for (int i = 0; i < this.ensemble.length; i++) {
-			MultiLabelInstance inst=(MultiLabelInstance)instance.copy();
-			int k = 1;
+			weights[i] = 1;
 			if ( this.useBaggingOption.isSet()) {
-				k = MiscUtils.poisson(1.0, this.classifierRandom);
+				weights[i] = MiscUtils.poisson(1.0, this.classifierRandom);
 			} 
-			if (k > 0) {
-				//Instance weightedInst = transformInstance(inst,i);
-				inst.setWeight(inst.weight() * k);
-				//estimate error
-				Prediction p=ensemble[i].getPredictionForInstance(inst);
-				if(p!=null)
-					errorMeasurer[i].addPrediction(p, inst);	
-				//train learner
-				this.ensemble[i].trainOnInstance(inst);
+		}
+		int numberOfJobs = getNumberOfJobs();
+		// members report to the feature ranking, which is trained serially
+		if (numberOfJobs == 1 || !(featureRanking instanceof NoFeatureRanking)) {
+			for (int i = 0; i < this.ensemble.length; i++) {
+				trainMember(i, instance, weights[i]);
 			}
+		} else {
+			List<Callable<Object>> trainers = new ArrayList<Callable<Object>>();
+			for (int i = 0; i < this.ensemble.length; i++) {
+				if (weights[i] > 0) {
+					final int member = i;
+					final int weight = weights[i];
+					trainers.add(Executors.callable(() -> trainMember(member, instance, weight)));
+				}
+			}
+			ComputeExecutor.invokeAll("MultiLabelRandomAMRules", trainers, numberOfJobs);
+		}
+	}
+
+	protected void trainMember(int i, MultiLabelInstance instance, int k) {
+		if (k > 0) {
+			MultiLabelInstance inst=(MultiLabelInstance)instance.copy();
+			//Instance weightedInst = transformInstance(inst,i);
+			inst.setWeight(inst.weight() * k);
+			//estimate error
+			Prediction p=ensemble[i].getPredictionForInstance(inst);
+			if(p!=null)
+				errorMeasurer[i].addPrediction(p, inst);	
+			//train learner
+			this.ensemble[i].trainOnInstance(inst);
 		}
 	}
 
+	/**
+	 * Returns the number of members run concurrently on the shared compute
+	 * executor, 1 if they run on the calling thread.
+	 */
+	protected int getNumberOfJobs() {
+		int numberOfJobs = this.numberOfJobsOption.getValue();
+		if (numberOfJobs == -1) {
+			numberOfJobs = Runtime.getRuntime().availableProcessors();
+		}
+		if (numberOfJobs == 0 || this.ensemble.length == 1) {
+			return 1;
+		}
+		return numberOfJobs;
+	}
+
 	@Override
 	public Prediction getPredictionForInstance(MultiLabelInstance inst) {
 		Prediction vote=null;
@@ -162,9 +211,10 @@ implements MultiTargetRegressor {
 		if (VerbosityOption.getValue()>1)
 			sb=new StringBuilder();
 
+		// the votes of the members are combined in the order of the members
+		List<ErrorWeightedVoteMultiLabel> votes = getMemberVotes(inst);
 		for (int i = 0; i < this.ensemble.length; i++) {
-			// transformInstance method visibility changed from private to protected in RandomRules
-			ErrorWeightedVoteMultiLabel v = ((AMRulesMultiLabelLearner) this.ensemble[i]).getVotes(inst);
+			ErrorWeightedVoteMultiLabel v = votes.get(i);
 			if (VerbosityOption.getValue()>1)
 				sb.append(v.getPrediction() + ", " + " E: " + v.getWeightedError() + " ");
 			/*if (!this.isRegression){
@@ -188,6 +238,24 @@ implements MultiTargetRegressor {
 	}
 
 
+	protected List<ErrorWeightedVoteMultiLabel> getMemberVotes(final MultiLabelInstance inst) {
+		int numberOfJobs = getNumberOfJobs();
+		if (numberOfJobs == 1) {
+			List<ErrorWeightedVoteMultiLabel> votes = new ArrayList<ErrorWeightedVoteMultiLabel>();
+			for (int i = 0; i < this.ensemble.length; i++) {
+				// transformInstance method visibility changed from private to protected in RandomRules
+				votes.add(((AMRulesMultiLabelLearner) this.ensemble[i]).getVotes(inst));
+			}
+			return votes;
+		}
+		List<Callable<ErrorWeightedVoteMultiLabel>> voters = new ArrayList<Callable<ErrorWeightedVoteMultiLabel>>();
+		for (int i = 0; i < this.ensemble.length; i++) {
+			final AMRulesMultiLabelLearner member = (AMRulesMultiLabelLearner) this.ensemble[i];
+			voters.add(() -> member.getVotes(inst));
+		}
+		return ComputeExecutor.invokeAll("MultiLabelRandomAMRules", voters, numberOfJobs);
+	}
+
 	@Override
 	protected Measurement[] getModelMeasurementsImpl() {
 		//Measurement [] baseLearnerMeasurements=((AMRulesMultiLabelLearner) getPreparedClassOption(this.baseLearnerOption)).getModelMeasurements();
@@ -98,6 +98,12 @@ public class ASHoeffdingTree extends HoeffdingTree {
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        // the tree is resized right after its splits, which therefore
+        // cannot be delayed
+        if (this.splitDelayOption.getValue() > 0) {
+            throw new IllegalArgumentException(
+                    "splitDelay is not supported by " + getClass().getSimpleName());
+        }
     }
 
     @Override
@@ -86,6 +86,12 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     "The number of instances an internal node should observe between re-evaluation attempts.",
     2000, 0, Integer.MAX_VALUE);
 
+  public IntOption reEvalBudgetOption = new IntOption(
+    "reevaluationBudget",
+    'B',
+    "The number of attributes an internal node re-evaluates per instance, spreading each re-evaluation over the next instances (0 to re-evaluate all attributes at once).",
+    0, 0, Integer.MAX_VALUE);
+
   public IntOption maxByteSizeOption = new IntOption("maxByteSize", 'm',
     "Maximum memory consumed by the tree.", 33554432, 0,
     Integer.MAX_VALUE);
@@ -147,6 +153,12 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
   public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
     "Disable pre-pruning.");
 
+  public IntOption parallelSplitThresholdOption = new IntOption(
+    "parallelSplitThreshold",
+    'P',
+    "The number of attributes from which split suggestions are evaluated in parallel (0 to never).",
+    0, 0, Integer.MAX_VALUE);
+
   public MultiChoiceOption leafpredictionOption = new MultiChoiceOption(
     "leafprediction", 'l', "Leaf prediction to use.", new String[]{
     "MC", "NB", "NBAdaptive"}, new String[]{
@@ -180,6 +192,18 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
   protected int splitCount = 0;
 
+  protected SplitCriterion splitCriterion;
+
+  /**
+   * Returns the split criterion, prepared once per reset of the learner.
+   */
+  protected SplitCriterion getSplitCriterion() {
+    if (this.splitCriterion == null) {
+      this.splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+    }
+    return this.splitCriterion;
+  }
+
   @Override
   public String getPurposeString() {
     return "Hoeffding Tree or VFDT.";
@@ -208,6 +232,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     this.activeLeafByteSizeEstimate = 0.0;
     this.byteSizeEstimateOverheadFraction = 1.0;
     this.growthAllowed = true;
+    this.splitCriterion = null;
     if (this.leafpredictionOption.getChosenIndex() > 0) {
       this.removePoorAttsOption = null;
     }
@@ -429,7 +454,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
       node.addToSplitAttempts(1); // even if we don't actually attempt to split, we've computed infogains
 
 
-      SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+      SplitCriterion splitCriterion = getSplitCriterion();
       AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion, this);
       Arrays.sort(bestSplitSuggestions);
       boolean shouldSplit = false;
@@ -888,6 +913,12 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
     protected AutoExpandVector<AttributeClassObserver> attributeObservers;
 
+    // suggestions of the attributes re-evaluated so far, when re-evaluations
+    // are spread over instances, null if no re-evaluation is in progress
+    protected AttributeSplitSuggestion[] pendingSuggestions;
+
+    protected int nextPendingAttIndex;
+
     public EFDTSplitNode(InstanceConditionalTest splitTest, double[] classObservations, int size) {
       super(splitTest, classObservations, size);
     }
@@ -928,6 +959,30 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     // DRY Don't Repeat Yourself... code duplicated from ActiveLearningNode in VFDT.java. However, this is the most practical way to share stand-alone.
     public AttributeSplitSuggestion[] getBestSplitSuggestions(
       SplitCriterion criterion, EFDT ht) {
+      double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
+      final AttributeSplitSuggestion[] attSuggestions = new AttributeSplitSuggestion[this.attributeObservers.size()];
+      HoeffdingTree.forEachAttribute(attSuggestions.length, ht.parallelSplitThresholdOption.getValue(), i -> {
+	attSuggestions[i] = getBestSplitSuggestion(criterion, preSplitDist, i, ht);
+      });
+      return getBestSplitSuggestions(criterion, ht, attSuggestions);
+    }
+
+    protected AttributeSplitSuggestion getBestSplitSuggestion(
+      SplitCriterion criterion, double[] preSplitDist, int attIndex, EFDT ht) {
+      AttributeClassObserver obs = this.attributeObservers.get(attIndex);
+      if (obs != null) {
+	return obs.getBestEvaluatedSplitSuggestion(criterion,
+	  preSplitDist, attIndex, ht.binarySplitsOption.isSet());
+      }
+      return null;
+    }
+
+    /**
+     * Returns the suggestions of the attributes, along with the null split
+     * unless pre-pruning is disabled.
+     */
+    protected AttributeSplitSuggestion[] getBestSplitSuggestions(
+      SplitCriterion criterion, EFDT ht, AttributeSplitSuggestion[] attSuggestions) {
       List<AttributeSplitSuggestion> bestSuggestions = new LinkedList<>();
       double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
       if (!ht.noPrePruneOption.isSet()) {
@@ -936,14 +991,9 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	  new double[0][], criterion.getMeritOfSplit(
 	  preSplitDist, new double[][]{preSplitDist})));
       }
-      for (int i = 0; i < this.attributeObservers.size(); i++) {
-	AttributeClassObserver obs = this.attributeObservers.get(i);
-	if (obs != null) {
-	  AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-	    preSplitDist, i, ht.binarySplitsOption.isSet());
-	  if (bestSuggestion != null) {
-	    bestSuggestions.add(bestSuggestion);
-	  }
+      for (AttributeSplitSuggestion bestSuggestion : attSuggestions) {
+	if (bestSuggestion != null) {
+	  bestSuggestions.add(bestSuggestion);
 	}
       }
       return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
@@ -969,8 +1019,20 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
       }
 
       // check if a better split is available. if so, chop the tree at this point, copying likelihood. predictors for children are from parent likelihood.
-      if (ht.numInstances % ht.reEvalPeriodOption.getValue() == 0) {
-	this.reEvaluateBestSplit(this, parent, parentBranch);
+      int reEvalBudget = ht.reEvalBudgetOption.getValue();
+      if (reEvalBudget == 0) {
+	if (ht.numInstances % ht.reEvalPeriodOption.getValue() == 0) {
+	  this.reEvaluateBestSplit(this, parent, parentBranch);
+	}
+      }
+      else {
+	if (this.pendingSuggestions == null && ht.numInstances % ht.reEvalPeriodOption.getValue() == 0) {
+	  this.pendingSuggestions = new AttributeSplitSuggestion[this.attributeObservers.size()];
+	  this.nextPendingAttIndex = 0;
+	}
+	if (this.pendingSuggestions != null) {
+	  this.continueReEvaluation(reEvalBudget, parent, parentBranch);
+	}
       }
 
       int childBranch = this.instanceChildIndex(inst);
@@ -982,8 +1044,35 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 
     }
 
+    /**
+     * Re-evaluates the next attributes of the re-evaluation in progress, and
+     * decides on the split once all the attributes are re-evaluated, so that
+     * the cost of a re-evaluation is spread over instances.
+     */
+    protected void continueReEvaluation(int budget, EFDTSplitNode parent, int parentIndex) {
+      SplitCriterion splitCriterion = EFDT.this.getSplitCriterion();
+      double[] preSplitDist = this.observedClassDistribution.getArrayCopy();
+      int end = Math.min(this.pendingSuggestions.length, this.nextPendingAttIndex + budget);
+      for (int i = this.nextPendingAttIndex; i < end; i++) {
+	this.pendingSuggestions[i] = getBestSplitSuggestion(splitCriterion, preSplitDist, i, EFDT.this);
+      }
+      this.nextPendingAttIndex = end;
+      if (end == this.pendingSuggestions.length) {
+	AttributeSplitSuggestion[] attSuggestions = this.pendingSuggestions;
+	this.pendingSuggestions = null;
+	this.reEvaluateBestSplit(this, parent, parentIndex,
+	  getBestSplitSuggestions(splitCriterion, EFDT.this, attSuggestions));
+      }
+    }
+
     protected void reEvaluateBestSplit(EFDTSplitNode node, EFDTSplitNode parent,
 				       int parentIndex) {
+      reEvaluateBestSplit(node, parent, parentIndex,
+	node.getBestSplitSuggestions(EFDT.this.getSplitCriterion(), EFDT.this));
+    }
+
+    protected void reEvaluateBestSplit(EFDTSplitNode node, EFDTSplitNode parent,
+				       int parentIndex, AttributeSplitSuggestion[] bestSplitSuggestions) {
 
 
       node.addToSplitAttempts(1);
@@ -1005,12 +1094,10 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
       }
 
       //compute Hoeffding bound
-      SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(EFDT.this.splitCriterionOption);
+      SplitCriterion splitCriterion = EFDT.this.getSplitCriterion();
       double hoeffdingBound = computeHoeffdingBound(splitCriterion.getRangeOfMerit(node.getClassDistributionAtTimeOfCreation()),
 	EFDT.this.splitConfidenceOption.getValue(), node.observedClassDistribution.sumOfValues());
 
-      // get best split suggestions
-      AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion, EFDT.this);
       Arrays.sort(bestSplitSuggestions);
 
       // get the best suggestion
@@ -1304,14 +1391,17 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
 	  new double[0][], criterion.getMeritOfSplit(
 	  preSplitDist, new double[][]{preSplitDist})));
       }
-      for (int i = 0; i < this.attributeObservers.size(); i++) {
+      final AttributeSplitSuggestion[] attSuggestions = new AttributeSplitSuggestion[this.attributeObservers.size()];
+      HoeffdingTree.forEachAttribute(attSuggestions.length, ht.parallelSplitThresholdOption.getValue(), i -> {
 	AttributeClassObserver obs = this.attributeObservers.get(i);
 	if (obs != null) {
-	  AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
+	  attSuggestions[i] = obs.getBestEvaluatedSplitSuggestion(criterion,
 	    preSplitDist, i, ht.binarySplitsOption.isSet());
-	  if (bestSuggestion != null) {
-	    bestSuggestions.add(bestSuggestion);
-	  }
+	}
+      });
+      for (AttributeSplitSuggestion bestSuggestion : attSuggestions) {
+	if (bestSuggestion != null) {
+	  bestSuggestions.add(bestSuggestion);
 	}
       }
       return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
@@ -1390,7 +1480,7 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
       if (!node.observedClassDistributionIsPure()) {
 
 
-	SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+	SplitCriterion splitCriterion = getSplitCriterion();
 	AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion, this);
 
 	Arrays.sort(bestSplitSuggestions);
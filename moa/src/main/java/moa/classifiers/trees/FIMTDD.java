@@ -34,6 +34,7 @@ import moa.options.ClassOption;
 import moa.AbstractMOAObject;
 import moa.classifiers.Regressor;
 import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.PendingSplits;
 import moa.classifiers.core.attributeclassobservers.FIMTDDNumericAttributeClassObserver;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
@@ -70,6 +71,9 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 
 	public int maxID = 0;
 
+	// split attempts evaluated in the background
+	protected PendingSplits<LeafNode, AttributeSplitSuggestion> pendingSplits;
+
 	//region ================ OPTIONS ================
 
 	public ClassOption splitCriterionOption = new ClassOption(
@@ -122,6 +126,10 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 	public FlagOption learningRatioConstOption = new FlagOption(
 			"learningRatioConst", 'p', "Keep learning rate constant instead of decaying.");
 
+	public IntOption splitDelayOption = new IntOption(
+			"splitDelay", 'D', "The number of instances after which the decision of a split attempt, evaluated in the background, is applied (0 to decide at once).",
+			0, 0, Integer.MAX_VALUE);
+
 	//endregion ================ OPTIONS ================
 
 	//region ================ CLASSES ================
@@ -281,6 +289,10 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 		 * attribute observer
 		 */
 		public void learnFromInstance(Instance inst, boolean growthAllowed) {
+			if (tree.pendingSplits != null && tree.pendingSplits.bufferInstance(this, inst, growthAllowed)) {
+				// the statistics of the node are being evaluated
+				return;
+			}
 			//The prediction must be calculated here -- it may be different from the tree's prediction due to alternate trees
 			
 			// Update the statistics for this node
@@ -364,8 +376,12 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 		public void checkForSplit(FIMTDD tree) {
 			// If it has seen Nmin examples since it was last tested for splitting, attempt a split of this node
 			if (examplesSeen - examplesSeenAtLastSplitEvaluation >= tree.gracePeriodOption.getValue()) {
-				int index = (parent != null) ? parent.getChildIndex(this) : 0;
-				tree.attemptToSplit(this, parent, index);
+				if (tree.splitDelayOption.getValue() > 0) {
+					tree.attemptToSplitInBackground(this);
+				} else {
+					int index = (parent != null) ? parent.getChildIndex(this) : 0;
+					tree.attemptToSplit(this, parent, index);
+				}
 
 				// Take note of how many instances were seen when this split evaluation was made, so we know when to perform the next split evaluation
 				examplesSeenAtLastSplitEvaluation = examplesSeen;
@@ -687,6 +703,8 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 
 		this.sumOfAttrValues = new DoubleVector();
 		this.sumOfAttrSquares = new DoubleVector();
+
+		this.pendingSplits = null;
 	}
 
 	public boolean isRandomizable() {
@@ -741,6 +759,10 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 	 */
 	public void trainOnInstanceImpl(Instance inst) {
 		checkRoot();
+		if (pendingSplits != null) {
+			pendingSplits.countInstance();
+			applyPendingSplits(false);
+		}
 
 		examplesSeen += inst.weight();
 		sumOfValues += inst.weight() * inst.classValue();
@@ -881,6 +903,71 @@ public class FIMTDD extends AbstractClassifier implements Regressor {
 		AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion);
 		Arrays.sort(bestSplitSuggestions);
 
+		applySplitSuggestions(node, parent, parentIndex, splitCriterion, bestSplitSuggestions);
+	}
+
+	/**
+	 * Starts evaluating the split suggestions of a leaf on the compute executor.
+	 * The leaf stops learning until the decision is applied, splitDelay instances later,
+	 * so that its statistics do not change while they are evaluated.
+	 */
+	protected void attemptToSplitInBackground(final LeafNode node) {
+		final SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+		if (pendingSplits == null) {
+			pendingSplits = new PendingSplits<LeafNode, AttributeSplitSuggestion>(getClass().getSimpleName());
+		}
+		pendingSplits.add(new PendingSplits.PendingSplit<LeafNode, AttributeSplitSuggestion>(node),
+				splitDelayOption.getValue(), () -> {
+			AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion);
+			Arrays.sort(bestSplitSuggestions);
+			return bestSplitSuggestions;
+		});
+	}
+
+	/**
+	 * Applies the decisions of the background split attempts that are due (or all of them),
+	 * waiting for their evaluation if needed, and learns the instances their leaves received
+	 * in the meantime in the subtree that replaced them.
+	 */
+	public void applyPendingSplits(boolean all) {
+		PendingSplits.PendingSplit<LeafNode, AttributeSplitSuggestion> pending;
+		while (pendingSplits != null && (pending = pendingSplits.poll(all)) != null) {
+			LeafNode node = pending.getNode();
+			// alternate trees may have replaced or discarded the leaf meanwhile
+			if (!isAttached(node)) {
+				continue;
+			}
+			Node parent = node.getParent();
+			int parentIndex = (parent != null) ? parent.getChildIndex(node) : 0;
+			applySplitSuggestions(node, parent, parentIndex,
+					(SplitCriterion) getPreparedClassOption(this.splitCriterionOption), pending.getSuggestions());
+			Node subtree = (parent != null) ? ((InnerNode) parent).getChild(parentIndex)
+					: (node.originalNode != null) ? node.originalNode.alternateTree : treeRoot;
+			for (Instance inst : pending.getInstances()) {
+				// change detection in the new subtree starts with the next instances
+				double prediction = treeRoot.getPrediction(inst);
+				processInstance(inst, subtree, prediction, getNormalizedError(inst, prediction), pending.isGrowthAllowed(), true);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a node is still reachable from the root of the tree, or of an alternate tree in it.
+	 */
+	protected boolean isAttached(Node node) {
+		if (node.parent != null) {
+			return node.parent.getChildIndex(node) >= 0 && isAttached(node.parent);
+		} else if (node.originalNode != null) {
+			return node.originalNode.alternateTree == node && isAttached(node.originalNode);
+		}
+		return treeRoot == node;
+	}
+
+	/**
+	 * Decides whether to split a leaf given its sorted split suggestions, and applies the decision.
+	 */
+	protected void applySplitSuggestions(LeafNode node, Node parent, int parentIndex,
+			SplitCriterion splitCriterion, AttributeSplitSuggestion[] bestSplitSuggestions) {
 		// Declare a variable to determine if any of the splits should be performed
 		boolean shouldSplit = false;
 
@@ -25,7 +25,6 @@ import java.util.Random;
 
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
-import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.core.DoubleVector;
@@ -409,14 +408,12 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             if (predictionOption == 0) { //MC
                 dist = this.observedClassDistribution.getArrayCopy();
             } else if (predictionOption == 1) { //NB
-                dist = NaiveBayes.doNaiveBayesPrediction(inst,
-                        this.observedClassDistribution, this.attributeObservers);
+                dist = doNaiveBayesPrediction(inst, ht);
             } else { //NBAdaptive
                 if (this.mcCorrectWeight > this.nbCorrectWeight) {
                     dist = this.observedClassDistribution.getArrayCopy();
                 } else {
-                    dist = NaiveBayes.doNaiveBayesPrediction(inst,
-                            this.observedClassDistribution, this.attributeObservers);
+                    dist = doNaiveBayesPrediction(inst, ht);
                 }
             }
             //New for option votes
@@ -460,6 +457,17 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
         return new AdaSplitNode(splitTest, classObservations);
     }
 
+    @Override
+    public void resetLearningImpl() {
+        super.resetLearningImpl();
+        // the nodes learn and split on their own, without the delayed
+        // split attempts of HoeffdingTree
+        if (this.splitDelayOption.getValue() > 0) {
+            throw new IllegalArgumentException(
+                    "splitDelay is not supported by " + getClass().getSimpleName());
+        }
+    }
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
         if (this.treeRoot == null) {
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
@@ -37,6 +38,7 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.PendingSplits;
 import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.DiscreteAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
@@ -44,6 +46,7 @@ import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserve
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
+import moa.core.ComputeExecutor;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.SizeOf;
@@ -91,6 +94,12 @@ import com.yahoo.labs.samoa.instances.Instance;
  * adaptive (NBAdaptive).</li>
  *  <li> -q : The number of instances a leaf should observe before
  * permitting Naive Bayes</li>
+ *  <li> -P : The number of attributes from which split suggestions are
+ * evaluated in parallel (0 to never)</li>
+ *  <li> -D : The number of instances after which the decision of a split
+ * attempt, evaluated in the background, is applied (0 to decide at once)</li>
+ *  <li> -S : Only update the observers of the non-zero attributes of an
+ * instance, adding the zero values in aggregate when they are needed</li>
  * </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
@@ -167,6 +176,21 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public IntOption parallelSplitThresholdOption = new IntOption(
+            "parallelSplitThreshold",
+            'P',
+            "The number of attributes from which split suggestions are evaluated in parallel (0 to never).",
+            0, 0, Integer.MAX_VALUE);
+
+    public FlagOption sparseLearningOption = new FlagOption("sparseLearning", 'S',
+            "Only update the observers of the non-zero attributes of an instance, adding the zero values in aggregate when they are needed.");
+
+    public IntOption splitDelayOption = new IntOption(
+            "splitDelay",
+            'D',
+            "The number of instances after which the decision of a split attempt, evaluated in the background, is applied (0 to decide at once).",
+            0, 0, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -395,6 +419,13 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         
         protected boolean isInitialized;
 
+        // class distribution of the instances learned with sparse learning
+        protected DoubleVector sparseClassDistribution;
+
+        // class distribution of the values added to each attribute observer
+        // with sparse learning, the remainder being zeros not observed yet
+        protected AutoExpandVector<DoubleVector> attributeClassDistributions;
+
         public ActiveLearningNode(double[] initialClassObservations) {
             super(initialClassObservations);
             this.weightSeenAtLastSplitEvaluation = getWeightSeen();
@@ -403,12 +434,21 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
 
         @Override
         public int calcByteSize() {
-            return super.calcByteSize()
+            int size = super.calcByteSize()
                     + (int) (SizeOf.fullSizeOf(this.attributeObservers));
+            if (this.attributeClassDistributions != null) {
+                size += (int) (SizeOf.fullSizeOf(this.sparseClassDistribution)
+                        + SizeOf.fullSizeOf(this.attributeClassDistributions));
+            }
+            return size;
         }
 
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
+            if (ht.sparseLearningOption.isSet()) {
+                learnFromInstanceSparse(inst, ht);
+                return;
+            }
             if (this.isInitialized == false) {
                 this.attributeObservers = new AutoExpandVector<AttributeClassObserver>(inst.numAttributes());
                 this.isInitialized = true;
@@ -426,6 +466,121 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             }
         }
 
+        /**
+         * Updates the observers of the non-zero values of the instance only,
+         * iterating over the values a sparse instance stores. The observers
+         * of the attributes never seen with a non-zero value are not created.
+         * The zeros are added to the observers, one observation per class,
+         * by observeImplicitZeros once a split attempt is due, so that the
+         * observers only change while learning.
+         */
+        protected void learnFromInstanceSparse(Instance inst, HoeffdingTree ht) {
+            if (this.attributeClassDistributions == null) {
+                this.sparseClassDistribution = new DoubleVector();
+                this.attributeClassDistributions = new AutoExpandVector<DoubleVector>();
+            }
+            int classValue = (int) inst.classValue();
+            double weight = inst.weight();
+            this.observedClassDistribution.addToValue(classValue, weight);
+            this.sparseClassDistribution.addToValue(classValue, weight);
+            int classIndex = inst.classIndex();
+            for (int j = 0; j < inst.numValues(); j++) {
+                int instAttIndex = inst.index(j);
+                double value = inst.valueSparse(j);
+                if (instAttIndex == classIndex || value == 0.0) {
+                    continue;
+                }
+                int i = instAttIndex < classIndex ? instAttIndex : instAttIndex - 1;
+                AttributeClassObserver obs = this.attributeObservers.get(i);
+                if (obs == null) {
+                    obs = inst.attribute(instAttIndex).isNominal() ? ht.newNominalClassObserver() : ht.newNumericClassObserver();
+                    this.attributeObservers.set(i, obs);
+                    this.attributeClassDistributions.set(i, new DoubleVector());
+                }
+                obs.observeAttributeClass(value, classValue, weight);
+                this.attributeClassDistributions.get(i).addToValue(classValue, weight);
+            }
+            if (getWeightSeen() - getWeightSeenAtLastSplitEvaluation() >= ht.gracePeriodOption.getValue()) {
+                observeImplicitZeros();
+            }
+        }
+
+        /**
+         * Gets the Naive Bayes votes of the leaf. With sparse learning, the
+         * zeros not added to the observers yet are accounted for without
+         * adding them, and the attributes never seen with a non-zero value
+         * vote as observers of zeros only would, so that the votes are those
+         * of a leaf learned without sparse learning.
+         */
+        protected double[] doNaiveBayesPrediction(Instance inst, HoeffdingTree ht) {
+            if (this.attributeClassDistributions == null) {
+                return NaiveBayes.doNaiveBayesPrediction(inst,
+                        this.observedClassDistribution, this.attributeObservers);
+            }
+            double[] votes = new double[this.observedClassDistribution.numValues()];
+            double observedClassSum = this.observedClassDistribution.sumOfValues();
+            for (int classIndex = 0; classIndex < votes.length; classIndex++) {
+                votes[classIndex] = this.observedClassDistribution.getValue(classIndex)
+                        / observedClassSum;
+            }
+            double[] zeroWeights = new double[this.sparseClassDistribution.numValues()];
+            AttributeClassObserver nominalZeros = null;
+            AttributeClassObserver numericZeros = null;
+            for (int i = 0; i < inst.numAttributes() - 1; i++) {
+                int instAttIndex = modelAttIndexToInstanceAttIndex(i, inst);
+                if (inst.isMissing(instAttIndex)) {
+                    continue;
+                }
+                AttributeClassObserver obs = this.attributeObservers.get(i);
+                DoubleVector observed = this.attributeClassDistributions.get(i);
+                if (obs == null) {
+                    // the observer a dense leaf would hold, of zeros only
+                    if (inst.attribute(instAttIndex).isNominal()) {
+                        if (nominalZeros == null) {
+                            nominalZeros = ht.newNominalClassObserver();
+                        }
+                        obs = nominalZeros;
+                    } else {
+                        if (numericZeros == null) {
+                            numericZeros = ht.newNumericClassObserver();
+                        }
+                        obs = numericZeros;
+                    }
+                    observed = null;
+                }
+                for (int c = 0; c < zeroWeights.length; c++) {
+                    zeroWeights[c] = this.sparseClassDistribution.getValue(c)
+                            - (observed != null ? observed.getValue(c) : 0.0);
+                }
+                obs.multiplyByProbabilitiesOfAttributeValue(inst.value(instAttIndex), votes, zeroWeights);
+            }
+            return votes;
+        }
+
+        /**
+         * Adds to the attribute observers the zero values that sparse
+         * learning has left out since the last call.
+         */
+        public void observeImplicitZeros() {
+            if (this.attributeClassDistributions == null) {
+                return;
+            }
+            for (int i = 0; i < this.attributeObservers.size(); i++) {
+                AttributeClassObserver obs = this.attributeObservers.get(i);
+                DoubleVector observed = this.attributeClassDistributions.get(i);
+                if (obs == null || observed == null) {
+                    continue;
+                }
+                for (int c = 0; c < this.sparseClassDistribution.numValues(); c++) {
+                    double zeros = this.sparseClassDistribution.getValue(c) - observed.getValue(c);
+                    if (zeros > 0.0) {
+                        obs.observeAttributeClass(0.0, c, zeros);
+                        observed.setValue(c, this.sparseClassDistribution.getValue(c));
+                    }
+                }
+            }
+        }
+
         public double getWeightSeen() {
             return this.observedClassDistribution.sumOfValues();
         }
@@ -449,14 +604,17 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
+            final AttributeSplitSuggestion[] attSuggestions = new AttributeSplitSuggestion[this.attributeObservers.size()];
+            forEachAttribute(attSuggestions.length, ht.parallelSplitThresholdOption.getValue(), i -> {
                 AttributeClassObserver obs = this.attributeObservers.get(i);
                 if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
+                    attSuggestions[i] = obs.getBestEvaluatedSplitSuggestion(criterion,
                             preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
+                }
+            });
+            for (AttributeSplitSuggestion bestSuggestion : attSuggestions) {
+                if (bestSuggestion != null) {
+                    bestSuggestions.add(bestSuggestion);
                 }
             }
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
@@ -484,6 +642,51 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
 
     protected boolean growthAllowed;
 
+    protected SplitCriterion splitCriterion;
+
+    // split attempts evaluated in the background, kept with the tree so
+    // that copies and serialized trees go on deciding them
+    protected PendingSplits<ActiveLearningNode, AttributeSplitSuggestion> pendingSplits;
+
+    protected static class PendingSplit extends PendingSplits.PendingSplit<ActiveLearningNode, AttributeSplitSuggestion> {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final SplitNode parent;
+
+        protected final int parentIndex;
+
+        protected PendingSplit(ActiveLearningNode node, SplitNode parent, int parentIndex) {
+            super(node);
+            this.parent = parent;
+            this.parentIndex = parentIndex;
+        }
+    }
+
+    /**
+     * Runs task for every attribute index below n, on the compute executor
+     * when n reaches the (positive) parallel threshold.
+     */
+    public static void forEachAttribute(int n, int parallelThreshold, IntConsumer task) {
+        if (parallelThreshold > 0 && n >= parallelThreshold) {
+            ComputeExecutor.forEachIndex("HoeffdingTree", n, -1, task);
+        } else {
+            for (int i = 0; i < n; i++) {
+                task.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the split criterion, prepared once per reset of the learner.
+     */
+    protected SplitCriterion getSplitCriterion() {
+        if (this.splitCriterion == null) {
+            this.splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+        }
+        return this.splitCriterion;
+    }
+
     public int calcByteSize() {
         int size = (int) SizeOf.sizeOf(this);
         if (this.treeRoot != null) {
@@ -507,6 +710,8 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        this.splitCriterion = null;
+        this.pendingSplits = null;
         if (this.leafpredictionOption.getChosenIndex()>0) { 
             this.removePoorAttsOption = null;
         }
@@ -514,6 +719,18 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
+        if (this.pendingSplits != null) {
+            this.pendingSplits.countInstance();
+            applyPendingSplits(false);
+        }
+        learnInstance(inst);
+        if (this.trainingWeightSeenByModel
+                % this.memoryEstimatePeriodOption.getValue() == 0) {
+            estimateModelByteSizes();
+        }
+    }
+
+    protected void learnInstance(Instance inst) {
         if (this.treeRoot == null) {
             this.treeRoot = newLearningNode();
             this.activeLeafNodeCount = 1;
@@ -527,6 +744,11 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         }
         if (leafNode instanceof LearningNode) {
             LearningNode learningNode = (LearningNode) leafNode;
+            if (this.pendingSplits != null
+                    && this.pendingSplits.bufferInstance(learningNode, inst, this.growthAllowed)) {
+                // the statistics of the node are being evaluated
+                return;
+            }
             learningNode.learnFromInstance(inst, this);
             if (this.growthAllowed
                     && (learningNode instanceof ActiveLearningNode)) {
@@ -534,15 +756,61 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
                 double weightSeen = activeLearningNode.getWeightSeen();
                 if (weightSeen
                         - activeLearningNode.getWeightSeenAtLastSplitEvaluation() >= this.gracePeriodOption.getValue()) {
-                    attemptToSplit(activeLearningNode, foundNode.parent,
-                            foundNode.parentBranch);
+                    if (this.splitDelayOption.getValue() > 0) {
+                        attemptToSplitInBackground(activeLearningNode, foundNode.parent,
+                                foundNode.parentBranch);
+                    } else {
+                        attemptToSplit(activeLearningNode, foundNode.parent,
+                                foundNode.parentBranch);
+                    }
                     activeLearningNode.setWeightSeenAtLastSplitEvaluation(weightSeen);
                 }
             }
         }
-        if (this.trainingWeightSeenByModel
-                % this.memoryEstimatePeriodOption.getValue() == 0) {
-            estimateModelByteSizes();
+    }
+
+    /**
+     * Starts evaluating the split suggestions of a node on the compute
+     * executor. The node stops learning until the decision is applied,
+     * splitDelay instances later, so that its statistics do not change while
+     * they are evaluated.
+     */
+    protected void attemptToSplitInBackground(final ActiveLearningNode node, SplitNode parent,
+            int parentIndex) {
+        if (!node.observedClassDistributionIsPure()) {
+            final SplitCriterion criterion = getSplitCriterion();
+            if (this.pendingSplits == null) {
+                this.pendingSplits = new PendingSplits<ActiveLearningNode, AttributeSplitSuggestion>(
+                        getClass().getSimpleName());
+            }
+            this.pendingSplits.add(new PendingSplit(node, parent, parentIndex),
+                    this.splitDelayOption.getValue(), () -> {
+                AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(criterion, this);
+                Arrays.sort(bestSplitSuggestions);
+                return bestSplitSuggestions;
+            });
+        }
+    }
+
+    /**
+     * Applies the decisions of the background split attempts that are due
+     * (or all of them), waiting for their evaluation if needed, and learns
+     * the instances their nodes received in the meantime.
+     */
+    public void applyPendingSplits(boolean all) {
+        PendingSplit pending;
+        while (this.pendingSplits != null
+                && (pending = (PendingSplit) this.pendingSplits.poll(all)) != null) {
+            boolean attached = (pending.parent == null) ? this.treeRoot == pending.getNode()
+                    : pending.parent.getChild(pending.parentIndex) == pending.getNode();
+            // memory management may have replaced the node meanwhile
+            if (attached && this.growthAllowed) {
+                applySplitSuggestions(pending.getNode(), pending.parent, pending.parentIndex,
+                        getSplitCriterion(), pending.getSuggestions());
+            }
+            for (Instance inst : pending.getInstances()) {
+                learnInstance(inst);
+            }
         }
     }
 
@@ -628,78 +896,87 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
     protected void attemptToSplit(ActiveLearningNode node, SplitNode parent,
             int parentIndex) {
         if (!node.observedClassDistributionIsPure()) {
-            SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+            SplitCriterion splitCriterion = getSplitCriterion();
             AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion, this);
             Arrays.sort(bestSplitSuggestions);
-            boolean shouldSplit = false;
-            if (bestSplitSuggestions.length < 2) {
-                shouldSplit = bestSplitSuggestions.length > 0;
-            } else {
-                double hoeffdingBound = computeHoeffdingBound(splitCriterion.getRangeOfMerit(node.getObservedClassDistribution()),
-                        this.splitConfidenceOption.getValue(), node.getWeightSeen());
-                AttributeSplitSuggestion bestSuggestion = bestSplitSuggestions[bestSplitSuggestions.length - 1];
-                AttributeSplitSuggestion secondBestSuggestion = bestSplitSuggestions[bestSplitSuggestions.length - 2];
-                if ((bestSuggestion.merit - secondBestSuggestion.merit > hoeffdingBound)
-                        || (hoeffdingBound < this.tieThresholdOption.getValue())) {
-                    shouldSplit = true;
-                }
-                // }
-                if ((this.removePoorAttsOption != null)
-                        && this.removePoorAttsOption.isSet()) {
-                    Set<Integer> poorAtts = new HashSet<Integer>();
-                    // scan 1 - add any poor to set
-                    for (int i = 0; i < bestSplitSuggestions.length; i++) {
-                        if (bestSplitSuggestions[i].splitTest != null) {
-                            int[] splitAtts = bestSplitSuggestions[i].splitTest.getAttsTestDependsOn();
-                            if (splitAtts.length == 1) {
-                                if (bestSuggestion.merit
-                                        - bestSplitSuggestions[i].merit > hoeffdingBound) {
-                                    poorAtts.add(new Integer(splitAtts[0]));
-                                }
+            applySplitSuggestions(node, parent, parentIndex, splitCriterion, bestSplitSuggestions);
+        }
+    }
+
+    /**
+     * Decides whether to split a node given its sorted split suggestions, and
+     * applies the decision.
+     */
+    protected void applySplitSuggestions(ActiveLearningNode node, SplitNode parent,
+            int parentIndex, SplitCriterion splitCriterion, AttributeSplitSuggestion[] bestSplitSuggestions) {
+        boolean shouldSplit = false;
+        if (bestSplitSuggestions.length < 2) {
+            shouldSplit = bestSplitSuggestions.length > 0;
+        } else {
+            double hoeffdingBound = computeHoeffdingBound(splitCriterion.getRangeOfMerit(node.getObservedClassDistribution()),
+                    this.splitConfidenceOption.getValue(), node.getWeightSeen());
+            AttributeSplitSuggestion bestSuggestion = bestSplitSuggestions[bestSplitSuggestions.length - 1];
+            AttributeSplitSuggestion secondBestSuggestion = bestSplitSuggestions[bestSplitSuggestions.length - 2];
+            if ((bestSuggestion.merit - secondBestSuggestion.merit > hoeffdingBound)
+                    || (hoeffdingBound < this.tieThresholdOption.getValue())) {
+                shouldSplit = true;
+            }
+            // }
+            if ((this.removePoorAttsOption != null)
+                    && this.removePoorAttsOption.isSet()) {
+                Set<Integer> poorAtts = new HashSet<Integer>();
+                // scan 1 - add any poor to set
+                for (int i = 0; i < bestSplitSuggestions.length; i++) {
+                    if (bestSplitSuggestions[i].splitTest != null) {
+                        int[] splitAtts = bestSplitSuggestions[i].splitTest.getAttsTestDependsOn();
+                        if (splitAtts.length == 1) {
+                            if (bestSuggestion.merit
+                                    - bestSplitSuggestions[i].merit > hoeffdingBound) {
+                                poorAtts.add(new Integer(splitAtts[0]));
                             }
                         }
                     }
-                    // scan 2 - remove good ones from set
-                    for (int i = 0; i < bestSplitSuggestions.length; i++) {
-                        if (bestSplitSuggestions[i].splitTest != null) {
-                            int[] splitAtts = bestSplitSuggestions[i].splitTest.getAttsTestDependsOn();
-                            if (splitAtts.length == 1) {
-                                if (bestSuggestion.merit
-                                        - bestSplitSuggestions[i].merit < hoeffdingBound) {
-                                    poorAtts.remove(new Integer(splitAtts[0]));
-                                }
+                }
+                // scan 2 - remove good ones from set
+                for (int i = 0; i < bestSplitSuggestions.length; i++) {
+                    if (bestSplitSuggestions[i].splitTest != null) {
+                        int[] splitAtts = bestSplitSuggestions[i].splitTest.getAttsTestDependsOn();
+                        if (splitAtts.length == 1) {
+                            if (bestSuggestion.merit
+                                    - bestSplitSuggestions[i].merit < hoeffdingBound) {
+                                poorAtts.remove(new Integer(splitAtts[0]));
                             }
                         }
                     }
-                    for (int poorAtt : poorAtts) {
-                        node.disableAttribute(poorAtt);
-                    }
+                }
+                for (int poorAtt : poorAtts) {
+                    node.disableAttribute(poorAtt);
                 }
             }
-            if (shouldSplit) {
-                AttributeSplitSuggestion splitDecision = bestSplitSuggestions[bestSplitSuggestions.length - 1];
-                if (splitDecision.splitTest == null) {
-                    // preprune - null wins
-                    deactivateLearningNode(node, parent, parentIndex);
+        }
+        if (shouldSplit) {
+            AttributeSplitSuggestion splitDecision = bestSplitSuggestions[bestSplitSuggestions.length - 1];
+            if (splitDecision.splitTest == null) {
+                // preprune - null wins
+                deactivateLearningNode(node, parent, parentIndex);
+            } else {
+                SplitNode newSplit = newSplitNode(splitDecision.splitTest,
+                        node.getObservedClassDistribution(),splitDecision.numSplits() );
+                for (int i = 0; i < splitDecision.numSplits(); i++) {
+                    Node newChild = newLearningNode(splitDecision.resultingClassDistributionFromSplit(i));
+                    newSplit.setChild(i, newChild);
+                }
+                this.activeLeafNodeCount--;
+                this.decisionNodeCount++;
+                this.activeLeafNodeCount += splitDecision.numSplits();
+                if (parent == null) {
+                    this.treeRoot = newSplit;
                 } else {
-                    SplitNode newSplit = newSplitNode(splitDecision.splitTest,
-                            node.getObservedClassDistribution(),splitDecision.numSplits() );
-                    for (int i = 0; i < splitDecision.numSplits(); i++) {
-                        Node newChild = newLearningNode(splitDecision.resultingClassDistributionFromSplit(i));
-                        newSplit.setChild(i, newChild);
-                    }
-                    this.activeLeafNodeCount--;
-                    this.decisionNodeCount++;
-                    this.activeLeafNodeCount += splitDecision.numSplits();
-                    if (parent == null) {
-                        this.treeRoot = newSplit;
-                    } else {
-                        parent.setChild(parentIndex, newSplit);
-                    }
+                    parent.setChild(parentIndex, newSplit);
                 }
-                // manage memory
-                enforceTrackerLimit();
             }
+            // manage memory
+            enforceTrackerLimit();
         }
     }
 
@@ -861,9 +1138,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         @Override
         public double[] getClassVotes(Instance inst, HoeffdingTree ht) {
             if (getWeightSeen() >= ht.nbThresholdOption.getValue()) {
-                return NaiveBayes.doNaiveBayesPrediction(inst,
-                        this.observedClassDistribution,
-                        this.attributeObservers);
+                return doNaiveBayesPrediction(inst, ht);
             }
             return super.getClassVotes(inst, ht);
         }
@@ -892,8 +1167,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             if (this.observedClassDistribution.maxIndex() == trueClass) {
                 this.mcCorrectWeight += inst.weight();
             }
-            if (Utils.maxIndex(NaiveBayes.doNaiveBayesPrediction(inst,
-                    this.observedClassDistribution, this.attributeObservers)) == trueClass) {
+            if (Utils.maxIndex(doNaiveBayesPrediction(inst, ht)) == trueClass) {
                 this.nbCorrectWeight += inst.weight();
             }
             super.learnFromInstance(inst, ht);
@@ -904,8 +1178,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             if (this.mcCorrectWeight > this.nbCorrectWeight) {
                 return this.observedClassDistribution.getArrayCopy();
             }
-            return NaiveBayes.doNaiveBayesPrediction(inst,
-                    this.observedClassDistribution, this.attributeObservers);
+            return doNaiveBayesPrediction(inst, ht);
         }
     }
 
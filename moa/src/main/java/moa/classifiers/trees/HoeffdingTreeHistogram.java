@@ -95,6 +95,8 @@ import com.yahoo.labs.samoa.instances.Instance;
  * adaptive (NBAdaptive).</li>
  *  <li> -q : The number of instances a leaf should observe before
  * permitting Naive Bayes</li>
+ *  <li> -P : The number of attributes from which split suggestions are
+ * evaluated in parallel (0 to never)</li>
  * </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
@@ -171,6 +173,12 @@ public class HoeffdingTreeHistogram extends AbstractClassifier implements MultiC
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public IntOption parallelSplitThresholdOption = new IntOption(
+            "parallelSplitThreshold",
+            'P',
+            "The number of attributes from which split suggestions are evaluated in parallel (0 to never).",
+            0, 0, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -476,14 +484,17 @@ public class HoeffdingTreeHistogram extends AbstractClassifier implements MultiC
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
+            final AttributeSplitSuggestionHistrogram[] attSuggestions = new AttributeSplitSuggestionHistrogram[this.attributeObservers.size()];
+            HoeffdingTree.forEachAttribute(attSuggestions.length, ht.parallelSplitThresholdOption.getValue(), i -> {
                 AttributeClassObserver obs = this.attributeObservers.get(i);
                 if (obs != null) {
-                	AttributeSplitSuggestionHistrogram bestSuggestion = obs.getBestEvaluatedSplitSuggestionHistogram(criterion,
+                    attSuggestions[i] = obs.getBestEvaluatedSplitSuggestionHistogram(criterion,
                             preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
+                }
+            });
+            for (AttributeSplitSuggestionHistrogram bestSuggestion : attSuggestions) {
+                if (bestSuggestion != null) {
+                    bestSuggestions.add(bestSuggestion);
                 }
             }
             return bestSuggestions.toArray(new AttributeSplitSuggestionHistrogram[bestSuggestions.size()]);
@@ -511,6 +522,18 @@ public class HoeffdingTreeHistogram extends AbstractClassifier implements MultiC
 
     protected boolean growthAllowed;
 
+    protected SplitCriterion splitCriterion;
+
+    /**
+     * Returns the split criterion, prepared once per reset of the learner.
+     */
+    protected SplitCriterion getSplitCriterion() {
+        if (this.splitCriterion == null) {
+            this.splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+        }
+        return this.splitCriterion;
+    }
+
     public int calcByteSize() {
         int size = (int) SizeOf.sizeOf(this);
         if (this.treeRoot != null) {
@@ -534,6 +557,7 @@ public class HoeffdingTreeHistogram extends AbstractClassifier implements MultiC
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        this.splitCriterion = null;
         if (this.leafpredictionOption.getChosenIndex()>0) { 
             this.removePoorAttsOption = null;
         }
@@ -655,7 +679,7 @@ public class HoeffdingTreeHistogram extends AbstractClassifier implements MultiC
     protected void attemptToSplit(ActiveLearningNode node, SplitNode parent,
             int parentIndex) {
         if (!node.observedClassDistributionIsPure()) {
-            SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(this.splitCriterionOption);
+            SplitCriterion splitCriterion = getSplitCriterion();
             AttributeSplitSuggestionHistrogram[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion, this);
             Arrays.sort(bestSplitSuggestions);
             boolean shouldSplit = false;
@@ -21,7 +21,6 @@
 package moa.classifiers.trees;
 
 import java.util.Stack;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -313,14 +312,9 @@ public class ORTO extends FIMTDD implements Regressor {
 
 	// region --- Processing methods
 
-	protected void attemptToSplit(LeafNode node, Node parent, int parentIndex) {
-		// Initialize the split criterion 
-		SplitCriterion splitCriterion = (SplitCriterion) getPreparedClassOption(splitCriterionOption);
-
-		// Using this criterion, find the best split per attribute and rank the results
-		AttributeSplitSuggestion[] bestSplitSuggestions = node.getBestSplitSuggestions(splitCriterion);
+	protected void applySplitSuggestions(LeafNode node, Node parent, int parentIndex,
+			SplitCriterion splitCriterion, AttributeSplitSuggestion[] bestSplitSuggestions) {
 		List<AttributeSplitSuggestion> acceptedSplits = new LinkedList<AttributeSplitSuggestion>();
-		Arrays.sort(bestSplitSuggestions);
 
 		// Declare a variable to determine the number of splits to be performed
 		int numSplits = 0;
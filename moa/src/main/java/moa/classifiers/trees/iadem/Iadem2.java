@@ -111,8 +111,13 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
     }
 
     protected IademNumericAttributeObserver newNumericClassObserver() {
-        IademNumericAttributeObserver numericClassObserver = (IademNumericAttributeObserver) getPreparedClassOption(this.numericEstimatorOption);
-        return (IademNumericAttributeObserver) numericClassObserver.copy();
+        return (IademNumericAttributeObserver) getNumericClassObserverTemplate().copy();
+    }
+
+    // the observer the observers of the nodes are copied from, not to be
+    // modified
+    protected IademNumericAttributeObserver getNumericClassObserverTemplate() {
+        return (IademNumericAttributeObserver) getPreparedClassOption(this.numericEstimatorOption);
     }
 
     @Override
@@ -163,7 +168,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
     }
 
     public int getMaxNumberOfBins() {
-        return (int) this.newNumericClassObserver().getMaxOfValues();
+        return (int) getNumericClassObserverTemplate().getMaxOfValues();
     }
 
     public IademNumericAttributeObserver getNumericAttObserver() {
@@ -186,7 +191,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         classDist,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
                         instance);
@@ -197,7 +202,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         classDist,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -209,7 +214,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         classDist,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -222,7 +227,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         classDist,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -1014,9 +1019,11 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
 
         private static final long serialVersionUID = 1L;
 
-        protected AutoExpandVector<DoubleVector> nominalAttClassObserver = new AutoExpandVector<DoubleVector>();
+        // counts per attribute value and class, null for the values not seen
+        protected double[][] attClassCounts = new double[0][];
 
-        protected DoubleVector attValueDist;
+        // counts per attribute value
+        protected double[] attValueCounts = new double[0];
         protected boolean onlyMultiwayTest = false;
         protected boolean onlyBinaryTest = false;
 
@@ -1027,13 +1034,27 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                 boolean onlyBinaryTest) {
             super(tree, parent, attIndex);
 
-            this.attValueDist = new DoubleVector();
             this.onlyMultiwayTest = onlyMultiwayTest;
             this.onlyBinaryTest = onlyBinaryTest;
         }
 
-        public AutoExpandVector<DoubleVector> getNominalAttClassObserver() {
-            return nominalAttClassObserver;
+        /**
+         * Returns the counts per class of an attribute value, null if the
+         * value was not seen.
+         */
+        public double[] getClassCounts(int attValue) {
+            return attValue < this.attClassCounts.length ? this.attClassCounts[attValue] : null;
+        }
+
+        /**
+         * Returns the count of an attribute value.
+         */
+        public double getAttValueCount(int attValue) {
+            return attValue < this.attValueCounts.length ? this.attValueCounts[attValue] : 0.0;
+        }
+
+        protected double getCount(double[] counts, int i) {
+            return counts != null && i < counts.length ? counts[i] : 0.0;
         }
 
         @Override
@@ -1043,16 +1064,22 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
             } else {
                 int intAttValue = (int) attValue;
 
-                this.attValueDist.addToValue(intAttValue, inst.weight());
+                if (intAttValue >= this.attValueCounts.length) {
+                    this.attValueCounts = Arrays.copyOf(this.attValueCounts, intAttValue + 1);
+                    this.attClassCounts = Arrays.copyOf(this.attClassCounts, intAttValue + 1);
+                }
+                this.attValueCounts[intAttValue] += inst.weight();
                 this.classValueDist.addToValue((int) inst.value(inst.classIndex()), inst.weight());
 
-                DoubleVector valDist = this.nominalAttClassObserver.get(intAttValue);
-                if (valDist == null) {
-                    valDist = new DoubleVector();
-                    this.nominalAttClassObserver.set(intAttValue, valDist);
-                }
                 int classValue = (int) inst.classValue();
-                valDist.addToValue(classValue, inst.weight());
+                double[] classCounts = this.attClassCounts[intAttValue];
+                if (classCounts == null) {
+                    classCounts = new double[classValue + 1];
+                } else if (classValue >= classCounts.length) {
+                    classCounts = Arrays.copyOf(classCounts, classValue + 1);
+                }
+                classCounts[classValue] += inst.weight();
+                this.attClassCounts[intAttValue] = classCounts;
 
                 this.heuristicMeasureUpdated = false;
             }
@@ -1079,8 +1106,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                     Arrays.fill(tmpClassDist, 0);
                     for (int j = 0; j < tmpClassDist.length; j++) {
 
-                        DoubleVector classCount = nominalAttClassObserver.get(i);
-                        double contadorAtributoClase = classCount != null ? classCount.getValue(j) : 0.0;
+                        double contadorAtributoClase = getCount(getClassCounts(i), j);
                         tmpClassDist[j] = contadorAtributoClase;
                         count += tmpClassDist[j];
                     }
@@ -1098,11 +1124,11 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                 // total de valores
                 double tmpCount = 0;
                 Arrays.fill(tmpClassDist, 0);
-                DoubleVector classDist = nominalAttClassObserver.get(binarySplit.getAttValue());
+                double[] classDist = getClassCounts(binarySplit.getAttValue());
                 if (classDist != null) {
                     for (int i = 0; i < tmpClassDist.length; i++) {
-                        tmpClassDist[i] = classDist.getValue(i);
-                        tmpCount += classDist.getValue(i);
+                        tmpClassDist[i] = getCount(classDist, i);
+                        tmpCount += getCount(classDist, i);
                     }
                 }
                 children[0] = tree.newLeafNode(splitNode,
@@ -1128,7 +1154,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
 
         protected boolean moreThanOneAttValueObserved() {
             int count = 0;
-            for (DoubleVector tmpClassDist : this.nominalAttClassObserver) {
+            for (double[] tmpClassDist : this.attClassCounts) {
                 if (tmpClassDist != null) {
                     count++;
                 }
@@ -1278,10 +1304,10 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                     double dividendUpper = 0.0;
                     double dividendLower = 0.0;
 
-                    double leftDivUpper = measurePerSplit_upper[0] * attValueDist.getValue(k),
-                            leftDivLower = measurePerSplit_lower[0] * attValueDist.getValue(k);
+                    double leftDivUpper = measurePerSplit_upper[0] * getAttValueCount(k),
+                            leftDivLower = measurePerSplit_lower[0] * getAttValueCount(k);
                     double divisor = classValueDist.sumOfValues(),
-                            rightTotal = divisor - attValueDist.getValue(k);
+                            rightTotal = divisor - getAttValueCount(k);
                     double rightDivUpper = measurePerSplit_upper[1] * rightTotal,
                             rightDivLower = measurePerSplit_lower[1] * rightTotal;
                     dividendUpper = leftDivUpper + rightDivUpper;
@@ -1291,8 +1317,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                         measureLower = dividendLower / divisor;
                         measureUpper = dividendUpper / divisor;
                         if (this.bestSplitSuggestion == null) {
-                            DoubleVector tmpClassDist = this.nominalAttClassObserver.get(k);
-                            if (tmpClassDist != null) { // is it a useful split?
+                            if (getClassCounts(k) != null) { // is it a useful split?
                                 NominalAttributeBinaryTest test = new IademNominalAttributeBinaryTest(this.attIndex, k);
                                 this.bestSplitSuggestion = new IademAttributeSplitSuggestion(test,
                                         new double[0][0],
@@ -1304,8 +1329,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                             if ((measureUpper < this.bestSplitSuggestion.merit)
                                     || (measureUpper == this.bestSplitSuggestion.merit
                                     && measureLower < this.bestSplitSuggestion.getMeritLowerBound())) {
-                                DoubleVector tmpClassDist = this.nominalAttClassObserver.get(k);
-                                if (tmpClassDist != null) { // is it a useful split?
+                                if (getClassCounts(k) != null) { // is it a useful split?
                                     NominalAttributeBinaryTest test = new IademNominalAttributeBinaryTest(this.attIndex, k);
                                     this.bestSplitSuggestion = new IademAttributeSplitSuggestion(test,
                                             new double[0][0],
@@ -1328,11 +1352,10 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
             for (int currentAttIndex = 0; currentAttIndex < classDistPerTestAndSplit_lower.length; currentAttIndex++) {
                 for (int j = 0; j < numberOfClasses; j++) {
                     // compute probabilities in the left branch
-                    DoubleVector classCounter = nominalAttClassObserver.get(currentAttIndex);
-                    double attClassCounter = classCounter != null ? classCounter.getValue(j) : 0.0;
-                    if (attValueDist.getValue(currentAttIndex) != 0) {
-                        estimator = attClassCounter / attValueDist.getValue(currentAttIndex);
-                        bound = IademCommonProcedures.getIADEM_HoeffdingBound(estimator, attValueDist.getValue(currentAttIndex));
+                    double attClassCounter = getCount(getClassCounts(currentAttIndex), j);
+                    if (getAttValueCount(currentAttIndex) != 0) {
+                        estimator = attClassCounter / getAttValueCount(currentAttIndex);
+                        bound = IademCommonProcedures.getIADEM_HoeffdingBound(estimator, getAttValueCount(currentAttIndex));
                         classDistPerTestAndSplit_lower[currentAttIndex][0][j] = Math.max(0.0, estimator - bound);
                         classDistPerTestAndSplit_upper[currentAttIndex][0][j] = Math.min(1.0, estimator + bound);
                     } else {
@@ -1341,7 +1364,7 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                     }
                     // compute probabilities in the right branch
                     attClassCounter = classValueDist.getValue(j) - attClassCounter;
-                    double rightTotal = leftTotal - attValueDist.getValue(currentAttIndex);
+                    double rightTotal = leftTotal - getAttValueCount(currentAttIndex);
                     if (rightTotal != 0) {
                         estimator = attClassCounter / rightTotal;
                         bound = IademCommonProcedures.getIADEM_HoeffdingBound(estimator, rightTotal);
@@ -1473,10 +1496,10 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
                 double dividendLower = 0.0;
                 double divisor = 0.0;
 
-                for (int i = 0; i < attValueDist.numValues(); i++) {
-                    dividendUpper += (measuerPerValue_upper[i] * attValueDist.getValue(i));
-                    dividendLower += (measurePerValue_lower[i] * attValueDist.getValue(i));
-                    divisor += attValueDist.getValue(i);
+                for (int i = 0; i < attValueCounts.length; i++) {
+                    dividendUpper += (measuerPerValue_upper[i] * attValueCounts[i]);
+                    dividendLower += (measurePerValue_lower[i] * attValueCounts[i]);
+                    divisor += attValueCounts[i];
                 }
                 measureLower = dividendLower / divisor;
                 measureUpper = dividendUpper / divisor;
@@ -1499,14 +1522,13 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
 
             for (int i = 0; i < numberOfValues; i++) {
                 for (int j = 0; j < numberOfClasses; j++) {
-                    if (attValueDist.getValue(i) == 0.0) {
+                    if (getAttValueCount(i) == 0.0) {
                         classDistLower[i][j] = 0.0;
                         classDistUpper[i][j] = 1.0;
                     } else {
-                        DoubleVector classCounter = nominalAttClassObserver.get(i);
-                        double attValuePerClassCounter = classCounter != null ? classCounter.getValue(j) : 0.0;
-                        estimator = attValuePerClassCounter / attValueDist.getValue(i);
-                        classDistError = IademCommonProcedures.getIADEM_HoeffdingBound(estimator, attValueDist.getValue(i));
+                        double attValuePerClassCounter = getCount(getClassCounts(i), j);
+                        estimator = attValuePerClassCounter / getAttValueCount(i);
+                        classDistError = IademCommonProcedures.getIADEM_HoeffdingBound(estimator, getAttValueCount(i));
                         classDistLower[i][j] = Math.max(0.0, estimator - classDistError);
                         classDistUpper[i][j] = Math.min(1.0, estimator + classDistError);
                     }
@@ -1541,38 +1563,43 @@ public class Iadem2 extends AbstractClassifier implements MultiClassClassifier {
 
         @Override
         public DoubleVector computeConditionalProbability(double valor) {
-            int numberOfValues = nominalAttClassObserver.size();
-            DoubleVector conditionalProbability = new DoubleVector();
+            int numberOfClasses = 0;
+            for (double[] classCounter : this.attClassCounts) {
+                if (classCounter != null) {
+                    numberOfClasses = Math.max(numberOfClasses, classCounter.length);
+                }
+            }
 
-            DoubleVector sumsPerClass = new DoubleVector();
-            for (int i = 0; i < numberOfValues; i++) {
-                DoubleVector classCounter = nominalAttClassObserver.get(i);
-                int numberOfClasses = classCounter != null ? classCounter.numValues() : 0;
-                for (int j = 0; j < numberOfClasses; j++) {
-                    double attClassCounter = classCounter.getValue(j);
-                    sumsPerClass.addToValue(j, attClassCounter);
+            double[] sumsPerClass = new double[numberOfClasses];
+            for (double[] classCounter : this.attClassCounts) {
+                int numberOfCounters = classCounter != null ? classCounter.length : 0;
+                for (int j = 0; j < numberOfCounters; j++) {
+                    sumsPerClass[j] += classCounter[j];
                 }
             }
 
-            for (int i = 0; i < sumsPerClass.numValues(); i++) {
-                if (sumsPerClass.getValue(i) != 0.0) {
-                    DoubleVector contadorClase = nominalAttClassObserver.get((int) valor);
-                    double attClassCounter = contadorClase != null ? contadorClase.getValue(i) : 0.0;
-                    conditionalProbability.setValue(i, attClassCounter / sumsPerClass.getValue(i));
+            double[] contadorClase = getClassCounts((int) valor);
+            double[] conditionalProbability = new double[numberOfClasses];
+            int length = 0;
+            for (int i = 0; i < numberOfClasses; i++) {
+                if (sumsPerClass[i] != 0.0) {
+                    double attClassCounter = getCount(contadorClase, i);
+                    conditionalProbability[i] = attClassCounter / sumsPerClass[i];
+                    length = i + 1;
                 }
             }
 
-            return conditionalProbability;
+            return new DoubleVector(Arrays.copyOf(conditionalProbability, length));
         }
 
         @Override
         public double getPercent() {
             double counter = 0;
             double maxInstances = 0;
-            for (int i = 0; i < attValueDist.numValues(); i++) {
-                counter += attValueDist.getValue(i);
-                if (attValueDist.getValue(i) > maxInstances) {
-                    maxInstances = attValueDist.getValue(i);
+            for (int i = 0; i < attValueCounts.length; i++) {
+                counter += attValueCounts[i];
+                if (attValueCounts[i] > maxInstances) {
+                    maxInstances = attValueCounts[i];
                 }
             }
             double maxPercent = maxInstances / counter;
@@ -125,7 +125,7 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         initialClassCount,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.estimator,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -137,7 +137,7 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         initialClassCount,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.estimator,
                         this.splitTestsOption.getChosenIndex() == 2,
@@ -150,7 +150,7 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         initialClassCount,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -163,7 +163,7 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                         instTreeCountSinceVirtual,
                         instNodeCountSinceVirtual,
                         initialClassCount,
-                        newNumericClassObserver(),
+                        getNumericClassObserverTemplate(),
                         this.naiveBayesLimit,
                         this.splitTestsOption.getChosenIndex() == 2,
                         this.splitTestsOption.getChosenIndex() == 0,
@@ -751,8 +751,7 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                     double[] newClassDist = new double[instance.attribute(instance.classIndex()).numValues()];
                     Arrays.fill(newClassDist, 0);
                     for (int j = 0; j < newClassDist.length; j++) {
-                        DoubleVector tmpClassDist = nominalAttClassObserver.get(i);
-                        double tmpAttClassCounter = tmpClassDist != null ? tmpClassDist.getValue(j) : 0.0;
+                        double tmpAttClassCounter = getCount(getClassCounts(i), j);
                         newClassDist[j] = tmpAttClassCounter;
                         tmpConter += newClassDist[j];
                     }
@@ -768,10 +767,10 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                 double[] newClassDist = new double[instance.attribute(instance.classIndex()).numValues()];
                 double tmpCounter = 0;
                 Arrays.fill(newClassDist, 0);
-                DoubleVector classDist = nominalAttClassObserver.get(binarySplit.getAttValue());
+                double[] classDist = getClassCounts(binarySplit.getAttValue());
                 for (int i = 0; i < newClassDist.length; i++) {
-                    newClassDist[i] = classDist.getValue(i);
-                    tmpCounter += classDist.getValue(i);
+                    newClassDist[i] = getCount(classDist, i);
+                    tmpCounter += getCount(classDist, i);
                 }
                 children[0] = ((Iadem3) tree).newLeafNode(splitNode,
                         counter,
@@ -797,8 +796,8 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
 
         @Override
         public void resetVariablesAtDrift() {
-            attValueDist = new DoubleVector();
-            nominalAttClassObserver = new AutoExpandVector<DoubleVector>();
+            attValueCounts = new double[0];
+            attClassCounts = new double[0][];
             classValueDist = new DoubleVector();
         }
     }
@@ -949,7 +948,6 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
                     return this.leaf;
                 } else if (-diff > bound) {
                     this.leaf.restartVariablesAtDrift();
-                    this.leaf.estimator = (AbstractChangeDetector) this.leaf.estimator.copy();
                 }
                 Node node;
                 boolean rightPredicted = ((Iadem3) this.tree).lastPredictionInLeaf == instance.classValue();
@@ -1288,7 +1286,6 @@ public class Iadem3 extends Iadem2 implements MultiClassClassifier {
             this.leaf.setSplit(true);
             for (Node node = this.parent; node != null; node = node.parent) {
                 ((AdaptiveSplitNode) node).leaf.restartVariablesAtDrift();
-                this.leaf.estimator = (AbstractChangeDetector) this.leaf.estimator.copy();
             }
             // update tree
             this.leaf.setTree(this.tree);
@@ -68,8 +68,8 @@ public class Iadem3Subtree extends Iadem3 {
     }
     
     @Override
-    protected IademNumericAttributeObserver newNumericClassObserver() {
-        return this.mainTree.newNumericClassObserver();
+    protected IademNumericAttributeObserver getNumericClassObserverTemplate() {
+        return this.mainTree.getNumericClassObserverTemplate();
     }
 
     @Override
@@ -580,19 +580,33 @@ public class IademVFMLNumericAttributeClassObserver extends VFMLNumericAttribute
                 keyPos--;
             }
         } else {
-            int currentBin = 1;
-            double lastBin = cuts.get(currentBin);
-            while (cutValue > lastBin) {
-                currentBin++;
-                lastBin = cuts.get(currentBin);
+            // the cuts and the bins are sorted, so that the first cut not
+            // below the value and the first bin of the interval are searched
+            int min = 1;
+            int max = cuts.size() - 1;
+            while (min < max) {
+                int i = (min + max) >>> 1;
+                if (cutValue > cuts.get(i)) {
+                    min = i + 1;
+                } else {
+                    max = i;
+                }
             }
+            int currentBin = min;
+            double lastBin = cuts.get(currentBin);
 
             double firstBin = cuts.get(currentBin - 1);
-            keyPos = 0;
-            while (keyPos < this.binList.size()
-                    && this.binList.get(keyPos).upperBound <= firstBin) {
-                keyPos++;
+            min = 0;
+            max = this.binList.size();
+            while (min < max) {
+                int i = (min + max) >>> 1;
+                if (this.binList.get(i).upperBound <= firstBin) {
+                    min = i + 1;
+                } else {
+                    max = i;
+                }
             }
+            keyPos = min;
             while (keyPos < this.binList.size()
                     && this.binList.get(keyPos).upperBound <= lastBin) {
                 for (int i = 0; i < numClasses; i++) {
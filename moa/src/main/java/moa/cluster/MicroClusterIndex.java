@@ -0,0 +1,260 @@
+/*
+ *    MicroClusterIndex.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+
+package moa.cluster;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Nearest micro-cluster index shared by the online phases of CluStream and
+ * DenStream. It mirrors the list of micro-clusters of a clusterer and keeps
+ * their centers in one primitive matrix, so that finding the nearest
+ * micro-cluster of a point does not compute (and allocate) the center of every
+ * micro-cluster again.
+ *
+ * Centers are updated lazily: the clusterer marks the entries it modified with
+ * {@link #update(int)} (or all of them with {@link #updateAll()}, e.g. when
+ * time dependent statistics change) and the centers are recomputed on the next
+ * query. The scan abandons a candidate as soon as its partial distance cannot
+ * beat the best one found so far.
+ *
+ * Subclasses can override {@link #offset(Cluster)} to rank micro-clusters by
+ * the distance to their center minus an offset, e.g. their radius.
+ */
+public class MicroClusterIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Relative slack on the pruning bound, so rounding never prunes a candidate that would win. */
+	private static final double PRUNING_SLACK = 1.0 + 1e-9;
+
+	protected final int dimensions;
+
+	protected Cluster[] clusters;
+
+	protected double[] centers;
+
+	protected double[] offsets;
+
+	protected boolean[] stale;
+
+	protected int size;
+
+	/** Distance (minus offset) of the result of the last query. */
+	protected double lastDistance;
+
+	public MicroClusterIndex(int dimensions, int initialCapacity) {
+		this.dimensions = dimensions;
+		int capacity = Math.max(initialCapacity, 1);
+		this.clusters = new Cluster[capacity];
+		this.centers = new double[capacity * dimensions];
+		this.offsets = new double[capacity];
+		this.stale = new boolean[capacity];
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public Cluster get(int index) {
+		return this.clusters[index];
+	}
+
+	public int indexOf(Cluster cluster) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.clusters[i] == cluster) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public void clear() {
+		Arrays.fill(this.clusters, 0, this.size, null);
+		this.size = 0;
+	}
+
+	/**
+	 * Appends a micro-cluster.
+	 */
+	public void add(Cluster cluster) {
+		if (this.size == this.clusters.length) {
+			int capacity = 2 * this.clusters.length;
+			this.clusters = Arrays.copyOf(this.clusters, capacity);
+			this.centers = Arrays.copyOf(this.centers, capacity * this.dimensions);
+			this.offsets = Arrays.copyOf(this.offsets, capacity);
+			this.stale = Arrays.copyOf(this.stale, capacity);
+		}
+		this.clusters[this.size] = cluster;
+		this.stale[this.size] = true;
+		this.size++;
+	}
+
+	/**
+	 * Replaces the micro-cluster at the given position.
+	 */
+	public void set(int index, Cluster cluster) {
+		this.clusters[index] = cluster;
+		this.stale[index] = true;
+	}
+
+	/**
+	 * Removes the micro-cluster at the given position, shifting the following ones
+	 * (as List.remove(int) does).
+	 */
+	public void remove(int index) {
+		int tail = this.size - index - 1;
+		System.arraycopy(this.clusters, index + 1, this.clusters, index, tail);
+		System.arraycopy(this.centers, (index + 1) * this.dimensions, this.centers, index * this.dimensions, tail * this.dimensions);
+		System.arraycopy(this.offsets, index + 1, this.offsets, index, tail);
+		System.arraycopy(this.stale, index + 1, this.stale, index, tail);
+		this.size--;
+		this.clusters[this.size] = null;
+	}
+
+	/**
+	 * Marks the micro-cluster at the given position as modified.
+	 */
+	public void update(int index) {
+		this.stale[index] = true;
+	}
+
+	/**
+	 * Marks all micro-clusters as modified.
+	 */
+	public void updateAll() {
+		Arrays.fill(this.stale, 0, this.size, true);
+	}
+
+	/**
+	 * Returns the value subtracted from the distance to the center of a
+	 * micro-cluster when ranking it. Zero by default.
+	 */
+	protected double offset(Cluster cluster) {
+		return 0.0;
+	}
+
+	protected void refresh() {
+		for (int i = 0; i < this.size; i++) {
+			if (this.stale[i]) {
+				System.arraycopy(this.clusters[i].getCenter(), 0, this.centers, i * this.dimensions, this.dimensions);
+				this.offsets[i] = offset(this.clusters[i]);
+				this.stale[i] = false;
+			}
+		}
+	}
+
+	/**
+	 * Returns the (up to date) center of the micro-cluster at the given position.
+	 */
+	public double[] getCenter(int index) {
+		refresh();
+		return Arrays.copyOfRange(this.centers, index * this.dimensions, (index + 1) * this.dimensions);
+	}
+
+	/**
+	 * Returns the distance (minus offset) of the result of the last call to
+	 * nearest or closestPair.
+	 */
+	public double getLastDistance() {
+		return this.lastDistance;
+	}
+
+	/**
+	 * Returns the position of the micro-cluster with the smallest distance
+	 * (minus offset) to the point, the first one on ties, or -1 if the index is
+	 * empty.
+	 */
+	public int nearest(double[] point) {
+		return nearest(point, -1);
+	}
+
+	/**
+	 * Returns the position of the micro-cluster, other than the excluded one,
+	 * with the smallest distance (minus offset) to the point, the first one on
+	 * ties, or -1 if there is none.
+	 */
+	public int nearest(double[] point, int exclude) {
+		refresh();
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < this.size; i++) {
+			if (i == exclude) {
+				continue;
+			}
+			double bound = bestDistance + this.offsets[i];
+			double cutOff = (bound >= 0.0) ? bound * bound * PRUNING_SLACK : Double.POSITIVE_INFINITY;
+			double sum = squaredDistance(point, 0, this.centers, i * this.dimensions, cutOff);
+			if (sum == Double.POSITIVE_INFINITY && cutOff != Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			double distance = Math.sqrt(sum) - this.offsets[i];
+			if (best == -1 || distance < bestDistance) {
+				best = i;
+				bestDistance = distance;
+			}
+		}
+		this.lastDistance = bestDistance;
+		return best;
+	}
+
+	/**
+	 * Returns the positions of the two micro-clusters with the closest centers
+	 * (offsets are ignored), the first pair in order on ties.
+	 */
+	public int[] closestPair() {
+		refresh();
+		int closestA = 0;
+		int closestB = 0;
+		double minDistance = Double.MAX_VALUE;
+		for (int i = 0; i < this.size; i++) {
+			for (int j = i + 1; j < this.size; j++) {
+				double sum = squaredDistance(this.centers, i * this.dimensions, this.centers, j * this.dimensions,
+						minDistance * minDistance * PRUNING_SLACK);
+				if (sum == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				double distance = Math.sqrt(sum);
+				if (distance < minDistance) {
+					minDistance = distance;
+					closestA = i;
+					closestB = j;
+				}
+			}
+		}
+		this.lastDistance = minDistance;
+		return new int[]{closestA, closestB};
+	}
+
+	/**
+	 * Squared Euclidean distance, or Double.POSITIVE_INFINITY as soon as the
+	 * partial sum exceeds the cut off.
+	 */
+	private double squaredDistance(double[] a, int offsetA, double[] b, int offsetB, double cutOff) {
+		double sum = 0.0;
+		for (int d = 0; d < this.dimensions; d++) {
+			double diff = a[offsetA + d] - b[offsetB + d];
+			sum += diff * diff;
+			if (sum > cutOff) {
+				return Double.POSITIVE_INFINITY;
+			}
+		}
+		return sum;
+	}
+}
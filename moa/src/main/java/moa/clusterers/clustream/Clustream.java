@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Random;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
+import moa.cluster.MicroClusterIndex;
 import moa.cluster.SphereCluster;
 import moa.clusterers.AbstractClusterer;
 import moa.core.Measurement;
@@ -54,6 +55,7 @@ public class Clustream extends AbstractClusterer{
 	private int timeWindow;
 	private long timestamp = -1;
 	private ClustreamKernel[] kernels;
+	private MicroClusterIndex kernelIndex; // Centers of the kernels, for the nearest kernel search
 	private boolean initialized;
 	private List<ClustreamKernel> buffer; // Buffer for initialization with kNN
 	private int bufferSize;
@@ -68,6 +70,7 @@ public class Clustream extends AbstractClusterer{
 	public void resetLearningImpl() {
 		this.kernels = new ClustreamKernel[maxNumKernelsOption.getValue()];
 		this.timeWindow = timeWindowOption.getValue();
+		this.kernelIndex = null;
 		this.initialized = false;
 		this.buffer = new LinkedList<ClustreamKernel>();
 		this.bufferSize = maxNumKernelsOption.getValue();
@@ -101,22 +104,20 @@ public class Clustream extends AbstractClusterer{
 				kernels[i] = new ClustreamKernel( new DenseInstance(1.0,centers[i].getCenter()), dim, timestamp, t, m );
 			}
 
+			kernelIndex = new MicroClusterIndex(dim, kernels.length);
+			for ( int i = 0; i < kernels.length; i++ ) {
+				kernelIndex.add( kernels[i] );
+			}
+
 			buffer.clear();
 			initialized = true;
 		}
 
 
 		// 1. Determine closest kernel
-		ClustreamKernel closestKernel = null;
-		double minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			//System.out.println(i+" "+kernels[i].getWeight()+" "+kernels[i].getDeviation());
-			double distance = distance(instance.toDoubleArray(), kernels[i].getCenter() );
-			if ( distance < minDistance ) {
-				closestKernel = kernels[i];
-				minDistance = distance;
-			}
-		}
+		int closestIndex = kernelIndex.nearest( instance.toDoubleArray() );
+		ClustreamKernel closestKernel = kernels[closestIndex];
+		double minDistance = kernelIndex.getLastDistance();
 
 		// 2. Check whether instance fits into closestKernel
 		double radius = 0.0;
@@ -124,14 +125,8 @@ public class Clustream extends AbstractClusterer{
 			// Special case: estimate radius by determining the distance to the
 			// next closest cluster
 			radius = Double.MAX_VALUE;
-			double[] center = closestKernel.getCenter();
-			for ( int i = 0; i < kernels.length; i++ ) {
-				if ( kernels[i] == closestKernel ) {
-					continue;
-				}
-
-				double distance = distance(kernels[i].getCenter(), center );
-				radius = Math.min( distance, radius );
+			if ( kernelIndex.nearest( kernelIndex.getCenter(closestIndex), closestIndex ) != -1 ) {
+				radius = Math.min( kernelIndex.getLastDistance(), radius );
 			}
 		} else {
 			radius = closestKernel.getRadius();
@@ -140,6 +135,7 @@ public class Clustream extends AbstractClusterer{
 		if ( minDistance < radius ) {
 			// Date fits, put into kernel and be happy
 			closestKernel.insert( instance, timestamp );
+			kernelIndex.update( closestIndex );
 			return;
 		}
 
@@ -151,29 +147,21 @@ public class Clustream extends AbstractClusterer{
 		for ( int i = 0; i < kernels.length; i++ ) {
 			if ( kernels[i].getRelevanceStamp() < threshold ) {
 				kernels[i] = new ClustreamKernel( instance, dim, timestamp, t, m );
+				kernelIndex.set( i, kernels[i] );
 				return;
 			}
 		}
 
 		// 3.2 Merge closest two kernels
-		int closestA = 0;
-		int closestB = 0;
-		minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			double[] centerA = kernels[i].getCenter();
-			for ( int j = i + 1; j < kernels.length; j++ ) {
-				double dist = distance( centerA, kernels[j].getCenter() );
-				if ( dist < minDistance ) {
-					minDistance = dist;
-					closestA = i;
-					closestB = j;
-				}
-			}
-		}
+		int[] closestPair = kernelIndex.closestPair();
+		int closestA = closestPair[0];
+		int closestB = closestPair[1];
 		assert (closestA != closestB);
 
 		kernels[closestA].add( kernels[closestB] );
 		kernels[closestB] = new ClustreamKernel( instance, dim, timestamp, t,  m );
+		kernelIndex.update( closestA );
+		kernelIndex.set( closestB, kernels[closestB] );
 	}
 
 	@Override
@@ -35,8 +35,10 @@ import java.util.Random;
 import moa.cluster.CFCluster;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
+import moa.cluster.MicroClusterIndex;
 import moa.cluster.SphereCluster;
 import moa.clusterers.AbstractClusterer;
+import moa.core.ComputeExecutor;
 import moa.core.Measurement;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.DenseInstance;
@@ -64,6 +66,7 @@ public class WithKmeans extends AbstractClusterer {
 	private int timeWindow;
 	private long timestamp = -1;
 	private ClustreamKernel[] kernels;
+	private MicroClusterIndex kernelIndex; // Centers of the kernels, for the nearest kernel search
 	private boolean initialized;
 	private List<ClustreamKernel> buffer; // Buffer for initialization with kNN
 	private int bufferSize;
@@ -78,6 +81,7 @@ public class WithKmeans extends AbstractClusterer {
 	public void resetLearningImpl() {
 		this.kernels = new ClustreamKernel[maxNumKernelsOption.getValue()];
 		this.timeWindow = timeWindowOption.getValue();
+		this.kernelIndex = null;
 		this.initialized = false;
 		this.buffer = new LinkedList<ClustreamKernel>();
 		this.bufferSize = maxNumKernelsOption.getValue();
@@ -98,7 +102,12 @@ public class WithKmeans extends AbstractClusterer {
 				for (int i = 0; i < buffer.size(); i++) {
 					kernels[i] = new ClustreamKernel(new DenseInstance(1.0, buffer.get(i).getCenter()), dim, timestamp, t, m);
 				}
-	
+
+				kernelIndex = new MicroClusterIndex(dim, kernels.length);
+				for (int i = 0; i < kernels.length; i++) {
+					kernelIndex.add(kernels[i]);
+				}
+
 				buffer.clear();
 				initialized = true;
 			}
@@ -106,16 +115,9 @@ public class WithKmeans extends AbstractClusterer {
 
 
 		// 1. Determine closest kernel
-		ClustreamKernel closestKernel = null;
-		double minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			//System.out.println(i+" "+kernels[i].getWeight()+" "+kernels[i].getDeviation());
-			double distance = distance(instance.toDoubleArray(), kernels[i].getCenter());
-			if (distance < minDistance) {
-				closestKernel = kernels[i];
-				minDistance = distance;
-			}
-		}
+		int closestIndex = kernelIndex.nearest( instance.toDoubleArray() );
+		ClustreamKernel closestKernel = kernels[closestIndex];
+		double minDistance = kernelIndex.getLastDistance();
 
 		// 2. Check whether instance fits into closestKernel
 		double radius = 0.0;
@@ -123,14 +125,8 @@ public class WithKmeans extends AbstractClusterer {
 			// Special case: estimate radius by determining the distance to the
 			// next closest cluster
 			radius = Double.MAX_VALUE;
-			double[] center = closestKernel.getCenter();
-			for ( int i = 0; i < kernels.length; i++ ) {
-				if ( kernels[i] == closestKernel ) {
-					continue;
-				}
-
-				double distance = distance(kernels[i].getCenter(), center );
-				radius = Math.min( distance, radius );
+			if ( kernelIndex.nearest( kernelIndex.getCenter(closestIndex), closestIndex ) != -1 ) {
+				radius = Math.min( kernelIndex.getLastDistance(), radius );
 			}
 		} else {
 			radius = closestKernel.getRadius();
@@ -139,6 +135,7 @@ public class WithKmeans extends AbstractClusterer {
 		if ( minDistance < radius ) {
 			// Date fits, put into kernel and be happy
 			closestKernel.insert( instance, timestamp );
+			kernelIndex.update( closestIndex );
 			return;
 		}
 
@@ -150,29 +147,21 @@ public class WithKmeans extends AbstractClusterer {
 		for ( int i = 0; i < kernels.length; i++ ) {
 			if ( kernels[i].getRelevanceStamp() < threshold ) {
 				kernels[i] = new ClustreamKernel( instance, dim, timestamp, t, m );
+				kernelIndex.set( i, kernels[i] );
 				return;
 			}
 		}
 
 		// 3.2 Merge closest two kernels
-		int closestA = 0;
-		int closestB = 0;
-		minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			double[] centerA = kernels[i].getCenter();
-			for ( int j = i + 1; j < kernels.length; j++ ) {
-				double dist = distance( centerA, kernels[j].getCenter() );
-				if ( dist < minDistance ) {
-					minDistance = dist;
-					closestA = i;
-					closestB = j;
-				}
-			}
-		}
+		int[] closestPair = kernelIndex.closestPair();
+		int closestA = closestPair[0];
+		int closestB = closestPair[1];
 		assert (closestA != closestB);
 
 		kernels[closestA].add( kernels[closestB] );
 		kernels[closestB] = new ClustreamKernel( instance, dim, timestamp, t,  m );
+		kernelIndex.update( closestA );
+		kernelIndex.set( closestB, kernels[closestB] );
 	}
 	
 	@Override
@@ -312,20 +301,33 @@ public class WithKmeans extends AbstractClusterer {
 			clustering.add(new ArrayList<Cluster>());
 		}
 
+		// The centers of the points do not change between iterations
+		final double[][] points = new double[data.size()][];
+		for (int p = 0; p < points.length; p++) {
+			points[p] = data.get(p).getCenter();
+		}
+		final int[] assignment = new int[points.length];
+
 		while (true) {
-			// Assign points to clusters
-			for (Cluster point : data) {
-				double minDistance = distance(point.getCenter(), centers[0].getCenter());
+			// Assign points to clusters, in parallel; the lists are filled in data order afterwards
+			final double[][] currentCenters = new double[k][];
+			for (int i = 0; i < k; i++) {
+				currentCenters[i] = centers[i].getCenter();
+			}
+			ComputeExecutor.forEachIndex("WithKmeans", points.length, -1, p -> {
+				double minDistance = distance(points[p], currentCenters[0]);
 				int closestCluster = 0;
 				for (int i = 1; i < k; i++) {
-					double distance = distance(point.getCenter(), centers[i].getCenter());
+					double distance = distance(points[p], currentCenters[i]);
 					if (distance < minDistance) {
 						closestCluster = i;
 						minDistance = distance;
 					}
 				}
-
-				clustering.get(closestCluster).add(point);
+				assignment[p] = closestCluster;
+			});
+			for (int p = 0; p < points.length; p++) {
+				clustering.get(assignment[p]).add(data.get(p));
 			}
 
 			// Calculate new centers and clear clustering lists
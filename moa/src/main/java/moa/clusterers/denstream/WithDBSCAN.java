@@ -28,6 +28,7 @@ import java.util.ArrayList;
 
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
+import moa.cluster.MicroClusterIndex;
 import moa.clusterers.AbstractClusterer;
 import moa.clusterers.macro.dbscan.DBScan;
 import moa.core.Measurement;
@@ -73,6 +74,9 @@ public class WithDBSCAN extends AbstractClusterer {
 
 	Clustering p_micro_cluster;
 	Clustering o_micro_cluster;
+	// centers and radii of the potential and outlier micro-clusters, mirroring the lists above
+	MicroClusterIndex p_micro_cluster_index;
+	MicroClusterIndex o_micro_cluster_index;
 	ArrayList<DenPoint> initBuffer;
 
 	boolean initialized;
@@ -98,6 +102,23 @@ public class WithDBSCAN extends AbstractClusterer {
 		}
 	}
 
+	/**
+	 * Ranks micro-clusters by the distance to their center minus their radius.
+	 */
+	private class RadiusMicroClusterIndex extends MicroClusterIndex {
+
+		private static final long serialVersionUID = 1L;
+
+		public RadiusMicroClusterIndex(int dimensions) {
+			super(dimensions, 16);
+		}
+
+		@Override
+		protected double offset(Cluster cluster) {
+			return ((MicroCluster) cluster).getRadius(timestamp);
+		}
+	}
+
 	@Override
 	public void resetLearningImpl() {
 		// init DenStream
@@ -114,6 +135,8 @@ public class WithDBSCAN extends AbstractClusterer {
 		initialized = false;
 		p_micro_cluster = new Clustering();
 		o_micro_cluster = new Clustering();
+		p_micro_cluster_index = null;
+		o_micro_cluster_index = null;
 		initBuffer = new ArrayList<DenPoint>();
 		
 		tp = Math.round(1 / lambda * Math.log((beta * mu) / (beta * mu - 1))) + 1;
@@ -123,6 +146,11 @@ public class WithDBSCAN extends AbstractClusterer {
 	}
 
 	public void initialDBScan() {
+		if (p_micro_cluster_index == null && initBuffer.size() > 0) {
+			int dimensions = initBuffer.get(0).numAttributes();
+			p_micro_cluster_index = new RadiusMicroClusterIndex(dimensions);
+			o_micro_cluster_index = new RadiusMicroClusterIndex(dimensions);
+		}
 		for (int p = 0; p < initBuffer.size(); p++) {
 			DenPoint point = initBuffer.get(p);
 			if (!point.covered) {
@@ -135,6 +163,7 @@ public class WithDBSCAN extends AbstractClusterer {
 							currentTimestamp);
 					expandCluster(mc, initBuffer, neighbourhood);
 					p_micro_cluster.add(mc);
+					p_micro_cluster_index.add(mc);
 				} else {
 					point.covered = false;
 				}
@@ -151,6 +180,11 @@ public class WithDBSCAN extends AbstractClusterer {
 		if (numProcessedPerUnit % processingSpeed == 0) {
 			timestamp++;
 			currentTimestamp.setTimestamp(timestamp);
+			// the decayed statistics of all micro-clusters are evaluated at the new time
+			if (p_micro_cluster_index != null) {
+				p_micro_cluster_index.updateAll();
+				o_micro_cluster_index.updateAll();
+			}
 		}		
 		
 		// ////////////////
@@ -167,34 +201,41 @@ public class WithDBSCAN extends AbstractClusterer {
 			// Merging(p)//
 			// ////////////
 			boolean merged = false;
+			double[] pointValues = point.toDoubleArray();
 			if (p_micro_cluster.getClustering().size() != 0) {
-				MicroCluster x = nearestCluster(point, p_micro_cluster);
+				int xIndex = nearestCluster(pointValues, p_micro_cluster_index);
+				MicroCluster x = (MicroCluster) p_micro_cluster_index.get(xIndex);
 				MicroCluster xCopy = x.copy();
 				xCopy.insert(point, timestamp);
 				if (xCopy.getRadius(timestamp) <= epsilon) {
 					x.insert(point, timestamp);
+					p_micro_cluster_index.update(xIndex);
 					merged = true;
 				}
 			}
 			if (!merged && (o_micro_cluster.getClustering().size() != 0)) {
-				MicroCluster x = nearestCluster(point, o_micro_cluster);
+				int xIndex = nearestCluster(pointValues, o_micro_cluster_index);
+				MicroCluster x = (MicroCluster) o_micro_cluster_index.get(xIndex);
 				MicroCluster xCopy = x.copy();
 				xCopy.insert(point, timestamp);
 
 				if (xCopy.getRadius(timestamp) <= epsilon) {
 					x.insert(point, timestamp);
+					o_micro_cluster_index.update(xIndex);
 					merged = true;
 					if (x.getWeight() > beta * mu) {
 						o_micro_cluster.getClustering().remove(x);
+						o_micro_cluster_index.remove(xIndex);
 						p_micro_cluster.getClustering().add(x);
+						p_micro_cluster_index.add(x);
 					}
 				}
 			}
 			if (!merged) {
-				o_micro_cluster.getClustering().add(
-						new MicroCluster(point.toDoubleArray(), point
-								.toDoubleArray().length, timestamp, lambda,
-								currentTimestamp));
+				MicroCluster mc = new MicroCluster(pointValues, pointValues.length, timestamp, lambda,
+						currentTimestamp);
+				o_micro_cluster.getClustering().add(mc);
+				o_micro_cluster_index.add(mc);
 			}
 
 			// //////////////////////////
@@ -209,6 +250,7 @@ public class WithDBSCAN extends AbstractClusterer {
 				}
 				for (Cluster c : removalList) {
 					p_micro_cluster.getClustering().remove(c);
+					p_micro_cluster_index.remove(p_micro_cluster_index.indexOf(c));
 				}
 
 				for (Cluster c : o_micro_cluster.getClustering()) {
@@ -222,7 +264,9 @@ public class WithDBSCAN extends AbstractClusterer {
 					}
 				}
 				for (Cluster c : removalList) {
-					o_micro_cluster.getClustering().remove(c);
+					if (o_micro_cluster.getClustering().remove(c)) {
+						o_micro_cluster_index.remove(o_micro_cluster_index.indexOf(c));
+					}
 				}
 			}
 
@@ -261,23 +305,17 @@ public class WithDBSCAN extends AbstractClusterer {
 		return neighbourIDs;
 	}
 
-	private MicroCluster nearestCluster(DenPoint p, Clustering cl) {
-		MicroCluster min = null;
-		double minDist = 0;
-		for (int c = 0; c < cl.size(); c++) {
-			MicroCluster x = (MicroCluster) cl.get(c);
-			if (min == null) {
-				min = x;
-			}
-			double dist = distance(p.toDoubleArray(), x.getCenter());
-			dist -= x.getRadius(timestamp);
-			if (dist < minDist) {
-				minDist = dist;
-				min = x;
-			}
+	/**
+	 * Returns the position of the micro-cluster whose border (distance to the
+	 * center minus radius) is closest to the point, or the first micro-cluster
+	 * if the point is outside all of them.
+	 */
+	private int nearestCluster(double[] point, MicroClusterIndex index) {
+		int min = index.nearest(point);
+		if (index.getLastDistance() < 0) {
+			return min;
 		}
-		return min;
-
+		return 0;
 	}
 
 	private double distance(double[] pointA, double[] pointB) {
@@ -24,7 +24,10 @@
 package moa.clusterers.macro.dbscan;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import moa.cluster.CFCluster;
@@ -32,12 +35,14 @@ import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.clusterers.macro.AbstractMacroClusterer;
 import moa.clusterers.macro.NonConvexCluster;
+import moa.core.ComputeExecutor;
 
 public class DBScan extends AbstractMacroClusterer {
 
 	Clustering datasource;
 	private double mEps;
 	private int mMinPts;
+	private Map<DenseMicroCluster, int[]> mNeighbourhoods;
 
 	public DBScan(Clustering microClusters, double eps, int MinPts) {
 		datasource = microClusters;
@@ -82,14 +87,43 @@ public class DBScan extends AbstractMacroClusterer {
 	private List<DenseMicroCluster> getNeighbourhood(DenseMicroCluster mc,
 			Vector<DenseMicroCluster> dbmc) {
 		List<DenseMicroCluster> res = new Vector<DenseMicroCluster>();
-		for (DenseMicroCluster dmc : dbmc) {
-			if (distance(dmc.getCFCluster().getCenter(), mc.getCFCluster().getCenter()) < mEps) {
-				res.add(dmc);
-			}
+		for (int n : mNeighbourhoods.get(mc)) {
+			res.add(dbmc.get(n));
 		}
 		return res;
 	}
 
+	/**
+	 * Computes the epsilon neighbourhoods of all micro clusters up front, in
+	 * parallel, so that the centers are computed once per micro cluster and the
+	 * quadratic number of distance computations is spread over the available
+	 * cores.
+	 *
+	 * @param dbmc
+	 */
+	private void computeNeighbourhoods(Vector<DenseMicroCluster> dbmc) {
+		int n = dbmc.size();
+		double[][] centers = new double[n][];
+		for (int i = 0; i < n; i++) {
+			centers[i] = dbmc.get(i).getCFCluster().getCenter();
+		}
+		int[][] neighbourhoods = new int[n][];
+		ComputeExecutor.forEachIndex("DBScan", n, -1, i -> {
+			int[] neighbours = new int[n];
+			int count = 0;
+			for (int j = 0; j < n; j++) {
+				if (distance(centers[j], centers[i]) < mEps) {
+					neighbours[count++] = j;
+				}
+			}
+			neighbourhoods[i] = Arrays.copyOf(neighbours, count);
+		});
+		mNeighbourhoods = new IdentityHashMap<DenseMicroCluster, int[]>();
+		for (int i = 0; i < n; i++) {
+			mNeighbourhoods.put(dbmc.get(i), neighbourhoods[i]);
+		}
+	}
+
 	/**
 	 * eclidean distance
 	 * 
@@ -117,6 +151,7 @@ public class DBScan extends AbstractMacroClusterer {
 				} else
 					throw new RuntimeException();
 			}
+			computeNeighbourhoods(dbmc);
 
 			ArrayList<ArrayList<DenseMicroCluster>> clusters = new ArrayList<ArrayList<DenseMicroCluster>>();
 
@@ -173,6 +208,7 @@ public class DBScan extends AbstractMacroClusterer {
 			}
 			System.out.println("microclusters which are not clustered:: "
 					+ noise);
+			mNeighbourhoods = null;
 			Clustering result = new Clustering(res);
 			setClusterIDs(result);
 			// int i = 0;
@@ -6,8 +6,6 @@ import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import com.github.javacliparser.FileOption;
 import com.google.gson.Gson;
@@ -19,6 +17,7 @@ import moa.classifiers.meta.AdaptiveRandomForestRegressor;
 import moa.cluster.Clustering;
 import moa.clusterers.AbstractClusterer;
 import moa.clusterers.Clusterer;
+import moa.core.ComputeExecutor;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
 import moa.evaluation.MeasureCollection;
@@ -88,7 +87,6 @@ public abstract class EnsembleClustererAbstract extends AbstractClusterer {
 	GeneralConfiguration settings;
 	ArrayList<Double> performanceMeasures;
 	int verbose = 0;
-	protected ExecutorService executor;
 	int numberOfCores;
 
 	// the file option dialogue in the UI
@@ -138,7 +136,6 @@ public abstract class EnsembleClustererAbstract extends AbstractClusterer {
 		} else {
 			this.numberOfCores = this.settings.numberOfCores;
 		}
-		this.executor = Executors.newFixedThreadPool(this.numberOfCores);
 	}
 
 	@Override
@@ -177,11 +174,7 @@ public abstract class EnsembleClustererAbstract extends AbstractClusterer {
 					trainers.add(trainer);
 				}
 			}
-			try {
-				this.executor.invokeAll(trainers);
-			} catch (InterruptedException ex) {
-				throw new RuntimeException("Could not call invokeAll() on training threads.");
-			}
+			ComputeExecutor.invokeAll(getClass().getSimpleName(), trainers, this.numberOfCores);
 		}
 
 		// every windowSize we update the configurations
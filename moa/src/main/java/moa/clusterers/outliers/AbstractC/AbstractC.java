@@ -23,6 +23,7 @@ package moa.clusterers.outliers.AbstractC;
 import java.util.Vector;
 import moa.clusterers.outliers.AbstractC.ISBIndex.ISBNode;
 import moa.clusterers.outliers.AbstractC.ISBIndex.ISBSearchResult;
+import moa.clusterers.outliers.utils.StreamObj;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
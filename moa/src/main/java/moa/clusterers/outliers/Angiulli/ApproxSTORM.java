@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.Vector;
 import moa.clusterers.outliers.Angiulli.ISBIndex.ISBNode;
 import moa.clusterers.outliers.Angiulli.ISBIndex.ISBSearchResult;
+import moa.clusterers.outliers.utils.StreamObj;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -19,29 +19,20 @@
  */
 package moa.clusterers.outliers.Angiulli;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 import java.util.Vector;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.clusterers.outliers.utils.StreamObj;
+import moa.clusterers.outliers.utils.StreamObjIndex;
 
-
-public class ISBIndex {    
-    public abstract static class ISBNode {
-        public Instance inst;
-        public StreamObj obj;
-        public Long id;
+public class ISBIndex extends StreamObjIndex<ISBIndex.ISBNode> {    
+    public abstract static class ISBNode extends StreamObjIndex.Node {
         
         // statistics
         public int nOutlier;
         public int nInlier;
 
         public ISBNode(Instance inst, StreamObj obj, Long id) {
-            this.inst = inst;
-            this.obj = obj;
-            this.id = id;
+            super(inst, obj, id);
             
             // init statistics
             nOutlier = 0;
@@ -49,14 +40,10 @@ public class ISBIndex {
         }
     }
     
-    MyMTree mtree;
-    Map<Integer, Set<ISBNode>> mapNodes;
     double m_radius;
     int m_k; // k nearest neighbors
     
     public ISBIndex(double radius, int k) {
-        mtree = new MyMTree();
-        mapNodes = new HashMap<Integer, Set<ISBNode>>();
         m_radius = radius;
         m_k = k;
     }
@@ -72,95 +59,13 @@ public class ISBIndex {
     }
     
     public Vector<ISBSearchResult> RangeSearch(ISBNode node, double radius) {
-        Vector<ISBSearchResult> results = new Vector<ISBSearchResult>();
-        // execute range search at mtree
-        StreamObj obj;
-        double d;
-        MyMTree.Query query = mtree.getNearestByRange(node.obj, radius);
-        for (MyMTree.ResultItem q : query) {
-            // get next obj found within range
-            obj = q.data;
-            // get distance of obj from query
-            d = q.distance;
-            // get all nodes referencing obj
-            Vector<ISBNode> nodes = MapGetNodes(obj);
-            for (int i = 0; i < nodes.size(); i++)
-                results.add(new ISBSearchResult(nodes.get(i), d));
-        }        
-        return results;
-    }
-    
-    public void Insert(ISBNode node) {
-        // insert object of node at mtree
-        mtree.add(node.obj);
-        // insert node at map
-        MapInsert(node);    
-    }
-    
-    public void Remove(ISBNode node) {
-        // remove from map
-        MapDelete(node);
-        // check if stream object at mtree is still being referenced
-        if (MapCountObjRefs(node.obj) <= 0) {
-            // delete stream object from mtree
-            mtree.remove(node.obj);
-        }
-    }
-    
-    Vector<ISBNode> MapGetNodes(StreamObj obj) {
-        int h = obj.hashCode();
-        Vector<ISBNode> v = new Vector<ISBNode>();
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            ISBNode node;
-            Iterator<ISBNode> i = s.iterator();
-            while (i.hasNext()) {
-                node = i.next();
-                if (node.obj.equals(obj))
-                    v.add(node);
-            }
-        }
-        return v;
-    }
-    
-    int MapCountObjRefs(StreamObj obj) {
-        int h = obj.hashCode();
-        int iCount = 0;
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            ISBNode n;
-            Iterator<ISBNode> i = s.iterator();
-            while (i.hasNext()) {
-                n = i.next();
-                if (n.obj.equals(obj))
-                    iCount++;
+        final Vector<ISBSearchResult> results = new Vector<ISBSearchResult>();
+        RangeSearch(node, radius, new NodeVisitor<ISBNode>() {
+            @Override
+            public void found(ISBNode n, double distance) {
+                results.add(new ISBSearchResult(n, distance));
             }
-        }
-        return iCount;
-    }
-    
-    void MapInsert(ISBNode node) {
-        int h = node.obj.hashCode();
-        Set<ISBNode> s;
-        if (mapNodes.containsKey(h)) {
-            s = mapNodes.get(h);
-            s.add(node);
-        }
-        else {
-            s = new HashSet<ISBNode>();
-            s.add(node);
-            mapNodes.put(h, s);
-        }
+        });
+        return results;
     }
-    
-    void MapDelete(ISBNode node) {
-        int h = node.obj.hashCode();
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            s.remove(node);
-            if (s.isEmpty()) { // ### added
-                mapNodes.remove(h);
-            }
-        }
-    }    
 }
@@ -26,6 +26,8 @@ import java.util.Vector;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode.NodeType;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBSearchResult;
+import moa.clusterers.outliers.utils.MinMaxMTree;
+import moa.clusterers.outliers.utils.StreamObj;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -70,7 +72,7 @@ public class MCOD extends MCODBase {
         // create helper sets for micro-cluster management
         setMC = new TreeSet<MicroCluster>();
         // micro-cluster index
-        mtreeMC = new MTreeMicroClusters();
+        mtreeMC = new MinMaxMTree<MicroCluster>();
         // create event queue
         eventQueue = new EventQueue();
         
@@ -233,9 +235,9 @@ public class MCOD extends MCODBase {
                     mcNew.AddNode(q);
                     // move q from set PD to set inlier-mc
                     SetNodeType(q, NodeType.INLIER_MC);
-                    ISB_PD.Remove(q);
                     RemoveOutlier(q); // needed? ###
                 }
+                ISB_PD.RemoveAll(setNC);
                 if (bTrace) { 
                     Print("mcNew.nodes: "); PrintNodeList(mcNew.nodes); 
                     PrintPD();
@@ -28,6 +28,7 @@ import java.util.Vector;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode.NodeType;
 import moa.clusterers.outliers.MyBaseOutlierDetector;
+import moa.clusterers.outliers.utils.MinMaxMTree;
 
 public abstract class MCODBase extends MyBaseOutlierDetector {    
     protected static class EventItem implements Comparable<EventItem> {
@@ -92,7 +93,7 @@ public abstract class MCODBase extends MyBaseOutlierDetector {
     protected Vector<ISBNode> windowNodes; 
     protected EventQueue eventQueue;
     // MTree index of micro-clusters
-    protected MTreeMicroClusters mtreeMC;
+    protected MinMaxMTree<MicroCluster> mtreeMC;
     // set of micro-clusters (for trace)
     protected TreeSet<MicroCluster> setMC;
     // nodes treated as new nodes when a mc removed
@@ -286,8 +287,8 @@ public abstract class MCODBase extends MyBaseOutlierDetector {
         // create a dummy mc in order to search w.r.t. nodeNew
         MicroCluster dummy = new MicroCluster(nodeNew);
         // query results are returned ascenting by distance
-        MTreeMicroClusters.Query query = mtreeMC.getNearestByRange(dummy, radius);
-        for (MTreeMicroClusters.ResultItem q : query) {            
+        MinMaxMTree<MicroCluster>.Query query = mtreeMC.getNearestByRange(dummy, radius);
+        for (MinMaxMTree<MicroCluster>.ResultItem q : query) {            
             results.add(new SearchResultMC(q.data, q.distance));
         }        
         return results;
@@ -23,6 +23,7 @@ package moa.clusterers.outliers.SimpleCOD;
 import java.util.Vector;
 import moa.clusterers.outliers.SimpleCOD.ISBIndex.ISBNode;
 import moa.clusterers.outliers.SimpleCOD.ISBIndex.ISBSearchResult;
+import moa.clusterers.outliers.utils.StreamObj;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -24,8 +24,13 @@ import moa.clusterers.outliers.AbstractC.AbstractC;
 import moa.clusterers.outliers.Angiulli.ExactSTORM;
 import moa.clusterers.outliers.MCOD.MCOD;
 import moa.clusterers.outliers.SimpleCOD.SimpleCOD;
+import moa.clusterers.outliers.utils.StreamObj;
+import moa.clusterers.outliers.utils.StreamObjIndex;
 import moa.streams.clustering.RandomRBFGeneratorEvents;
+import moa.streams.generators.RandomRBFGenerator;
 import com.yahoo.labs.samoa.instances.Instance;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TestSpeed {    
     public static void main(String[] args) throws Exception 
@@ -69,5 +74,84 @@ public class TestSpeed {
         }      
         
         System.out.println("Total time = " + (System.currentTimeMillis() - tmStart) + " ms");
+        
+        TestSlides(50, 1000, 100, 20);
+    }
+    
+    static class SlideNode extends StreamObjIndex.Node {
+        SlideNode(Instance inst, StreamObj obj, Long id) {
+            super(inst, obj, id);
+        }
+    }
+    
+    static class Counter implements StreamObjIndex.NodeVisitor<SlideNode>, StreamObjIndex.BatchVisitor<SlideNode> {
+        long nFound = 0;
+        
+        @Override
+        public void found(SlideNode node, double distance) {
+            nFound++;
+        }
+        
+        @Override
+        public void found(int query, SlideNode node, double distance) {
+            nFound++;
+        }
+    }
+    
+    // Measures the index over a sliding window of the given dimensions, updated
+    // one node at a time and a slide at a time.
+    static void TestSlides(int dims, int windowSize, int slideSize, int numSlides) {
+        RandomRBFGenerator stream = new RandomRBFGenerator();
+        stream.numAttsOption.setValue(dims);
+        stream.prepareForUse();
+        
+        List<List<SlideNode>> slides = new ArrayList<List<SlideNode>>();
+        long id = 0;
+        for (int i = 0; i < windowSize / slideSize + numSlides; i++) {
+            List<SlideNode> slide = new ArrayList<SlideNode>();
+            for (int j = 0; j < slideSize; j++) {
+                Instance inst = stream.nextInstance().getData();
+                double[] values = new double[dims];
+                for (int k = 0; k < dims; k++) {
+                    values[k] = inst.value(k);
+                }
+                slide.add(new SlideNode(inst, new StreamObj(values), id++));
+            }
+            slides.add(slide);
+        }
+        double radius = 0.1 * Math.sqrt(dims);
+        int slidesInWindow = windowSize / slideSize;
+        
+        StreamObjIndex<SlideNode> index = new StreamObjIndex<SlideNode>();
+        Counter counter = new Counter();
+        Long tmStart = System.currentTimeMillis();
+        for (int i = 0; i < slides.size(); i++) {
+            if (i >= slidesInWindow) {
+                for (SlideNode node : slides.get(i - slidesInWindow)) {
+                    index.Remove(node);
+                }
+            }
+            for (SlideNode node : slides.get(i)) {
+                index.RangeSearch(node, radius, counter);
+            }
+            for (SlideNode node : slides.get(i)) {
+                index.Insert(node);
+            }
+        }
+        System.out.println(dims + " dims, one node at a time: " + (System.currentTimeMillis() - tmStart) 
+                + " ms, " + counter.nFound + " neighbors");
+        
+        index = new StreamObjIndex<SlideNode>();
+        counter = new Counter();
+        tmStart = System.currentTimeMillis();
+        for (int i = 0; i < slides.size(); i++) {
+            if (i >= slidesInWindow) {
+                index.RemoveAll(slides.get(i - slidesInWindow));
+            }
+            index.RangeSearch(slides.get(i), radius, counter);
+            index.InsertAll(slides.get(i));
+        }
+        System.out.println(dims + " dims, one slide at a time: " + (System.currentTimeMillis() - tmStart) 
+                + " ms, " + counter.nFound + " neighbors");
     }
 }
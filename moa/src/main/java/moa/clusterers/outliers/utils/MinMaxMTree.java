@@ -0,0 +1,96 @@
+/*
+ *    MinMaxMTree.java
+ *    Copyright (C) 2013 Aristotle University of Thessaloniki, Greece
+ *    @author D. Georgiadis, A. Gounaris, A. Papadopoulos, K. Tsichlas, Y. Manolopoulos
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+
+package moa.clusterers.outliers.utils;
+
+import java.util.Collection;
+import java.util.Set;
+import moa.clusterers.outliers.utils.mtree.ComposedSplitFunction;
+import moa.clusterers.outliers.utils.mtree.DistanceFunction;
+import moa.clusterers.outliers.utils.mtree.DistanceFunctions;
+import moa.clusterers.outliers.utils.mtree.DistanceFunctions.EuclideanCoordinate;
+import moa.clusterers.outliers.utils.mtree.MTree;
+import moa.clusterers.outliers.utils.mtree.PartitionFunctions;
+import moa.clusterers.outliers.utils.mtree.PromotionFunction;
+import moa.clusterers.outliers.utils.mtree.utils.Pair;
+import moa.clusterers.outliers.utils.mtree.utils.Utils;
+
+/**
+ * Euclidean M-tree used by the outlier detectors: nodes of capacity 2, the
+ * minimum and maximum objects of a node are promoted on a split and the
+ * objects are distributed with a balanced partition.
+ *
+ * The structure of the tree is verified after every update only when
+ * assertions are enabled, since the verification computes the distances of
+ * the whole tree.
+ */
+public class MinMaxMTree<DATA extends EuclideanCoordinate & Comparable<DATA>> extends MTree<DATA> {
+
+    private static final boolean CHECK = MinMaxMTree.class.desiredAssertionStatus();
+
+    public MinMaxMTree() {
+        super(2, DistanceFunctions.EUCLIDEAN,
+                new ComposedSplitFunction<DATA>(
+                new PromotionFunction<DATA>() {
+                    @Override
+                    public Pair<DATA> process(Set<DATA> dataSet, DistanceFunction<? super DATA> distanceFunction) {
+                        return Utils.minMax(dataSet);
+                    }
+                },
+                new PartitionFunctions.BalancedPartition<DATA>()));
+    }
+
+    @Override
+    public void add(DATA data) {
+        super.add(data);
+        if (CHECK) _check();
+    }
+
+    @Override
+    public boolean remove(DATA data) {
+        boolean result = super.remove(data);
+        if (CHECK) _check();
+        return result;
+    }
+
+    /**
+     * Adds the given objects, verifying the tree once after the last one.
+     */
+    public void addAll(Collection<? extends DATA> data) {
+        for (DATA d : data) {
+            super.add(d);
+        }
+        if (CHECK) _check();
+    }
+
+    /**
+     * Removes the given objects, verifying the tree once after the last one.
+     */
+    public void removeAll(Collection<? extends DATA> data) {
+        for (DATA d : data) {
+            super.remove(d);
+        }
+        if (CHECK) _check();
+    }
+
+    public DistanceFunction<? super DATA> getDistanceFunction() {
+        return distanceFunction;
+    }
+}
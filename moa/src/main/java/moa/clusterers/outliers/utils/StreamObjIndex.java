@@ -0,0 +1,224 @@
+/*
+ *    StreamObjIndex.java
+ *    Copyright (C) 2013 Aristotle University of Thessaloniki, Greece
+ *    @author D. Georgiadis, A. Gounaris, A. Papadopoulos, K. Tsichlas, Y. Manolopoulos
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+
+package moa.clusterers.outliers.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.clusterers.outliers.utils.mtree.MTree;
+
+/**
+ * Index of the window nodes of a distance-based outlier detector, shared by
+ * the ISBIndex of MCOD, SimpleCOD, AbstractC and the STORM detectors.
+ *
+ * The coordinates of the nodes are indexed by an M-tree. Nodes whose stream
+ * objects are equal share a single entry of the tree, which is removed when
+ * the last node referencing it is removed.
+ *
+ * Besides the one node at a time operations, the index inserts and expires
+ * whole slides of nodes and answers the range queries of a slide in a single
+ * traversal of the tree.
+ */
+public class StreamObjIndex<N extends StreamObjIndex.Node> {
+
+    public abstract static class Node {
+        public Instance inst;
+        public StreamObj obj;
+        public Long id;
+
+        public Node(Instance inst, StreamObj obj, Long id) {
+            this.inst = inst;
+            this.obj  = obj;
+            this.id   = id;
+        }
+    }
+
+    /**
+     * Receives the nodes found by a range query.
+     */
+    public interface NodeVisitor<N> {
+        /**
+         * @param node     node within range of the query
+         * @param distance distance of the node from the query
+         */
+        void found(N node, double distance);
+    }
+
+    /**
+     * Receives the nodes found by a batch of range queries.
+     */
+    public interface BatchVisitor<N> {
+        /**
+         * @param query    position of the query in the batch
+         * @param node     node within range of the query
+         * @param distance distance of the node from the query
+         */
+        void found(int query, N node, double distance);
+    }
+
+    protected MinMaxMTree<StreamObj> mtree;
+    // nodes referencing each stream object of the tree
+    protected Map<StreamObj, List<N>> mapNodes;
+    protected int nNodes;
+
+    public StreamObjIndex() {
+        mtree = new MinMaxMTree<StreamObj>();
+        mapNodes = new HashMap<StreamObj, List<N>>();
+        nNodes = 0;
+    }
+
+    public int Size() {
+        return nNodes;
+    }
+
+    public Vector<N> GetAllNodes() {
+        Vector<N> v = new Vector<N>(nNodes);
+        for (List<N> nodes : mapNodes.values()) {
+            v.addAll(nodes);
+        }
+        return v;
+    }
+
+    /**
+     * Visits the nodes within radius of the given node, ascending by distance.
+     */
+    public void RangeSearch(N node, double radius, NodeVisitor<? super N> visitor) {
+        MTree<StreamObj>.Query query = mtree.getNearestByRange(node.obj, radius);
+        for (MTree<StreamObj>.ResultItem q : query) {
+            List<N> nodes = mapNodes.get(q.data);
+            if (nodes != null) {
+                for (int i = 0; i < nodes.size(); i++) {
+                    visitor.found(nodes.get(i), q.distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the nodes within radius of each of the given nodes, traversing the
+     * tree once for the whole batch. The results of a query are not sorted.
+     */
+    public void RangeSearch(final List<? extends N> queries, double radius, final BatchVisitor<? super N> visitor) {
+        List<StreamObj> objs = new ArrayList<StreamObj>(queries.size());
+        for (N query : queries) {
+            objs.add(query.obj);
+        }
+        mtree.getNearestByRange(objs, radius, new MTree.RangeVisitor<StreamObj>() {
+            @Override
+            public void found(int query, StreamObj obj, double distance) {
+                List<N> nodes = mapNodes.get(obj);
+                if (nodes != null) {
+                    for (int i = 0; i < nodes.size(); i++) {
+                        visitor.found(query, nodes.get(i), distance);
+                    }
+                }
+            }
+        });
+    }
+
+    public void Insert(N node) {
+        List<N> nodes = mapNodes.get(node.obj);
+        if (nodes == null) {
+            nodes = new ArrayList<N>(1);
+            mapNodes.put(node.obj, nodes);
+            // first reference of the stream object, insert it at mtree
+            mtree.add(node.obj);
+        }
+        nodes.add(node);
+        nNodes++;
+    }
+
+    /**
+     * Inserts the nodes of a slide. The stream objects that are new to the
+     * index are added to the tree together.
+     */
+    public void InsertAll(Collection<? extends N> nodes) {
+        List<StreamObj> newObjs = new ArrayList<StreamObj>();
+        for (N node : nodes) {
+            List<N> objNodes = mapNodes.get(node.obj);
+            if (objNodes == null) {
+                objNodes = new ArrayList<N>(1);
+                mapNodes.put(node.obj, objNodes);
+                newObjs.add(node.obj);
+            }
+            objNodes.add(node);
+            nNodes++;
+        }
+        mtree.addAll(newObjs);
+    }
+
+    public void Remove(N node) {
+        List<N> nodes = mapNodes.get(node.obj);
+        if (nodes == null) {
+            return;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) == node) {
+                nodes.remove(i);
+                nNodes--;
+                break;
+            }
+        }
+        if (nodes.isEmpty()) {
+            // stream object is not referenced anymore, delete it from mtree
+            mapNodes.remove(node.obj);
+            mtree.remove(node.obj);
+        }
+    }
+
+    /**
+     * Removes the nodes of an expired slide. The node list of each stream
+     * object is filtered once, and the stream objects that are no longer
+     * referenced are removed from the tree together.
+     */
+    public void RemoveAll(Collection<? extends N> nodes) {
+        final Set<N> removed = Collections.newSetFromMap(new IdentityHashMap<N, Boolean>());
+        Set<StreamObj> objs = new LinkedHashSet<StreamObj>();
+        for (N node : nodes) {
+            removed.add(node);
+            objs.add(node.obj);
+        }
+        List<StreamObj> unusedObjs = new ArrayList<StreamObj>();
+        for (StreamObj obj : objs) {
+            List<N> objNodes = mapNodes.get(obj);
+            if (objNodes == null) {
+                continue;
+            }
+            int size = objNodes.size();
+            objNodes.removeIf(removed::contains);
+            nNodes -= size - objNodes.size();
+            if (objNodes.isEmpty()) {
+                // stream object is not referenced anymore, delete it from mtree
+                mapNodes.remove(obj);
+                unusedObjs.add(obj);
+            }
+        }
+        mtree.removeAll(unusedObjs);
+    }
+}
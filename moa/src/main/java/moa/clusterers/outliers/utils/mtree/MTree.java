@@ -22,6 +22,7 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
@@ -446,6 +447,90 @@ public class MTree<DATA> {
 	}
 	
 	
+	/**
+	 * Receives the results of a batched range query.
+	 */
+	public interface RangeVisitor<DATA> {
+		/**
+		 * Called once for every indexed object within range of a query object.
+		 * @param query    The position of the query object in the batch.
+		 * @param data     The indexed data object found.
+		 * @param distance The distance from the query object to {@code data}.
+		 */
+		void found(int query, DATA data, double distance);
+	}
+
+	/**
+	 * Performs a range query for several query objects in a single traversal
+	 * of the M-Tree: every node is visited once for all the query objects that
+	 * may still have results in it, and each query object is pruned with the
+	 * triangle inequality on its own.
+	 *
+	 * <p>Unlike {@link #getNearestByRange(Object, double)}, the results are not
+	 * sorted by distance.
+	 *
+	 * @param queries The query data objects.
+	 * @param range   The maximum distance from a query object to its results.
+	 * @param visitor The object receiving the results.
+	 */
+	public void getNearestByRange(List<? extends DATA> queries, double range, RangeVisitor<? super DATA> visitor) {
+		if(root == null  ||  queries.isEmpty()) {
+			return;
+		}
+		int count = queries.size();
+		int[] active = new int[count];
+		double[] distances = new double[count];
+		int rootCount = 0;
+		for(int q = 0; q < count; q++) {
+			double distance = distanceFunction.calculate(queries.get(q), root.data);
+			if(Math.max(distance - root.radius, 0.0) <= range) {
+				active[rootCount] = q;
+				distances[rootCount] = distance;
+				rootCount++;
+			}
+		}
+		if(rootCount > 0) {
+			rangeSearch(root, queries, active, distances, rootCount, range, visitor);
+		}
+	}
+
+	private void rangeSearch(Node node, List<? extends DATA> queries, int[] active, double[] distances, int count,
+			double range, RangeVisitor<? super DATA> visitor) {
+		int[] childActive = null;
+		double[] childDistances = null;
+		for(IndexItem child : node.children.values()) {
+			boolean isEntry = child instanceof MTree.Entry;
+			int childCount = 0;
+			for(int i = 0; i < count; i++) {
+				if(Math.abs(distances[i] - child.distanceToParent) - child.radius > range) {
+					continue;
+				}
+				int q = active[i];
+				double childDistance = distanceFunction.calculate(queries.get(q), child.data);
+				if(Math.max(childDistance - child.radius, 0.0) > range) {
+					continue;
+				}
+				if(isEntry) {
+					visitor.found(q, child.data, childDistance);
+				} else {
+					if(childActive == null) {
+						childActive = new int[count];
+						childDistances = new double[count];
+					}
+					childActive[childCount] = q;
+					childDistances[childCount] = childDistance;
+					childCount++;
+				}
+			}
+			if(childCount > 0) {
+				@SuppressWarnings("unchecked")
+				Node childNode = (Node)child;
+				rangeSearch(childNode, queries, childActive, childDistances, childCount, range, visitor);
+			}
+		}
+	}
+
+
 	protected void _check() {
 		if(root != null) {
 			root._check();
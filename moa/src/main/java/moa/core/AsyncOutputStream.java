@@ -0,0 +1,152 @@
+/*
+ *    AsyncOutputStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream that buffers what is written to it and writes the buffers to
+ * another output stream on a separate thread, so that writing results does
+ * not slow down the writer. At most a bounded number of buffers wait to be
+ * written; writing blocks when they are all pending.
+ *
+ * Flushing hands the buffered bytes over to the writing thread without
+ * waiting for them to be written. Closing waits for all of them to be
+ * written, and reports the first error of the writing thread, if any.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+    protected static final int BUFFER_SIZE = 1 << 16;
+
+    protected static final int MAX_PENDING_BUFFERS = 16;
+
+    // an empty buffer marks the end of the stream
+    protected static final byte[] END = new byte[0];
+
+    protected final OutputStream out;
+
+    protected final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<byte[]>(MAX_PENDING_BUFFERS);
+
+    protected final Thread writer;
+
+    protected byte[] buffer = new byte[BUFFER_SIZE];
+
+    protected int count;
+
+    protected volatile IOException writeError;
+
+    protected boolean closed;
+
+    public AsyncOutputStream(OutputStream out) {
+        this.out = out;
+        this.writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeAll();
+            }
+        }, "AsyncOutputStream");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    protected void writeAll() {
+        try {
+            while (true) {
+                byte[] bytes = this.pending.take();
+                if (bytes == END) {
+                    break;
+                }
+                if (this.writeError == null) {
+                    this.out.write(bytes);
+                    if (this.pending.isEmpty()) {
+                        this.out.flush();
+                    }
+                }
+            }
+            this.out.close();
+        } catch (IOException e) {
+            this.writeError = e;
+        } catch (InterruptedException e) {
+            // abandoned
+        }
+    }
+
+    protected void handOver(byte[] bytes) throws IOException {
+        try {
+            this.pending.put(bytes);
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while writing", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (this.count == this.buffer.length) {
+            flush();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (this.count == this.buffer.length) {
+                flush();
+            }
+            int n = Math.min(len, this.buffer.length - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.writeError != null) {
+            throw this.writeError;
+        }
+        if (this.count > 0) {
+            handOver(Arrays.copyOf(this.buffer, this.count));
+            this.count = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        flush();
+        handOver(END);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while closing", e);
+        }
+        if (this.writeError != null) {
+            throw this.writeError;
+        }
+    }
+}
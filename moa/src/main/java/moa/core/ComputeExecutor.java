@@ -0,0 +1,352 @@
+/*
+ *    ComputeExecutor.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Pool of threads shared by the learners of the process that run work in
+ * parallel, such as the members of ensembles.
+ *
+ * The number of threads is set once for the process, from the command line
+ * of DoTask or the moa.compute.threads system property, and defaults to the
+ * number of processors. Tasks submitted from a thread of the pool run on that
+ * thread, so that nested ensembles do not multiply the number of threads, nor
+ * wait for threads that are waiting for them.
+ *
+ * The tasks run are counted per owner, usually the class of the learner, to
+ * find where the time of the pool goes.
+ */
+public final class ComputeExecutor {
+
+    public static final String THREADS_PROPERTY = "moa.compute.threads";
+
+    /**
+     * Counts of the tasks run for an owner.
+     */
+    public static class Metrics {
+
+        protected final LongAdder invocations = new LongAdder();
+
+        protected final LongAdder tasks = new LongAdder();
+
+        protected final LongAdder inlineTasks = new LongAdder();
+
+        protected final LongAdder taskNanos = new LongAdder();
+
+        protected final LongAdder waitNanos = new LongAdder();
+
+        /** Number of calls to invokeAll. */
+        public long getInvocations() {
+            return this.invocations.sum();
+        }
+
+        /** Number of tasks run, on the pool or on the calling thread. */
+        public long getTasks() {
+            return this.tasks.sum();
+        }
+
+        /** Number of tasks run on the calling thread. */
+        public long getInlineTasks() {
+            return this.inlineTasks.sum();
+        }
+
+        /** Time spent running the tasks, summed over the threads. */
+        public long getTaskNanos() {
+            return this.taskNanos.sum();
+        }
+
+        /** Time the calling threads spent in invokeAll. */
+        public long getWaitNanos() {
+            return this.waitNanos.sum();
+        }
+    }
+
+    private static final Map<String, Metrics> metrics = new ConcurrentHashMap<String, Metrics>();
+
+    private static final ThreadLocal<Boolean> isPoolThread = new ThreadLocal<Boolean>();
+
+    private static int numThreads = defaultNumThreads();
+
+    private static ExecutorService pool;
+
+    private ComputeExecutor() {
+    }
+
+    private static int defaultNumThreads() {
+        try {
+            int threads = Integer.parseInt(System.getProperty(THREADS_PROPERTY, "0"));
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // falls back to the number of processors
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the number of threads of the pool, 0 for as many as processors.
+     * A running pool is shut down once its tasks are done, and the next
+     * tasks run on a new pool.
+     */
+    public static synchronized void setNumThreads(int threads) {
+        int newNumThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (newNumThreads != numThreads) {
+            shutdown();
+            numThreads = newNumThreads;
+        }
+    }
+
+    public static synchronized int getNumThreads() {
+        return numThreads;
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(numThreads, runnable -> {
+                Thread thread = new Thread(() -> {
+                    isPoolThread.set(Boolean.TRUE);
+                    runnable.run();
+                }, "moa-compute-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Returns whether the current thread is a thread of the pool.
+     */
+    public static boolean isPoolThread() {
+        return isPoolThread.get() != null;
+    }
+
+    /**
+     * Runs tasks on at most a number of threads, the calling thread included,
+     * and returns their results in the order of the tasks. The tasks are run
+     * on the calling thread if it is a thread of the pool, or if a single job
+     * is allowed. A failing task fails the call once the other jobs are done,
+     * the next tasks of its own job not being run.
+     *
+     * @param owner the name the tasks are counted under
+     * @param tasks the tasks to run
+     * @param maxJobs the maximum number of tasks run at the same time, -1 for
+     * as many as threads in the pool
+     * @return the results of the tasks
+     */
+    public static <T> List<T> invokeAll(String owner, List<? extends Callable<T>> tasks,
+            int maxJobs) {
+        Metrics ownerMetrics = getMetrics(owner);
+        ownerMetrics.invocations.increment();
+        long start = System.nanoTime();
+        int jobs = Math.min(tasks.size(), maxJobs < 0 ? getNumThreads()
+                : Math.min(maxJobs, getNumThreads()));
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (jobs <= 1 || isPoolThread()) {
+            for (Callable<? extends T> task : tasks) {
+                results.add(runTask(task, ownerMetrics, true));
+            }
+            ownerMetrics.waitNanos.add(System.nanoTime() - start);
+            return results;
+        }
+        // the tasks are split into contiguous runs, one per job, and the
+        // calling thread runs the first
+        List<Callable<List<T>>> runs = new ArrayList<Callable<List<T>>>(jobs);
+        for (int job = 0; job < jobs; job++) {
+            final List<? extends Callable<T>> run = tasks.subList(
+                    (int) ((long) tasks.size() * job / jobs),
+                    (int) ((long) tasks.size() * (job + 1) / jobs));
+            final boolean inline = job == 0;
+            runs.add(() -> {
+                List<T> runResults = new ArrayList<T>(run.size());
+                for (Callable<? extends T> task : run) {
+                    runResults.add(runTask(task, ownerMetrics, inline));
+                }
+                return runResults;
+            });
+        }
+        ExecutorService executor = getPool();
+        List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>(jobs - 1);
+        Throwable failure = null;
+        try {
+            for (int job = 1; job < jobs; job++) {
+                futures.add(executor.submit(runs.get(job)));
+            }
+            try {
+                results.addAll(runs.get(0).call());
+            } catch (Throwable e) {
+                failure = e;
+            }
+            for (Future<List<T>> future : futures) {
+                try {
+                    results.addAll(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<List<T>> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the tasks of " + owner + ".", e);
+        } finally {
+            ownerMetrics.waitNanos.add(System.nanoTime() - start);
+        }
+        if (failure != null) {
+            throw new RuntimeException("Failed to run a task of " + owner + ".", failure);
+        }
+        return results;
+    }
+
+    /**
+     * Runs task for every index below n on at most a number of threads, the
+     * calling thread included. The indices are split into contiguous ranges,
+     * one per job, run as by invokeAll.
+     *
+     * @param owner the name the tasks are counted under
+     * @param n the number of indices
+     * @param maxJobs the maximum number of ranges run at the same time, -1
+     * for as many as threads in the pool
+     * @param task the task run for each index
+     */
+    public static void forEachIndex(String owner, final int n, int maxJobs,
+            final IntConsumer task) {
+        final int jobs = Math.max(1, Math.min(n, maxJobs < 0 ? getNumThreads()
+                : Math.min(maxJobs, getNumThreads())));
+        List<Callable<Void>> ranges = new ArrayList<Callable<Void>>(jobs);
+        for (int job = 0; job < jobs; job++) {
+            final int from = (int) ((long) n * job / jobs);
+            final int to = (int) ((long) n * (job + 1) / jobs);
+            ranges.add(() -> {
+                for (int i = from; i < to; i++) {
+                    task.accept(i);
+                }
+                return null;
+            });
+        }
+        invokeAll(owner, ranges, jobs);
+    }
+
+    /**
+     * Starts running a task in the background and returns its result to
+     * come. A task submitted from a thread of the pool runs on that thread
+     * before submit returns, as in invokeAll.
+     *
+     * @param owner the name the task is counted under
+     * @param task the task to run
+     * @return the result of the task
+     */
+    public static <T> CompletableFuture<T> submit(String owner, final Callable<T> task) {
+        final Metrics ownerMetrics = getMetrics(owner);
+        ownerMetrics.invocations.increment();
+        if (isPoolThread()) {
+            CompletableFuture<T> result = new CompletableFuture<T>();
+            try {
+                result.complete(runTask(task, ownerMetrics, true));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+        return CompletableFuture.supplyAsync(() -> runTask(task, ownerMetrics, false), getPool());
+    }
+
+    private static <T> T runTask(Callable<? extends T> task, Metrics ownerMetrics,
+            boolean inline) {
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            ownerMetrics.taskNanos.add(System.nanoTime() - start);
+            ownerMetrics.tasks.increment();
+            if (inline) {
+                ownerMetrics.inlineTasks.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the counts of the tasks run for an owner.
+     */
+    public static Metrics getMetrics(String owner) {
+        return metrics.computeIfAbsent(owner, key -> new Metrics());
+    }
+
+    /**
+     * Appends a line per owner with the counts of the tasks run.
+     */
+    public static void getMetricsDescription(StringBuilder sb) {
+        for (Map.Entry<String, Metrics> entry : new TreeMap<String, Metrics>(metrics).entrySet()) {
+            Metrics ownerMetrics = entry.getValue();
+            sb.append(entry.getKey());
+            sb.append(": invocations = ").append(ownerMetrics.getInvocations());
+            sb.append(", tasks = ").append(ownerMetrics.getTasks());
+            sb.append(", inline tasks = ").append(ownerMetrics.getInlineTasks());
+            sb.append(", task seconds = ").append(StringUtils.doubleToString(
+                    ownerMetrics.getTaskNanos() / 1e9, 3));
+            sb.append(", wait seconds = ").append(StringUtils.doubleToString(
+                    ownerMetrics.getWaitNanos() / 1e9, 3));
+            sb.append(StringUtils.newline);
+        }
+    }
+
+    /**
+     * Shuts the pool down, waiting for the tasks running to finish. Tasks
+     * submitted afterwards run on a new pool.
+     */
+    public static void shutdown() {
+        ExecutorService executor;
+        synchronized (ComputeExecutor.class) {
+            executor = pool;
+            pool = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *    GaussianDensities.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.util.Arrays;
+
+/**
+ * Normal densities of the values of an attribute for each class, computed
+ * once from the estimators of the classes to score many values.
+ *
+ * The densities equal those of GaussianEstimator.probabilityDensity.
+ */
+public class GaussianDensities {
+
+    // mean, standard deviation, factor and divisor of the exponent of the
+    // density of each class, one class after the other
+    protected final double[] parameters;
+
+    public GaussianDensities(int numClasses) {
+        // no value equals a NaN mean, so that the density of the classes
+        // without observations is 0
+        this.parameters = new double[4 * numClasses];
+        Arrays.fill(this.parameters, Double.NaN);
+    }
+
+    /**
+     * Sets the density of a class, left at 0 if no weight was observed.
+     */
+    public void setClass(int classVal, double weightObserved, double mean, double stdDev) {
+        if (weightObserved > 0.0) {
+            int offset = 4 * classVal;
+            this.parameters[offset] = mean;
+            this.parameters[offset + 1] = stdDev;
+            this.parameters[offset + 2] = 1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev);
+            this.parameters[offset + 3] = 2.0 * stdDev * stdDev;
+        }
+    }
+
+    /**
+     * Multiplies the vote of each class by the density of the value, and the
+     * votes of the classes beyond those known by 0.
+     */
+    public void multiplyByDensities(double value, double[] votes) {
+        int numClasses = Math.min(votes.length, this.parameters.length / 4);
+        for (int classVal = 0; classVal < numClasses; classVal++) {
+            int offset = 4 * classVal;
+            double mean = this.parameters[offset];
+            double density;
+            if (this.parameters[offset + 1] > 0.0) {
+                double diff = value - mean;
+                density = this.parameters[offset + 2]
+                        * Math.exp(-(diff * diff / this.parameters[offset + 3]));
+            } else {
+                density = value == mean ? 1.0 : 0.0;
+            }
+            votes[classVal] *= density;
+        }
+        for (int classVal = numClasses; classVal < votes.length; classVal++) {
+            votes[classVal] *= 0.0;
+        }
+    }
+}
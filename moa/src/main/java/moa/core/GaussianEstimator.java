@@ -40,6 +40,15 @@ public class GaussianEstimator extends AbstractMOAObject {
 
     public static final double NORMAL_CONSTANT = Math.sqrt(2 * Math.PI);
 
+    public GaussianEstimator() {
+    }
+
+    public GaussianEstimator(GaussianEstimator toCopy) {
+        this.weightSum = toCopy.weightSum;
+        this.mean = toCopy.mean;
+        this.varianceSum = toCopy.varianceSum;
+    }
+
     public void addObservation(double value, double weight) {
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             return;
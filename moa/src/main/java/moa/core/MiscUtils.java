@@ -23,6 +23,7 @@ package moa.core;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 
 /**
@@ -67,6 +68,34 @@ public class MiscUtils {
         return (int) Math.floor(x);
     }
 
+    /**
+     * Returns the random generator of a block of a stream, so that the blocks
+     * of the stream can be generated independently, in any order, from the
+     * same seed. Each block gets its own split random generator.
+     *
+     * @param seed the seed of the stream
+     * @param blockIndex the index of the block in the stream
+     * @return the random generator of the block
+     */
+    public static SplittableRandom blockRandom(long seed, long blockIndex) {
+        return new SplittableRandom(new SplittableRandom(seed).nextLong()
+                + blockIndex * 0x9E3779B97F4A7C15L).split();
+    }
+
+    /**
+     * Returns a normally distributed value of mean 0 and standard deviation
+     * 1, as Random.nextGaussian does, using the polar method.
+     */
+    public static double nextGaussian(SplittableRandom r) {
+        double v1, v2, s;
+        do {
+            v1 = 2 * r.nextDouble() - 1;
+            v2 = 2 * r.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+    }
+
     public static String getStackTraceString(Exception ex) {
         StringWriter stackTraceWriter = new StringWriter();
         ex.printStackTrace(new PrintWriter(stackTraceWriter));
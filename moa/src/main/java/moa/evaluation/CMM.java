@@ -126,7 +126,7 @@ public class CMM extends MeasureCollection{
         numPoints = points.size();
         numFClusters = clustering.size();
 
-        gtAnalysis = new CMM_GTAnalysis(trueClustering, points, enableClassMerge);
+        gtAnalysis = new CMM_GTAnalysis(trueClustering, points, enableClassMerge, isParallel());
 
         numGT0Classes = gtAnalysis.getNumberOfGT0Classes();
 
@@ -160,12 +160,17 @@ public class CMM extends MeasureCollection{
 
         //calculate fuzzy mapping from
         pointInclusionProbFC = new double[numPoints][numFClusters];
-        for (int p = 0; p < numPoints; p++) {
+        forEachIndex(numPoints, p -> {
             CMMPoint cmdp = gtAnalysis.getPoint(p);
-            //found cluster frequencies
             for (int fc = 0; fc < numFClusters; fc++) {
                 Cluster cl = clustering.get(fc);
                 pointInclusionProbFC[p][fc] = cl.getInclusionProbability(cmdp);
+            }
+        });
+        for (int p = 0; p < numPoints; p++) {
+            CMMPoint cmdp = gtAnalysis.getPoint(p);
+            //found cluster frequencies
+            for (int fc = 0; fc < numFClusters; fc++) {
                 if (pointInclusionProbFC[p][fc] >= pointInclusionProbThreshold) {
                     //make sure we don't count points twice that are contained in two merged clusters
                     if(cmdp.isNoise()) continue;
@@ -298,23 +303,10 @@ public class CMM extends MeasureCollection{
         /** mainly iterate over all points and find the right error value for the point.
          *  within the same run calculate various other stuff like coverage etc...
          */
-        for (int p = 0; p < numPoints; p++) {
+        final double[] errors = new double[numPoints];
+        final int[] coverages = new int[numPoints];
+        forEachIndex(numPoints, p -> {
             CMMPoint cmdp = gtAnalysis.getPoint(p);
-            double weight = cmdp.weight();
-            //noise counter
-            if(cmdp.isNoise()){
-                numNoise++;
-                //this is always 1
-                errorNoiseMax+=cmdp.connectivity*weight;
-            }
-            else{
-                errorMissedMax+=cmdp.connectivity*weight;
-                errorMisplacedMax+=cmdp.connectivity*weight;
-            }
-            //sum up maxError as the individual errors are the quality weighted between 0-1
-            totalErrorMax+=cmdp.connectivity*weight;
-
-
             double err = 0;
             int coverage = 0;
 
@@ -343,10 +335,38 @@ public class CMM extends MeasureCollection{
                 }
             }
             //not in any cluster
+            if(coverage == 0 && !cmdp.isNoise()){
+                //MISSED
+                err = missedError(cmdp,true);
+            }
+            errors[p] = err;
+            coverages[p] = coverage;
+
+            cmdp.p.setMeasureValue("CMM",err);
+            cmdp.p.setMeasureValue("Redundancy", coverage);
+        });
+
+        for (int p = 0; p < numPoints; p++) {
+            CMMPoint cmdp = gtAnalysis.getPoint(p);
+            double weight = cmdp.weight();
+            //noise counter
+            if(cmdp.isNoise()){
+                numNoise++;
+                //this is always 1
+                errorNoiseMax+=cmdp.connectivity*weight;
+            }
+            else{
+                errorMissedMax+=cmdp.connectivity*weight;
+                errorMisplacedMax+=cmdp.connectivity*weight;
+            }
+            //sum up maxError as the individual errors are the quality weighted between 0-1
+            totalErrorMax+=cmdp.connectivity*weight;
+
+            double err = errors[p];
+            int coverage = coverages[p];
             if(coverage == 0){
                 //MISSED
                 if(!cmdp.isNoise()){
-                    err = missedError(cmdp,true);
                     errorMissed+= weight*err;
                 }
                 //NOISE
@@ -368,9 +388,6 @@ public class CMM extends MeasureCollection{
             if(coverage>0) totalCoverage++;  //points covered by clustering (incl. noise)
             if(coverage>0 && !cmdp.isNoise()) trueCoverage++; //points covered by clustering, don't count noise
             if(coverage>1) totalRedundancy++; //include noise
-
-            cmdp.p.setMeasureValue("CMM",err);
-            cmdp.p.setMeasureValue("Redundancy", coverage);
         }
 
         addValue("CMM", (totalErrorMax!=0)?1-totalError/totalErrorMax:1);
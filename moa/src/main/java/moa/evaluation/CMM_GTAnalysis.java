@@ -119,6 +119,11 @@ public class CMM_GTAnalysis{
      */
     private boolean debug = false;
 
+    /**
+     * compute the knn distances of the points in parallel
+     */
+    private boolean parallel = false;
+
     
     /******* CMM parameter ***********/
 
@@ -194,12 +199,18 @@ public class CMM_GTAnalysis{
          */
         protected ArrayList<Integer> knnIndices;
 
+        /**
+         * values of the point, copied once for the distance computations
+         */
+        protected final double[] values;
+
         public CMMPoint(DataPoint point, int id) {
             //make a copy, but keep reference
             super(point,point.getTimestamp());
             p = point;
             pID = id;
             trueClass = (int)point.classValue();
+            values = toDoubleArray();
         }
 
         
@@ -294,8 +305,8 @@ public class CMM_GTAnalysis{
          * + average knn distance and average knn distance deviation of all points 
          */
         private void calculateKnn(){
-            for (int p0 : points) {
-                CMMPoint cmdp = cmmpoints.get(p0);
+            MeasureCollection.forEachIndex(parallel, points.size(), i -> {
+                CMMPoint cmdp = cmmpoints.get(points.get(i));
                 if(!cmdp.isNoise()){
                     AutoExpandVector<Double> knnDist = new AutoExpandVector<Double>();
                     AutoExpandVector<Integer> knnPointIndex = new AutoExpandVector<Integer>();
@@ -305,17 +316,21 @@ public class CMM_GTAnalysis{
 
                     //TODO: What to do if we have less then k neighbours?
                     double avgKnn = 0;
-                    for (int i = 0; i < knnDist.size(); i++) {
-                        avgKnn+= knnDist.get(i);
+                    for (int k = 0; k < knnDist.size(); k++) {
+                        avgKnn+= knnDist.get(k);
                     }
                     if(knnDist.size()!=0)
                         avgKnn/=knnDist.size();
                     cmdp.knnInCluster = avgKnn;
                     cmdp.knnIndices = knnPointIndex;
                     cmdp.p.setMeasureValue("knnAvg", cmdp.knnInCluster);
-
-                    knnMeanAvg+=avgKnn;
-                    knnDevAvg+=Math.pow(avgKnn,2);
+                }
+            });
+            for (int p0 : points) {
+                CMMPoint cmdp = cmmpoints.get(p0);
+                if(!cmdp.isNoise()){
+                    knnMeanAvg+=cmdp.knnInCluster;
+                    knnDevAvg+=Math.pow(cmdp.knnInCluster,2);
                 }
             }
             knnMeanAvg=knnMeanAvg/(double)points.size();
@@ -457,6 +472,17 @@ public class CMM_GTAnalysis{
      * @param enableClassMerge allow class merging (should be set to true on default)
      */
     public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge){
+        this(trueClustering, points, enableClassMerge, false);
+    }
+
+    /**
+     * @param trueClustering the ground truth clustering
+     * @param points data points
+     * @param enableClassMerge allow class merging (should be set to true on default)
+     * @param parallel compute the knn distances of the points in parallel
+     */
+    public CMM_GTAnalysis(Clustering trueClustering, ArrayList<DataPoint> points, boolean enableClassMerge, boolean parallel){
+        this.parallel = parallel;
         if(debug)
             System.out.println("GT Analysis Debug Output");
 
@@ -598,23 +624,32 @@ public class CMM_GTAnalysis{
                                  AutoExpandVector<Integer> knnPointIndex) {
 
         //iterate over every point in the choosen cluster, cal distance and insert into list
+        //the k nearest are kept in arrays, the vectors reallocate on every insertion
+        double[] dists = new double[k + 1];
+        int[] indices = new int[k + 1];
+        int size = 0;
         for (int p1 = 0; p1 < pointIDs.size(); p1++) {
             int pid = pointIDs.get(p1);
             if(cmmp.pID == pid) continue;
-            double dist = distance(cmmp,cmmpoints.get(pid));
-            if(knnDist.size() < k || dist < knnDist.get(knnDist.size()-1)){
+            double dist = distance(cmmp,cmmpoints.get(pid).values);
+            if(size < k || dist < dists[size-1]){
                 int index = 0;
-                while(index < knnDist.size() && dist > knnDist.get(index)) {
+                while(index < size && dist > dists[index]) {
                     index++;
                 }
-                knnDist.add(index, dist);
-                knnPointIndex.add(index,pid);
-                if(knnDist.size() > k){
-                    knnDist.remove(knnDist.size()-1);
-                    knnPointIndex.remove(knnPointIndex.size()-1);
+                System.arraycopy(dists, index, dists, index + 1, size - index);
+                System.arraycopy(indices, index, indices, index + 1, size - index);
+                dists[index] = dist;
+                indices[index] = pid;
+                if(size < k){
+                    size++;
                 }
             }
         }
+        for (int i = 0; i < size; i++) {
+            knnDist.add(dists[i]);
+            knnPointIndex.add(indices[i]);
+        }
     }
 
 
@@ -623,13 +658,13 @@ public class CMM_GTAnalysis{
      * calculate initial connectivities
      */
     private void calculateGTPointQualities(){
-        for (int p = 0; p < numPoints; p++) {
+        MeasureCollection.forEachIndex(parallel, numPoints, p -> {
             CMMPoint cmdp = cmmpoints.get(p);
             if(!cmdp.isNoise()){
                 cmdp.connectivity = getConnectionValue(cmdp, cmdp.workclass());
                 cmdp.p.setMeasureValue("Connectivity", cmdp.connectivity);
             }
-        }
+        });
     }
 
     
@@ -790,17 +825,6 @@ public class CMM_GTAnalysis{
         return numGT0Classes;
     }
     
-    /**
-     * Calculates Euclidian distance 
-     * @param inst1 point as double array
-     * @param inst2 point as double array
-     * @return euclidian distance
-     */
-    private double distance(Instance inst1, Instance inst2){
-          return distance(inst1, inst2.toDoubleArray());
-
-    }
-    
     /**
      * Calculates Euclidian distance 
      * @param inst1 point as an instance
@@ -22,8 +22,10 @@ package moa.evaluation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.function.IntConsumer;
 import moa.AbstractMOAObject;
 import moa.cluster.Clustering;
+import moa.core.ComputeExecutor;
 import moa.gui.visualization.DataPoint;
 
 public abstract class MeasureCollection extends AbstractMOAObject{
@@ -40,6 +42,7 @@ public abstract class MeasureCollection extends AbstractMOAObject{
     private double time;
     private boolean debug = true;
     private MembershipMatrix mm = null;
+    private boolean parallel = false;
 
     private HashMap<String, Integer> map;
 
@@ -210,6 +213,37 @@ public abstract class MeasureCollection extends AbstractMOAObject{
          return enabled[index];
      }
 
+     /**
+      * Sets whether the measures are computed in parallel, on the compute executor.
+      * The values are the same either way.
+      */
+     public void setParallel(boolean parallel){
+         this.parallel = parallel;
+     }
+
+     public boolean isParallel(){
+         return parallel;
+     }
+
+     /**
+      * Runs task for every index below n, in parallel if the measures are
+      * computed in parallel. Tasks must only write to their own index.
+      */
+     protected void forEachIndex(int n, IntConsumer task){
+         forEachIndex(parallel, n, task);
+     }
+
+     protected static void forEachIndex(boolean parallel, int n, IntConsumer task){
+         if(parallel){
+             ComputeExecutor.forEachIndex("MeasureCollection", n, -1, task);
+         }
+         else{
+             for (int i = 0; i < n; i++) {
+                 task.accept(i);
+             }
+         }
+     }
+
      public double getMeanRunningTime(){
          if(values[0].size()!=0)
             return (time/10e5/values[0].size());
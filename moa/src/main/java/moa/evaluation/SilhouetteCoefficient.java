@@ -21,7 +21,9 @@
 package moa.evaluation; 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Random;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.gui.visualization.DataPoint;
@@ -29,6 +31,12 @@ import moa.gui.visualization.DataPoint;
 public class SilhouetteCoefficient extends MeasureCollection{
     private double pointInclusionProbThreshold = 0.8;
 
+    // number of points whose coefficient is averaged (0 for all of them)
+    private int sampleSize = 0;
+    private long randomSeed = 1;
+    private double errorBoundConfidence = 0.95;
+    private double errorBound = 0.0;
+
     public SilhouetteCoefficient() {
         super();
     }
@@ -45,82 +53,135 @@ public class SilhouetteCoefficient extends MeasureCollection{
         return names;
     }
 
+    /**
+     * Sets the number of points whose coefficient is averaged, drawn at random
+     * among the points in some cluster, to approximate the coefficient in
+     * linear rather than quadratic time (0 to average all of them).
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Returns the maximum error of the last (normalized) coefficient due to
+     * sampling, with 95% confidence, or 0 if it was not sampled.
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
     public void evaluateClustering(Clustering clustering, Clustering trueClustering, ArrayList<DataPoint> points) {
-        int numFCluster = clustering.size();
+        final int numFCluster = clustering.size();
+        final int numPoints = points.size();
 
-        double [][] pointInclusionProbFC = new double[points.size()][numFCluster];
-        for (int p = 0; p < points.size(); p++) {
+        final double[][] coordinates = new double[numPoints][];
+        final int[][] clustersByPoint = new int[numPoints][];
+        forEachIndex(numPoints, p -> {
             DataPoint point = points.get(p);
+            coordinates[p] = new double[point.numAttributes()];
+            for (int i = 0; i < coordinates[p].length; i++) {
+                coordinates[p][i] = point.value(i);
+            }
+            int[] clusters = new int[numFCluster];
+            int numClusters = 0;
             for (int fc = 0; fc < numFCluster; fc++) {
                 Cluster cl = clustering.get(fc);
-                pointInclusionProbFC[p][fc] = cl.getInclusionProbability(point);
+                if(cl.getInclusionProbability(point) > pointInclusionProbThreshold){
+                    clusters[numClusters++] = fc;
+                }
+            }
+            clustersByPoint[p] = Arrays.copyOf(clusters, numClusters);
+        });
+
+        //the points with an own cluster, or a sample of them
+        int numOwnPoints = 0;
+        int[] ownPoints = new int[numPoints];
+        for (int p = 0; p < numPoints; p++) {
+            if(clustersByPoint[p].length > 0){
+                ownPoints[numOwnPoints++] = p;
             }
         }
+        if(sampleSize > 0 && sampleSize < numOwnPoints){
+            Random random = new Random(randomSeed);
+            for (int i = 0; i < sampleSize; i++) {
+                int j = i + random.nextInt(numOwnPoints - i);
+                int swap = ownPoints[i];
+                ownPoints[i] = ownPoints[j];
+                ownPoints[j] = swap;
+            }
+            Arrays.sort(ownPoints, 0, sampleSize);
+            numOwnPoints = sampleSize;
+            //Hoeffding bound of the normalized coefficient, whose values range over [0,1]
+            errorBound = Math.sqrt(Math.log(2.0 / (1.0 - errorBoundConfidence)) / (2.0 * sampleSize));
+        }
+        else{
+            errorBound = 0.0;
+        }
 
-        double silhCoeff = 0.0;
-        int totalCount = 0;
-        for (int p = 0; p < points.size(); p++) {
+        final int[] evaluatedPoints = Arrays.copyOf(ownPoints, numOwnPoints);
+        final double[] silhouettes = new double[evaluatedPoints.length];
+        forEachIndex(evaluatedPoints.length, e -> {
+            int p = evaluatedPoints[e];
             DataPoint point = points.get(p);
-            ArrayList<Integer> ownClusters = new ArrayList<Integer>();
-            for (int fc = 0; fc < numFCluster; fc++) {
-                if(pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                    ownClusters.add(fc);
+            int[] ownClusters = clustersByPoint[p];
+
+            double[] distanceByClusters = new double[numFCluster];
+            int[] countsByClusters = new int[numFCluster];
+                //calculate averageDistance of p to all cluster
+            for (int p1 = 0; p1 < numPoints; p1++) {
+                if(p1!= p && clustersByPoint[p1].length > 0){
+                    // Matthias Carnein 2019/04/03
+                    // Removed second part of if-condition: && point1.classValue() != -1 
+                    // Accessing the classValue will go outOfBounds when no class label exists
+                    // What is the purpose of this check anyway? Class label is not used for Silhouette calculation
+                    double distance = distance(coordinates[p], coordinates[p1]);
+                    for (int fc : clustersByPoint[p1]) {
+                        distanceByClusters[fc]+=distance;
+                        countsByClusters[fc]++;
+                    }
                 }
             }
 
-            if(ownClusters.size() > 0){
-                double[] distanceByClusters = new double[numFCluster];
-                int[] countsByClusters = new int[numFCluster];
-                    //calculate averageDistance of p to all cluster
-                for (int p1 = 0; p1 < points.size(); p1++) {
-                    DataPoint point1 = points.get(p1);
-                    if(p1!= p){ 
-                        // Matthias Carnein 2019/04/03
-                        // Removed second part of if-condition: && point1.classValue() != -1 
-                        // Accessing the classValue will go outOfBounds when no class label exists
-                        // What is the purpose of this check anyway? Class label is not used for Silhouette calculation
-                        for (int fc = 0; fc < numFCluster; fc++) {
-                            if(pointInclusionProbFC[p1][fc] > pointInclusionProbThreshold){
-                                double distance = distance(point, point1);
-                                distanceByClusters[fc]+=distance;
-                                countsByClusters[fc]++;
-                            }
-                        }
+            //find closest OWN cluster as clusters might overlap
+            double minAvgDistanceOwn = Double.MAX_VALUE;
+            int minOwnIndex = -1;
+            for (int fc : ownClusters) {
+                    double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
+                    if(normDist < minAvgDistanceOwn){// && pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
+                        minAvgDistanceOwn = normDist;
+                        minOwnIndex = fc;
                     }
-                }
-
-                //find closest OWN cluster as clusters might overlap
-                double minAvgDistanceOwn = Double.MAX_VALUE;
-                int minOwnIndex = -1;
-                for (int fc : ownClusters) {
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOwn){// && pointInclusionProbFC[p][fc] > pointInclusionProbThreshold){
-                            minAvgDistanceOwn = normDist;
-                            minOwnIndex = fc;
-                        }
-                }
+            }
 
 
-                //find closest other (or other own) cluster
-                double minAvgDistanceOther = Double.MAX_VALUE;
-                for (int fc = 0; fc < numFCluster; fc++) {
-                    if(fc != minOwnIndex){
-                        double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
-                        if(normDist < minAvgDistanceOther){
-                            minAvgDistanceOther = normDist;
-                        }
+            //find closest other (or other own) cluster
+            double minAvgDistanceOther = Double.MAX_VALUE;
+            for (int fc = 0; fc < numFCluster; fc++) {
+                if(fc != minOwnIndex){
+                    double normDist = distanceByClusters[fc]/(double)countsByClusters[fc];
+                    if(normDist < minAvgDistanceOther){
+                        minAvgDistanceOther = normDist;
                     }
                 }
+            }
 
-                double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
-                point.setMeasureValue("SC - own", minAvgDistanceOwn);
-                point.setMeasureValue("SC - other", minAvgDistanceOther);
-                point.setMeasureValue("SC", silhP);
+            double silhP = (minAvgDistanceOther-minAvgDistanceOwn)/Math.max(minAvgDistanceOther, minAvgDistanceOwn);
+            point.setMeasureValue("SC - own", minAvgDistanceOwn);
+            point.setMeasureValue("SC - other", minAvgDistanceOther);
+            point.setMeasureValue("SC", silhP);
+            silhouettes[e] = silhP;
+            //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
+        });
 
-                silhCoeff+=silhP;
-                totalCount++;
-                //System.out.println(point.getTimestamp()+" Silh "+silhP+" / "+avgDistanceOwn+" "+minAvgDistanceOther+" (C"+minIndex+")");
-            }
+        double silhCoeff = 0.0;
+        int totalCount = 0;
+        for (int e = 0; e < silhouettes.length; e++) {
+            silhCoeff+=silhouettes[e];
+            totalCount++;
         }
         if(totalCount>0)
             silhCoeff/=(double)totalCount;
@@ -129,11 +190,11 @@ public class SilhouetteCoefficient extends MeasureCollection{
         addValue(0,silhCoeff);
     }
 
-    private double distance(DataPoint inst1, DataPoint inst2){
+    private double distance(double[] inst1, double[] inst2){
         double distance = 0.0;
-        int numDims = inst1.numAttributes();
+        int numDims = inst1.length;
         for (int i = 0; i < numDims; i++) {
-            double d = inst1.value(i) - inst2.value(i);
+            double d = inst1[i] - inst2[i];
             distance += d * d;
         }
         return Math.sqrt(distance);
@@ -15,11 +15,21 @@
  *
  *    You should have received a copy of the GNU General Public License
  *    along with this program. If not, see <http://www.gnu.org/licenses/>.
- *    
+ *
  */
 package moa.evaluation.preview;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import moa.core.DoubleVector;
@@ -30,6 +40,12 @@ import moa.evaluation.LearningEvaluation;
 /**
  * Class that stores and keeps the history of evaluation measurements.
  *
+ * The entries are stored by measurement, in primitive arrays. Optionally, the
+ * curve spills its entries to a file as it grows, keeping only the latest
+ * ones in memory, so that its memory does not grow with the length of the
+ * run. The spilled entries are read back through a memory-mapped window of
+ * the file, and copies of the curve share the file instead of copying them.
+ *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
@@ -37,16 +53,27 @@ public class LearningCurve extends Preview {
 
     private static final long serialVersionUID = 1L;
 
+    // when spilling, entries are kept in memory until there are twice as many
+    protected static final int MIN_ENTRIES_IN_MEMORY = 1024;
+
     protected List<String> measurementNames = new ArrayList<String>();
 
-    protected List<double[]> measurementValues = new ArrayList<double[]>();
+    // values of the entries held in memory (which follow the spilled ones)
+    // by measurement, and number of measurements of each entry
+    protected double[][] columns = new double[0][];
+
+    protected int[] entryMeasurementCounts = new int[16];
+
+    protected int numEntriesInMemory;
+
+    protected SpillFile spillFile;
 
     Class<?> taskClass = null;
-    
+
     public LearningCurve(String orderingMeasurementName) {
         this.measurementNames.add(orderingMeasurementName);
     }
-    
+
     public LearningCurve(String orderingMeasurementName, Class<?> taskClass) {
         this.measurementNames.add(orderingMeasurementName);
         this.taskClass = taskClass;
@@ -55,16 +82,51 @@ public class LearningCurve extends Preview {
     public String getOrderingMeasurementName() {
         return this.measurementNames.get(0);
     }
-    
+
     public void setData(
-    		List<String> measurementNames, 
-    		List<double[]> measurementValues) 
+    		List<String> measurementNames,
+    		List<double[]> measurementValues)
     {
     	this.measurementNames.clear();
-    	this.measurementValues.clear();
-    	
+    	this.numEntriesInMemory = 0;
+    	if (this.spillFile != null) {
+    		this.spillFile.clear();
+    	}
+
     	this.measurementNames.addAll(measurementNames);
-    	this.measurementValues.addAll(measurementValues);
+    	for (double[] vals : measurementValues) {
+    		insertInMemory(this.numEntriesInMemory, vals);
+    	}
+    }
+
+    /**
+     * Spills the entries of the curve to a file as it grows, keeping only
+     * the latest ones in memory. Spilled entries are no longer reordered: an
+     * entry inserted out of order goes after them.
+     *
+     * @param file the file to write, overwritten if it exists
+     * @throws IOException if the file cannot be opened
+     */
+    public void spillTo(File file) throws IOException {
+        if (this.spillFile != null) {
+            throw new IllegalStateException("Learning curve already spilled to " + this.spillFile.file);
+        }
+        this.spillFile = new SpillFile(file);
+    }
+
+    /**
+     * Stops spilling entries, writing those spilled so far to the file and
+     * closing it. The curve can still be read, and keeps the entries inserted
+     * afterwards in memory.
+     */
+    public void closeSpillFile() {
+        if (this.spillFile != null) {
+            try {
+                this.spillFile.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to write learning curve file: " + this.spillFile.file, e);
+            }
+        }
     }
 
     public void insertEntry(LearningEvaluation learningEvaluation) {
@@ -80,16 +142,81 @@ public class LearningCurve extends Preview {
                     measurement.getValue());
         }
         double orderVal = orderMeasurement.getValue();
-        int index = 0;
-        while ((index < this.measurementValues.size())
-                && (orderVal > this.measurementValues.get(index)[0])) {
-            index++;
+        // entries mostly come in order, so search from the end
+        int pos = this.numEntriesInMemory;
+        while ((pos > 0) && !(orderVal > this.columns[0][pos - 1])) {
+            pos--;
+        }
+        insertInMemory(pos, entryVals.getArrayRef());
+        if ((this.spillFile != null) && this.spillFile.isWritable()
+                && (this.numEntriesInMemory >= 2 * MIN_ENTRIES_IN_MEMORY)) {
+            spillEntries(this.numEntriesInMemory - MIN_ENTRIES_IN_MEMORY);
         }
-        this.measurementValues.add(index, entryVals.getArrayRef());
+    }
+
+    protected void insertInMemory(int pos, double[] vals) {
+        if (this.numEntriesInMemory == this.entryMeasurementCounts.length) {
+            int capacity = 2 * this.entryMeasurementCounts.length;
+            this.entryMeasurementCounts = Arrays.copyOf(this.entryMeasurementCounts, capacity);
+            for (int m = 0; m < this.columns.length; m++) {
+                this.columns[m] = Arrays.copyOf(this.columns[m], capacity);
+            }
+        }
+        if (vals.length > this.columns.length) {
+            int numColumns = this.columns.length;
+            this.columns = Arrays.copyOf(this.columns, vals.length);
+            for (int m = numColumns; m < vals.length; m++) {
+                this.columns[m] = new double[this.entryMeasurementCounts.length];
+            }
+        }
+        int numMoved = this.numEntriesInMemory - pos;
+        System.arraycopy(this.entryMeasurementCounts, pos, this.entryMeasurementCounts, pos + 1, numMoved);
+        this.entryMeasurementCounts[pos] = vals.length;
+        for (int m = 0; m < vals.length; m++) {
+            System.arraycopy(this.columns[m], pos, this.columns[m], pos + 1, numMoved);
+            this.columns[m][pos] = vals[m];
+        }
+        for (int m = vals.length; m < this.columns.length; m++) {
+            System.arraycopy(this.columns[m], pos, this.columns[m], pos + 1, numMoved);
+        }
+        this.numEntriesInMemory++;
+    }
+
+    /**
+     * Moves the oldest entries held in memory to the spill file.
+     */
+    protected void spillEntries(int count) {
+        try {
+            for (int pos = 0; pos < count; pos++) {
+                this.spillFile.append(this.columns, pos, this.entryMeasurementCounts[pos]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write learning curve file: " + this.spillFile.file, e);
+        }
+        this.numEntriesInMemory -= count;
+        System.arraycopy(this.entryMeasurementCounts, count, this.entryMeasurementCounts, 0, this.numEntriesInMemory);
+        for (int m = 0; m < this.columns.length; m++) {
+            System.arraycopy(this.columns[m], count, this.columns[m], 0, this.numEntriesInMemory);
+        }
+    }
+
+    protected int numSpilledEntries() {
+        return this.spillFile == null ? 0 : this.spillFile.numEntries;
+    }
+
+    /**
+     * Returns the position in memory of an entry, or -1 if it is spilled.
+     */
+    protected int inMemoryPosition(int entryIndex) {
+        int pos = entryIndex - numSpilledEntries();
+        if ((entryIndex < 0) || (pos >= this.numEntriesInMemory)) {
+            throw new IndexOutOfBoundsException("Entry: " + entryIndex + ", entries: " + numEntries());
+        }
+        return pos < 0 ? -1 : pos;
     }
 
     public int numEntries() {
-        return this.measurementValues.size();
+        return numSpilledEntries() + this.numEntriesInMemory;
     }
 
     protected int addMeasurementName(String name) {
@@ -117,20 +244,32 @@ public class LearningCurve extends Preview {
 
     public String entryToString(int entryIndex) {
         StringBuilder sb = new StringBuilder();
-        double[] vals = this.measurementValues.get(entryIndex);
+        int numEntryMeasurements = getEntryMeasurementCount(entryIndex);
         for (int i = 0; i < this.measurementNames.size(); i++) {
             if (i > 0) {
                 sb.append(',');
             }
-            if ((i >= vals.length) || Double.isNaN(vals[i])) {
+            double val = i < numEntryMeasurements ? getMeasurement(entryIndex, i) : Double.NaN;
+            if (Double.isNaN(val)) {
                 sb.append('?');
             } else {
-                sb.append(Double.toString(vals[i]));
+                sb.append(Double.toString(val));
             }
         }
         return sb.toString();
     }
 
+    /**
+     * Writes the curve as csv, the header then one line per entry, without
+     * building its whole description in memory.
+     */
+    public void writeCSV(PrintStream out) {
+        out.println(headerToString());
+        for (int i = 0; i < numEntries(); i++) {
+            out.println(entryToString(i));
+        }
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         sb.append(headerToString());
@@ -140,7 +279,14 @@ public class LearningCurve extends Preview {
     }
 
     public double getMeasurement(int entryIndex, int measurementIndex) {
-        return this.measurementValues.get(entryIndex)[measurementIndex];
+        int pos = inMemoryPosition(entryIndex);
+        if (pos < 0) {
+            return this.spillFile.getMeasurement(entryIndex, measurementIndex);
+        }
+        if (measurementIndex >= this.entryMeasurementCounts[pos]) {
+            throw new ArrayIndexOutOfBoundsException(measurementIndex);
+        }
+        return this.columns[measurementIndex][pos];
     }
 
     public String getMeasurementName(int measurementIndex) {
@@ -152,7 +298,8 @@ public class LearningCurve extends Preview {
     }
 
     public int getEntryMeasurementCount(int entryIdx) {
-        return this.measurementValues.get(entryIdx).length;
+        int pos = inMemoryPosition(entryIdx);
+        return pos < 0 ? this.spillFile.getMeasurementCount(entryIdx) : this.entryMeasurementCounts[pos];
     }
 
 	@Override
@@ -173,7 +320,7 @@ public class LearningCurve extends Preview {
 		{
 			if(measurementIdx < numEntryMeasurements)
 			{
-				data[measurementIdx] = getMeasurement(entryIndex, measurementIdx);	
+				data[measurementIdx] = getMeasurement(entryIndex, measurementIdx);
 			}
 			else
 			{
@@ -182,4 +329,157 @@ public class LearningCurve extends Preview {
 		}
 		return data;
 	}
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // copies read the spilled entries from the file
+        if (this.spillFile != null) {
+            this.spillFile.flush();
+        }
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Append-only file of spilled entries. An entry is stored as a record of
+     * doubles: its number of measurements followed by their values. Records
+     * have a fixed width within a segment of the file, and a new segment
+     * starts when an entry has more measurements than fit in the current one,
+     * so there are at most as many segments as measurements.
+     *
+     * Only the object that opened the file writes to it: a deserialized copy
+     * reads the entries spilled when it was copied.
+     */
+    protected static class SpillFile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+        protected static final int MAPPED_WINDOW_SIZE = 1 << 24;
+
+        protected final File file;
+
+        // first entry, record width (in bytes) and position of each segment
+        protected final List<long[]> segments = new ArrayList<long[]>();
+
+        protected int numEntries;
+
+        protected long length;
+
+        protected transient FileChannel channel;
+
+        protected transient ByteBuffer writeBuffer;
+
+        protected transient MappedByteBuffer window;
+
+        protected transient long windowPosition;
+
+        public SpillFile(File file) throws IOException {
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.channel.truncate(0);
+            this.writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        }
+
+        public boolean isWritable() {
+            return this.channel != null;
+        }
+
+        public void append(double[][] columns, int pos, int count) throws IOException {
+            long[] segment = this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+            if ((segment == null) || (8L * (count + 1) > segment[1])) {
+                segment = new long[]{this.numEntries, 8L * (count + 1), this.length};
+                this.segments.add(segment);
+            }
+            int width = (int) segment[1];
+            if (this.writeBuffer.remaining() < width) {
+                flush();
+                if (this.writeBuffer.capacity() < width) {
+                    this.writeBuffer = ByteBuffer.allocate(width);
+                }
+            }
+            this.writeBuffer.putDouble(count);
+            for (int m = 0; m < count; m++) {
+                this.writeBuffer.putDouble(columns[m][pos]);
+            }
+            for (int i = count + 1; i < width / 8; i++) {
+                this.writeBuffer.putDouble(Double.NaN);
+            }
+            this.numEntries++;
+            this.length += width;
+        }
+
+        public void flush() throws IOException {
+            if ((this.channel != null) && (this.writeBuffer.position() > 0)) {
+                this.writeBuffer.flip();
+                while (this.writeBuffer.hasRemaining()) {
+                    this.channel.write(this.writeBuffer);
+                }
+                this.writeBuffer.clear();
+            }
+        }
+
+        public void close() throws IOException {
+            if (this.channel != null) {
+                flush();
+                this.channel.close();
+                this.channel = null;
+                this.writeBuffer = null;
+            }
+        }
+
+        public void clear() {
+            try {
+                if (this.channel != null) {
+                    this.writeBuffer.clear();
+                    this.channel.truncate(0);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to write learning curve file: " + this.file, e);
+            }
+            this.segments.clear();
+            this.numEntries = 0;
+            this.length = 0;
+            this.window = null;
+        }
+
+        public double getMeasurement(int entry, int measurementIndex) {
+            int pos = map(entry);
+            if ((measurementIndex < 0) || (measurementIndex >= (int) this.window.getDouble(pos))) {
+                throw new ArrayIndexOutOfBoundsException(measurementIndex);
+            }
+            return this.window.getDouble(pos + 8 * (measurementIndex + 1));
+        }
+
+        public int getMeasurementCount(int entry) {
+            int pos = map(entry);
+            return (int) this.window.getDouble(pos);
+        }
+
+        /**
+         * Maps the window of the file holding the record of an entry and
+         * returns the position of the record in the window.
+         */
+        protected int map(int entry) {
+            int s = this.segments.size() - 1;
+            while (this.segments.get(s)[0] > entry) {
+                s--;
+            }
+            long[] segment = this.segments.get(s);
+            long position = segment[2] + (entry - segment[0]) * segment[1];
+            if ((this.window == null) || (position < this.windowPosition)
+                    || (position + segment[1] > this.windowPosition + this.window.capacity())) {
+                try {
+                    flush();
+                    try (RandomAccessFile in = new RandomAccessFile(this.file, "r")) {
+                        long size = Math.min(Math.max(MAPPED_WINDOW_SIZE, segment[1]), this.length - position);
+                        this.window = in.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+                        this.windowPosition = position;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Unable to read learning curve file: " + this.file, e);
+                }
+            }
+            return (int) (position - this.windowPosition);
+        }
+    }
 }
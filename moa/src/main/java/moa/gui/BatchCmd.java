@@ -128,8 +128,20 @@ public class BatchCmd implements ClusterEventListener{
 
 	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
 			boolean[] measureCollection, int amountInstances, String outputFile){
+		runBatch(stream, clusterer, measureCollection, amountInstances, outputFile, false, 0);
+	}
+
+
+	public static void runBatch(ClusteringStream stream, AbstractClusterer clusterer,
+			boolean[] measureCollection, int amountInstances, String outputFile,
+			boolean parallel, int silhouetteSampleSize){
 		// create the measure collection 
 		MeasureCollection[] measures = getMeasures(getMeasureSelection(measureCollection));
+		for (MeasureCollection measure : measures) {
+			measure.setParallel(parallel);
+			if(measure instanceof SilhouetteCoefficient)
+				((SilhouetteCoefficient)measure).setSampleSize(silhouetteSampleSize);
+		}
 		
 		// run the batch job
 		BatchCmd batch = new BatchCmd(clusterer, stream, measures, amountInstances);
@@ -43,12 +43,10 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static moa.gui.experimentertab.ReadFile.readCSV;
 
 /**
  * Generate figures plotting the performance measurements of various learning
@@ -787,13 +785,12 @@ public class PlotTab extends javax.swing.JPanel {
                         return;
                     }
                     /*Preparing the graph*/
-                    ArrayList<String[]> data = readCSV(algPath);
                     XYSeries series = new XYSeries(algID);
                     int x = ReadFile.getMeasureIndex(algPath,this.jComboBoxXColumn.getSelectedItem().toString());
                     int y = ReadFile.getMeasureIndex(algPath,this.jComboBoxYColumn.getSelectedItem().toString());
-                    
-                    for (String[] s : data) {
-                        series.add(Double.parseDouble(s[x]), Double.parseDouble(s[y]));
+                    double[][] data = ReadFile.readColumns(algPath, x, y);
+                    for (int k = 0; k < data[0].length; k++) {
+                        series.add(data[0][k], data[1][k]);
                     }
 
                     dataset.addSeries(series);
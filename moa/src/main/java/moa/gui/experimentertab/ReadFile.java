@@ -26,8 +26,12 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Level;
@@ -41,6 +45,8 @@ import org.apache.commons.io.FilenameUtils;
  */
 public class ReadFile {
 
+    private static final int MAPPED_WINDOW_SIZE = 1 << 24;
+
     private String path;
     private LinkedList<String> stream;
     private LinkedList<String> algNames;
@@ -346,4 +352,68 @@ public class ReadFile {
 
     }
 
+    /**
+     * Reads some numeric columns of a results file, skipping its header. The
+     * file is read through a memory-mapped window rather than line by line,
+     * and only the values of the requested columns are kept.
+     *
+     * @param path the path of the results file
+     * @param columns the indexes of the columns to read
+     * @return the values of each requested column
+     * @throws IOException
+     */
+    public static double[][] readColumns(String path, int... columns)
+            throws IOException {
+
+        double[][] data = new double[columns.length][1024];
+        int rows = 0;
+        StringBuilder line = new StringBuilder();
+        boolean header = true;
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAPPED_WINDOW_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position, Math.min(MAPPED_WINDOW_SIZE, size - position));
+                while (buffer.hasRemaining()) {
+                    char c = (char) buffer.get();
+                    if (c == '\n') {
+                        if (header) {
+                            header = false;
+                        } else {
+                            rows = addRow(data, rows, line, columns);
+                        }
+                        line.setLength(0);
+                    } else if (c != '\r') {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        if (!header) {
+            rows = addRow(data, rows, line, columns);
+        }
+        for (int i = 0; i < columns.length; i++) {
+            data[i] = Arrays.copyOf(data[i], rows);
+        }
+        return data;
+
+    }
+
+    private static int addRow(double[][] data, int rows, StringBuilder line, int[] columns) {
+        if (line.length() == 0) {
+            return rows;
+        }
+        if (rows == data[0].length) {
+            for (int i = 0; i < columns.length; i++) {
+                data[i] = Arrays.copyOf(data[i], 2 * rows);
+            }
+        }
+        String s[] = line.toString().split(",");
+        for (int i = 0; i < columns.length; i++) {
+            data[i][rows] = Double.parseDouble(s[columns[i]]);
+        }
+        return rows + 1;
+    }
+
 }
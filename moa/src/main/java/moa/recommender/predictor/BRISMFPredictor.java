@@ -53,6 +53,10 @@ import moa.tasks.TaskMonitor;
  *      regularization</li>
  * <li> i: iterations - the number of iterations to be used when retraining
  *      user and item features (online training). </li>
+ * <li> t: threads - the number of threads used for training; with more than
+ *      one, batch epochs run lock-free in parallel (Hogwild) </li>
+ * <li> b: update batch size - the number of new ratings whose retraining is
+ *      deferred and done together </li>
  * </lu>
  * 
  */
@@ -77,6 +81,16 @@ public class BRISMFPredictor extends AbstractOptionHandler implements RatingPred
             "How many iterations to use.",
             100, 0, Integer.MAX_VALUE);
 
+    public IntOption threadsOption = new IntOption("threads",
+            't',
+            "How many threads to use for training.",
+            1, 1, Integer.MAX_VALUE);
+    
+    public IntOption updateBatchSizeOption = new IntOption("updateBatchSize",
+            'b',
+            "How many new ratings to collect before retraining the users and items they affect.",
+            1, 1, Integer.MAX_VALUE);
+
     public ClassOption dataOption = new ClassOption("data", 'd',
             "Data", RecommenderData.class, "moa.recommender.data.MemRecommenderData");
      
@@ -86,6 +100,8 @@ public class BRISMFPredictor extends AbstractOptionHandler implements RatingPred
         RecommenderData data = (RecommenderData) getPreparedClassOption(this.dataOption);
         rp = new moa.recommender.rc.predictor.impl.BRISMFPredictor(featuresOption.getValue(), data.getData(), lRateOption.getValue(), rFactorOption.getValue(), false);
         rp.setNIterations(iterationsOption.getValue());
+        rp.setNThreads(threadsOption.getValue());
+        rp.setUpdateBatchSize(updateBatchSizeOption.getValue());
     }
 
     @Override
@@ -111,6 +127,15 @@ public class BRISMFPredictor extends AbstractOptionHandler implements RatingPred
         return rp.predictRatings(userID, itemIDS);
     }
 
+    public int[] topNItems(int userID, int n) {
+        return rp.topNItems(userID, n);
+    }
+
+    @Override
+    public void flushUpdates() {
+        rp.flushUpdates();
+    }
+
     @Override
     public void train() {
         rp.train();
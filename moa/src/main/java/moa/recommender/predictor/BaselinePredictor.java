@@ -73,4 +73,9 @@ public class BaselinePredictor extends AbstractOptionHandler implements moa.reco
         rp.train();
     }
 
+    @Override
+    public void flushUpdates() {
+        // updates are applied as soon as the ratings are set
+    }
+
 }
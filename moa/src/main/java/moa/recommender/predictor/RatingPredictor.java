@@ -36,4 +36,8 @@ public interface RatingPredictor extends Serializable {
 	public List<Double> predictRatings(int userID, List<Integer> itemIDS);
 	public RecommenderData getData();
 	public void train();
+	/**
+	 * Applies the updates deferred by the predictor, if any.
+	 */
+	public void flushUpdates();
 }
@@ -60,7 +60,7 @@ public class MemRecommenderData extends AbstractRecommenderData {
         private boolean calculated = false;
         private boolean result = true;
         
-        RatingIterator() throws Exception {
+        RatingIterator() {
         }
         
         @Override
@@ -87,13 +87,14 @@ public class MemRecommenderData extends AbstractRecommenderData {
                 if (ratsIt.hasNext()) {
                     result = true;
                 }
-                else if (userIt.hasNext()) {
-                    Integer first = userIt.next();
-                    currentUser = first;
-                    ratsIt = ratingsUser.get(first).entrySet().iterator();
-                    if (ratsIt.hasNext()) {
-                        result = true;
-                    }
+            }
+            // skip users without ratings
+            while (!result && userIt != null && userIt.hasNext()) {
+                Integer first = userIt.next();
+                currentUser = first;
+                ratsIt = ratingsUser.get(first).entrySet().iterator();
+                if (ratsIt.hasNext()) {
+                    result = true;
                 }
             }
             return result;
@@ -325,8 +326,7 @@ public class MemRecommenderData extends AbstractRecommenderData {
 
     @Override
     public Iterator<Rating> ratingIterator() {
-        // TODO Auto-generated method stub
-        return null;
+        return new RatingIterator();
     }
 
     @Override
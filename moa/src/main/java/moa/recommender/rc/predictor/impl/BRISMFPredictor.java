@@ -21,10 +21,15 @@
 package moa.recommender.rc.predictor.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.function.IntConsumer;
+import moa.core.ComputeExecutor;
 import moa.recommender.rc.data.RecommenderData;
 import moa.recommender.rc.utils.Pair;
 import moa.recommender.rc.utils.Rating;
@@ -55,6 +60,13 @@ import moa.recommender.rc.utils.Updatable;
  *      regularization</li>
  * <li> iterations - the number of iterations to be used when retraining
  *      user and item features (online training). </li>
+ * <li> threads - the number of threads running the stochastic gradient
+ *      descent. With more than one thread the ratings are split among the
+ *      threads, which update the shared feature vectors without locking
+ *      (Hogwild), so results are no longer deterministic. </li>
+ * <li> update batch size - the number of new ratings whose user and item
+ *      retraining is deferred and done together. Users and items rated
+ *      several times in a batch are retrained once. </li>
  * </lu>
  * 
  */
@@ -69,6 +81,12 @@ public class BRISMFPredictor implements Updatable {
     protected double lRate = 0.01;
     protected double rFactor = 0.02;
     protected int nIterations = 30;
+    protected int nThreads = 1;
+    protected int updateBatchSize = 1;
+    // users and items whose retraining is pending (update batch size > 1)
+    protected LinkedHashSet<Integer> pendingUsers = new LinkedHashSet<Integer>();
+    protected LinkedHashSet<Integer> pendingItems = new LinkedHashSet<Integer>();
+    protected int nPending = 0;
     
     public void setLRate(double lRate) {
         this.lRate = lRate;
@@ -82,6 +100,15 @@ public class BRISMFPredictor implements Updatable {
         this.nIterations = nIterations; 
     }
     
+    public void setNThreads(int nThreads) {
+        this.nThreads = Math.max(1, nThreads);
+    }
+    
+    public void setUpdateBatchSize(int updateBatchSize) {
+        flushUpdates();
+        this.updateBatchSize = Math.max(1, updateBatchSize);
+    }
+    
     public RecommenderData getData() {
     	return data;
     }
@@ -117,6 +144,7 @@ public class BRISMFPredictor implements Updatable {
     }
     
     public double predictRating(int userID, int itemID) {
+        if (pendingUsers.contains(userID) || pendingItems.contains(itemID)) flushUpdates();
         float[] userFeats = userFeature.get(userID);
         float[] itemFeats = itemFeature.get(itemID);
         return predictRating(userFeats, itemFeats);
@@ -139,21 +167,32 @@ public class BRISMFPredictor implements Updatable {
         resetFeatures(userFeats, true);
         
         int n = itm.size();
+        float[][] itemFeats = new float[n][];
+        double[] ratings = new double[n];
+        for (int i = 0; i < n; ++i) {
+            itemFeats[i] = itemFeature.get(itm.get(i));
+            ratings[i] = rat.get(i);
+        }
+        trainUserFeats(userFeats, itemFeats, ratings, nIts);
+        return userFeats;
+    }
+    
+    /**
+     * Trains the features of a user, given the features of the items rated
+     * (null for unknown items) and the ratings.
+     */
+    protected void trainUserFeats(float[] userFeats, float[][] itemFeats, double[] ratings, int nIts) {
+        int n = ratings.length;
         for (int k = 0; k < nIts; ++k) {
             for (int i = 0; i < n; ++i) {
-                int itemID = itm.get(i);
-                float[] itemFeats = itemFeature.get(itemID);
-                double rating = rat.get(i);
-                double pred = predictRating(userFeats, itemFeats);
-                double err = rating - pred;
+                double pred = predictRating(userFeats, itemFeats[i]);
+                double err = ratings[i] - pred;
                 
-                if (itemFeats != null)
+                if (itemFeats[i] != null)
                     for (int j = 1; j < nFeatures; ++j) 
-                        userFeats[j] += lRate*(err*itemFeats[j] - rFactor*userFeats[j]);
+                        userFeats[j] += lRate*(err*itemFeats[i][j] - rFactor*userFeats[j]);
             }
         }
-        
-        return userFeats;
     }
     
     public float[] trainItemFeats(int itemID, List<Integer> usr, List<Double> rat, int nIts) {
@@ -161,23 +200,34 @@ public class BRISMFPredictor implements Updatable {
         resetFeatures(itemFeats, false);
         
         int n = usr.size();
+        float[][] userFeats = new float[n][];
+        double[] ratings = new double[n];
+        for (int i = 0; i < n; ++i) {
+            userFeats[i] = userFeature.get(usr.get(i));
+            ratings[i] = rat.get(i);
+        }
+        trainItemFeats(itemFeats, userFeats, ratings, nIts);
+        return itemFeats;
+    }
+    
+    /**
+     * Trains the features of an item, given the features of the users that
+     * rated it (null for unknown users) and the ratings.
+     */
+    protected void trainItemFeats(float[] itemFeats, float[][] userFeats, double[] ratings, int nIts) {
+        int n = ratings.length;
         for (int k = 0; k < nIts; ++k) {
             for (int i = 0; i < n; ++i) {
-                int userID = usr.get(i);
-                float[] userFeats = userFeature.get(userID);
-                double rating = rat.get(i);
-                double pred = predictRating(userFeats, itemFeats);
-                double err = rating - pred;
+                double pred = predictRating(userFeats[i], itemFeats);
+                double err = ratings[i] - pred;
                 
-                if (userFeats != null) {
-                    itemFeats[0] += lRate*(err*userFeats[0] - rFactor*itemFeats[0]);
+                if (userFeats[i] != null) {
+                    itemFeats[0] += lRate*(err*userFeats[i][0] - rFactor*itemFeats[0]);
                     for (int j = 2; j < nFeatures; ++j)
-                        itemFeats[j] += lRate*(err*userFeats[j] - rFactor*itemFeats[j]);
+                        itemFeats[j] += lRate*(err*userFeats[i][j] - rFactor*itemFeats[j]);
                 }
             }
         }
-        
-        return itemFeats;
     }
     
     public void trainUser(int userID, List<Integer> itm, List<Double> rat, int nIts) {
@@ -255,6 +305,9 @@ public class BRISMFPredictor implements Updatable {
     public void train() {
         userFeature.clear();
         itemFeature.clear();
+        pendingUsers.clear();
+        pendingItems.clear();
+        nPending = 0;
         
         int n = data.getNumRatings();
         
@@ -278,36 +331,62 @@ public class BRISMFPredictor implements Updatable {
         int count = 0;
         int trainDiv = Math.max(20, n/1000000);
         ArrayList<Rating> ratTest = new ArrayList<Rating>(n/trainDiv);
-        do {
-            long start = System.currentTimeMillis();
+        // training ratings of the parallel epochs, with their feature vectors
+        float[][] trainUserFeats = null;
+        float[][] trainItemFeats = null;
+        double[] trainRatings = null;
+        if (nThreads > 1) {
+            int nTrain = 0;
+            trainUserFeats = new float[n][];
+            trainItemFeats = new float[n][];
+            trainRatings = new double[n];
             Iterator<Rating> ratIt = data.ratingIterator();
             int idx = 0;
-            
             while (ratIt.hasNext()) {
                 Rating rat = ratIt.next();
                 if (idx%trainDiv == 0) {
-                    if (count == 0) ratTest.add(rat);
+                    ratTest.add(rat);
                 }
                 else {
-                    int userID = rat.userID;
-                    int itemID = rat.itemID;
-                    double rating = rat.rating;
-                    float[] userFeats = userFeature.get(userID);
-                    float[] itemFeats = itemFeature.get(itemID);
-                    
-                    double pred = predictRating(userFeats, itemFeats);
-                    double err = rating - pred;
-                    
-                    itemFeats[0] += lRate*(err*userFeats[0] - rFactor*itemFeats[0]);
-                    userFeats[1] += lRate*(err*itemFeats[1] - rFactor*userFeats[1]);
-                    for (int j = 2; j < nFeatures; ++j) {
-                        double uv = userFeats[j];
-                        userFeats[j] += lRate*(err*itemFeats[j] - rFactor*userFeats[j]);
-                        itemFeats[j] += lRate*(err*uv - rFactor*itemFeats[j]);
+                    if (nTrain == trainRatings.length) {
+                        int capacity = 2*nTrain + 1;
+                        trainUserFeats = Arrays.copyOf(trainUserFeats, capacity);
+                        trainItemFeats = Arrays.copyOf(trainItemFeats, capacity);
+                        trainRatings = Arrays.copyOf(trainRatings, capacity);
                     }
+                    trainUserFeats[nTrain] = userFeature.get(rat.userID);
+                    trainItemFeats[nTrain] = itemFeature.get(rat.itemID);
+                    trainRatings[nTrain] = rat.rating;
+                    ++nTrain;
                 }
                 ++idx;
             }
+            trainUserFeats = Arrays.copyOf(trainUserFeats, nTrain);
+            trainItemFeats = Arrays.copyOf(trainItemFeats, nTrain);
+            trainRatings = Arrays.copyOf(trainRatings, nTrain);
+        }
+        do {
+            long start = System.currentTimeMillis();
+            if (nThreads > 1) {
+                parallelEpoch(trainUserFeats, trainItemFeats, trainRatings);
+            }
+            else {
+                Iterator<Rating> ratIt = data.ratingIterator();
+                int idx = 0;
+                
+                while (ratIt.hasNext()) {
+                    Rating rat = ratIt.next();
+                    if (idx%trainDiv == 0) {
+                        if (count == 0) ratTest.add(rat);
+                    }
+                    else {
+                        float[] userFeats = userFeature.get(rat.userID);
+                        float[] itemFeats = itemFeature.get(rat.itemID);
+                        sgdStep(userFeats, itemFeats, rat.rating);
+                    }
+                    ++idx;
+                }
+            }
             int nTest = ratTest.size();
 
             double sum = 0;
@@ -330,11 +409,45 @@ public class BRISMFPredictor implements Updatable {
         while (exit < 1);
     }
     
+    /**
+     * One step of stochastic gradient descent on a training rating.
+     */
+    protected void sgdStep(float[] userFeats, float[] itemFeats, double rating) {
+        double pred = predictRating(userFeats, itemFeats);
+        double err = rating - pred;
+        
+        itemFeats[0] += lRate*(err*userFeats[0] - rFactor*itemFeats[0]);
+        userFeats[1] += lRate*(err*itemFeats[1] - rFactor*userFeats[1]);
+        for (int j = 2; j < nFeatures; ++j) {
+            double uv = userFeats[j];
+            userFeats[j] += lRate*(err*itemFeats[j] - rFactor*userFeats[j]);
+            itemFeats[j] += lRate*(err*uv - rFactor*itemFeats[j]);
+        }
+    }
+    
+    /**
+     * One pass over the training ratings, split in nThreads contiguous blocks
+     * processed in parallel. Feature vectors shared by several blocks are
+     * updated without locking: conflicting updates are rare when ratings are
+     * sparse, and a lost update only slows down convergence a little.
+     */
+    protected void parallelEpoch(final float[][] userFeats, final float[][] itemFeats, final double[] ratings) {
+        final int n = ratings.length;
+        ComputeExecutor.forEachIndex("BRISMFPredictor", nThreads, nThreads, t -> {
+            int from = (int)((long)n*t/nThreads);
+            int to = (int)((long)n*(t + 1)/nThreads);
+            for (int i = from; i < to; ++i)
+                sgdStep(userFeats[i], itemFeats[i], ratings[i]);
+        });
+    }
+    
     public float[] getUserFeatures(int userID) {
+        if (pendingUsers.contains(userID)) flushUpdates();
         return userFeature.get(userID);
     }
 
     public float[] getItemFeatures(int itemID) {
+        if (pendingItems.contains(itemID)) flushUpdates();
         return itemFeature.get(itemID);
     }
 
@@ -361,11 +474,13 @@ public class BRISMFPredictor implements Updatable {
     @Override
     public void updateRemoveUser(int userID) {
         userFeature.remove(userID);
+        pendingUsers.remove(userID);
     }
 
     @Override
     public void updateRemoveItem(int itemID) {
         itemFeature.remove(itemID);
+        pendingItems.remove(itemID);
     }
     
     //We retrain the user/item separately, depending on a probability
@@ -378,6 +493,16 @@ public class BRISMFPredictor implements Updatable {
         double prob1 = Math.pow(0.99, nUsr);
         double prob2 = Math.pow(0.99, nItm);
 
+        if (updateBatchSize > 1) {
+            // the rating is stored by the data after notifying its updatables,
+            // so the batch is flushed before recording a new rating
+            if (nPending >= updateBatchSize) flushUpdates();
+            if (nUsr < 5 || rnd.nextDouble() < prob1) pendingUsers.add(userID);
+            if (nItm < 5 || rnd.nextDouble() < prob2) pendingItems.add(itemID);
+            ++nPending;
+            return;
+        }
+
         if (nUsr < 5 || rnd.nextDouble() < prob1) {
             SparseVector usrRats = data.getRatingsUser(userID);
             ArrayList<Integer> itm = new ArrayList<Integer>();
@@ -429,6 +554,196 @@ public class BRISMFPredictor implements Updatable {
     @Override
     public void updateRemoveRating(int userID, int itemID) {
     }
+    
+    /**
+     * Retrains the users and then the items of the pending batch of ratings.
+     * Initial features are drawn sequentially, so that the result does not
+     * depend on the number of threads. Predictions that involve a pending
+     * user or item flush the batch first, so they are never made with stale
+     * features.
+     */
+    public void flushUpdates() {
+        if (!pendingUsers.isEmpty()) {
+            int m = pendingUsers.size();
+            final int[] ids = new int[m];
+            final float[][] feats = new float[m][];
+            final float[][][] others = new float[m][][];
+            final double[][] rats = new double[m][];
+            int k = 0;
+            for (int userID : pendingUsers) {
+                SparseVector usrRats = data.getRatingsUser(userID);
+                ids[k] = userID;
+                feats[k] = new float[nFeatures];
+                resetFeatures(feats[k], true);
+                others[k] = new float[usrRats.size()][];
+                rats[k] = new double[usrRats.size()];
+                int i = 0;
+                Iterator<Pair<Integer, Double>> it = usrRats.iterator();
+                while (it.hasNext()) {
+                    Pair<Integer, Double> p = it.next();
+                    others[k][i] = itemFeature.get(p.getFirst());
+                    rats[k][i] = p.getSecond();
+                    ++i;
+                }
+                ++k;
+            }
+            forEachIndex(m, idx -> trainUserFeats(feats[idx], others[idx], rats[idx], nIterations));
+            for (k = 0; k < m; ++k)
+                userFeature.put(ids[k], feats[k]);
+            pendingUsers.clear();
+        }
+        if (!pendingItems.isEmpty()) {
+            int m = pendingItems.size();
+            final int[] ids = new int[m];
+            final float[][] feats = new float[m][];
+            final float[][][] others = new float[m][][];
+            final double[][] rats = new double[m][];
+            int k = 0;
+            for (int itemID : pendingItems) {
+                SparseVector itmRats = data.getRatingsItem(itemID);
+                ids[k] = itemID;
+                feats[k] = new float[nFeatures];
+                resetFeatures(feats[k], false);
+                others[k] = new float[itmRats.size()][];
+                rats[k] = new double[itmRats.size()];
+                int i = 0;
+                Iterator<Pair<Integer, Double>> it = itmRats.iterator();
+                while (it.hasNext()) {
+                    Pair<Integer, Double> p = it.next();
+                    others[k][i] = userFeature.get(p.getFirst());
+                    rats[k][i] = p.getSecond();
+                    ++i;
+                }
+                ++k;
+            }
+            forEachIndex(m, idx -> trainItemFeats(feats[idx], others[idx], rats[idx], nIterations));
+            for (k = 0; k < m; ++k)
+                itemFeature.put(ids[k], feats[k]);
+            pendingItems.clear();
+        }
+        nPending = 0;
+    }
+    
+    private void forEachIndex(int n, IntConsumer action) {
+        if (nThreads > 1 && n > 1)
+            ComputeExecutor.forEachIndex("BRISMFPredictor", n, nThreads, action);
+        else
+            for (int i = 0; i < n; ++i)
+                action.accept(i);
+    }
+    
+    /**
+     * Predicts the ratings of a user for the given items into ratings, without
+     * boxing.
+     */
+    public void predictRatings(int userID, int[] itemIDs, double[] ratings) {
+        if (nPending > 0) flushUpdates();
+        float[] userFeats = userFeature.get(userID);
+        for (int i = 0; i < itemIDs.length; ++i)
+            ratings[i] = predictRating(userFeats, itemFeature.get(itemIDs[i]));
+    }
+    
+    /**
+     * Returns the (at most) n items with the highest scores for the user,
+     * best first, among all the items with features. Items are ranked by the
+     * dot product of the features, i.e. the predicted rating before clipping
+     * to the rating range, ties broken by the lowest item ID.
+     */
+    public int[] topNItems(int userID, int n) {
+        if (nPending > 0) flushUpdates();
+        float[] userFeats = userFeature.get(userID);
+        TopN top = new TopN(n);
+        if (userFeats != null)
+            for (Map.Entry<Integer, float[]> e : itemFeature.entrySet())
+                top.offer(e.getKey(), dot(userFeats, e.getValue()));
+        return top.toArray();
+    }
+    
+    /**
+     * Returns the (at most) n items among the candidates with the highest
+     * scores for the user, best first, ranked as in topNItems(int, int).
+     */
+    public int[] topNItems(int userID, int[] itemIDs, int n) {
+        if (nPending > 0) flushUpdates();
+        float[] userFeats = userFeature.get(userID);
+        TopN top = new TopN(n);
+        if (userFeats != null)
+            for (int itemID : itemIDs) {
+                float[] itemFeats = itemFeature.get(itemID);
+                if (itemFeats != null)
+                    top.offer(itemID, dot(userFeats, itemFeats));
+            }
+        return top.toArray();
+    }
+    
+    private double dot(float[] userFeats, float[] itemFeats) {
+        double ret = 0;
+        for (int i = 0; i < nFeatures; ++i)
+            ret += userFeats[i]*itemFeats[i];
+        return ret;
+    }
+    
+    /**
+     * Bounded min-heap of (item, score) pairs kept in primitive arrays.
+     */
+    private static class TopN {
+        private final int[] ids;
+        private final double[] scores;
+        private int size = 0;
+        
+        TopN(int n) {
+            ids = new int[Math.max(0, n)];
+            scores = new double[Math.max(0, n)];
+        }
+        
+        // true if (id1, score1) ranks below (id2, score2)
+        private static boolean worse(int id1, double score1, int id2, double score2) {
+            return score1 < score2 || (score1 == score2 && id1 > id2);
+        }
+        
+        void offer(int id, double score) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1)/2;
+                    if (!worse(id, score, ids[parent], scores[parent])) break;
+                    ids[i] = ids[parent];
+                    scores[i] = scores[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                scores[i] = score;
+            }
+            else if (size > 0 && worse(ids[0], scores[0], id, score)) {
+                siftDown(id, score, size);
+            }
+        }
+        
+        private void siftDown(int id, double score, int n) {
+            int i = 0;
+            while (2*i + 1 < n) {
+                int child = 2*i + 1;
+                if (child + 1 < n && worse(ids[child + 1], scores[child + 1], ids[child], scores[child]))
+                    ++child;
+                if (!worse(ids[child], scores[child], id, score)) break;
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+        
+        int[] toArray() {
+            int[] ret = new int[size];
+            // pop the worst element into the back of the result
+            for (int n = size; n > 0; --n) {
+                ret[n - 1] = ids[0];
+                siftDown(ids[n - 1], scores[n - 1], n - 1);
+            }
+            return ret;
+        }
+    }
 
 	public List<Double> predictRatings(int userID, List<Integer> itemIDS) {
 		int n = itemIDS.size();
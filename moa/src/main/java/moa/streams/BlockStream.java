@@ -0,0 +1,57 @@
+/*
+ *    BlockStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+/**
+ * Interface representing a stream of instances that can also be read by
+ * blocks of rows. Reading blocks and reading instances can be interleaved:
+ * both read the same sequence of instances, and the rows of a block are not
+ * read again as instances.
+ *
+ * @see InstanceBlock
+ */
+public interface BlockStream extends InstanceStream {
+
+    /**
+     * Reads the next instances of the stream as a block, owned by the
+     * caller.
+     *
+     * @return the next block, or null if the stream has no more instances
+     */
+    public InstanceBlock nextBlock();
+
+    /**
+     * Returns whether the blocks keep the instances read one by one, which
+     * a stream reading other streams may not do for all of them.
+     *
+     * @return true if the stream is best read by blocks
+     */
+    public default boolean readsBlocks() {
+        return true;
+    }
+
+    /**
+     * Returns whether a stream is best read by blocks.
+     *
+     * @param stream the stream
+     * @return true if the stream is a block stream that reads blocks
+     */
+    public static boolean isReadByBlocks(ExampleStream stream) {
+        return (stream instanceof BlockStream) && ((BlockStream) stream).readsBlocks();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *    CachedStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.util.Random;
+
+import moa.core.Example;
+import moa.core.InstanceExample;
+import moa.core.MiscUtils;
+import moa.core.ObjectRepository;
+import moa.options.AbstractOptionHandler;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.tasks.TaskMonitor;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Stream replaying the instances of another stream from the process-wide
+ * stream cache. The stream is read into the cache by the first cached stream
+ * to use it; the others, in the same or in concurrent tasks, replay the
+ * cached instances, in the order of the stream, shuffled or bootstrapped.
+ *
+ * Bootstrapping repeats each instance a number of times drawn from a Poisson
+ * distribution of mean 1, as BootstrappedStream does.
+ *
+ * The stream to cache is only prepared if its instances are not cached yet.
+ * If caching is aborted, the stream has no instances.
+ *
+ * @see StreamCache
+ */
+public class CachedStream extends AbstractOptionHandler implements
+        InstanceStream, MultiTargetInstanceStream {
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to cache.", InstanceStream.class,
+            "generators.RandomTreeGenerator");
+
+    public IntOption maximumCacheSizeOption = new IntOption("maximumCacheSize",
+            'm', "Maximum number of instances to cache.", 1000000, 1,
+            Integer.MAX_VALUE);
+
+    public MultiChoiceOption orderOption = new MultiChoiceOption("order", 'o',
+            "Order in which to replay the cached instances.",
+            new String[]{"Stream", "Shuffled", "Bootstrapped"},
+            new String[]{"In the order of the stream.",
+                "Shuffled randomly.",
+                "In the order of the stream, each repeated a Poisson(1) number of times."}, 0);
+
+    public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
+            "Seed for shuffling or bootstrapping the instances.", 1);
+
+    protected transient StreamCache.CachedInstances cachedInstances;
+
+    protected int[] order;
+
+    protected Random random;
+
+    protected int streamPos;
+
+    protected int waitingToSend;
+
+    @Override
+    public void prepareForUse(TaskMonitor monitor, ObjectRepository repository) {
+        // creates the options handler first, so that the class options are
+        // not prepared with it: prepareForUseImpl prepares the stream only if
+        // its instances are not cached
+        getOptions();
+        super.prepareForUse(monitor, repository);
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        this.cachedInstances = StreamCache.get(this.streamOption.getValueAsCLIString(),
+                () -> {
+                    Object stream = this.streamOption.materializeObject(monitor, repository);
+                    if (stream instanceof OptionHandler) {
+                        ((OptionHandler) stream).prepareForUse(monitor, repository);
+                    }
+                    return (InstanceStream) stream;
+                },
+                this.maximumCacheSizeOption.getValue(), monitor);
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.cachedInstances.getHeader();
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        return this.cachedInstances.numInstances() - this.streamPos;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        if (this.orderOption.getChosenIndex() == 2) {
+            // skip the instances not drawn
+            while ((this.waitingToSend == 0) && (this.streamPos < this.cachedInstances.numInstances())) {
+                this.waitingToSend = MiscUtils.poisson(1.0, this.random);
+                if (this.waitingToSend == 0) {
+                    this.streamPos++;
+                }
+            }
+        }
+        return this.streamPos < this.cachedInstances.numInstances();
+    }
+
+    @Override
+    public Example<Instance> nextInstance() {
+        if (!hasMoreInstances()) {
+            return null;
+        }
+        int index = this.order == null ? this.streamPos : this.order[this.streamPos];
+        if ((this.orderOption.getChosenIndex() != 2) || (--this.waitingToSend == 0)) {
+            this.streamPos++;
+        }
+        return new InstanceExample(this.cachedInstances.instance(index));
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        this.streamPos = 0;
+        this.waitingToSend = 0;
+        this.random = new Random(this.randomSeedOption.getValue());
+        this.order = null;
+        if (this.orderOption.getChosenIndex() == 1) {
+            this.order = new int[this.cachedInstances.numInstances()];
+            for (int i = 0; i < this.order.length; i++) {
+                this.order[i] = i;
+            }
+            for (int i = this.order.length - 1; i > 0; i--) {
+                int j = this.random.nextInt(i + 1);
+                int swap = this.order[i];
+                this.order[i] = this.order[j];
+                this.order[j] = swap;
+            }
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        sb.append("Instances of ");
+        sb.append(this.streamOption.getValueAsCLIString());
+        sb.append(" replayed from the stream cache");
+        if (this.cachedInstances != null) {
+            sb.append(" (");
+            sb.append(this.cachedInstances.numInstances());
+            sb.append(" cached)");
+        }
+        sb.append(", in ");
+        sb.append(this.orderOption.getChosenLabel().toLowerCase());
+        sb.append(" order.");
+    }
+}
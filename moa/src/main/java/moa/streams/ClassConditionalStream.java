@@ -0,0 +1,40 @@
+/*
+ *    ClassConditionalStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import moa.core.Example;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Interface representing a stream that can generate the instances of a given
+ * class directly, without generating and discarding those of the other
+ * classes.
+ *
+ * @see ImbalancedStream
+ */
+public interface ClassConditionalStream extends InstanceStream {
+
+    /**
+     * Generates an instance of a class, drawn from the distribution of the
+     * instances of that class in the stream.
+     *
+     * @param classValue the index of the class
+     * @return the next instance of the class
+     */
+    public Example<Instance> nextInstanceOfClass(int classValue);
+}
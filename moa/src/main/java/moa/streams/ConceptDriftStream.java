@@ -25,7 +25,9 @@ import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.core.Example;
+import moa.core.InstanceExample;
 
+import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
@@ -46,12 +48,15 @@ import moa.tasks.TaskMonitor;
  * d : Concept drift Stream<br/>
  * p : Central position of concept drift change<br/>
  * w : Width of concept drift change<br/>
+ *<br/>
+ * The stream can be read by blocks: the rows of the blocks of the two streams,
+ * if they are block streams, are then copied without creating instances.
  *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
  */
 public class ConceptDriftStream extends AbstractOptionHandler implements
-        InstanceStream, CapabilitiesHandler {
+        BlockStream, CapabilitiesHandler {
 
     @Override
     public String getPurposeString() {
@@ -88,6 +93,15 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
 
     protected int numberInstanceStream;
 
+    // the rows of the streams read by blocks but not used yet
+    protected InstanceBlock inputBlock;
+
+    protected int inputBlockRow;
+
+    protected InstanceBlock driftBlock;
+
+    protected int driftBlockRow;
+
     @Override
     public void prepareForUseImpl(TaskMonitor monitor,
             ObjectRepository repository) {
@@ -113,7 +127,9 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
 
     @Override
     public boolean hasMoreInstances() {
-        return (this.inputStream.hasMoreInstances() || this.driftStream.hasMoreInstances());
+        return (this.inputStream.hasMoreInstances() || this.driftStream.hasMoreInstances()
+                || hasRowsLeft(this.inputBlock, this.inputBlockRow)
+                || hasRowsLeft(this.driftBlock, this.driftBlockRow));
     }
 
     @Override
@@ -123,15 +139,96 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
 
     @Override
     public Example nextInstance() {
+        if (nextIsDrift()) {
+            if (hasRowsLeft(this.driftBlock, this.driftBlockRow)) {
+                return new InstanceExample(this.driftBlock.instance(this.driftBlockRow++));
+            }
+            return this.driftStream.nextInstance();
+        } else {
+            if (hasRowsLeft(this.inputBlock, this.inputBlockRow)) {
+                return new InstanceExample(this.inputBlock.instance(this.inputBlockRow++));
+            }
+            return this.inputStream.nextInstance();
+        }
+    }
+
+    /**
+     * Draws whether the next instance comes from the drift stream, or takes
+     * it from the stream that still has instances once the other has none.
+     */
+    protected boolean nextIsDrift() {
         numberInstanceStream++;
+        boolean drift = this.random.nextDouble() <= probabilityOfDrift();
+        if (drift && !hasRowsLeft(this.driftBlock, this.driftBlockRow)
+                && !this.driftStream.hasMoreInstances()) {
+            return false;
+        }
+        if (!drift && !hasRowsLeft(this.inputBlock, this.inputBlockRow)
+                && !this.inputStream.hasMoreInstances()) {
+            return true;
+        }
+        return drift;
+    }
+
+    /**
+     * Returns the probability that the instance numberInstanceStream comes
+     * from the drift stream.
+     */
+    protected double probabilityOfDrift() {
         double x = -4.0 * (double) (numberInstanceStream - this.positionOption.getValue()) / (double) this.widthOption.getValue();
-        double probabilityDrift = 1.0 / (1.0 + Math.exp(x));
-        if (this.random.nextDouble() > probabilityDrift) {
-            return this.inputStream.nextInstance();
-        } else {
-            return this.driftStream.nextInstance();
+        return 1.0 / (1.0 + Math.exp(x));
+    }
+
+    /**
+     * Returns whether both streams are read by blocks, which then keep their
+     * instances. Otherwise the instances of the stream should be read one by
+     * one, as blocks hold dense instances of weight 1.
+     */
+    @Override
+    public boolean readsBlocks() {
+        return BlockStream.isReadByBlocks(this.inputStream)
+                && BlockStream.isReadByBlocks(this.driftStream);
+    }
+
+    @Override
+    public InstanceBlock nextBlock() {
+        if (!hasMoreInstances()) {
+            return null;
         }
+        InstanceBlock block = new InstanceBlock(getHeader(), InstanceBlock.DEFAULT_NUM_ROWS);
+        while (!block.isFull() && hasMoreInstances()) {
+            if (nextIsDrift()) {
+                if (!hasRowsLeft(this.driftBlock, this.driftBlockRow)) {
+                    this.driftBlock = readBlock(this.driftStream);
+                    this.driftBlockRow = 0;
+                }
+                block.addRow(this.driftBlock, this.driftBlockRow++);
+            } else {
+                if (!hasRowsLeft(this.inputBlock, this.inputBlockRow)) {
+                    this.inputBlock = readBlock(this.inputStream);
+                    this.inputBlockRow = 0;
+                }
+                block.addRow(this.inputBlock, this.inputBlockRow++);
+            }
+        }
+        return block;
+    }
 
+    protected static boolean hasRowsLeft(InstanceBlock block, int row) {
+        return (block != null) && (row < block.numRows());
+    }
+
+    /**
+     * Reads the next block of a stream, or its next instance as a block, dense
+     * and of weight 1, if it is not read by blocks.
+     */
+    protected static InstanceBlock readBlock(ExampleStream stream) {
+        if (BlockStream.isReadByBlocks(stream)) {
+            return ((BlockStream) stream).nextBlock();
+        }
+        InstanceBlock block = new InstanceBlock(stream.getHeader(), 1);
+        block.addRow((Instance) stream.nextInstance().getData());
+        return block;
     }
 
     @Override
@@ -139,6 +236,8 @@ public class ConceptDriftStream extends AbstractOptionHandler implements
         this.inputStream.restart();
         this.driftStream.restart();
         numberInstanceStream = 0;
+        this.inputBlock = null;
+        this.driftBlock = null;
     }
 
     @Override
@@ -0,0 +1,166 @@
+/*
+ *    DelayedInstanceQueue.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * First in, first out queue of instances waiting for their labels, such as
+ * the instances of a stream with delayed labeling, each with the time it was
+ * added at.
+ *
+ * Dense instances of the header of the first instance are stored as rows of
+ * primitive pages, with their weights and times, and are created again when
+ * removed: a queue of a million instances holds a few hundred arrays instead
+ * of millions of instance objects, and pages are dropped once read, so that
+ * the queue never holds much more than its instances. Other instances, such
+ * as sparse ones, are kept as they are.
+ */
+public class DelayedInstanceQueue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final int PAGE_SIZE = 4096;
+
+    protected static class Page implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        // rows of values, one after the other, of the dense instances
+        protected double[] values;
+
+        protected final double[] weights = new double[PAGE_SIZE];
+
+        protected final double[] times = new double[PAGE_SIZE];
+
+        // instances that are not stored as rows, null for rows
+        protected Instance[] instances;
+    }
+
+    protected Instances header;
+
+    protected int numAttributes;
+
+    protected final ArrayDeque<Page> pages = new ArrayDeque<Page>();
+
+    // position of the first instance in the first page
+    protected int first;
+
+    // position after the last instance in the last page
+    protected int end = PAGE_SIZE;
+
+    protected int size;
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Appends an instance, added at a time.
+     */
+    public void addLast(Instance inst, double time) {
+        if (this.header == null && inst.getClass() == DenseInstance.class
+                && inst.dataset() != null) {
+            this.header = inst.dataset();
+            this.numAttributes = inst.numAttributes();
+        }
+        if (this.end == PAGE_SIZE) {
+            this.pages.addLast(new Page());
+            this.end = 0;
+        }
+        Page page = this.pages.getLast();
+        int slot = this.end;
+        if (inst.getClass() == DenseInstance.class && inst.dataset() == this.header
+                && inst.numAttributes() == this.numAttributes) {
+            if (page.values == null) {
+                page.values = new double[PAGE_SIZE * this.numAttributes];
+            }
+            int start = slot * this.numAttributes;
+            for (int i = 0; i < this.numAttributes; i++) {
+                page.values[start + i] = inst.value(i);
+            }
+        } else {
+            if (page.instances == null) {
+                page.instances = new Instance[PAGE_SIZE];
+            }
+            page.instances[slot] = inst;
+        }
+        page.weights[slot] = inst.weight();
+        page.times[slot] = time;
+        this.end++;
+        this.size++;
+    }
+
+    /**
+     * Returns the time the first instance was added at.
+     */
+    public double firstTime() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Empty queue");
+        }
+        return this.pages.getFirst().times[this.first];
+    }
+
+    /**
+     * Removes the first instance and returns it.
+     */
+    public Instance removeFirst() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Empty queue");
+        }
+        Page page = this.pages.getFirst();
+        int slot = this.first;
+        Instance inst = page.instances == null ? null : page.instances[slot];
+        if (inst == null) {
+            int start = slot * this.numAttributes;
+            double[] rowValues = new double[this.numAttributes];
+            System.arraycopy(page.values, start, rowValues, 0, this.numAttributes);
+            inst = new DenseInstance(page.weights[slot], rowValues);
+            inst.setDataset(this.header);
+        } else {
+            page.instances[slot] = null;
+        }
+        this.first++;
+        this.size--;
+        if (this.size == 0) {
+            // keeps the last page to fill it again
+            this.first = 0;
+            this.end = 0;
+        } else if (this.first == PAGE_SIZE) {
+            this.pages.removeFirst();
+            this.first = 0;
+        }
+        return inst;
+    }
+
+    public void clear() {
+        this.pages.clear();
+        this.first = 0;
+        this.end = PAGE_SIZE;
+        this.size = 0;
+    }
+}
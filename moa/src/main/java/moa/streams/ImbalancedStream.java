@@ -18,18 +18,24 @@
 
 package moa.streams;
 
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import com.github.javacliparser.StringOption;
+import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.Example;
 import moa.core.InstanceExample;
 import moa.core.ObjectRepository;
+import moa.core.StringUtils;
 import moa.options.AbstractOptionHandler;
 import moa.options.ClassOption;
 import moa.tasks.TaskMonitor;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Random;
 
 
@@ -48,12 +54,24 @@ import java.util.Random;
  * of the instances belonging to the first class while the remainder 10% would
  * belong to the secondary class.
  *
+ * If the original stream is a block stream, it is read by blocks and the
+ * instances waiting for their class to come up are buffered as rows of
+ * primitive values rather than as instances.
+ *
+ * For extreme ratios, the buffers of the majority classes can grow large,
+ * and most of the instances buffered are never used. The buffers can be
+ * bounded, dropping the new instances of a full buffer, or keeping a uniform
+ * sample of the instances of its class. If the original stream is a class
+ * conditional stream, the instances of the desired class can also be
+ * generated directly, without buffering; other streams are rejected. The number of instances generated,
+ * emitted and dropped are reported by the description of the stream.
+ *
  * @author Jean Paul Barddal (jean.barddal@ppgia.pucpr.br)
  * @version 1.0
  */
 
 public class ImbalancedStream extends AbstractOptionHandler implements
-        InstanceStream {
+        BlockStream {
 
 
     public ClassOption streamOption = new ClassOption("stream", 's',
@@ -72,11 +90,118 @@ public class ImbalancedStream extends AbstractOptionHandler implements
             "instanceRandomSeed", 'i',
             "Seed for random generation of instances.", 1);
 
+    public MultiChoiceOption bufferPolicyOption = new MultiChoiceOption(
+            "bufferPolicy", 'b',
+            "What to do with an instance whose class buffer is full.",
+            new String[]{"Unbounded", "Drop", "Reservoir"},
+            new String[]{"The buffers are never full.",
+                "Drops the instance.",
+                "Keeps a uniform sample of the instances of the class: the instance replaces a random buffered one, or is dropped."},
+            0);
+
+    public IntOption maxBufferSizeOption = new IntOption("maxBufferSize", 'm',
+            "The maximum number of instances buffered per class, unless unbounded.",
+            1000, 1, Integer.MAX_VALUE);
+
+    public FlagOption classConditionalOption = new FlagOption(
+            "classConditional", 'g',
+            "Generate the instances of the desired class directly, without buffering. "
+            + "The original stream must be a class conditional stream.");
+
     protected ExampleStream originalStream    = null;
     protected Instances     instancesBuffer[] = null;
     protected double        probPerClass[]    = null;
     protected Random        random            = null;
     protected int           numClasses        = 0;
+    protected RowBuffer     rowBuffers[]      = null;
+    protected ClassConditionalStream conditionalStream = null;
+    // the block of the original stream being read, and its next row
+    protected InstanceBlock originalBlock     = null;
+    protected int           originalBlockRow  = 0;
+    protected Random        bufferRandom      = null;
+    // the number of instances each reservoir is a sample of
+    protected long          numSeen[]         = null;
+    protected long          numGenerated      = 0;
+    protected long          numEmitted        = 0;
+    protected long          numDropped        = 0;
+
+    /**
+     * First in, first out buffer of rows of primitive values.
+     */
+    protected static class RowBuffer implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final int numAttributes;
+
+        protected double[] values;
+
+        protected int first;
+
+        protected int size;
+
+        public RowBuffer(int numAttributes) {
+            this.numAttributes = numAttributes;
+            this.values = new double[16 * numAttributes];
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        protected int capacity() {
+            return this.values.length / this.numAttributes;
+        }
+
+        public void add(double[] rowValues, int start) {
+            if (this.size == capacity()) {
+                // doubles the capacity, unwrapping the rows
+                double[] newValues = new double[2 * this.values.length];
+                int firstRows = capacity() - this.first;
+                System.arraycopy(this.values, this.first * this.numAttributes,
+                        newValues, 0, firstRows * this.numAttributes);
+                System.arraycopy(this.values, 0, newValues, firstRows * this.numAttributes,
+                        this.first * this.numAttributes);
+                this.values = newValues;
+                this.first = 0;
+            }
+            int row = (this.first + this.size) % capacity();
+            System.arraycopy(rowValues, start, this.values, row * this.numAttributes,
+                    this.numAttributes);
+            this.size++;
+        }
+
+        /**
+         * Replaces the row at an index from the first row.
+         */
+        public void set(int index, double[] rowValues, int start) {
+            int row = (this.first + index) % capacity();
+            System.arraycopy(rowValues, start, this.values, row * this.numAttributes,
+                    this.numAttributes);
+        }
+
+        /**
+         * Removes the first row, returning it as an instance.
+         */
+        public Instance removeFirst(InstancesHeader header) {
+            int start = this.first * this.numAttributes;
+            Instance inst = new DenseInstance(1.0,
+                    Arrays.copyOfRange(this.values, start, start + this.numAttributes));
+            inst.setDataset(header);
+            this.first = (this.first + 1) % capacity();
+            this.size--;
+            return inst;
+        }
+
+        /**
+         * Removes the first row, appending it to a block.
+         */
+        public void moveFirstTo(InstanceBlock block) {
+            block.addRow(this.values, this.first * this.numAttributes);
+            this.first = (this.first + 1) % capacity();
+            this.size--;
+        }
+    }
 
     @Override
     protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
@@ -107,12 +232,36 @@ public class ImbalancedStream extends AbstractOptionHandler implements
         if(sumProbs != 1.0) throw new IllegalArgumentException("Please make sure the class ratios sum up to 1.0.");
 
 
+        if(classConditionalOption.isSet()){
+            if(!(originalStream instanceof ClassConditionalStream)) throw new IllegalArgumentException("Please make sure the " +
+                    "original stream is a class conditional stream, such as generators.RandomTreeGenerator, when generating classes directly.");
+            conditionalStream = (ClassConditionalStream) originalStream;
+        }else{
+            conditionalStream = null;
+        }
+
         // initializes the buffers using the original header
+        initBuffers();
+        // initializes the random generator
+        random = new Random(instanceRandomSeedOption.getValue());
+    }
+
+    protected void initBuffers() {
         for(int i = 0; i < instancesBuffer.length; i++){
             instancesBuffer[i] = new Instances(originalStream.getHeader());
         }
-        // initializes the random generator
-        random = new Random(instanceRandomSeedOption.getValue());
+        if(BlockStream.isReadByBlocks(originalStream)){
+            rowBuffers = new RowBuffer[numClasses];
+            for(int i = 0; i < rowBuffers.length; i++){
+                rowBuffers[i] = new RowBuffer(originalStream.getHeader().numAttributes());
+            }
+        }
+        originalBlock = null;
+        numSeen = new long[numClasses];
+        bufferRandom = new Random(instanceRandomSeedOption.getValue());
+        numGenerated = 0;
+        numEmitted = 0;
+        numDropped = 0;
     }
 
     @Override
@@ -127,34 +276,178 @@ public class ImbalancedStream extends AbstractOptionHandler implements
 
     @Override
     public boolean hasMoreInstances() {
-        return originalStream.hasMoreInstances();
+        return originalStream.hasMoreInstances()
+                || (originalBlock != null && originalBlockRow < originalBlock.numRows());
     }
 
+    /**
+     * Returns the next instance, or null if the original stream runs out
+     * before an instance of the class drawn comes up.
+     */
     @Override
     public Example<Instance> nextInstance() {
-        // a value between 0.0 and 1.0 uniformly distributed
-        double p   = random.nextDouble();
-        int iClass = -1;
-        // loops over all class probabilities to see from which class the next instance should be from
-        while(p > 0.0){
-            iClass++;
-            p -= probPerClass[iClass];
+        int iClass = nextClass();
+
+        if(conditionalStream != null){
+            if(!conditionalStream.hasMoreInstances()) return null;
+            numEmitted++;
+            numGenerated++;
+            return conditionalStream.nextInstanceOfClass(iClass);
+        }
+
+        if(rowBuffers != null){
+            if(!fillRowBuffer(iClass)) return null;
+            numEmitted++;
+            return new InstanceExample(rowBuffers[iClass].removeFirst(getHeader()));
         }
 
         // keeps on creating and storing instances until we have an instance for the desired class
         while(instancesBuffer[iClass].size() == 0){
+            if(!originalStream.hasMoreInstances()) return null;
             Example<Instance> inst = originalStream.nextInstance();
-            instancesBuffer[(int) inst.getData().classValue()].add(inst.getData());
+            numGenerated++;
+            int instClass = (int) inst.getData().classValue();
+            if(bufferPolicyOption.getChosenIndex() == 0 || instancesBuffer[instClass].size() < maxBufferSizeOption.getValue()){
+                instancesBuffer[instClass].add(inst.getData());
+                numSeen[instClass] = instancesBuffer[instClass].size();
+            }else{
+                int index = replacementIndex(instClass);
+                if(index >= 0) instancesBuffer[instClass].set(index, inst.getData());
+            }
         }
 
         // retrieves the instance from the desired class
         Instance instance = instancesBuffer[iClass].get(0);
         // and also removes it from the buffer
         instancesBuffer[iClass].delete(0);
+        numEmitted++;
 
         return new InstanceExample(instance);
     }
 
+    /**
+     * Returns the next block, cut short if the original stream runs out, or
+     * null once it has.
+     */
+    @Override
+    public InstanceBlock nextBlock() {
+        if(!hasMoreInstances()) return null;
+        InstanceBlock block = new InstanceBlock(getHeader(), InstanceBlock.DEFAULT_NUM_ROWS);
+        while(!block.isFull() && hasMoreInstances()){
+            if(rowBuffers == null || conditionalStream != null){
+                Example<Instance> inst = nextInstance();
+                if(inst == null) break;
+                block.addRow(inst.getData());
+            }else{
+                int iClass = nextClass();
+                if(!fillRowBuffer(iClass)) break;
+                numEmitted++;
+                rowBuffers[iClass].moveFirstTo(block);
+            }
+        }
+        return block.numRows() > 0 ? block : null;
+    }
+
+    /**
+     * Returns whether the instances come from a generator or from the blocks
+     * of the original stream, which blocks keep, rather than from its
+     * instances, whose weights blocks would lose.
+     */
+    @Override
+    public boolean readsBlocks() {
+        return rowBuffers != null || conditionalStream != null;
+    }
+
+    /**
+     * Draws the class of the next instance.
+     */
+    protected int nextClass() {
+        // a value between 0.0 and 1.0 uniformly distributed
+        double p   = random.nextDouble();
+        int iClass = -1;
+        // loops over all class probabilities to see from which class the next instance should be from
+        while(p > 0.0){
+            iClass++;
+            p -= probPerClass[iClass];
+        }
+        return iClass;
+    }
+
+    /**
+     * Buffers the rows of the blocks of the original stream until there is a
+     * row of the desired class.
+     *
+     * @return false if the original stream ran out first
+     */
+    protected boolean fillRowBuffer(int iClass) {
+        while(rowBuffers[iClass].size() == 0){
+            if(originalBlock == null || originalBlockRow == originalBlock.numRows()){
+                originalBlock = originalStream.hasMoreInstances() ? ((BlockStream) originalStream).nextBlock() : null;
+                originalBlockRow = 0;
+                if(originalBlock == null || originalBlock.numRows() == 0) return false;
+            }
+            int row = originalBlockRow++;
+            numGenerated++;
+            int rowClass = (int) originalBlock.classValue(row);
+            RowBuffer buffer = rowBuffers[rowClass];
+            int start = row * originalBlock.numAttributes();
+            if(bufferPolicyOption.getChosenIndex() == 0 || buffer.size() < maxBufferSizeOption.getValue()){
+                buffer.add(originalBlock.values(), start);
+                numSeen[rowClass] = buffer.size();
+            }else{
+                int index = replacementIndex(rowClass);
+                if(index >= 0) buffer.set(index, originalBlock.values(), start);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops an instance of a class whose buffer is full, or, for reservoirs,
+     * chooses the buffered instance it replaces, so that the buffer is a
+     * uniform sample of the instances of the class since it was last full.
+     *
+     * @return the index of the buffered instance to replace, or -1 to drop it
+     */
+    protected int replacementIndex(int iClass) {
+        numDropped++;
+        if(bufferPolicyOption.getChosenIndex() == 2){
+            numSeen[iClass]++;
+            long index = (long) (bufferRandom.nextDouble() * numSeen[iClass]);
+            if(index < maxBufferSizeOption.getValue()) return (int) index;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of instances read from the original stream.
+     */
+    public long getNumGenerated() {
+        return numGenerated;
+    }
+
+    /**
+     * Returns the number of instances of this stream.
+     */
+    public long getNumEmitted() {
+        return numEmitted;
+    }
+
+    /**
+     * Returns the number of instances dropped because their buffer was full.
+     */
+    public long getNumDropped() {
+        return numDropped;
+    }
+
+    /**
+     * Returns the fraction of the instances read from the original stream
+     * that were emitted, or 1 if none was read.
+     */
+    public double getGenerationEfficiency() {
+        return numGenerated == 0 ? 1.0 : (double) numEmitted / (double) numGenerated;
+    }
+
     @Override
     public boolean isRestartable() {
         return originalStream.isRestartable();
@@ -165,12 +458,16 @@ public class ImbalancedStream extends AbstractOptionHandler implements
         this.random = new Random(instanceRandomSeedOption.getValue());
         this.originalStream.restart();
         // initializes the buffers using the original header
-        for(int i = 0; i < instancesBuffer.length; i++){
-            instancesBuffer[i] = new Instances(originalStream.getHeader());
-        }
+        initBuffers();
     }
 
     @Override
-    public void getDescription(StringBuilder sb, int indent) {}
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Instances generated: " + numGenerated);
+        StringUtils.appendNewlineIndented(sb, indent, "Instances emitted: " + numEmitted);
+        StringUtils.appendNewlineIndented(sb, indent, "Instances dropped: " + numDropped);
+        StringUtils.appendNewlineIndented(sb, indent, "Generation efficiency: "
+                + StringUtils.doubleToString(getGenerationEfficiency(), 4));
+    }
 
 }
\ No newline at end of file
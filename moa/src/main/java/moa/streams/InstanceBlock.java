@@ -0,0 +1,145 @@
+/*
+ *    InstanceBlock.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Block of dense instances of weight 1 stored as rows of a primitive array,
+ * one row after the other, with the values of all the attributes of the
+ * header, class included, in the order of the header.
+ *
+ * Blocks are filled by block streams and generators without creating
+ * instance objects; instances are only created for the rows read one by one.
+ *
+ * @see BlockStream
+ */
+public class InstanceBlock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_NUM_ROWS = 4096;
+
+    protected final InstancesHeader header;
+
+    protected final int numAttributes;
+
+    protected final double[] values;
+
+    protected int numRows;
+
+    public InstanceBlock(InstancesHeader header, int capacity) {
+        this.header = header;
+        this.numAttributes = header.numAttributes();
+        this.values = new double[capacity * this.numAttributes];
+    }
+
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    public int numAttributes() {
+        return this.numAttributes;
+    }
+
+    public int capacity() {
+        return this.values.length / this.numAttributes;
+    }
+
+    public int numRows() {
+        return this.numRows;
+    }
+
+    public void setNumRows(int numRows) {
+        this.numRows = numRows;
+    }
+
+    public boolean isFull() {
+        return this.numRows == capacity();
+    }
+
+    /**
+     * Returns the values of the rows; the values of row i start at
+     * i * numAttributes().
+     */
+    public double[] values() {
+        return this.values;
+    }
+
+    public double value(int row, int attIndex) {
+        return this.values[row * this.numAttributes + attIndex];
+    }
+
+    public double classValue(int row) {
+        return value(row, this.header.classIndex());
+    }
+
+    /**
+     * Creates the instance of a row.
+     */
+    public Instance instance(int row) {
+        int start = row * this.numAttributes;
+        Instance inst = new DenseInstance(1.0,
+                Arrays.copyOfRange(this.values, start, start + this.numAttributes));
+        inst.setDataset(this.header);
+        return inst;
+    }
+
+    /**
+     * Appends a row of another block, with the same attributes.
+     */
+    public void addRow(InstanceBlock block, int row) {
+        System.arraycopy(block.values, row * this.numAttributes, this.values,
+                this.numRows * this.numAttributes, this.numAttributes);
+        this.numRows++;
+    }
+
+    /**
+     * Appends a row of values.
+     */
+    public void addRow(double[] rowValues, int start) {
+        System.arraycopy(rowValues, start, this.values,
+                this.numRows * this.numAttributes, this.numAttributes);
+        this.numRows++;
+    }
+
+    /**
+     * Appends the values of an instance with the same attributes.
+     */
+    public void addRow(Instance inst) {
+        int start = this.numRows * this.numAttributes;
+        for (int i = 0; i < this.numAttributes; i++) {
+            this.values[start + i] = inst.value(i);
+        }
+        this.numRows++;
+    }
+
+    /**
+     * Removes the first rows, moving the others to the start of the block.
+     */
+    public void removeRows(int count) {
+        System.arraycopy(this.values, count * this.numAttributes, this.values, 0,
+                (this.numRows - count) * this.numAttributes);
+        this.numRows -= count;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *    ReadAheadStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import moa.AbstractMOAObject;
+import moa.core.Example;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Stream that reads (parses or generates) the examples of another stream on
+ * a separate thread, ahead of the consumer, so that reading overlaps with
+ * learning. The examples are handed over in chunks through a bounded queue,
+ * in the order of the wrapped stream.
+ *
+ * The wrapped stream must not be used by anyone else once wrapped. The
+ * reading thread is stopped by close, or when the wrapped stream (or the
+ * limit of examples to read) is exhausted.
+ */
+public class ReadAheadStream extends AbstractMOAObject implements ExampleStream {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final int CHUNK_SIZE = 64;
+
+    // an empty chunk marks the end of the stream
+    protected static final List<Example> END = Collections.emptyList();
+
+    protected final ExampleStream stream;
+
+    protected final InstancesHeader header;
+
+    protected final int bufferSize;
+
+    protected final transient BlockingQueue<List<Example>> chunks;
+
+    protected transient Thread reader;
+
+    protected List<Example> chunk = new ArrayList<Example>();
+
+    protected int chunkPos;
+
+    protected long examplesTaken;
+
+    protected volatile long examplesRead;
+
+    protected volatile long remainingAfterRead = -1;
+
+    protected volatile RuntimeException readError;
+
+    protected volatile boolean closed;
+
+    /**
+     * Starts reading the stream.
+     *
+     * @param stream the stream to read
+     * @param bufferSize the maximum number of examples read ahead
+     * @param limit the maximum number of examples to read (-1 = no limit)
+     */
+    public ReadAheadStream(ExampleStream stream, int bufferSize, final long limit) {
+        this.stream = stream;
+        this.header = stream.getHeader();
+        this.bufferSize = bufferSize;
+        final int chunkSize = Math.max(1, Math.min(CHUNK_SIZE, bufferSize));
+        this.chunks = new ArrayBlockingQueue<List<Example>>(Math.max(1, bufferSize / chunkSize) + 1);
+        this.reader = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                read(chunkSize, limit);
+            }
+        }, "ReadAheadStream");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    protected void read(int chunkSize, long limit) {
+        try {
+            long read = 0;
+            while (!this.closed && this.stream.hasMoreInstances() && (limit < 0 || read < limit)) {
+                List<Example> examples = new ArrayList<Example>(chunkSize);
+                while (examples.size() < chunkSize && this.stream.hasMoreInstances()
+                        && (limit < 0 || read < limit)) {
+                    examples.add(this.stream.nextInstance());
+                    read++;
+                }
+                this.examplesRead = read;
+                this.remainingAfterRead = this.stream.estimatedRemainingInstances();
+                this.chunks.put(examples);
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (RuntimeException e) {
+            this.readError = e;
+        }
+        try {
+            this.chunks.put(END);
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Stops reading the wrapped stream.
+     */
+    public void close() {
+        this.closed = true;
+        if (this.reader != null) {
+            this.reader.interrupt();
+        }
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        long remaining = this.remainingAfterRead;
+        return remaining < 0 ? remaining : remaining + this.examplesRead - this.examplesTaken;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        while (this.chunkPos == this.chunk.size()) {
+            if (this.chunk == END) {
+                return false;
+            }
+            try {
+                this.chunk = this.chunks.take();
+            } catch (InterruptedException e) {
+                throw new RuntimeException("Interrupted while reading ahead", e);
+            }
+            this.chunkPos = 0;
+            if (this.chunk == END && this.readError != null) {
+                throw this.readError;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Example nextInstance() {
+        if (!hasMoreInstances()) {
+            return null;
+        }
+        this.examplesTaken++;
+        return this.chunk.get(this.chunkPos++);
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return false;
+    }
+
+    @Override
+    public void restart() {
+        throw new UnsupportedOperationException("Read ahead streams cannot restart.");
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        sb.append("Examples of ");
+        sb.append(this.stream.getClass().getSimpleName());
+        sb.append(" read ahead on a separate thread, up to ");
+        sb.append(this.bufferSize);
+        sb.append(" at a time.");
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *    StreamCache.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import moa.core.Example;
+import moa.tasks.TaskMonitor;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+
+/**
+ * Process-wide cache of the instances of streams, shared by all the tasks
+ * reading the same stream, for instance the experiments run at once by
+ * RunExperiments.
+ *
+ * The instances of a stream are read once and kept in primitive arrays, by
+ * blocks of instances, rather than as instance objects. Readers create the
+ * instances they read from these arrays, so each gets its own copies while
+ * the cached values are never duplicated.
+ *
+ * The streams are identified by their command line creation strings. The
+ * cached instances are softly referenced: they are kept while there is
+ * enough memory, or as long as a reader uses them.
+ */
+public class StreamCache {
+
+    protected static final int BLOCK_SIZE = 4096;
+
+    protected static final int INSTANCES_BETWEEN_MONITOR_UPDATES = 10;
+
+    protected static final Map<String, SoftReference<CachedInstances>> cache = new HashMap<String, SoftReference<CachedInstances>>();
+
+    /**
+     * Returns the cached instances of a stream, reading them first if they
+     * are not in the cache. Concurrent calls for the same stream wait for the
+     * instances to be read once. If reading is aborted or fails, the stream
+     * is removed from the cache, and the next call reads it again.
+     *
+     * @param key the command line creation string of the stream
+     * @param stream supplies the prepared stream, only called if the
+     * instances are not in the cache
+     * @param maxInstances the maximum number of instances to read
+     * @param monitor the monitor to report the progress of reading to
+     * @return the cached instances, none if reading was aborted
+     */
+    public static CachedInstances get(String key, Supplier<? extends ExampleStream<Example<Instance>>> stream,
+            int maxInstances, TaskMonitor monitor) {
+        key = key + " (" + maxInstances + " instances)";
+        CachedInstances instances;
+        synchronized (cache) {
+            SoftReference<CachedInstances> reference = cache.get(key);
+            instances = reference == null ? null : reference.get();
+            if (instances == null) {
+                instances = new CachedInstances();
+                cache.put(key, new SoftReference<CachedInstances>(instances));
+            }
+        }
+        boolean complete = false;
+        try {
+            complete = instances.read(stream, maxInstances, monitor);
+        } finally {
+            if (!complete) {
+                synchronized (cache) {
+                    SoftReference<CachedInstances> reference = cache.get(key);
+                    if ((reference != null) && (reference.get() == instances)) {
+                        cache.remove(key);
+                    }
+                }
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * The instances of a stream, stored in blocks of primitive arrays: the
+     * weights, and the values of the instances one after the other, with
+     * their indexes if the instances are sparse.
+     */
+    public static class CachedInstances {
+
+        protected InstancesHeader header;
+
+        protected final List<Block> blocks = new ArrayList<Block>();
+
+        protected int numInstances;
+
+        protected boolean sparse;
+
+        protected boolean complete;
+
+        protected static class Block {
+
+            protected double[] weights = new double[BLOCK_SIZE];
+
+            // values of instance i from offsets[i] to offsets[i + 1]
+            protected int[] offsets = new int[BLOCK_SIZE + 1];
+
+            protected double[] values;
+
+            protected int[] indexes;
+
+            protected void trim(int numRows) {
+                int end = this.offsets[numRows];
+                this.values = Arrays.copyOf(this.values, end);
+                if (this.indexes != null) {
+                    this.indexes = Arrays.copyOf(this.indexes, end);
+                }
+            }
+        }
+
+        public InstancesHeader getHeader() {
+            return this.header;
+        }
+
+        public int numInstances() {
+            return this.numInstances;
+        }
+
+        /**
+         * Reads the instances of the stream, unless they have been read
+         * already (by another reader of the same stream). If reading is
+         * aborted or fails, the instances read so far are dropped, so that
+         * the next reader starts over, but the header is kept.
+         *
+         * @return false if reading was aborted
+         */
+        protected synchronized boolean read(Supplier<? extends ExampleStream<Example<Instance>>> source,
+                int maxInstances, TaskMonitor monitor) {
+            if (this.complete) {
+                return true;
+            }
+            try {
+                ExampleStream<Example<Instance>> stream = source.get();
+                this.header = stream.getHeader();
+                monitor.setCurrentActivity("Caching instances...", -1.0);
+                while ((this.numInstances < maxInstances) && stream.hasMoreInstances()) {
+                    add(stream.nextInstance().getData());
+                    if (this.numInstances % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                        if (monitor.taskShouldAbort()) {
+                            return false;
+                        }
+                        long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                        long maxRemaining = maxInstances - this.numInstances;
+                        if ((estimatedRemainingInstances < 0)
+                                || (maxRemaining < estimatedRemainingInstances)) {
+                            estimatedRemainingInstances = maxRemaining;
+                        }
+                        monitor.setCurrentActivityFractionComplete((double) this.numInstances
+                                / (double) (this.numInstances + estimatedRemainingInstances));
+                    }
+                }
+                if (this.numInstances % BLOCK_SIZE != 0) {
+                    this.blocks.get(this.blocks.size() - 1).trim(this.numInstances % BLOCK_SIZE);
+                }
+                this.complete = true;
+                return true;
+            } finally {
+                if (!this.complete) {
+                    this.blocks.clear();
+                    this.numInstances = 0;
+                }
+            }
+        }
+
+        protected void add(Instance inst) {
+            if (this.numInstances == 0) {
+                this.sparse = inst instanceof SparseInstance;
+            }
+            int row = this.numInstances % BLOCK_SIZE;
+            Block block;
+            if (row == 0) {
+                block = new Block();
+                int capacity = BLOCK_SIZE * (this.sparse ? 16 : inst.numAttributes());
+                block.values = new double[capacity];
+                block.indexes = this.sparse ? new int[capacity] : null;
+                this.blocks.add(block);
+            } else {
+                block = this.blocks.get(this.blocks.size() - 1);
+            }
+            int numValues = this.sparse ? inst.numValues() : inst.numAttributes();
+            int start = block.offsets[row];
+            if (start + numValues > block.values.length) {
+                int capacity = Math.max(2 * block.values.length, start + numValues);
+                block.values = Arrays.copyOf(block.values, capacity);
+                if (this.sparse) {
+                    block.indexes = Arrays.copyOf(block.indexes, capacity);
+                }
+            }
+            for (int i = 0; i < numValues; i++) {
+                if (this.sparse) {
+                    block.values[start + i] = inst.valueSparse(i);
+                    block.indexes[start + i] = inst.index(i);
+                } else {
+                    block.values[start + i] = inst.value(i);
+                }
+            }
+            block.offsets[row + 1] = start + numValues;
+            block.weights[row] = inst.weight();
+            if (row == BLOCK_SIZE - 1) {
+                block.trim(BLOCK_SIZE);
+            }
+            this.numInstances++;
+        }
+
+        /**
+         * Creates a copy of a cached instance.
+         */
+        public Instance instance(int index) {
+            Block block = this.blocks.get(index / BLOCK_SIZE);
+            int row = index % BLOCK_SIZE;
+            int start = block.offsets[row];
+            int end = block.offsets[row + 1];
+            Instance inst;
+            if (this.sparse) {
+                inst = new SparseInstance(block.weights[row],
+                        Arrays.copyOfRange(block.values, start, end),
+                        Arrays.copyOfRange(block.indexes, start, end),
+                        this.header.numAttributes());
+            } else {
+                inst = new DenseInstance(block.weights[row],
+                        Arrays.copyOfRange(block.values, start, end));
+            }
+            inst.setDataset(this.header);
+            return inst;
+        }
+    }
+}
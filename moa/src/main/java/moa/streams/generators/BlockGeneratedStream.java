@@ -0,0 +1,195 @@
+/*
+ *    BlockGeneratedStream.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams.generators;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import moa.core.ComputeExecutor;
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.options.AbstractOptionHandler;
+import moa.options.ClassOption;
+import moa.streams.BlockStream;
+import moa.streams.InstanceBlock;
+import moa.tasks.TaskMonitor;
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Stream of the instances of a generator generated by blocks, on the
+ * reading thread or several blocks at once on the threads of ComputeExecutor.
+ *
+ * The instances are the same whatever the number of threads, since every
+ * block has its own random generator, but they depend on the size of the
+ * blocks, and are not those generated one by one by the generator. The
+ * instances of a generator that cannot generate blocks as prepared, such as
+ * a RandomRBFGeneratorDrift with moving centroids, are generated one by one
+ * on the reading thread.
+ *
+ * @see BlockGenerator
+ */
+public class BlockGeneratedStream extends AbstractOptionHandler implements
+        BlockStream {
+
+    @Override
+    public String getPurposeString() {
+        return "Generates the instances of a generator by blocks, possibly in parallel.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption generatorOption = new ClassOption("generator", 'g',
+            "Generator of the instances.", BlockGenerator.class,
+            "RandomTreeGenerator");
+
+    public IntOption blockSizeOption = new IntOption("blockSize", 'b',
+            "The number of instances per block.", InstanceBlock.DEFAULT_NUM_ROWS,
+            1, Integer.MAX_VALUE);
+
+    public IntOption numThreadsOption = new IntOption("numThreads", 't',
+            "The number of blocks generated at once on the compute threads "
+            + "(0 = as many as compute threads, 1 = generate on the reading thread).",
+            1, 0, Integer.MAX_VALUE);
+
+    protected BlockGenerator generator;
+
+    protected long nextBlockIndex;
+
+    protected InstanceBlock block;
+
+    protected int blockRow;
+
+    // blocks generated at once but not read yet, in order
+    protected ArrayDeque<InstanceBlock> generatedBlocks = new ArrayDeque<InstanceBlock>();
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        this.generator = (BlockGenerator) getPreparedClassOption(this.generatorOption);
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.generator.getHeader();
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        return -1;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return true;
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        if ((this.block == null) || (this.blockRow == this.block.numRows())) {
+            this.block = generateNextBlock();
+            this.blockRow = 0;
+        }
+        return new InstanceExample(this.block.instance(this.blockRow++));
+    }
+
+    @Override
+    public InstanceBlock nextBlock() {
+        InstanceBlock next;
+        if ((this.block != null) && (this.blockRow < this.block.numRows())) {
+            // the rest of the block partly read as instances
+            next = this.block;
+            next.removeRows(this.blockRow);
+        } else {
+            next = generateNextBlock();
+        }
+        this.block = null;
+        return next;
+    }
+
+    protected InstanceBlock generateNextBlock() {
+        if (!this.generatedBlocks.isEmpty()) {
+            return this.generatedBlocks.poll();
+        }
+        if (!this.generator.canGenerateBlocks()) {
+            return generateSequentialBlock();
+        }
+        int numThreads = this.numThreadsOption.getValue();
+        if (numThreads == 0) {
+            numThreads = ComputeExecutor.getNumThreads();
+        }
+        if (numThreads == 1) {
+            return generateBlock(this.nextBlockIndex++);
+        }
+        List<Callable<InstanceBlock>> tasks = new ArrayList<Callable<InstanceBlock>>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            final long blockIndex = this.nextBlockIndex++;
+            tasks.add(() -> generateBlock(blockIndex));
+        }
+        this.generatedBlocks.addAll(ComputeExecutor.invokeAll(
+                getClass().getSimpleName(), tasks, numThreads));
+        return this.generatedBlocks.poll();
+    }
+
+    protected InstanceBlock generateBlock(long blockIndex) {
+        InstanceBlock newBlock = new InstanceBlock(this.generator.getHeader(),
+                this.blockSizeOption.getValue());
+        this.generator.generateBlock(blockIndex, newBlock);
+        return newBlock;
+    }
+
+    /**
+     * Fills a block with the instances generated one by one.
+     */
+    protected InstanceBlock generateSequentialBlock() {
+        InstanceBlock newBlock = new InstanceBlock(this.generator.getHeader(),
+                this.blockSizeOption.getValue());
+        while (!newBlock.isFull()) {
+            newBlock.addRow(this.generator.nextInstance().getData());
+        }
+        return newBlock;
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        if (!this.generator.canGenerateBlocks()) {
+            this.generator.restart();
+        }
+        this.generatedBlocks.clear();
+        this.nextBlockIndex = 0;
+        this.block = null;
+        this.blockRow = 0;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        sb.append("Instances of ");
+        sb.append(this.generatorOption.getValueAsCLIString());
+        sb.append(" generated by blocks of ");
+        sb.append(this.blockSizeOption.getValue());
+        sb.append(" instances.");
+    }
+}
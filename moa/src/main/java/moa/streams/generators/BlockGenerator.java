@@ -0,0 +1,55 @@
+/*
+ *    BlockGenerator.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams.generators;
+
+import moa.streams.InstanceBlock;
+import moa.streams.InstanceStream;
+
+/**
+ * Interface representing a generator that can generate its instances by
+ * blocks, each from its own random generator, so that blocks can be generated
+ * independently, in any order and concurrently.
+ *
+ * The instances of block i depend only on the model of the generator, its
+ * instance seed, i and the size of the blocks. They are not the instances
+ * generated one by one by nextInstance.
+ *
+ * @see moa.core.MiscUtils#blockRandom(long, long)
+ * @see BlockGeneratedStream
+ */
+public interface BlockGenerator extends InstanceStream {
+
+    /**
+     * Fills a block, up to its capacity, with the instances of a block of
+     * the stream. Safe to call concurrently once the generator is prepared.
+     *
+     * @param blockIndex the index of the block in the stream
+     * @param block the block to fill
+     */
+    public void generateBlock(long blockIndex, InstanceBlock block);
+
+    /**
+     * Returns whether the generator, as prepared, can generate its instances
+     * by blocks. Those of generators that cannot are generated one by one.
+     *
+     * @return true if generateBlock can be called
+     */
+    public default boolean canGenerateBlocks() {
+        return true;
+    }
+}
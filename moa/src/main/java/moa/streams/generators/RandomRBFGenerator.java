@@ -29,14 +29,19 @@ import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.SplittableRandom;
 import moa.core.InstanceExample;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.MiscUtils;
+import moa.core.Utils;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
+import moa.streams.ClassConditionalStream;
+import moa.streams.InstanceBlock;
 import moa.streams.InstanceStream;
 import moa.tasks.TaskMonitor;
 
@@ -47,7 +52,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class RandomRBFGenerator extends AbstractOptionHandler implements
-        InstanceStream, CapabilitiesHandler {
+        BlockGenerator, ClassConditionalStream, CapabilitiesHandler {
 
     @Override
     public String getPurposeString() {
@@ -127,8 +132,30 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
 
     @Override
     public InstanceExample nextInstance() {
-        Centroid centroid = this.centroids[MiscUtils.chooseRandomIndexBasedOnWeights(this.centroidWeights,
-                this.instanceRandom)];
+        return nextInstance(this.centroids[MiscUtils.chooseRandomIndexBasedOnWeights(this.centroidWeights,
+                this.instanceRandom)]);
+    }
+
+    /**
+     * Generates an instance of a class, around one of the centroids of the
+     * class chosen by their weights.
+     */
+    @Override
+    public InstanceExample nextInstanceOfClass(int classValue) {
+        double[] classWeights = new double[this.centroids.length];
+        for (int i = 0; i < this.centroids.length; i++) {
+            if (this.centroids[i].classLabel == classValue) {
+                classWeights[i] = this.centroidWeights[i];
+            }
+        }
+        if (Utils.sum(classWeights) <= 0.0) {
+            throw new IllegalArgumentException("No centroid of class " + classValue + ".");
+        }
+        return nextInstance(this.centroids[MiscUtils.chooseRandomIndexBasedOnWeights(classWeights,
+                this.instanceRandom)]);
+    }
+
+    protected InstanceExample nextInstance(Centroid centroid) {
         int numAtts = this.numAttsOption.getValue();
         double[] attVals = new double[numAtts + 1];
         for (int i = 0; i < numAtts; i++) {
@@ -151,6 +178,41 @@ public class RandomRBFGenerator extends AbstractOptionHandler implements
         return new InstanceExample(inst);
     }
 
+    @Override
+    public void generateBlock(long blockIndex, InstanceBlock block) {
+        SplittableRandom random = MiscUtils.blockRandom(
+                this.instanceRandomSeedOption.getValue(), blockIndex);
+        double[] cumulativeWeights = new double[this.centroidWeights.length];
+        double weightSum = 0.0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            weightSum += this.centroidWeights[i];
+            cumulativeWeights[i] = weightSum;
+        }
+        int numAtts = this.numAttsOption.getValue();
+        double[] values = block.values();
+        int numRows = block.capacity();
+        for (int row = 0, start = 0; row < numRows; row++, start += numAtts + 1) {
+            // first centroid whose cumulative weight exceeds the draw
+            int index = Arrays.binarySearch(cumulativeWeights,
+                    random.nextDouble() * weightSum);
+            index = index < 0 ? -index - 1 : index + 1;
+            Centroid centroid = this.centroids[Math.min(index, this.centroids.length - 1)];
+            double magnitude = 0.0;
+            for (int i = 0; i < numAtts; i++) {
+                double val = (random.nextDouble() * 2.0) - 1.0;
+                values[start + i] = val;
+                magnitude += val * val;
+            }
+            magnitude = Math.sqrt(magnitude);
+            double scale = MiscUtils.nextGaussian(random) * centroid.stdDev / magnitude;
+            for (int i = 0; i < numAtts; i++) {
+                values[start + i] = centroid.centre[i] + values[start + i] * scale;
+            }
+            values[start + numAtts] = centroid.classLabel;
+        }
+        block.setNumRows(numRows);
+    }
+
     protected void generateHeader() {
         FastVector attributes = new FastVector();
         for (int i = 0; i < this.numAttsOption.getValue(); i++) {
@@ -24,6 +24,7 @@ import java.util.Random;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.core.InstanceExample;
+import moa.streams.InstanceBlock;
 
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.FloatOption;
@@ -53,6 +54,17 @@ public class RandomRBFGeneratorDrift extends RandomRBFGenerator {
 
     @Override
     public InstanceExample nextInstance() {
+        moveCentroids();
+        return super.nextInstance();
+    }
+
+    @Override
+    public InstanceExample nextInstanceOfClass(int classValue) {
+        moveCentroids();
+        return super.nextInstanceOfClass(classValue);
+    }
+
+    protected void moveCentroids() {
         //Update Centroids with drift
         int len = this.numDriftCentroidsOption.getValue();
         if (len > this.centroids.length) {
@@ -71,7 +83,22 @@ public class RandomRBFGeneratorDrift extends RandomRBFGenerator {
                 }
             }
         }
-        return super.nextInstance();
+    }
+
+    @Override
+    public void generateBlock(long blockIndex, InstanceBlock block) {
+        if (!canGenerateBlocks()) {
+            throw new UnsupportedOperationException(
+                    "Drifting centroids cannot be generated by blocks.");
+        }
+        super.generateBlock(blockIndex, block);
+    }
+
+    @Override
+    public boolean canGenerateBlocks() {
+        // the centroids of a block depend on all the instances before it
+        return (this.speedChangeOption.getValue() == 0.0)
+                || (this.numDriftCentroidsOption.getValue() == 0);
     }
 
     @Override
@@ -30,14 +30,20 @@ import com.yahoo.labs.samoa.instances.Instances;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 import moa.core.InstanceExample;
+import moa.core.MiscUtils;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.ClassConditionalStream;
+import moa.streams.InstanceBlock;
 import moa.streams.InstanceStream;
 import moa.tasks.TaskMonitor;
 
@@ -48,7 +54,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class RandomTreeGenerator extends AbstractOptionHandler implements
-        InstanceStream, CapabilitiesHandler {
+        BlockGenerator, ClassConditionalStream, CapabilitiesHandler {
 
     @Override
     public String getPurposeString() {
@@ -107,8 +113,29 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
         public Node[] children;
     }
 
+    /**
+     * Region of the instance space covered by a leaf: the values of the
+     * nominal attributes tested on the path to the leaf (-1 for the others),
+     * and the ranges of the numeric attributes.
+     */
+    protected static class LeafRegion implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        public int[] nominalVals;
+
+        public double[] minNumericVals;
+
+        public double[] maxNumericVals;
+    }
+
     protected Node treeRoot;
 
+    // the leaf regions of each class, and their probabilities
+    protected transient LeafRegion[][] classLeafRegions;
+
+    protected transient double[][] classLeafProbabilities;
+
     protected InstancesHeader streamHeader;
 
     protected Random instanceRandom;
@@ -119,6 +146,7 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
         monitor.setCurrentActivity("Preparing random tree...", -1.0);
         generateHeader();
         generateRandomTree();
+        this.classLeafRegions = null;
         restart();
     }
 
@@ -163,17 +191,137 @@ public class RandomTreeGenerator extends AbstractOptionHandler implements
         return new InstanceExample(inst);
     }
 
-    protected int classifyInstance(Node node, double[] attVals) {
+    /**
+     * Generates an instance of a class: chooses one of the leaves of the class
+     * by the probability of its region, and draws the instance uniformly in
+     * the region.
+     */
+    @Override
+    public InstanceExample nextInstanceOfClass(int classValue) {
+        if (this.classLeafRegions == null) {
+            findLeafRegions();
+        }
+        if (this.classLeafRegions[classValue].length == 0) {
+            throw new IllegalArgumentException("No leaf of class " + classValue + ".");
+        }
+        LeafRegion region = this.classLeafRegions[classValue][MiscUtils.chooseRandomIndexBasedOnWeights(
+                this.classLeafProbabilities[classValue], this.instanceRandom)];
+        int numNominals = this.numNominalsOption.getValue();
+        InstancesHeader header = getHeader();
+        Instance inst = new DenseInstance(header.numAttributes());
+        for (int i = 0; i < numNominals; i++) {
+            inst.setValue(i, region.nominalVals[i] >= 0 ? region.nominalVals[i]
+                    : this.instanceRandom.nextInt(this.numValsPerNominalOption.getValue()));
+        }
+        for (int i = 0; i < this.numNumericsOption.getValue(); i++) {
+            double minVal = region.minNumericVals[i];
+            inst.setValue(numNominals + i, minVal
+                    + (region.maxNumericVals[i] - minVal) * this.instanceRandom.nextDouble());
+        }
+        inst.setDataset(header);
+        inst.setClassValue(classValue);
+        return new InstanceExample(inst);
+    }
+
+    protected void findLeafRegions() {
+        List<List<LeafRegion>> regions = new ArrayList<List<LeafRegion>>();
+        List<List<Double>> probabilities = new ArrayList<List<Double>>();
+        for (int i = 0; i < this.numClassesOption.getValue(); i++) {
+            regions.add(new ArrayList<LeafRegion>());
+            probabilities.add(new ArrayList<Double>());
+        }
+        LeafRegion rootRegion = new LeafRegion();
+        rootRegion.nominalVals = new int[this.numNominalsOption.getValue()];
+        Arrays.fill(rootRegion.nominalVals, -1);
+        rootRegion.minNumericVals = new double[this.numNumericsOption.getValue()];
+        rootRegion.maxNumericVals = new double[this.numNumericsOption.getValue()];
+        Arrays.fill(rootRegion.maxNumericVals, 1.0);
+        findLeafRegions(this.treeRoot, rootRegion, regions, probabilities);
+        this.classLeafRegions = new LeafRegion[regions.size()][];
+        this.classLeafProbabilities = new double[regions.size()][];
+        for (int i = 0; i < regions.size(); i++) {
+            this.classLeafRegions[i] = regions.get(i).toArray(new LeafRegion[0]);
+            this.classLeafProbabilities[i] = new double[probabilities.get(i).size()];
+            for (int j = 0; j < this.classLeafProbabilities[i].length; j++) {
+                this.classLeafProbabilities[i][j] = probabilities.get(i).get(j);
+            }
+        }
+    }
+
+    protected void findLeafRegions(Node node, LeafRegion region,
+            List<List<LeafRegion>> regions, List<List<Double>> probabilities) {
         if (node.children == null) {
-            return node.classLabel;
+            // the attributes are independent and uniformly distributed
+            double probability = 1.0;
+            for (int nominalVal : region.nominalVals) {
+                if (nominalVal >= 0) {
+                    probability /= this.numValsPerNominalOption.getValue();
+                }
+            }
+            for (int i = 0; i < region.minNumericVals.length; i++) {
+                probability *= region.maxNumericVals[i] - region.minNumericVals[i];
+            }
+            regions.get(node.classLabel).add(region);
+            probabilities.get(node.classLabel).add(probability);
+            return;
+        }
+        int numNominals = this.numNominalsOption.getValue();
+        for (int i = 0; i < node.children.length; i++) {
+            LeafRegion childRegion = new LeafRegion();
+            childRegion.nominalVals = region.nominalVals.clone();
+            childRegion.minNumericVals = region.minNumericVals.clone();
+            childRegion.maxNumericVals = region.maxNumericVals.clone();
+            if (node.splitAttIndex < numNominals) {
+                childRegion.nominalVals[node.splitAttIndex] = i;
+            } else if (i == 0) {
+                childRegion.maxNumericVals[node.splitAttIndex - numNominals] = node.splitAttValue;
+            } else {
+                childRegion.minNumericVals[node.splitAttIndex - numNominals] = node.splitAttValue;
+            }
+            findLeafRegions(node.children[i], childRegion, regions, probabilities);
+        }
+    }
+
+    protected int classifyInstance(Node node, double[] attVals) {
+        return classifyInstance(node, attVals, 0);
+    }
+
+    /**
+     * Classifies the instance whose values start at a position of an array,
+     * walking down the tree iteratively.
+     */
+    protected int classifyInstance(Node node, double[] values, int start) {
+        int numNominals = this.numNominalsOption.getValue();
+        while (node.children != null) {
+            double val = values[start + node.splitAttIndex];
+            if (node.splitAttIndex < numNominals) {
+                node = node.children[(int) val];
+            } else {
+                node = node.children[val < node.splitAttValue ? 0 : 1];
+            }
         }
-        if (node.splitAttIndex < this.numNominalsOption.getValue()) {
-            return classifyInstance(
-                    node.children[(int) attVals[node.splitAttIndex]], attVals);
+        return node.classLabel;
+    }
+
+    @Override
+    public void generateBlock(long blockIndex, InstanceBlock block) {
+        SplittableRandom random = MiscUtils.blockRandom(
+                this.instanceRandomSeedOption.getValue(), blockIndex);
+        int numNominals = this.numNominalsOption.getValue();
+        int numAtts = numNominals + this.numNumericsOption.getValue();
+        int numValsPerNominal = this.numValsPerNominalOption.getValue();
+        double[] values = block.values();
+        int numRows = block.capacity();
+        for (int row = 0, start = 0; row < numRows; row++, start += numAtts + 1) {
+            for (int i = 0; i < numNominals; i++) {
+                values[start + i] = random.nextInt(numValsPerNominal);
+            }
+            for (int i = numNominals; i < numAtts; i++) {
+                values[start + i] = random.nextDouble();
+            }
+            values[start + numAtts] = classifyInstance(this.treeRoot, values, start);
         }
-        return classifyInstance(
-                node.children[attVals[node.splitAttIndex] < node.splitAttValue ? 0
-                : 1], attVals);
+        block.setNumRows(numRows);
     }
 
     protected void generateHeader() {
@@ -29,13 +29,16 @@ import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 import moa.core.InstanceExample;
+import moa.core.MiscUtils;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.InstanceBlock;
 import moa.streams.InstanceStream;
 import moa.tasks.TaskMonitor;
 
@@ -54,7 +57,7 @@ import moa.tasks.TaskMonitor;
  * @version $Revision: 7 $
  */
 public class SEAGenerator extends AbstractOptionHandler implements
-        InstanceStream, CapabilitiesHandler {
+        BlockGenerator, CapabilitiesHandler {
 
     @Override
     public String getPurposeString() {
@@ -204,6 +207,41 @@ public class SEAGenerator extends AbstractOptionHandler implements
         return new InstanceExample(inst);
     }
 
+    /**
+     * Generates a block of instances. When the classes are balanced, they
+     * alternate within each block, starting with the second class.
+     */
+    @Override
+    public void generateBlock(long blockIndex, InstanceBlock block) {
+        SplittableRandom random = MiscUtils.blockRandom(
+                this.instanceRandomSeedOption.getValue(), blockIndex);
+        ClassFunction function = classificationFunctions[this.functionOption.getValue() - 1];
+        boolean balanceClasses = this.balanceClassesOption.isSet();
+        int noisePercentage = this.noisePercentageOption.getValue();
+        boolean nextClassShouldBeZero = false;
+        double[] values = block.values();
+        int numRows = block.capacity();
+        for (int row = 0, start = 0; row < numRows; row++, start += 4) {
+            double attrib1, attrib2, attrib3;
+            int group;
+            do {
+                attrib1 = 10 * random.nextDouble();
+                attrib2 = 10 * random.nextDouble();
+                attrib3 = 10 * random.nextDouble();
+                group = function.determineClass(attrib1, attrib2, attrib3);
+            } while (balanceClasses && (group == 0) != nextClassShouldBeZero);
+            nextClassShouldBeZero = !nextClassShouldBeZero;
+            if ((1 + random.nextInt(100)) <= noisePercentage) {
+                group = (group == 0 ? 1 : 0);
+            }
+            values[start] = attrib1;
+            values[start + 1] = attrib2;
+            values[start + 2] = attrib3;
+            values[start + 3] = group;
+        }
+        block.setNumRows(numRows);
+    }
+
     @Override
     public void restart() {
         this.instanceRandom = new Random(this.instanceRandomSeedOption.getValue());
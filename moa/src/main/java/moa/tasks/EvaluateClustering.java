@@ -62,6 +62,13 @@ public class EvaluateClustering extends AuxiliarMainTask {
     public FlagOption silhouetteOption = new FlagOption("Silhouette", 'h', "SilhCoeff.");
     
     public FlagOption statisticalOption = new FlagOption("Statistical", 't', "van Dongen, Rand statistic.");
+
+    public FlagOption parallelOption = new FlagOption("parallel", 'P',
+            "Compute the measures in parallel on the compute executor.");
+
+    public IntOption silhouetteSampleSizeOption = new IntOption("silhouetteSampleSize", 'z',
+            "Number of points, drawn at random, whose silhouette is averaged to approximate the coefficient (0 = all points).",
+            0, 0, Integer.MAX_VALUE);
        
     /*public ClassOption evaluatorOption = new ClassOption("evaluator", 'e',
     "Performance evaluation method.",
@@ -124,7 +131,9 @@ public class EvaluateClustering extends AuxiliarMainTask {
                 (AbstractClusterer) getPreparedClassOption(this.learnerOption),
                 measureCollection,
                 (int) this.instanceLimitOption.getValue(),
-                (String) dumpFileOption.getValue());
+                (String) dumpFileOption.getValue(),
+                this.parallelOption.isSet(),
+                this.silhouetteSampleSizeOption.getValue());
 
         LearningCurve learningCurve = new LearningCurve("EvaluateClustering does not support custom output file (> [filename]).\n" +
         												"Check out the dump file to see the results (if you haven't specified, dumpClustering.csv by default).");
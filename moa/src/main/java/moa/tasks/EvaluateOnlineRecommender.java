@@ -130,6 +130,8 @@ public class EvaluateOnlineRecommender extends AuxiliarMainTask {
                 }
             }
         }
+        // apply the updates still pending, so the predictor holds the whole stream
+        rp.flushUpdates();
         //System.out.println(n + " " + Math.sqrt(sum/(double)n));
         //metrics.add(new TestMetric("RMSE (" + n +")", Math.sqrt(sum/(double)n)));
        // long trainingTime = System.currentTimeMillis() - start - evalTime;
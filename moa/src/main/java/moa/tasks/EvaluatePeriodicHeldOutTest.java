@@ -25,6 +25,10 @@ import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
@@ -32,7 +36,9 @@ import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.core.ComputeExecutor;
 import moa.core.Example;
+import moa.core.InstanceExample;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
 import moa.core.StringUtils;
@@ -44,6 +50,7 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 import moa.streams.CachedInstancesStream;
 import moa.streams.ExampleStream;
+import moa.streams.InstanceBlock;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 
@@ -96,6 +103,102 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
     public FlagOption cacheTestOption = new FlagOption("cacheTest", 'c',
             "Cache test instances in memory.");
 
+    public IntOption testJobsOption = new IntOption("testJobs", 'j',
+            "Number of jobs testing on the cached test instances in parallel, each on"
+            + " its own copy of the learner (1 = on the training thread).",
+            1, 1, Integer.MAX_VALUE);
+
+    public FlagOption testInBackgroundOption = new FlagOption("testInBackground", 'b',
+            "Test a copy of the learner on the cached test instances while training goes on.");
+
+    /**
+     * Test of a learner on the cached test instances, partitioned between
+     * jobs. The predictions are added to the evaluator in the order of the
+     * test instances, as when testing serially.
+     */
+    protected static class HeldOutTest {
+
+        protected final long instancesProcessed;
+
+        protected final double totalTrainTime;
+
+        protected final double lastTrainTime;
+
+        protected final Learner learner;
+
+        // learner of each job: the first job tests the learner, the others
+        // copies made on the thread creating the test, as the learner may be
+        // trained while the test runs
+        protected final Learner[] jobLearners;
+
+        protected double[][] predictions;
+
+        protected double testTime;
+
+        protected HeldOutTest(long instancesProcessed, double totalTrainTime,
+                double lastTrainTime, Learner learner, int jobs) {
+            this.instancesProcessed = instancesProcessed;
+            this.totalTrainTime = totalTrainTime;
+            this.lastTrainTime = lastTrainTime;
+            this.learner = learner;
+            this.jobLearners = new Learner[jobs];
+            this.jobLearners[0] = learner;
+            for (int job = 1; job < jobs; job++) {
+                this.jobLearners[job] = (Learner) learner.copy();
+            }
+        }
+
+        /**
+         * Tests the learners of the jobs in parallel.
+         *
+         * @return this test, or null if the task was aborted meanwhile
+         */
+        protected HeldOutTest run(InstanceBlock testBlock, double[] testWeights,
+                TaskMonitor monitor) {
+            long testStartTime = System.nanoTime();
+            int numRows = testBlock.numRows();
+            int jobs = this.jobLearners.length;
+            this.predictions = new double[numRows][];
+            AtomicBoolean aborted = new AtomicBoolean();
+            List<Callable<Object>> parts = new ArrayList<Callable<Object>>();
+            for (int job = 0; job < jobs; job++) {
+                final int start = (int) ((long) numRows * job / jobs);
+                final int end = (int) ((long) numRows * (job + 1) / jobs);
+                final Learner partLearner = this.jobLearners[job];
+                parts.add(Executors.callable(() -> {
+                    for (int row = start; row < end; row++) {
+                        this.predictions[row] = partLearner.getVotesForInstance(
+                                testInstance(testBlock, testWeights, row));
+                        if ((row - start + 1) % INSTANCES_BETWEEN_MONITOR_UPDATES == 0
+                                && (aborted.get() || monitor.taskShouldAbort())) {
+                            aborted.set(true);
+                            return;
+                        }
+                    }
+                }));
+            }
+            ComputeExecutor.invokeAll("EvaluatePeriodicHeldOutTest", parts, jobs);
+            this.testTime = TimingUtils.nanoTimeToSeconds(System.nanoTime() - testStartTime);
+            return aborted.get() ? null : this;
+        }
+
+        protected void addResults(LearningPerformanceEvaluator evaluator,
+                InstanceBlock testBlock, double[] testWeights) {
+            evaluator.reset();
+            for (int row = 0; row < this.predictions.length; row++) {
+                evaluator.addResult(testInstance(testBlock, testWeights, row),
+                        this.predictions[row]);
+            }
+        }
+    }
+
+    protected static InstanceExample testInstance(InstanceBlock testBlock,
+            double[] testWeights, int row) {
+        Instance inst = testBlock.instance(row);
+        inst.setWeight(testWeights[row]);
+        return new InstanceExample(inst);
+    }
+
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
@@ -120,10 +223,31 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
                         "Unable to open immediate result file: " + dumpFile, ex);
             }
         }
-        boolean firstDump = true;
         ExampleStream testStream = null;
         int testSize = this.testSizeOption.getValue();
-        if (this.cacheTestOption.isSet()) {
+        boolean testInParallel = this.cacheTestOption.isSet()
+                && (this.testJobsOption.getValue() > 1 || this.testInBackgroundOption.isSet());
+        InstanceBlock testBlock = null;
+        double[] testWeights = null;
+        if (testInParallel) {
+            // test instances are cached as rows of primitive values
+            monitor.setCurrentActivity("Caching test examples...", -1.0);
+            testBlock = new InstanceBlock(stream.getHeader(), testSize);
+            testWeights = new double[testSize];
+            while (testBlock.numRows() < testSize) {
+                Instance testInstance = (Instance) stream.nextInstance().getData();
+                testWeights[testBlock.numRows()] = testInstance.weight();
+                testBlock.addRow(testInstance);
+                if (testBlock.numRows()
+                        % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        return null;
+                    }
+                    monitor.setCurrentActivityFractionComplete((double) testBlock.numRows()
+                            / (double) (this.testSizeOption.getValue()));
+                }
+            }
+        } else if (this.cacheTestOption.isSet()) {
             monitor.setCurrentActivity("Caching test examples...", -1.0);
             Instances testInstances = new Instances(stream.getHeader(),
                     this.testSizeOption.getValue());
@@ -147,6 +271,10 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
             stream.nextInstance();
             }*/
         }
+        final InstanceBlock cachedBlock = testBlock;
+        final double[] cachedWeights = testWeights;
+        final int testJobs = this.testJobsOption.getValue();
+        CompletableFuture<HeldOutTest> pendingTest = null;
         instancesProcessed = 0;
         TimingUtils.enablePreciseTiming();
         double totalTrainTime = 0.0;
@@ -174,74 +302,81 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
             if (totalTrainTime > this.trainTimeOption.getValue()) {
                 break;
             }
-	    if (this.cacheTestOption.isSet()) {
-                testStream.restart();
-            } 
-            evaluator.reset();
-            long testInstancesProcessed = 0;
-            monitor.setCurrentActivityDescription("Testing (after "
-                    + StringUtils.doubleToString(
-                    ((double) (instancesProcessed)
-                    / (double) (this.trainSizeOption.getValue()) * 100.0), 2)
-                    + "% training)...");
-            long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-            int instCount = 0 ;
-            for (instCount = 0; instCount < testSize; instCount++) {
-				if (stream.hasMoreInstances() == false) {
-					break;
-				}
-                Example testInst = (Example) testStream.nextInstance(); //.copy();
-                double trueClass = ((Instance) testInst.getData()).classValue();
-                //testInst.setClassMissing();
-                double[] prediction = learner.getVotesForInstance(testInst);
-                //testInst.setClassValue(trueClass);
-                evaluator.addResult(testInst, prediction);
-                testInstancesProcessed++;
-                if (testInstancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                    if (monitor.taskShouldAbort()) {
+            Measurement[] entry;
+            if (testInParallel) {
+                if (stream.hasMoreInstances() == false) {
+                    break;
+                }
+                if (this.testInBackgroundOption.isSet()) {
+                    // tests a snapshot of the learner, and records the test
+                    // of the previous snapshot
+                    HeldOutTest test = new HeldOutTest(instancesProcessed, totalTrainTime,
+                            lastTrainTime, (Learner) learner.copy(), testJobs);
+                    CompletableFuture<HeldOutTest> previousTest = pendingTest;
+                    pendingTest = ComputeExecutor.submit("EvaluatePeriodicHeldOutTest",
+                            () -> test.run(cachedBlock, cachedWeights, monitor));
+                    if (previousTest == null) {
+                        continue;
+                    }
+                    HeldOutTest previous = previousTest.join();
+                    if (previous == null) {
+                        return null;
+                    }
+                    entry = getMeasurements(previous, evaluator, testBlock, testWeights);
+                } else {
+                    monitor.setCurrentActivityDescription("Testing (after "
+                            + StringUtils.doubleToString(
+                            ((double) (instancesProcessed)
+                            / (double) (this.trainSizeOption.getValue()) * 100.0), 2)
+                            + "% training)...");
+                    HeldOutTest test = new HeldOutTest(instancesProcessed, totalTrainTime,
+                            lastTrainTime, learner, testJobs).run(testBlock, testWeights, monitor);
+                    if (test == null) {
                         return null;
                     }
-                    monitor.setCurrentActivityFractionComplete((double) testInstancesProcessed
-                            / (double) (testSize));
+                    entry = getMeasurements(test, evaluator, testBlock, testWeights);
                 }
-            }
-        	if ( instCount != testSize) {
-				break;
-			}
-            double testTime = TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                    - testStartTime);
-            List<Measurement> measurements = new ArrayList<Measurement>();
-            measurements.add(new Measurement("evaluation instances",            		
-                    instancesProcessed));
-            measurements.add(new Measurement("total train time", totalTrainTime));
-            measurements.add(new Measurement("total train speed",
-                    instancesProcessed / totalTrainTime));
-            measurements.add(new Measurement("last train time", lastTrainTime));
-            measurements.add(new Measurement("last train speed",
-                    this.sampleFrequencyOption.getValue() / lastTrainTime));
-            measurements.add(new Measurement("test time", testTime));
-            measurements.add(new Measurement("test speed", this.testSizeOption.getValue()
-                    / testTime));
-            Measurement[] performanceMeasurements = evaluator.getPerformanceMeasurements();
-            for (Measurement measurement : performanceMeasurements) {
-                measurements.add(measurement);
-            }
-            Measurement[] modelMeasurements = learner.getModelMeasurements();
-            for (Measurement measurement : modelMeasurements) {
-                measurements.add(measurement);
-            }
-            learningCurve.insertEntry(new LearningEvaluation(measurements.toArray(new Measurement[measurements.size()])));
-            if (immediateResultStream != null) {
-                if (firstDump) {
-                    immediateResultStream.println(learningCurve.headerToString());
-                    firstDump = false;
+            } else {
+                if (this.cacheTestOption.isSet()) {
+                    testStream.restart();
                 }
-                immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
-                immediateResultStream.flush();
-            }
-            if (monitor.resultPreviewRequested()) {
-                monitor.setLatestResultPreview(learningCurve.copy());
+                evaluator.reset();
+                long testInstancesProcessed = 0;
+                monitor.setCurrentActivityDescription("Testing (after "
+                        + StringUtils.doubleToString(
+                        ((double) (instancesProcessed)
+                        / (double) (this.trainSizeOption.getValue()) * 100.0), 2)
+                        + "% training)...");
+                long testStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                int instCount = 0 ;
+                for (instCount = 0; instCount < testSize; instCount++) {
+                    if (stream.hasMoreInstances() == false) {
+                        break;
+                    }
+                    Example testInst = (Example) testStream.nextInstance(); //.copy();
+                    double trueClass = ((Instance) testInst.getData()).classValue();
+                    //testInst.setClassMissing();
+                    double[] prediction = learner.getVotesForInstance(testInst);
+                    //testInst.setClassValue(trueClass);
+                    evaluator.addResult(testInst, prediction);
+                    testInstancesProcessed++;
+                    if (testInstancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                        if (monitor.taskShouldAbort()) {
+                            return null;
+                        }
+                        monitor.setCurrentActivityFractionComplete((double) testInstancesProcessed
+                                / (double) (testSize));
+                    }
+                }
+                if ( instCount != testSize) {
+                    break;
+                }
+                double testTime = TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                        - testStartTime);
+                entry = getMeasurements(instancesProcessed, totalTrainTime,
+                        lastTrainTime, testTime, evaluator, learner);
             }
+            insertEntry(learningCurve, entry, immediateResultStream, monitor);
             // if (learner instanceof HoeffdingTree
             // || learner instanceof HoeffdingOptionTree) {
             // int numActiveNodes = (int) Measurement.getMeasurementNamed(
@@ -282,12 +417,68 @@ public class EvaluatePeriodicHeldOutTest extends ClassificationMainTask {
             // lastNumNodes = numNodes;
             // }
         }
+        if (pendingTest != null) {
+            HeldOutTest test = pendingTest.join();
+            if (test == null) {
+                return null;
+            }
+            insertEntry(learningCurve, getMeasurements(test, evaluator,
+                    testBlock, testWeights), immediateResultStream, monitor);
+        }
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
         return learningCurve;
     }
 
+    protected Measurement[] getMeasurements(long instancesProcessed, double totalTrainTime,
+            double lastTrainTime, double testTime, LearningPerformanceEvaluator evaluator,
+            Learner learner) {
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        measurements.add(new Measurement("evaluation instances",            		
+                instancesProcessed));
+        measurements.add(new Measurement("total train time", totalTrainTime));
+        measurements.add(new Measurement("total train speed",
+                instancesProcessed / totalTrainTime));
+        measurements.add(new Measurement("last train time", lastTrainTime));
+        measurements.add(new Measurement("last train speed",
+                this.sampleFrequencyOption.getValue() / lastTrainTime));
+        measurements.add(new Measurement("test time", testTime));
+        measurements.add(new Measurement("test speed", this.testSizeOption.getValue()
+                / testTime));
+        Measurement[] performanceMeasurements = evaluator.getPerformanceMeasurements();
+        for (Measurement measurement : performanceMeasurements) {
+            measurements.add(measurement);
+        }
+        Measurement[] modelMeasurements = learner.getModelMeasurements();
+        for (Measurement measurement : modelMeasurements) {
+            measurements.add(measurement);
+        }
+        return measurements.toArray(new Measurement[measurements.size()]);
+    }
+
+    protected Measurement[] getMeasurements(HeldOutTest test, LearningPerformanceEvaluator evaluator,
+            InstanceBlock testBlock, double[] testWeights) {
+        test.addResults(evaluator, testBlock, testWeights);
+        return getMeasurements(test.instancesProcessed, test.totalTrainTime,
+                test.lastTrainTime, test.testTime, evaluator, test.learner);
+    }
+
+    protected void insertEntry(LearningCurve learningCurve, Measurement[] entry,
+            PrintStream immediateResultStream, TaskMonitor monitor) {
+        learningCurve.insertEntry(new LearningEvaluation(entry));
+        if (immediateResultStream != null) {
+            if (learningCurve.numEntries() == 1) {
+                immediateResultStream.println(learningCurve.headerToString());
+            }
+            immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+            immediateResultStream.flush();
+        }
+        if (monitor.resultPreviewRequested()) {
+            monitor.setLatestResultPreview(learningCurve.copy());
+        }
+    }
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
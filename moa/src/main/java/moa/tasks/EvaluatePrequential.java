@@ -22,12 +22,14 @@ package moa.tasks;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.MultiClassClassifier;
+import moa.core.AsyncOutputStream;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -45,6 +47,7 @@ import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import moa.streams.ExampleStream;
+import moa.streams.ReadAheadStream;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
 
@@ -100,6 +103,14 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
     public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
             "File to append output predictions to.", null, "pred", true);
 
+    public FileOption curveFileOption = new FileOption("curveFile", 'c',
+            "File to spill the learning curve to as it grows, keeping only its latest entries in memory.",
+            null, "curve", true);
+
+    public IntOption pipelineBufferSizeOption = new IntOption("pipelineBufferSize", 'p',
+            "How many instances to read ahead on a separate thread, which also writes the output files (0 = no pipelining).",
+            0, 0, Integer.MAX_VALUE);
+
     //New for prequential method DEPRECATED
     public IntOption widthOption = new IntOption("width",
             'w', "Size of Window", 1000);
@@ -147,130 +158,168 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
 
         learner.setModelContext(stream.getHeader());
         int maxInstances = this.instanceLimitOption.getValue();
-        long instancesProcessed = 0;
-        int maxSeconds = this.timeLimitOption.getValue();
-        int secondsElapsed = 0;
-        monitor.setCurrentActivity("Evaluating learner...", -1.0);
+        // with pipelining, the stream is read (and the files are written)
+        // concurrently, while the learner still tests then trains in order
+        boolean pipelined = this.pipelineBufferSizeOption.getValue() > 0;
+        ReadAheadStream readAheadStream = null;
+        if (pipelined) {
+            readAheadStream = new ReadAheadStream(stream, this.pipelineBufferSizeOption.getValue(), maxInstances);
+            stream = readAheadStream;
+        }
+        // the reading thread is stopped whether the evaluation completes or fails
+        try {
+            long instancesProcessed = 0;
+            int maxSeconds = this.timeLimitOption.getValue();
+            int secondsElapsed = 0;
+            monitor.setCurrentActivity("Evaluating learner...", -1.0);
 
-        File dumpFile = this.dumpFileOption.getFile();
-        PrintStream immediateResultStream = null;
-        if (dumpFile != null) {
-            try {
-                if (dumpFile.exists()) {
-                    immediateResultStream = new PrintStream(
-                            new FileOutputStream(dumpFile, true), true);
-                } else {
-                    immediateResultStream = new PrintStream(
-                            new FileOutputStream(dumpFile), true);
+            File curveFile = this.curveFileOption.getFile();
+            if (curveFile != null) {
+                try {
+                    learningCurve.spillTo(curveFile);
+                } catch (Exception ex) {
+                    throw new RuntimeException(
+                            "Unable to open learning curve file: " + curveFile, ex);
                 }
-            } catch (Exception ex) {
-                throw new RuntimeException(
-                        "Unable to open immediate result file: " + dumpFile, ex);
             }
-        }
-        //File for output predictions
-        File outputPredictionFile = this.outputPredictionFileOption.getFile();
-        PrintStream outputPredictionResultStream = null;
-        if (outputPredictionFile != null) {
-            try {
-                if (outputPredictionFile.exists()) {
-                    outputPredictionResultStream = new PrintStream(
-                            new FileOutputStream(outputPredictionFile, true), true);
-                } else {
-                    outputPredictionResultStream = new PrintStream(
-                            new FileOutputStream(outputPredictionFile), true);
+            File dumpFile = this.dumpFileOption.getFile();
+            PrintStream immediateResultStream = null;
+            if (dumpFile != null) {
+                try {
+                    if (dumpFile.exists()) {
+                        immediateResultStream = newResultStream(
+                                new FileOutputStream(dumpFile, true), pipelined);
+                    } else {
+                        immediateResultStream = newResultStream(
+                                new FileOutputStream(dumpFile), pipelined);
+                    }
+                } catch (Exception ex) {
+                    throw new RuntimeException(
+                            "Unable to open immediate result file: " + dumpFile, ex);
                 }
-            } catch (Exception ex) {
-                throw new RuntimeException(
-                        "Unable to open prediction result file: " + outputPredictionFile, ex);
             }
-        }
-        boolean firstDump = true;
-        boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-        long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
-        while (stream.hasMoreInstances()
-                && ((maxInstances < 0) || (instancesProcessed < maxInstances))
-                && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst; //.copy();
-            //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
-            // Output prediction
+            //File for output predictions
+            File outputPredictionFile = this.outputPredictionFileOption.getFile();
+            PrintStream outputPredictionResultStream = null;
             if (outputPredictionFile != null) {
-                int trueClass = (int) ((Instance) trainInst.getData()).classValue();
-                outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
-                 ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
-            }
-
-            //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
-            evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
-            instancesProcessed++;
-            if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
-                    || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
-                double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
-                RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
-                RAMHours += RAMHoursIncrement;
-                lastEvaluateStartTime = evaluateTime;
-                learningCurve.insertEntry(new LearningEvaluation(
-                        new Measurement[]{
-                            new Measurement(
-                            "learning evaluation instances",
-                            instancesProcessed),
-                            new Measurement(
-                            "evaluation time ("
-                            + (preciseCPUTiming ? "cpu "
-                            : "") + "seconds)",
-                            time),
-                            new Measurement(
-                            "model cost (RAM-Hours)",
-                            RAMHours)
-                        },
-                        evaluator, learner));
-
-                if (immediateResultStream != null) {
-                    if (firstDump) {
-                        immediateResultStream.println(learningCurve.headerToString());
-                        firstDump = false;
+                try {
+                    if (outputPredictionFile.exists()) {
+                        outputPredictionResultStream = newResultStream(
+                                new FileOutputStream(outputPredictionFile, true), pipelined);
+                    } else {
+                        outputPredictionResultStream = newResultStream(
+                                new FileOutputStream(outputPredictionFile), pipelined);
                     }
-                    immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
-                    immediateResultStream.flush();
+                } catch (Exception ex) {
+                    throw new RuntimeException(
+                            "Unable to open prediction result file: " + outputPredictionFile, ex);
                 }
             }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                if (monitor.taskShouldAbort()) {
-                    return null;
+            boolean firstDump = true;
+            boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
+            long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+            long lastEvaluateStartTime = evaluateStartTime;
+            double RAMHours = 0.0;
+            boolean aborted = false;
+            while (stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                    && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
+                Example trainInst = stream.nextInstance();
+                Example testInst = (Example) trainInst; //.copy();
+                //testInst.setClassMissing();
+                double[] prediction = learner.getVotesForInstance(testInst);
+                // Output prediction
+                if (outputPredictionFile != null) {
+                    int trueClass = (int) ((Instance) trainInst.getData()).classValue();
+                    outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
+                     ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
                 }
-                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
-                if (maxInstances > 0) {
-                    long maxRemaining = maxInstances - instancesProcessed;
-                    if ((estimatedRemainingInstances < 0)
-                            || (maxRemaining < estimatedRemainingInstances)) {
-                        estimatedRemainingInstances = maxRemaining;
+
+                //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
+                evaluator.addResult(testInst, prediction);
+                learner.trainOnInstance(trainInst);
+                instancesProcessed++;
+                if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
+                        || stream.hasMoreInstances() == false) {
+                    long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                    double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
+                    double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
+                    double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                    RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
+                    RAMHours += RAMHoursIncrement;
+                    lastEvaluateStartTime = evaluateTime;
+                    learningCurve.insertEntry(new LearningEvaluation(
+                            new Measurement[]{
+                                new Measurement(
+                                "learning evaluation instances",
+                                instancesProcessed),
+                                new Measurement(
+                                "evaluation time ("
+                                + (preciseCPUTiming ? "cpu "
+                                : "") + "seconds)",
+                                time),
+                                new Measurement(
+                                "model cost (RAM-Hours)",
+                                RAMHours)
+                            },
+                            evaluator, learner));
+
+                    if (immediateResultStream != null) {
+                        if (firstDump) {
+                            immediateResultStream.println(learningCurve.headerToString());
+                            firstDump = false;
+                        }
+                        immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+                        immediateResultStream.flush();
                     }
                 }
-                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
-                        : (double) instancesProcessed
-                        / (double) (instancesProcessed + estimatedRemainingInstances));
-                if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+                if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        aborted = true;
+                        break;
+                    }
+                    long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                    if (maxInstances > 0) {
+                        long maxRemaining = maxInstances - instancesProcessed;
+                        if ((estimatedRemainingInstances < 0)
+                                || (maxRemaining < estimatedRemainingInstances)) {
+                            estimatedRemainingInstances = maxRemaining;
+                        }
+                    }
+                    monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                            : (double) instancesProcessed
+                            / (double) (instancesProcessed + estimatedRemainingInstances));
+                    if (monitor.resultPreviewRequested()) {
+                        monitor.setLatestResultPreview(learningCurve.copy());
+                    }
+                    secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                            - evaluateStartTime);
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
+            }
+            if (immediateResultStream != null) {
+                immediateResultStream.close();
+            }
+            if (outputPredictionResultStream != null) {
+                outputPredictionResultStream.close();
+            }
+            learningCurve.closeSpillFile();
+            return aborted ? null : learningCurve;
+        } finally {
+            if (readAheadStream != null) {
+                readAheadStream.close();
             }
         }
-        if (immediateResultStream != null) {
-            immediateResultStream.close();
-        }
-        if (outputPredictionResultStream != null) {
-            outputPredictionResultStream.close();
+    }
+
+    /**
+     * Returns a stream printing results to out, which flushes each line, or
+     * which writes them on a separate thread when pipelined.
+     */
+    protected PrintStream newResultStream(OutputStream out, boolean pipelined) {
+        if (pipelined) {
+            return new PrintStream(new AsyncOutputStream(out), false);
         }
-        return learningCurve;
+        return new PrintStream(out, true);
     }
 
     @Override
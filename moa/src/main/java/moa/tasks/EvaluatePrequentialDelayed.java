@@ -44,9 +44,9 @@ import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import moa.streams.DelayedInstanceQueue;
 import moa.streams.ExampleStream;
 import com.yahoo.labs.samoa.instances.Instance;
-import java.util.LinkedList;
 import moa.core.InstanceExample;
 import moa.core.Utils;
 
@@ -89,6 +89,11 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
             "Number of instances before test instance is used for training",
             1000, 1, Integer.MAX_VALUE);
     
+    public IntOption delayTimeAttributeOption = new IntOption("delayTimeAttribute", 'y',
+            "Attribute holding the time of the instances, starting at 1, in whose units the delay"
+            + " is measured instead of in instances (0 = the delay is a number of instances).",
+            0, 0, Integer.MAX_VALUE);
+    
     public IntOption initialWindowSizeOption = new IntOption("initialTrainingWindow", 'p',
         "Number of instances used for training in the beginning of the stream.",
         1000, 0, Integer.MAX_VALUE);
@@ -131,7 +136,7 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
             'a', "Fading factor or exponential smoothing factor", .01);
 
     // Buffer of instances to use for training. 
-    protected LinkedList<Example> trainInstances;
+    protected DelayedInstanceQueue trainInstances;
     
     @Override
     public Class<?> getTaskResultType() {
@@ -146,7 +151,8 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
 
-        this.trainInstances = new LinkedList<Example>();
+        this.trainInstances = new DelayedInstanceQueue();
+        int timeAttribute = this.delayTimeAttributeOption.getValue() - 1;
         
         //New for prequential methods
         if (evaluator instanceof WindowClassificationPerformanceEvaluator) {
@@ -223,30 +229,38 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
             
             instancesProcessed++;
             Example currentInst = stream.nextInstance();
+            Instance currentInstance = (Instance) currentInst.getData();
+            double arrivalTime = timeAttribute < 0 ? instancesProcessed : currentInstance.value(timeAttribute);
             
             if(instancesProcessed <= this.initialWindowSizeOption.getValue()) {
                 if(this.trainOnInitialWindowOption.isSet()) {
                     learner.trainOnInstance(currentInst);
                 }
-                else if((this.initialWindowSizeOption.getValue() - instancesProcessed) < this.delayLengthOption.getValue()) {
-                    this.trainInstances.addLast(currentInst);
+                else if(timeAttribute >= 0 
+                        || (this.initialWindowSizeOption.getValue() - instancesProcessed) < this.delayLengthOption.getValue()) {
+                    this.trainInstances.addLast(currentInstance, arrivalTime);
                 }
             }
             else {
-                this.trainInstances.addLast(currentInst);
+                this.trainInstances.addLast(currentInstance, arrivalTime);
 
-                if(this.delayLengthOption.getValue() < this.trainInstances.size()) {
+                if(timeAttribute >= 0) {
+                    // Trains on all the instances whose delay expired
+                    while(!this.trainInstances.isEmpty() 
+                            && this.trainInstances.firstTime() <= arrivalTime - this.delayLengthOption.getValue()) {
+                        learner.trainOnInstance(new InstanceExample(this.trainInstances.removeFirst()));
+                    }
+                }
+                else if(this.delayLengthOption.getValue() < this.trainInstances.size()) {
                     if(this.trainInBatches.isSet()) {
                         // Do not train on the latest instance, otherwise
                         // it would train on k+1 instances
                         while(this.trainInstances.size() > 1) {
-                            Example trainInst = this.trainInstances.removeFirst();
-                            learner.trainOnInstance(trainInst);
+                            learner.trainOnInstance(new InstanceExample(this.trainInstances.removeFirst()));
                         }
                     }
                     else {
-                        Example trainInst = this.trainInstances.removeFirst();
-                        learner.trainOnInstance(trainInst);
+                        learner.trainOnInstance(new InstanceExample(this.trainInstances.removeFirst()));
                     }
                 }
 
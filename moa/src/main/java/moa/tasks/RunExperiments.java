@@ -0,0 +1,323 @@
+/*
+ *    RunExperiments.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import moa.classifiers.Classifier;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.ExampleStream;
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.ListOption;
+import com.github.javacliparser.Option;
+
+/**
+ * Task for running an evaluation task on a grid of learners, streams and
+ * random seeds, several experiments at once.
+ *
+ * The experiments are run on a work-stealing pool, whose number of threads is
+ * bounded by the number of processors, and optionally by the memory available
+ * for each experiment. Each experiment runs a copy of the evaluation task with
+ * its own learner, stream and seed (given to the learner if it is
+ * randomizable, replacing its own seed, and required to be when there are
+ * several seeds); its output files are suffixed
+ * with the number of the experiment.
+ * The experiments on a stream can share its instances through the stream
+ * cache, instead of each generating or parsing them.
+ * The final measurements of each experiment are added to a results table, one
+ * csv line per experiment, as the experiments finish. The columns of the
+ * table are those of the first experiment to finish.
+ */
+public class RunExperiments extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Runs an evaluation task on a grid of learners, streams and seeds, several experiments at once.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption taskOption = new ClassOption("task", 't',
+            "Evaluation task to do for each experiment.", Task.class, "EvaluatePrequential -i 1000000");
+
+    public ListOption learnersOption = new ListOption("learners", 'l',
+            "The learners to evaluate.",
+            new ClassOption("learner", ' ', "", Classifier.class, "trees.HoeffdingTree"),
+            new Option[]{
+                new ClassOption("", ' ', "", Classifier.class, "trees.HoeffdingTree"),
+                new ClassOption("", ' ', "", Classifier.class, "bayes.NaiveBayes")},
+            ',');
+
+    public ListOption streamsOption = new ListOption("streams", 's',
+            "The streams to evaluate the learners on.",
+            new ClassOption("stream", ' ', "", ExampleStream.class, "generators.RandomTreeGenerator"),
+            new Option[]{
+                new ClassOption("", ' ', "", ExampleStream.class, "generators.RandomTreeGenerator")},
+            ',');
+
+    public IntOption numSeedsOption = new IntOption("numSeeds", 'r',
+            "The number of runs of each learner on each stream, with random seeds 1 to numSeeds.",
+            1, 1, Integer.MAX_VALUE);
+
+    public IntOption numThreadsOption = new IntOption("numThreads", 'n',
+            "The maximum number of experiments to run at once (0 = as many as processors).",
+            0, 0, Integer.MAX_VALUE);
+
+    public IntOption memoryPerExperimentOption = new IntOption("memoryPerExperiment", 'm',
+            "Memory (in MB) needed by an experiment, limiting the number run at once (0 = no limit).",
+            0, 0, Integer.MAX_VALUE);
+
+    public IntOption cacheStreamsOption = new IntOption("cacheStreams", 'c',
+            "Number of instances of each stream to cache and share between its experiments (0 = no caching).",
+            0, 0, Integer.MAX_VALUE);
+
+    public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
+            "File to append the results table to, as the experiments finish.", null, "csv", true);
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return String.class;
+    }
+
+    /**
+     * An experiment of the grid, and its final measurements once run.
+     */
+    protected static class Experiment {
+
+        protected final int number;
+
+        protected final String learner;
+
+        protected final String stream;
+
+        protected final int seed;
+
+        // whether the seed was given to the learner
+        protected boolean seeded;
+
+        protected final TaskMonitor monitor = new StandardTaskMonitor();
+
+        protected String[] measurementNames;
+
+        protected double[] measurementValues;
+
+        public Experiment(int number, String learner, String stream, int seed) {
+            this.number = number;
+            this.learner = learner;
+            this.stream = stream;
+            this.seed = seed;
+        }
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        List<Experiment> experiments = new ArrayList<Experiment>();
+        for (Option stream : this.streamsOption.getList()) {
+            for (Option learner : this.learnersOption.getList()) {
+                for (int seed = 1; seed <= this.numSeedsOption.getValue(); seed++) {
+                    experiments.add(new Experiment(experiments.size() + 1,
+                            learner.getValueAsCLIString(), stream.getValueAsCLIString(), seed));
+                }
+            }
+        }
+        int numThreads = this.numThreadsOption.getValue() > 0 ? this.numThreadsOption.getValue()
+                : Runtime.getRuntime().availableProcessors();
+        if (this.memoryPerExperimentOption.getValue() > 0) {
+            long experimentsInMemory = Runtime.getRuntime().maxMemory()
+                    / (this.memoryPerExperimentOption.getValue() * 1024L * 1024L);
+            numThreads = (int) Math.max(1, Math.min(numThreads, experimentsInMemory));
+        }
+
+        File dumpFile = this.dumpFileOption.getFile();
+        PrintStream immediateResultStream = null;
+        if (dumpFile != null) {
+            try {
+                immediateResultStream = new PrintStream(
+                        new FileOutputStream(dumpFile, dumpFile.exists()), true);
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Unable to open immediate result file: " + dumpFile, ex);
+            }
+        }
+        final String taskCLIString = this.taskOption.getValueAsCLIString();
+        final ObjectRepository experimentRepository = repository;
+        StringBuilder table = new StringBuilder();
+        String[] header = null;
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        CompletionService<Experiment> completed = new ExecutorCompletionService<Experiment>(pool);
+        try {
+            for (final Experiment experiment : experiments) {
+                completed.submit(() -> runExperiment(experiment, taskCLIString, experimentRepository));
+            }
+            for (int done = 0; done < experiments.size(); ) {
+                monitor.setCurrentActivity("Running experiments (" + done + " of "
+                        + experiments.size() + " done)...", (double) done / experiments.size());
+                Future<Experiment> future = completed.poll(1, TimeUnit.SECONDS);
+                if (monitor.taskShouldAbort()) {
+                    for (Experiment experiment : experiments) {
+                        experiment.monitor.requestCancel();
+                    }
+                    return null;
+                }
+                if (future == null) {
+                    continue;
+                }
+                Experiment experiment = future.get();
+                if (header == null) {
+                    header = experiment.measurementNames;
+                    StringBuilder line = new StringBuilder("experiment,learner,stream,seed");
+                    for (String name : header) {
+                        line.append(',').append(name);
+                    }
+                    appendLine(table, immediateResultStream, line.toString());
+                }
+                appendLine(table, immediateResultStream, resultToString(experiment, header));
+                done++;
+                if (monitor.resultPreviewRequested()) {
+                    monitor.setLatestResultPreview(table.toString());
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while running experiments", e);
+        } catch (ExecutionException e) {
+            for (Experiment experiment : experiments) {
+                experiment.monitor.requestCancel();
+            }
+            throw new RuntimeException("Experiment failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            if (immediateResultStream != null) {
+                immediateResultStream.close();
+            }
+        }
+        return table.toString();
+    }
+
+    protected Experiment runExperiment(Experiment experiment, String taskCLIString,
+            ObjectRepository repository) throws Exception {
+        Task task = (Task) ClassOption.cliStringToObject(taskCLIString, Task.class, null);
+        Option[] taskOptions = ((OptionHandler) task).getOptions().getOptionArray();
+        for (Option option : taskOptions) {
+            if (option instanceof FileOption && ((FileOption) option).isOutputFile()
+                    && ((FileOption) option).getFile() != null) {
+                option.setValueViaCLIString(insertFileNameExtension(
+                        ((FileOption) option).getFile().getPath(), "_" + experiment.number));
+            }
+        }
+        ClassOption learnerOption = (ClassOption) ((OptionHandler) task).getOptions().getOption("learner");
+        ClassOption streamOption = (ClassOption) ((OptionHandler) task).getOptions().getOption("stream");
+        if ((learnerOption == null) || (streamOption == null)) {
+            throw new IllegalArgumentException("Task has no learner or stream: " + taskCLIString);
+        }
+        learnerOption.setValueViaCLIString(experiment.learner);
+        if (this.cacheStreamsOption.getValue() > 0) {
+            streamOption.setValueViaCLIString("CachedStream -s (" + experiment.stream
+                    + ") -m " + this.cacheStreamsOption.getValue());
+        } else {
+            streamOption.setValueViaCLIString(experiment.stream);
+        }
+        Learner learner = (Learner) learnerOption.getPreMaterializedObject();
+        if (learner.isRandomizable()) {
+            learner.setRandomSeed(experiment.seed);
+            experiment.seeded = true;
+        } else if (this.numSeedsOption.getValue() > 1) {
+            throw new IllegalArgumentException("Learner is not randomizable: " + experiment.learner);
+        }
+        Object result = task.doTask(experiment.monitor, repository);
+        Measurement[] measurements = null;
+        if (result instanceof LearningCurve) {
+            LearningCurve learningCurve = (LearningCurve) result;
+            int last = learningCurve.numEntries() - 1;
+            measurements = new Measurement[last < 0 ? 0 : learningCurve.getEntryMeasurementCount(last)];
+            for (int i = 0; i < measurements.length; i++) {
+                measurements[i] = new Measurement(learningCurve.getMeasurementName(i),
+                        learningCurve.getMeasurement(last, i));
+            }
+        } else if (result instanceof LearningEvaluation) {
+            measurements = ((LearningEvaluation) result).getMeasurements();
+        } else if (!experiment.monitor.isCancelled()) {
+            throw new IllegalArgumentException("Task result is not a learning curve or evaluation: " + taskCLIString);
+        }
+        experiment.measurementNames = new String[measurements == null ? 0 : measurements.length];
+        experiment.measurementValues = new double[experiment.measurementNames.length];
+        for (int i = 0; i < experiment.measurementNames.length; i++) {
+            experiment.measurementNames[i] = measurements[i].getName();
+            experiment.measurementValues[i] = measurements[i].getValue();
+        }
+        return experiment;
+    }
+
+    protected static String resultToString(Experiment experiment, String[] header) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(experiment.number).append(',').append(quote(experiment.learner))
+                .append(',').append(quote(experiment.stream)).append(',');
+        if (experiment.seeded) {
+            sb.append(experiment.seed);
+        } else {
+            sb.append('?');
+        }
+        List<String> names = Arrays.asList(experiment.measurementNames);
+        for (String name : header) {
+            int index = names.indexOf(name);
+            sb.append(',');
+            if ((index < 0) || Double.isNaN(experiment.measurementValues[index])) {
+                sb.append('?');
+            } else {
+                sb.append(Double.toString(experiment.measurementValues[index]));
+            }
+        }
+        return sb.toString();
+    }
+
+    protected static String quote(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    protected static void appendLine(StringBuilder table, PrintStream out, String line) {
+        table.append(line).append('\n');
+        if (out != null) {
+            out.println(line);
+        }
+    }
+
+    protected static String insertFileNameExtension(String baseName, String fileNameExtension) {
+        int fileExtIndex = baseName.lastIndexOf('.');
+        if (fileExtIndex <= baseName.lastIndexOf(File.separatorChar)) {
+            return baseName + fileNameExtension;
+        }
+        return baseName.substring(0, fileExtIndex) + fileNameExtension + baseName.substring(fileExtIndex);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *    ArffLoaderTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests ArffLoader
+ */
+public class ArffLoaderTest {
+
+	protected static final String HEADER = "@relation loaded\n"
+	    + "@attribute a {x, 'y z'}\n"
+	    + "@attribute b numeric\n"
+	    + "@attribute c {p, q}\n"
+	    + "@data\n";
+
+	protected static String valueOf(ArffLoader loader, Instance instance, int i) {
+		return loader.getStructure().attribute(i).value((int) instance.value(i));
+	}
+
+	@Test
+	public void testDenseInstances() {
+		ArffLoader loader = new ArffLoader(new StringReader(HEADER
+		    + "% a comment\n"
+		    + "'y z', 1.5, q\n"
+		    + "\n"
+		    + "x,?,\"p\"\r\n"), 0, -1);
+		Instance instance = loader.readInstance();
+		assertEquals("y z", valueOf(loader, instance, 0));
+		assertEquals(1.5, instance.value(1), 0.0);
+		assertEquals("q", valueOf(loader, instance, 2));
+		instance = loader.readInstance();
+		assertEquals("x", valueOf(loader, instance, 0));
+		assertTrue(Double.isNaN(instance.value(1)));
+		assertEquals("p", valueOf(loader, instance, 2));
+		assertEquals(null, loader.readInstance());
+	}
+
+	@Test
+	public void testSparseInstances() {
+		ArffLoader loader = new ArffLoader(new StringReader(HEADER
+		    + "{0 \"y z\", 2 q}\n"
+		    + "{1 -2}\n"), 0, -1);
+		Instance instance = loader.readInstance();
+		assertEquals("y z", valueOf(loader, instance, 0));
+		assertEquals(0.0, instance.value(1), 0.0);
+		assertEquals("q", valueOf(loader, instance, 2));
+		instance = loader.readInstance();
+		assertEquals(0, (int) instance.value(0));
+		assertEquals(-2.0, instance.value(1), 0.0);
+		assertEquals(0, (int) instance.value(2));
+		assertEquals(null, loader.readInstance());
+	}
+
+	@Test
+	public void testNewValuesOfInternedHeaders() {
+		ArffLoader loader1 = new ArffLoader(new StringReader(HEADER
+		    + "w, 1, p\n"
+		    + "v, 1, p\n"), 0, -1);
+		ArffLoader loader2 = new ArffLoader(new StringReader(HEADER
+		    + "v, 1, p\n"), 0, -1);
+		Attribute attribute1 = loader1.getStructure().attribute(0);
+		Attribute attribute2 = loader2.getStructure().attribute(0);
+		assertTrue(attribute1 != attribute2);
+		// the values, read once, are shared until one loader meets a new one
+		assertTrue(attribute1.getAttributeValues() == attribute2.getAttributeValues());
+
+		assertEquals(2, (int) loader1.readInstance().value(0));
+		assertEquals(3, (int) loader1.readInstance().value(0));
+		assertEquals(4, attribute1.numValues());
+		assertEquals(2, attribute2.numValues());
+		assertEquals(-1, indexOfKnownValue(attribute2, "w"));
+
+		// the other loader indexes its new values on its own
+		assertEquals(2, (int) loader2.readInstance().value(0));
+		assertEquals("v", attribute2.value(2));
+		assertEquals("w", attribute1.value(2));
+		assertEquals(3, attribute2.numValues());
+
+		// nor does a header interned later see them
+		ArffLoader loader3 = new ArffLoader(new StringReader(HEADER), 0, -1);
+		assertEquals(2, loader3.getStructure().attribute(0).numValues());
+	}
+
+	protected static int indexOfKnownValue(Attribute attribute, String value) {
+		return attribute.getAttributeValues().indexOf(value);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ *    ArffTokenizerTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests that ArffTokenizer splits ARFF files as the StreamTokenizer it
+ * replaces in ArffLoader.
+ */
+public class ArffTokenizerTest {
+
+	protected static StreamTokenizer newStreamTokenizer(String s) {
+		StreamTokenizer streamTokenizer = new StreamTokenizer(new StringReader(s));
+		streamTokenizer.resetSyntax();
+		streamTokenizer.whitespaceChars(0, ' ');
+		streamTokenizer.wordChars(' ' + 1, '\u00FF');
+		streamTokenizer.whitespaceChars(',', ',');
+		streamTokenizer.commentChar('%');
+		streamTokenizer.quoteChar('"');
+		streamTokenizer.quoteChar('\'');
+		streamTokenizer.ordinaryChar('{');
+		streamTokenizer.ordinaryChar('}');
+		streamTokenizer.eolIsSignificant(true);
+		return streamTokenizer;
+	}
+
+	protected static void assertSameTokens(String s) throws IOException {
+		StreamTokenizer expected = newStreamTokenizer(s);
+		ArffTokenizer actual = new ArffTokenizer(new StringReader(s));
+		int n = 0;
+		do {
+			expected.nextToken();
+			actual.nextToken();
+			assertEquals("type of token " + n, expected.ttype, actual.ttype);
+			assertEquals("string of token " + n, expected.sval, actual.sval());
+			n++;
+		} while (expected.ttype != StreamTokenizer.TT_EOF);
+	}
+
+	@Test
+	public void testHeaderAndData() throws IOException {
+		assertSameTokens("% a comment\n"
+		    + "@relation 'a relation'\n"
+		    + "@attribute \"an attribute\" {x,'y z',\"w\"}\n"
+		    + "@attribute b numeric % a comment at the end\n"
+		    + "\n"
+		    + "@data\n"
+		    + "x, 1.5\n"
+		    + "'y z',?\n"
+		    + "{0 w,1 -2e3}\n"
+		    + "{ }\n");
+	}
+
+	@Test
+	public void testEndsOfLines() throws IOException {
+		assertSameTokens("a,b\r\nc\rd\n\r\n\re\r\n");
+		assertSameTokens("a\r\n% comment\r\nb");
+		assertSameTokens("a\r");
+		assertSameTokens("");
+		assertSameTokens("%");
+	}
+
+	@Test
+	public void testQuotes() throws IOException {
+		assertSameTokens("'' \"\" 'a\"b' \"a'b\"");
+		assertSameTokens("'unterminated\nnext");
+		assertSameTokens("'unterminated\r\nnext");
+		assertSameTokens("'unterminated");
+		assertSameTokens("'\\a\\b\\f\\n\\r\\t\\v\\'\\\\\\q'");
+		assertSameTokens("'\\0\\12\\123\\400\\7777\\8'");
+		assertSameTokens("'a'b 'a'{'b'}");
+	}
+
+	@Test
+	public void testCharacters() throws IOException {
+		assertSameTokens("\u00e9t\u00e9 \u00ff\u0100 \u4e2d\u6587{}a%b\nc");
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			s.append("long");
+		}
+		assertSameTokens(s + " " + s);
+	}
+
+	@Test
+	public void testChars() throws IOException {
+		ArffTokenizer tokenizer = new ArffTokenizer(new StringReader("abc '?' {"));
+		tokenizer.nextToken();
+		assertTrue(tokenizer.hasChars());
+		assertEquals("abc", new String(tokenizer.chars(), 0, tokenizer.length()));
+		assertTrue(tokenizer.charsEqual("abc"));
+		assertFalse(tokenizer.charsEqual("ab"));
+		tokenizer.nextToken();
+		assertTrue(tokenizer.charsEqual("?"));
+		tokenizer.nextToken();
+		assertFalse(tokenizer.hasChars());
+		assertFalse(tokenizer.charsEqual(""));
+		assertEquals(null, tokenizer.sval());
+	}
+}
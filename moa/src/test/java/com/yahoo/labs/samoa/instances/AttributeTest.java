@@ -0,0 +1,84 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * Test Attribute
+ */
+public class AttributeTest {
+
+	@Test
+	public void testNewValues() {
+		Attribute attribute = new Attribute("a", new ArrayList<String>(Arrays.asList("x", "y")));
+		assertEquals(1, attribute.indexOfValue("y"));
+		assertEquals(2, attribute.indexOfValue("z"));
+		char[] chars = "wz".toCharArray();
+		assertEquals(2, attribute.indexOfValue(chars, 1, 1));
+		assertEquals(3, attribute.indexOfValue(chars, 0, 1));
+		assertEquals(4, attribute.numValues());
+		assertEquals("w", attribute.value(3));
+		assertEquals(Arrays.asList("x", "y", "z", "w"), Collections.list(attribute.enumerateValues()));
+	}
+
+	@Test
+	public void testCopySharingValues() {
+		Attribute attribute = new Attribute("a", new ArrayList<String>(Arrays.asList("x", "y")));
+		Attribute copy = attribute.copySharingValues();
+		assertEquals("a", copy.name());
+		assertTrue(copy.isNominal());
+		assertTrue(copy.getAttributeValues() == attribute.getAttributeValues());
+		assertEquals(2, copy.indexOfValue("z"));
+		assertEquals(2, attribute.numValues());
+		assertEquals(2, attribute.indexOfValue("w"));
+		assertEquals(3, copy.indexOfValue("w"));
+		assertEquals(Arrays.asList("x", "y", "w"), attribute.getAttributeValues());
+		assertEquals(Arrays.asList("x", "y", "z", "w"), copy.getAttributeValues());
+	}
+
+	@Test
+	public void testValuesReadWhileAdded() throws Exception {
+		final Attribute attribute = new Attribute("a", new ArrayList<String>());
+		final AtomicBoolean adding = new AtomicBoolean(true);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		Thread reader = new Thread(() -> {
+			try {
+				while (adding.get()) {
+					int numValues = attribute.numValues();
+					for (int i = 0; i < numValues; i++) {
+						assertEquals(i, attribute.indexOfValue(attribute.value(i)));
+					}
+					int n = 0;
+					for (Object value : Collections.list(attribute.enumerateValues())) {
+						assertTrue(value != null);
+						n++;
+					}
+					assertTrue(n >= numValues);
+				}
+			} catch (Throwable e) {
+				failures.add(e);
+			}
+		});
+		reader.start();
+		// values added concurrently, each getting a single index
+		int[] indices = IntStream.range(0, 20000).parallel()
+		    .map(i -> attribute.indexOfValue("v" + (i / 2)))
+		    .toArray();
+		adding.set(false);
+		reader.join();
+		assertEquals(Collections.emptyList(), failures);
+		assertEquals(10000, attribute.numValues());
+		for (int i = 0; i < indices.length; i++) {
+			assertEquals("v" + (i / 2), attribute.value(indices[i]));
+		}
+	}
+}
@@ -24,11 +24,13 @@ import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Arrays;
 
 import moa.core.Example;
 import moa.core.InstanceExample;
 import moa.core.Measurement;
 import moa.evaluation.LearningPerformanceEvaluator;
+import moa.streams.InstanceStream;
 import moa.test.AbstractTestHelper;
 import moa.test.MoaTestCase;
 import moa.test.TestHelper;
@@ -205,6 +207,69 @@ extends MoaTestCase {
 		return result;
 	}
 
+	/**
+	 * Tests and then trains a classifier on the instances of a stream.
+	 *
+	 * @param scheme		the classifier, prepared for the stream
+	 * @param stream		the stream, prepared
+	 * @param numInstances	the maximum number of instances to process
+	 * @return			the votes for each instance processed
+	 */
+	protected double[][] votesOnStream(Classifier scheme, InstanceStream stream, int numInstances) {
+		double[][]	result;
+		int		i;
+		Instance	inst;
+
+		result = new double[numInstances][];
+		for (i = 0; i < numInstances && stream.hasMoreInstances(); i++) {
+			inst      = stream.nextInstance().getData();
+			result[i] = scheme.getVotesForInstance(inst);
+			scheme.trainOnInstance(inst);
+		}
+
+		return Arrays.copyOf(result, i);
+	}
+
+	/**
+	 * Checks that two classifiers gave the same votes for every instance.
+	 *
+	 * @param expected	the votes of the reference classifier
+	 * @param actual	the votes of the classifier to check
+	 */
+	protected void assertVotesEqual(double[][] expected, double[][] actual) {
+		int	i;
+
+		assertEquals("Number of instances differs!", expected.length, actual.length);
+		for (i = 0; i < expected.length; i++)
+			assertEquals("Votes differ at instance " + i, Arrays.toString(expected[i]), Arrays.toString(actual[i]));
+	}
+
+	/**
+	 * Checks that two classifiers gave the same votes for every instance, up
+	 * to a relative difference, for computations that add up in another order.
+	 *
+	 * @param expected	the votes of the reference classifier
+	 * @param actual	the votes of the classifier to check
+	 * @param tolerance	the largest relative difference of a vote
+	 */
+	protected void assertVotesClose(double[][] expected, double[][] actual, double tolerance) {
+		int	i;
+		int	n;
+		double	e;
+		double	a;
+
+		assertEquals("Number of instances differs!", expected.length, actual.length);
+		for (i = 0; i < expected.length; i++) {
+			assertEquals("Number of votes differs at instance " + i, expected[i].length, actual[i].length);
+			for (n = 0; n < expected[i].length; n++) {
+				e = expected[i][n];
+				a = actual[i][n];
+				if (Math.abs(e - a) > tolerance * Math.max(Math.abs(e), Math.abs(a)))
+					fail("Votes differ at instance " + i + ": " + Arrays.toString(expected[i]) + " != " + Arrays.toString(actual[i]));
+			}
+		}
+	}
+
 	/**
 	 * Saves the data in the tmp directory.
 	 *
@@ -19,10 +19,21 @@
  */
 package moa.classifiers.bayes;
 
+import java.util.Random;
+import java.util.stream.IntStream;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import moa.classifiers.AbstractMultipleClassifierTestCase;
 import moa.classifiers.Classifier;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserverHistogram;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserverHistogram;
+import moa.streams.generators.RandomTreeGenerator;
+
+import com.yahoo.labs.samoa.instances.Instance;
 
 /**
  * Tests the NaiveBayes classifier.
@@ -55,6 +66,79 @@ public class NaiveBayesTest
     };
   }
   
+  /**
+   * Tests that the observers multiply the votes of all the classes as the
+   * probabilities of one class at a time do, including a class without
+   * observations.
+   */
+  public void testVotesOverAllClasses() {
+    AttributeClassObserver[]	observers;
+    boolean[]			nominal;
+    Random			random;
+    double[]			votes;
+    double			value;
+    int				i;
+    int				n;
+    int				classVal;
+
+    observers = new AttributeClassObserver[]{
+	new NominalAttributeClassObserver(),
+	new NominalAttributeClassObserverHistogram(),
+	new GaussianNumericAttributeClassObserver(),
+	new GaussianNumericAttributeClassObserverHistogram(),
+    };
+    nominal = new boolean[]{true, true, false, false};
+    for (i = 0; i < observers.length; i++) {
+      random = new Random(1);
+      for (n = 0; n < 500; n++) {
+	classVal = random.nextInt(3);
+	value    = nominal[i] ? random.nextInt(5) : random.nextGaussian() + classVal;
+	observers[i].observeAttributeClass(value, classVal, 1.0);
+	value = nominal[i] ? random.nextInt(5) : random.nextGaussian();
+	votes = new double[]{0.5, 0.25, 0.125, 0.125};
+	observers[i].multiplyByProbabilitiesOfAttributeValue(value, votes);
+	for (classVal = 0; classVal < votes.length; classVal++)
+	  assertEquals(observers[i].getClass().getSimpleName() + " at observation " + n,
+	      Math.pow(0.5, Math.min(classVal + 1, 3)) * observers[i].probabilityOfAttributeValueGivenClass(value, classVal),
+	      votes[classVal], 0.0);
+      }
+    }
+  }
+
+  /**
+   * Tests that predictions made concurrently, right after the model
+   * changed, equal those made one after the other.
+   */
+  public void testConcurrentPredictions() {
+    RandomTreeGenerator	stream;
+    NaiveBayes		learner;
+    Instance[]		insts;
+    double[][]		expected;
+    double[][]		actual;
+    int			i;
+    int			n;
+
+    stream = new RandomTreeGenerator();
+    stream.prepareForUse();
+    learner = new NaiveBayes();
+    learner.prepareForUse();
+    learner.setModelContext(stream.getHeader());
+    insts = new Instance[200];
+    for (n = 0; n < 50; n++) {
+      for (i = 0; i < 20; i++)
+	learner.trainOnInstance(stream.nextInstance().getData());
+      for (i = 0; i < insts.length; i++)
+	insts[i] = stream.nextInstance().getData();
+      actual = IntStream.range(0, insts.length).parallel()
+	  .mapToObj(j -> learner.getVotesForInstance(insts[j]))
+	  .toArray(double[][]::new);
+      expected = new double[insts.length][];
+      for (i = 0; i < insts.length; i++)
+	expected[i] = learner.getVotesForInstance(insts[i]);
+      assertVotesEqual(expected, actual);
+    }
+  }
+
   /**
    * Returns a test suite.
    *
@@ -0,0 +1,85 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+
+import org.junit.Test;
+
+/**
+ * Test BinnedNumericAttributeClassObserver
+ */
+public class BinnedNumericAttributeClassObserverTest {
+
+	private static final SplitCriterion criterion = new InfoGainSplitCriterion();
+
+	private static double[] observe(AttributeClassObserver observer, double[] means, long seed) {
+		Random random = new Random(seed);
+		double[] classDist = new double[means.length];
+		for (int i = 0; i < 5000; i++) {
+			int classVal = random.nextInt(means.length);
+			double weight = 0.5 + random.nextDouble();
+			observer.observeAttributeClass(means[classVal] + random.nextGaussian(), classVal, weight);
+			classDist[classVal] += weight;
+		}
+		return classDist;
+	}
+
+	private static double splitValue(AttributeSplitSuggestion suggestion) {
+		return ((NumericAttributeBinaryTest) suggestion.splitTest).getSplitValue();
+	}
+
+	@Test
+	public void testSplitsLikeGaussian() {
+		double[][] setups = new double[][]{{0.0, 4.0}, {-10.0, -6.0}, {100.0, 103.0}};
+		for (int i = 0; i < setups.length; i++) {
+			BinnedNumericAttributeClassObserver binned = new BinnedNumericAttributeClassObserver();
+			binned.prepareForUse();
+			GaussianNumericAttributeClassObserver gaussian = new GaussianNumericAttributeClassObserver();
+			gaussian.numBinsOption.setValue(32);
+			gaussian.prepareForUse();
+			double[] classDist = observe(binned, setups[i], i);
+			observe(gaussian, setups[i], i);
+			AttributeSplitSuggestion expected = gaussian.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, true);
+			AttributeSplitSuggestion actual = binned.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, true);
+			assertEquals("Merit of setup " + i, expected.merit, actual.merit, 0.05 * expected.merit);
+			// within a bin of the Gaussian split
+			assertEquals("Split value of setup " + i, splitValue(expected), splitValue(actual), binned.binWidth);
+			for (int classVal = 0; classVal < classDist.length; classVal++) {
+				assertEquals("Distribution of setup " + i, classDist[classVal],
+				    actual.resultingClassDistributions[0][classVal] + actual.resultingClassDistributions[1][classVal],
+				    1e-6 * classDist[classVal]);
+			}
+		}
+	}
+
+	@Test
+	public void testPreparedAgainForgetsObservations() {
+		BinnedNumericAttributeClassObserver binned = new BinnedNumericAttributeClassObserver();
+		binned.prepareForUse();
+		double[] classDist = observe(binned, new double[]{0.0, 4.0}, 1);
+		binned.prepareForUse();
+		assertNull(binned.getBestEvaluatedSplitSuggestion(criterion, classDist, 0, true));
+		assertEquals(0.0, binned.probabilityOfAttributeValueGivenClass(0.0, 0), 0.0);
+	}
+
+	@Test
+	public void testRejectsTargets() {
+		BinnedNumericAttributeClassObserver binned = new BinnedNumericAttributeClassObserver();
+		binned.prepareForUse();
+		try {
+			binned.observeAttributeTarget(1.0, 2.0);
+			fail("A numeric target was observed");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -24,6 +24,8 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import moa.classifiers.AbstractMultipleClassifierTestCase;
 import moa.classifiers.Classifier;
+import moa.core.ComputeExecutor;
+import moa.streams.generators.RandomTreeGenerator;
 import static moa.test.MoaTestCase.runTest;
 
 /**
@@ -62,6 +64,41 @@ public class AdaptiveRandomForestTest
     };
   }
   
+  /**
+   * Returns a forest prepared for a stream.
+   *
+   * @param numJobs	the number of jobs
+   * @param stream	the stream to learn
+   * @return		the prepared forest
+   */
+  protected AdaptiveRandomForest newForest(int numJobs, RandomTreeGenerator stream) {
+    AdaptiveRandomForest	result;
+
+    result = new AdaptiveRandomForest();
+    result.ensembleSizeOption.setValue(10);
+    result.numberOfJobsOption.setValue(numJobs);
+    result.prepareForUse();
+    result.setModelContext(stream.getHeader());
+
+    return result;
+  }
+
+  /**
+   * Tests that training the members on the shared compute threads gives
+   * the same predictions as training them one after the other.
+   */
+  public void testParallelJobs() {
+    RandomTreeGenerator	stream;
+    double[][]	expected;
+
+    ComputeExecutor.setNumThreads(4);
+    stream = new RandomTreeGenerator();
+    stream.prepareForUse();
+    expected = votesOnStream(newForest(1, stream), stream, 3000);
+    stream.restart();
+    assertVotesEqual(expected, votesOnStream(newForest(4, stream), stream, 3000));
+  }
+
   /**
    * Returns a test suite.
    *
@@ -0,0 +1,320 @@
+/*
+ *    RuleCoverageIndexTest.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+package moa.classifiers.rules.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.rules.AMRulesRegressor;
+import moa.classifiers.rules.core.conditionaltests.NominalAttributeBinaryRulePredicate;
+import moa.classifiers.rules.core.conditionaltests.NumericAttributeBinaryRulePredicate;
+import moa.classifiers.rules.multilabel.AMRulesMultiTargetRegressor;
+import moa.core.Measurement;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.Prediction;
+import com.yahoo.labs.samoa.instances.Range;
+
+/**
+ * Tests that RuleCoverageIndex finds the rules covering instances, and that
+ * the AMRules learners predict and learn the same rules with the index (-X)
+ * as without.
+ */
+public class RuleCoverageIndexTest {
+
+	protected static final int NUM_INSTANCES = 8000;
+
+	protected static final int NUM_INPUTS = 5;
+
+	/**
+	 * Returns the header of the test data: three numeric and two nominal
+	 * inputs, followed by numOutputs numeric outputs.
+	 */
+	protected static InstancesHeader newHeader(int numOutputs) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < 3; i++) {
+			attributes.add(new Attribute("x" + i));
+		}
+		attributes.add(new Attribute("c0", Arrays.asList("a", "b", "c")));
+		attributes.add(new Attribute("c1", Arrays.asList("p", "q")));
+		for (int i = 0; i < numOutputs; i++) {
+			attributes.add(new Attribute("y" + i));
+		}
+		InstancesHeader header = new InstancesHeader(new Instances("rules", attributes, 0));
+		if (numOutputs == 1) {
+			header.setClassIndex(NUM_INPUTS);
+		} else {
+			Range range = new Range((NUM_INPUTS + 1) + "-" + (NUM_INPUTS + numOutputs));
+			range.setUpper(NUM_INPUTS + numOutputs);
+			header.setRangeOutputIndices(range);
+		}
+		return header;
+	}
+
+	/**
+	 * Returns the test data: piecewise targets of the inputs, with missing
+	 * values, whose function changes abruptly halfway, so that rules are
+	 * both expanded and removed.
+	 */
+	protected static List<Instance> newInstances(InstancesHeader header, int numOutputs) {
+		Random random = new Random(1);
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int n = 0; n < NUM_INSTANCES; n++) {
+			double[] values = new double[NUM_INPUTS + numOutputs];
+			for (int i = 0; i < 3; i++) {
+				values[i] = random.nextDouble();
+			}
+			values[3] = random.nextInt(3);
+			values[4] = random.nextInt(2);
+			for (int k = 0; k < numOutputs; k++) {
+				double y;
+				if (n < NUM_INSTANCES / 2) {
+					y = (values[0] > 0.5 ? 10 : 0) + (values[3] == 0 ? 5 : 0) + 3 * values[1 + k];
+				} else {
+					y = (values[1] > 0.3 ? -20 : 5) + (values[4] == 1 ? 8 : 0) - 4 * values[2];
+				}
+				values[NUM_INPUTS + k] = y + random.nextGaussian();
+			}
+			for (int i = 0; i < NUM_INPUTS; i++) {
+				if (random.nextDouble() < 0.05) {
+					values[i] = Double.NaN;
+				}
+			}
+			Instance instance = new DenseInstance(1.0, values);
+			instance.setDataset(header);
+			instances.add(instance);
+		}
+		return instances;
+	}
+
+	protected static RuleCoverageIndex<List<Predicate>> newIndex() {
+		return new RuleCoverageIndex<List<Predicate>>() {
+			@Override
+			protected List<Predicate> getPredicates(List<Predicate> rule) {
+				return rule;
+			}
+		};
+	}
+
+	protected static Predicate newPredicate(Random random) {
+		Predicate predicate;
+		int attIndex = random.nextInt(NUM_INPUTS);
+		if (attIndex < 3) {
+			double value = random.nextDouble();
+			switch (random.nextInt(3)) {
+				case 0:
+					predicate = new NumericRulePredicate(attIndex, value, random.nextBoolean());
+					break;
+				case 1:
+					predicate = new NumericAttributeBinaryRulePredicate(attIndex, value, 1);
+					break;
+				default:
+					predicate = new NumericAttributeBinaryRulePredicate(attIndex, value, 2);
+			}
+		} else {
+			int value = random.nextInt(attIndex == 3 ? 3 : 2);
+			if (random.nextBoolean()) {
+				predicate = new NominalRulePredicate(attIndex, value, random.nextBoolean());
+			} else {
+				predicate = new NominalAttributeBinaryRulePredicate(attIndex, value);
+			}
+		}
+		if (!(predicate instanceof NumericRulePredicate || predicate instanceof NominalRulePredicate)
+				&& random.nextBoolean()) {
+			predicate.negateCondition();
+		}
+		return predicate;
+	}
+
+	protected static boolean isCovering(List<Predicate> rule, Instance instance) {
+		for (Predicate predicate : rule) {
+			if (!predicate.evaluate(instance)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected static boolean hasMissingValues(Instance instance) {
+		for (int i = 0; i < NUM_INPUTS; i++) {
+			if (instance.isMissing(i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks that the candidates include the rules covering the instances,
+	 * and, for the instances without missing values, only them.
+	 */
+	protected static void checkCandidates(RuleCoverageIndex<List<Predicate>> index,
+			List<List<Predicate>> rules, List<Instance> instances) {
+		for (Instance instance : instances) {
+			long[] candidates = index.getCandidates(rules, instance);
+			for (int position = 0; position < rules.size(); position++) {
+				boolean isCovering = isCovering(rules.get(position), instance);
+				if (isCovering || !hasMissingValues(instance)) {
+					assertEquals(isCovering, RuleCoverageIndex.isCandidate(candidates, position));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a random predicate to a rule. As in the rules learned, a nominal
+	 * attribute is tested once at most: the index does not exclude rules
+	 * requiring two values of an attribute.
+	 */
+	protected static void expand(List<Predicate> rule, Random random) {
+		Predicate predicate;
+		boolean isTested;
+		do {
+			predicate = newPredicate(random);
+			isTested = false;
+			for (Predicate other : rule) {
+				isTested |= predicate.getAttributeIndex() >= 3
+						&& other.getAttributeIndex() == predicate.getAttributeIndex();
+			}
+		} while (isTested);
+		rule.add(predicate);
+	}
+
+	@Test
+	public void testCandidates() {
+		Random random = new Random(2);
+		List<List<Predicate>> rules = new ArrayList<List<Predicate>>();
+		for (int i = 0; i < 150; i++) {
+			List<Predicate> rule = new ArrayList<Predicate>();
+			for (int j = random.nextInt(4); j > 0; j--) {
+				expand(rule, random);
+			}
+			rules.add(rule);
+		}
+		List<Instance> instances = newInstances(newHeader(1), 1).subList(0, 500);
+		RuleCoverageIndex<List<Predicate>> index = newIndex();
+		checkCandidates(index, rules, instances);
+
+		// rules expanded, and rules removed and added
+		for (int i = 0; i < rules.size(); i += 3) {
+			expand(rules.get(i), random);
+		}
+		rules.remove(7);
+		rules.add(0, new ArrayList<Predicate>(Arrays.asList(newPredicate(random))));
+		index.invalidate();
+		checkCandidates(index, rules, instances);
+
+		assertEquals(0, index.getCandidates(new ArrayList<List<Predicate>>(), instances.get(0)).length);
+	}
+
+	protected static double measurement(Measurement[] measurements, String name) {
+		return Measurement.getMeasurementNamed(name, measurements).getValue();
+	}
+
+	protected static String description(AbstractClassifier learner) {
+		StringBuilder out = new StringBuilder();
+		learner.getModelDescription(out, 0);
+		return out.toString();
+	}
+
+	protected void checkRegressor(String options) {
+		InstancesHeader header = newHeader(1);
+		AMRulesRegressor scanning = new AMRulesRegressor();
+		scanning.getOptions().setViaCLIString(options);
+		scanning.setModelContext(header);
+		scanning.prepareForUse();
+		AMRulesRegressor indexing = new AMRulesRegressor();
+		indexing.getOptions().setViaCLIString(options + " -X");
+		indexing.setModelContext(header);
+		indexing.prepareForUse();
+		for (Instance instance : newInstances(header, 1)) {
+			assertArrayEquals(scanning.getVotesForInstance(instance), indexing.getVotesForInstance(instance), 0.0);
+			scanning.trainOnInstance(instance);
+			indexing.trainOnInstance(instance);
+		}
+		Measurement[] measurements = indexing.getModelMeasurements();
+		assertTrue(measurement(measurements, "rules (number)") > 2);
+		assertTrue(measurement(measurements, "change detections") > 0);
+		assertEquals(Arrays.toString(scanning.getModelMeasurements()), Arrays.toString(measurements));
+		assertEquals(description(scanning), description(indexing));
+	}
+
+	protected void checkMultiTargetRegressor(String options) {
+		InstancesHeader header = newHeader(2);
+		AMRulesMultiTargetRegressor scanning = new AMRulesMultiTargetRegressor();
+		scanning.getOptions().setViaCLIString(options);
+		scanning.setModelContext(header);
+		scanning.prepareForUse();
+		AMRulesMultiTargetRegressor indexing = new AMRulesMultiTargetRegressor();
+		indexing.getOptions().setViaCLIString(options + " -X");
+		indexing.setModelContext(header);
+		indexing.prepareForUse();
+		for (Instance instance : newInstances(header, 2)) {
+			Prediction expected = scanning.getPredictionForInstance(instance);
+			Prediction actual = indexing.getPredictionForInstance(instance);
+			if (expected == null) {
+				assertEquals(null, actual);
+			} else {
+				assertEquals(expected.numOutputAttributes(), actual.numOutputAttributes());
+				for (int k = 0; k < expected.numOutputAttributes(); k++) {
+					assertArrayEquals(expected.getVotes(k), actual.getVotes(k), 0.0);
+				}
+			}
+			scanning.trainOnInstance(instance);
+			indexing.trainOnInstance(instance);
+		}
+		Measurement[] measurements = indexing.getModelMeasurements();
+		assertTrue(measurement(measurements, "rules (number)") > 2);
+		assertTrue(measurement(measurements, "change detections") > 0);
+		assertEquals(Arrays.toString(scanning.getModelMeasurements()), Arrays.toString(measurements));
+		assertEquals(description(scanning), description(indexing));
+	}
+
+	@Test
+	public void testOrderedRegressor() {
+		checkRegressor("-g 50");
+	}
+
+	@Test
+	public void testUnorderedRegressor() {
+		checkRegressor("-g 50 -U");
+	}
+
+	@Test
+	public void testOrderedMultiTargetRegressor() {
+		checkMultiTargetRegressor("-g 50");
+	}
+
+	@Test
+	public void testUnorderedMultiTargetRegressor() {
+		checkMultiTargetRegressor("-g 50 -U");
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ *    MultiLabelRandomAMRulesTest.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *
+ */
+package moa.classifiers.rules.multilabel.meta;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import moa.core.ComputeExecutor;
+import moa.core.Measurement;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.Prediction;
+import com.yahoo.labs.samoa.instances.Range;
+
+/**
+ * Tests that MultiLabelRandomAMRules learns the same members, and predicts
+ * the same, whether the members run on the calling thread or concurrently.
+ */
+public class MultiLabelRandomAMRulesTest {
+
+	protected static final int NUM_INSTANCES = 3000;
+
+	/**
+	 * Returns the test data: three numeric and a nominal input, and two
+	 * numeric outputs, piecewise functions of the inputs.
+	 */
+	protected static List<Instance> newInstances() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < 3; i++) {
+			attributes.add(new Attribute("x" + i));
+		}
+		attributes.add(new Attribute("c", Arrays.asList("a", "b", "c")));
+		attributes.add(new Attribute("y0"));
+		attributes.add(new Attribute("y1"));
+		InstancesHeader header = new InstancesHeader(new Instances("random rules", attributes, 0));
+		Range range = new Range("5-6");
+		range.setUpper(6);
+		header.setRangeOutputIndices(range);
+
+		Random random = new Random(1);
+		List<Instance> instances = new ArrayList<Instance>();
+		for (int n = 0; n < NUM_INSTANCES; n++) {
+			double[] values = new double[6];
+			for (int i = 0; i < 3; i++) {
+				values[i] = random.nextDouble();
+			}
+			values[3] = random.nextInt(3);
+			values[4] = (values[0] > 0.5 ? 10 : 0) + (values[3] == 0 ? 5 : 0) + random.nextGaussian();
+			values[5] = (values[1] > 0.3 ? -5 : 5) + 3 * values[2] + random.nextGaussian();
+			Instance instance = new DenseInstance(1.0, values);
+			instance.setDataset(header);
+			instances.add(instance);
+		}
+		return instances;
+	}
+
+	protected static MultiLabelRandomAMRules newLearner(String options, int votingType, Instance instance) {
+		MultiLabelRandomAMRules learner = new MultiLabelRandomAMRules();
+		learner.getOptions().setViaCLIString(options);
+		learner.votingTypeOption.setChosenIndex(votingType);
+		learner.setModelContext(new InstancesHeader(instance.dataset()));
+		learner.prepareForUse();
+		return learner;
+	}
+
+	protected static String description(MultiLabelRandomAMRules learner) {
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < learner.ensemble.length; i++) {
+			learner.ensemble[i].getModelDescription(out, 0);
+			out.append(Arrays.toString(learner.errorMeasurer[i].getCurrentErrors()));
+		}
+		return out.toString();
+	}
+
+	protected void checkJobs(String options, int votingType) {
+		List<Instance> instances = newInstances();
+		MultiLabelRandomAMRules serial = newLearner(options + " -j 1", votingType, instances.get(0));
+		MultiLabelRandomAMRules concurrent = newLearner(options + " -j 4", votingType, instances.get(0));
+		assertEquals(1, serial.getNumberOfJobs());
+		assertEquals(4, concurrent.getNumberOfJobs());
+		long numTasks = ComputeExecutor.getMetrics("MultiLabelRandomAMRules").getTasks();
+		for (Instance instance : instances) {
+			Prediction expected = serial.getPredictionForInstance(instance);
+			Prediction actual = concurrent.getPredictionForInstance(instance);
+			if (expected == null) {
+				assertEquals(null, actual);
+			} else {
+				assertEquals(expected.numOutputAttributes(), actual.numOutputAttributes());
+				for (int k = 0; k < expected.numOutputAttributes(); k++) {
+					assertArrayEquals(expected.getVotes(k), actual.getVotes(k), 0.0);
+				}
+			}
+			serial.trainOnInstance(instance);
+			concurrent.trainOnInstance(instance);
+		}
+		// the members of the concurrent learner ran on the shared executor
+		assertTrue(ComputeExecutor.getMetrics("MultiLabelRandomAMRules").getTasks() > numTasks);
+		Measurement[] measurements = serial.getModelMeasurements();
+		assertTrue(Measurement.getMeasurementNamed("Avg rules (number)", measurements).getValue() > 2);
+		assertEquals(Arrays.toString(measurements), Arrays.toString(concurrent.getModelMeasurements()));
+		assertEquals(description(serial), description(concurrent));
+	}
+
+	@Test
+	public void testJobs() {
+		checkJobs("-s 6", 0);
+	}
+
+	@Test
+	public void testJobsWithBagging() {
+		checkJobs("-s 6 -p", 0);
+	}
+
+	@Test
+	public void testJobsWithCoveringRulesVoting() {
+		checkJobs("-s 6 -p -V InverseErrorWeightedVoteMultiLabel", 1);
+	}
+}
@@ -24,6 +24,8 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import moa.classifiers.AbstractMultipleClassifierTestCase;
 import moa.classifiers.Classifier;
+import moa.core.Utils;
+import moa.streams.generators.RandomRBFGenerator;
 
 /**
  * Tests the EFDT classifier.
@@ -60,6 +62,88 @@ public class EFDTTest
     return result;
   }
 
+  /**
+   * Returns a stream of 10 numeric attributes.
+   *
+   * @return		the stream
+   */
+  protected RandomRBFGenerator newStream() {
+    RandomRBFGenerator	result;
+
+    result = new RandomRBFGenerator();
+    result.prepareForUse();
+
+    return result;
+  }
+
+  /**
+   * Returns a tree prepared for a stream.
+   *
+   * @param options	the options of the tree
+   * @param stream	the stream to learn from
+   * @return		the tree
+   */
+  protected EFDT newTree(String options, RandomRBFGenerator stream) {
+    EFDT	result;
+
+    result = new EFDT();
+    result.getOptions().setViaCLIString(options);
+    result.prepareForUse();
+    result.setModelContext(stream.getHeader());
+
+    return result;
+  }
+
+  /**
+   * Returns the accuracy of votes on the instances of a stream.
+   *
+   * @param votes	the votes of a classifier on the stream
+   * @param stream	a copy of the stream, at its start
+   * @return		the accuracy
+   */
+  protected double accuracy(double[][] votes, RandomRBFGenerator stream) {
+    int		correct;
+    int		i;
+
+    correct = 0;
+    for (i = 0; i < votes.length; i++) {
+      if (Utils.maxIndex(votes[i]) == (int) stream.nextInstance().getData().classValue())
+	correct++;
+    }
+
+    return (double) correct / votes.length;
+  }
+
+  /**
+   * Tests that a re-evaluation budget covering all the attributes
+   * re-evaluates the splits as the periodic re-evaluation does.
+   */
+  public void testReevaluationBudgetOfAllAttributes() {
+    RandomRBFGenerator	stream;
+    double[][]		expected;
+
+    stream   = newStream();
+    expected = votesOnStream(newTree("-R 500", stream), stream, 20000);
+    stream   = newStream();
+    assertVotesEqual(expected, votesOnStream(newTree("-R 500 -B 10", stream), stream, 20000));
+  }
+
+  /**
+   * Tests that spreading re-evaluations over instances keeps the accuracy of
+   * the periodic re-evaluation.
+   */
+  public void testReevaluationBudget() {
+    RandomRBFGenerator	stream;
+    double		expected;
+    double		actual;
+
+    stream   = newStream();
+    expected = accuracy(votesOnStream(newTree("-R 500", stream), stream, 20000), newStream());
+    stream   = newStream();
+    actual   = accuracy(votesOnStream(newTree("-R 500 -B 1", stream), stream, 20000), newStream());
+    assertEquals(expected, actual, 0.02);
+  }
+
   /**
    * Returns a test suite.
    *
@@ -23,6 +23,7 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import moa.classifiers.AbstractMultipleRegressorTestCase;
 import moa.classifiers.Classifier;
+import moa.streams.ArffFileStream;
 import static moa.test.MoaTestCase.runTest;
 
 /**
@@ -55,7 +56,49 @@ public class FIMTDDTest
 	new FIMTDD(),
     };
   }
-  
+
+  /**
+   * Returns the regression data as a stream.
+   *
+   * @return		the stream
+   */
+  protected ArffFileStream newStream() {
+    ArffFileStream	result;
+
+    result = new ArffFileStream();
+    result.arffFileOption.setValue(ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath());
+    result.prepareForUse();
+
+    return result;
+  }
+
+  /**
+   * Tests that a copy of a tree taken while split attempts are pending goes
+   * on predicting as the tree does.
+   */
+  public void testSplitDelayCopy() {
+    ArffFileStream	stream;
+    ArffFileStream	copyStream;
+    FIMTDD		tree;
+    FIMTDD		copy;
+    int			i;
+
+    stream = newStream();
+    tree   = new FIMTDD();
+    tree.getOptions().setViaCLIString("-g 50 -D 30");
+    tree.prepareForUse();
+    tree.setModelContext(stream.getHeader());
+    for (i = 0; stream.hasMoreInstances() && (i < 500 || tree.pendingSplits == null || tree.pendingSplits.isEmpty()); i++)
+      tree.trainOnInstance(stream.nextInstance().getData());
+    assertNotNull("No split attempted", tree.pendingSplits);
+    assertFalse("No split pending", tree.pendingSplits.isEmpty());
+    copy       = (FIMTDD) tree.copy();
+    copyStream = newStream();
+    for (int n = 0; n < i; n++)
+      copyStream.nextInstance();
+    assertVotesEqual(votesOnStream(tree, stream, 1000), votesOnStream(copy, copyStream, 1000));
+  }
+
   /**
    * Returns a test suite.
    *
@@ -56,6 +56,24 @@ public class HoeffdingAdaptiveTreeTest
     };
   }
   
+  /**
+   * Tests that delayed split attempts are rejected, the tree not supporting
+   * them.
+   */
+  public void testSplitDelayRejected() {
+    HoeffdingAdaptiveTree	tree;
+
+    tree = new HoeffdingAdaptiveTree();
+    tree.getOptions().setViaCLIString("-D 10");
+    try {
+      tree.prepareForUse();
+      fail("splitDelay accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   /**
    * Returns a test suite.
    *
@@ -23,6 +23,10 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import moa.classifiers.AbstractMultipleClassifierTestCase;
 import moa.classifiers.Classifier;
+import moa.streams.generators.TextGenerator;
+import moa.test.SerializedObject;
+
+import com.yahoo.labs.samoa.instances.Instance;
 
 /**
  * Tests the HoeffdingTree classifier.
@@ -60,6 +64,129 @@ public class HoeffdingTreeTest
     return result;
   }
   
+  /**
+   * Returns a stream of mostly zero word counts.
+   *
+   * @return		the prepared stream
+   */
+  protected TextGenerator newSparseStream() {
+    TextGenerator	result;
+
+    result = new TextGenerator();
+    result.numAttsOption.setValue(200);
+    result.prepareForUse();
+
+    return result;
+  }
+
+  /**
+   * Returns a tree prepared for a stream.
+   *
+   * @param options	the command-line options of the tree
+   * @param stream	the stream to learn
+   * @return		the prepared tree
+   */
+  protected HoeffdingTree newTree(String options, TextGenerator stream) {
+    HoeffdingTree	result;
+
+    result = new HoeffdingTree();
+    result.getOptions().setViaCLIString(options);
+    result.prepareForUse();
+    result.setModelContext(stream.getHeader());
+
+    return result;
+  }
+
+  /**
+   * Tests that sparse learning leaves the predictions of majority class
+   * leaves unchanged.
+   */
+  public void testSparseLearning() {
+    TextGenerator	stream;
+    double[][]	expected;
+
+    stream   = newSparseStream();
+    expected = votesOnStream(newTree("-l MC -g 100", stream), stream, 5000);
+    stream   = newSparseStream();
+    assertVotesEqual(expected, votesOnStream(newTree("-l MC -g 100 -S", stream), stream, 5000));
+  }
+
+  /**
+   * Tests that sparse learning leaves the predictions of Naive Bayes leaves
+   * unchanged, but for the rounding of the zeros added in one go.
+   */
+  public void testSparseLearningNaiveBayes() {
+    TextGenerator	stream;
+    double[][]	expected;
+
+    for (String leafPrediction: new String[]{"NB", "NBAdaptive"}) {
+      stream   = newSparseStream();
+      expected = votesOnStream(newTree("-l " + leafPrediction + " -g 100", stream), stream, 5000);
+      stream   = newSparseStream();
+      assertVotesClose(expected, votesOnStream(newTree("-l " + leafPrediction + " -g 100 -S", stream), stream, 5000), 1e-6);
+    }
+  }
+
+  /**
+   * Tests that predicting with Naive Bayes leaves and sparse learning does
+   * not change the model.
+   *
+   * @throws Exception	if the model cannot be serialized
+   */
+  public void testSparseLearningPredictionIsReadOnly() throws Exception {
+    TextGenerator	stream;
+    HoeffdingTree	tree;
+    Instance		inst;
+    SerializedObject	before;
+    int			i;
+
+    for (String leafPrediction: new String[]{"NB", "NBAdaptive"}) {
+      stream = newSparseStream();
+      tree   = newTree("-l " + leafPrediction + " -g 100 -S", stream);
+      for (i = 0; i < 3000; i++) {
+	inst   = stream.nextInstance().getData();
+	before = new SerializedObject(tree);
+	tree.getVotesForInstance(inst);
+	assertEquals("Prediction changed the model at instance " + i, before, new SerializedObject(tree));
+	tree.trainOnInstance(inst);
+      }
+    }
+  }
+
+  /**
+   * Tests that a copy of a tree taken while split attempts are pending goes
+   * on predicting as the tree does.
+   */
+  public void testSplitDelayCopy() {
+    TextGenerator	stream;
+    HoeffdingTree	tree;
+    HoeffdingTree	copy;
+    int			i;
+
+    stream = newSparseStream();
+    tree   = newTree("-g 100 -D 50", stream);
+    for (i = 0; i < 10000 && (i < 2000 || tree.pendingSplits == null || tree.pendingSplits.isEmpty()); i++)
+      tree.trainOnInstance(stream.nextInstance().getData());
+    assertNotNull("No split attempted", tree.pendingSplits);
+    assertFalse("No split pending", tree.pendingSplits.isEmpty());
+    copy = (HoeffdingTree) tree.copy();
+    assertVotesEqual(votesOnStream(tree, (TextGenerator) stream.copy(), 3000), votesOnStream(copy, stream, 3000));
+  }
+
+  /**
+   * Tests that evaluating the split suggestions in parallel leaves the
+   * predictions unchanged.
+   */
+  public void testParallelSplitThreshold() {
+    TextGenerator	stream;
+    double[][]	expected;
+
+    stream   = newSparseStream();
+    expected = votesOnStream(newTree("-g 100", stream), stream, 5000);
+    stream   = newSparseStream();
+    assertVotesEqual(expected, votesOnStream(newTree("-g 100 -P 1", stream), stream, 5000));
+  }
+
   /**
    * Returns a test suite.
    *
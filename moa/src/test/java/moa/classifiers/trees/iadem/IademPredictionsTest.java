@@ -0,0 +1,110 @@
+/*
+ *    IademPredictionsTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees.iadem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.AbstractClassifier;
+import moa.options.AbstractOptionHandler;
+import moa.streams.InstanceStream;
+import moa.streams.generators.LEDGenerator;
+import moa.streams.generators.RandomRBFGenerator;
+import moa.streams.generators.RandomTreeGenerator;
+
+/**
+ * Tests that the predictions of IADEM-2 and IADEM-3 do not change with the
+ * way the leaves store their counts.
+ *
+ * The expected values are the hash codes of the votes of the trees, tested
+ * then trained on each instance, as given by the trees that stored the
+ * counts of the nominal attributes in DoubleVectors, before they were
+ * stored in arrays.
+ */
+public class IademPredictionsTest {
+
+	protected static final int NUM_INSTANCES = 4000;
+
+	protected static InstanceStream newStream(String name) {
+		AbstractOptionHandler stream;
+		if (name.equals("led")) {
+			stream = new LEDGenerator();
+		} else if (name.equals("rbf")) {
+			stream = new RandomRBFGenerator();
+		} else {
+			stream = new RandomTreeGenerator();
+		}
+		stream.prepareForUse();
+		return (InstanceStream) stream;
+	}
+
+	protected static int votesHashCode(AbstractClassifier tree, String options, String streamName) {
+		InstanceStream stream = newStream(streamName);
+		tree.getOptions().setViaCLIString(options);
+		tree.setModelContext(stream.getHeader());
+		tree.prepareForUse();
+		double[][] votes = new double[NUM_INSTANCES][];
+		for (int i = 0; i < votes.length; i++) {
+			Instance inst = stream.nextInstance().getData();
+			votes[i] = tree.getVotesForInstance(inst);
+			tree.trainOnInstance(inst);
+		}
+		return Arrays.deepHashCode(votes);
+	}
+
+	@Test
+	public void testIadem2() {
+		assertEquals(-461059482, votesHashCode(new Iadem2(), "", "tree"));
+		assertEquals(-1283992565, votesHashCode(new Iadem2(), "", "led"));
+		assertEquals(784817824, votesHashCode(new Iadem2(), "", "rbf"));
+	}
+
+	@Test
+	public void testIadem2LeafPredictions() {
+		assertEquals(-896072346, votesHashCode(new Iadem2(), "-b MC", "tree"));
+		assertEquals(-610844860, votesHashCode(new Iadem2(), "-b NBKirkby", "tree"));
+		assertEquals(-1984502697, votesHashCode(new Iadem2(), "-b WeightedVote", "tree"));
+	}
+
+	@Test
+	public void testIadem2SplitTests() {
+		assertEquals(-1362100879, votesHashCode(new Iadem2(), "-i onlyBinarySplit", "tree"));
+		assertEquals(-1283992565, votesHashCode(new Iadem2(), "-i onlyMultiwaySplit", "led"));
+	}
+
+	@Test
+	public void testIadem2NumericObservers() {
+		assertEquals(552091659,
+				votesHashCode(new Iadem2(), "-z IademVFMLNumericAttributeClassObserver", "tree"));
+		assertEquals(976445175,
+				votesHashCode(new Iadem2(), "-z IademGreenwaldKhannaNumericAttributeClassObserver", "rbf"));
+	}
+
+	@Test
+	public void testIadem3() {
+		assertEquals(1802359486, votesHashCode(new Iadem3(), "", "tree"));
+		assertEquals(-2070865496, votesHashCode(new Iadem3(), "", "led"));
+		assertEquals(-811899679,
+				votesHashCode(new Iadem3(), "-z IademVFMLNumericAttributeClassObserver", "rbf"));
+	}
+}
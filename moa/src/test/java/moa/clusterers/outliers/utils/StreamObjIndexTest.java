@@ -0,0 +1,123 @@
+package moa.clusterers.outliers.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Test the slide operations of StreamObjIndex against the node at a time
+ * operations.
+ */
+public class StreamObjIndexTest {
+
+	private static final int DIMS = 5;
+
+	private static final double RADIUS = 0.5;
+
+	static class TestNode extends StreamObjIndex.Node {
+		TestNode(StreamObj obj, long id) {
+			super(null, obj, id);
+		}
+	}
+
+	private static List<List<TestNode>> newSlides(int numSlides, int slideSize) {
+		Random random = new Random(1);
+		List<List<TestNode>> slides = new ArrayList<List<TestNode>>();
+		List<double[]> objs = new ArrayList<double[]>();
+		long id = 0;
+		for (int i = 0; i < numSlides; i++) {
+			List<TestNode> slide = new ArrayList<TestNode>();
+			for (int j = 0; j < slideSize; j++) {
+				double[] values;
+				if (!objs.isEmpty() && random.nextInt(10) == 0) {
+					// repeat an object, so that some nodes share a tree entry
+					values = objs.get(random.nextInt(objs.size())).clone();
+				} else {
+					values = new double[DIMS];
+					for (int k = 0; k < DIMS; k++) {
+						values[k] = random.nextDouble();
+					}
+				}
+				objs.add(values);
+				slide.add(new TestNode(new StreamObj(values), id++));
+			}
+			slides.add(slide);
+		}
+		return slides;
+	}
+
+	private static List<TreeSet<String>> singleSearches(StreamObjIndex<TestNode> index, List<TestNode> queries) {
+		List<TreeSet<String>> results = new ArrayList<TreeSet<String>>();
+		for (TestNode query : queries) {
+			final TreeSet<String> found = new TreeSet<String>();
+			index.RangeSearch(query, RADIUS, new StreamObjIndex.NodeVisitor<TestNode>() {
+				@Override
+				public void found(TestNode node, double distance) {
+					found.add(node.id + ":" + distance);
+				}
+			});
+			results.add(found);
+		}
+		return results;
+	}
+
+	private static List<TreeSet<String>> batchSearch(StreamObjIndex<TestNode> index, List<TestNode> queries) {
+		final List<TreeSet<String>> results = new ArrayList<TreeSet<String>>();
+		for (int i = 0; i < queries.size(); i++) {
+			results.add(new TreeSet<String>());
+		}
+		index.RangeSearch(queries, RADIUS, new StreamObjIndex.BatchVisitor<TestNode>() {
+			@Override
+			public void found(int query, TestNode node, double distance) {
+				results.get(query).add(node.id + ":" + distance);
+			}
+		});
+		return results;
+	}
+
+	@Test
+	public void testSlides() {
+		List<List<TestNode>> slides = newSlides(12, 40);
+		int slidesInWindow = 4;
+		StreamObjIndex<TestNode> single = new StreamObjIndex<TestNode>();
+		StreamObjIndex<TestNode> batch = new StreamObjIndex<TestNode>();
+		for (int i = 0; i < slides.size(); i++) {
+			List<TestNode> slide = slides.get(i);
+			if (i >= slidesInWindow) {
+				for (TestNode node : slides.get(i - slidesInWindow)) {
+					single.Remove(node);
+				}
+				batch.RemoveAll(slides.get(i - slidesInWindow));
+			}
+			List<TreeSet<String>> expected = singleSearches(single, slide);
+			assertEquals("Slide " + i, expected, batchSearch(batch, slide));
+			assertEquals("Slide " + i, expected, singleSearches(batch, slide));
+			for (TestNode node : slide) {
+				single.Insert(node);
+			}
+			batch.InsertAll(slide);
+			assertEquals("Slide " + i, single.Size(), batch.Size());
+			assertEquals("Slide " + i, single.mapNodes.keySet(), batch.mapNodes.keySet());
+		}
+	}
+
+	@Test
+	public void testRemoveAllTwice() {
+		List<TestNode> slide = newSlides(1, 50).get(0);
+		StreamObjIndex<TestNode> index = new StreamObjIndex<TestNode>();
+		index.InsertAll(slide);
+		assertEquals(50, index.Size());
+		index.RemoveAll(slide.subList(0, 20));
+		index.RemoveAll(slide.subList(0, 20));
+		assertEquals(30, index.Size());
+		index.RemoveAll(slide);
+		assertEquals(0, index.Size());
+		assertEquals(0, index.mapNodes.size());
+		assertEquals(0, batchSearch(index, slide).get(0).size());
+	}
+}
@@ -0,0 +1,172 @@
+package moa.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test ComputeExecutor
+ */
+public class ComputeExecutorTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		ComputeExecutor.setNumThreads(4);
+	}
+
+	private static List<Callable<Integer>> newTasks(int numTasks, final AtomicInteger running, final AtomicInteger maxRunning) {
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < numTasks; i++) {
+			final int result = i;
+			tasks.add(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(2);
+				running.decrementAndGet();
+				return result;
+			});
+		}
+		return tasks;
+	}
+
+	@Test
+	public void testResultsInTaskOrder() {
+		List<Integer> results = ComputeExecutor.invokeAll("testResultsInTaskOrder",
+		    newTasks(100, new AtomicInteger(), new AtomicInteger()), -1);
+		assertEquals(100, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(i, results.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void testMaxJobs() {
+		for (int maxJobs : new int[]{1, 2, 3}) {
+			AtomicInteger maxRunning = new AtomicInteger();
+			ComputeExecutor.invokeAll("testMaxJobs", newTasks(30, new AtomicInteger(), maxRunning), maxJobs);
+			assertTrue("At most " + maxJobs + " jobs", maxRunning.get() <= maxJobs);
+		}
+	}
+
+	@Test
+	public void testNestedCallsRunInline() {
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 8; i++) {
+			tasks.add(() -> {
+				// more nested tasks than threads, which must not wait for
+				// the threads of the pool
+				List<Integer> results = ComputeExecutor.invokeAll("testNestedCallsRunInline.inner",
+				    newTasks(8, new AtomicInteger(), new AtomicInteger()), -1);
+				return results.size();
+			});
+		}
+		List<Integer> results = ComputeExecutor.invokeAll("testNestedCallsRunInline", tasks, -1);
+		for (int result : results) {
+			assertEquals(8, result);
+		}
+		ComputeExecutor.Metrics inner = ComputeExecutor.getMetrics("testNestedCallsRunInline.inner");
+		assertEquals(8, inner.getInvocations());
+		assertEquals(64, inner.getTasks());
+		assertTrue(inner.getInlineTasks() >= 48);
+	}
+
+	@Test
+	public void testFailureAfterOtherJobs() {
+		final boolean[] done = new boolean[20];
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < done.length; i++) {
+			final int result = i;
+			tasks.add(() -> {
+				done[result] = true;
+				if (result == 3) {
+					throw new IllegalStateException("task " + result);
+				}
+				return result;
+			});
+		}
+		try {
+			ComputeExecutor.invokeAll("testFailureAfterOtherJobs", tasks, 4);
+			fail("Failure not reported");
+		}
+		catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		// the 4 jobs run 5 tasks each, and the first one stops after task 3
+		for (int i = 0; i < done.length; i++) {
+			assertEquals("Task " + i, i != 4, done[i]);
+		}
+	}
+
+	@Test
+	public void testMetrics() {
+		ComputeExecutor.invokeAll("testMetrics", newTasks(10, new AtomicInteger(), new AtomicInteger()), 1);
+		ComputeExecutor.Metrics metrics = ComputeExecutor.getMetrics("testMetrics");
+		assertEquals(1, metrics.getInvocations());
+		assertEquals(10, metrics.getTasks());
+		assertEquals(10, metrics.getInlineTasks());
+		StringBuilder sb = new StringBuilder();
+		ComputeExecutor.getMetricsDescription(sb);
+		assertTrue(sb.toString().contains("testMetrics: invocations = 1, tasks = 10"));
+	}
+
+	@Test
+	public void testForEachIndex() {
+		for (int maxJobs : new int[]{-1, 1, 3}) {
+			final int[] counts = new int[101];
+			final AtomicInteger running = new AtomicInteger();
+			final AtomicInteger maxRunning = new AtomicInteger();
+			ComputeExecutor.forEachIndex("testForEachIndex", counts.length, maxJobs, i -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				counts[i]++;
+				running.decrementAndGet();
+			});
+			for (int i = 0; i < counts.length; i++) {
+				assertEquals("Index " + i, 1, counts[i]);
+			}
+			assertTrue(maxRunning.get() <= (maxJobs < 0 ? 4 : maxJobs));
+		}
+		ComputeExecutor.forEachIndex("testForEachIndex", 0, -1, i -> fail("No index expected"));
+		// one task per job, whatever the number of indices
+		assertEquals(3 + 1 + 4 + 1, ComputeExecutor.getMetrics("testForEachIndex").getTasks());
+	}
+
+	@Test
+	public void testSubmit() throws Exception {
+		CompletableFuture<String> result = ComputeExecutor.submit("testSubmit",
+		    () -> Thread.currentThread().getName());
+		assertTrue(result.get().startsWith("moa-compute-"));
+		// submitted from a thread of the pool, the task runs on that thread
+		// (the first job runs on the calling thread, which is not one)
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for (int i = 0; i < 4; i++) {
+			tasks.add(() -> {
+				String thread = Thread.currentThread().getName();
+				CompletableFuture<String> nested = ComputeExecutor.submit("testSubmit",
+				    () -> Thread.currentThread().getName());
+				return !ComputeExecutor.isPoolThread() || (nested.isDone() && nested.get().equals(thread));
+			});
+		}
+		for (boolean inline : ComputeExecutor.invokeAll("testSubmit.outer", tasks, -1)) {
+			assertTrue(inline);
+		}
+		assertEquals(5, ComputeExecutor.getMetrics("testSubmit").getTasks());
+		CompletableFuture<Integer> failed = ComputeExecutor.submit("testSubmit.failed", () -> {
+			throw new IllegalStateException("failed");
+		});
+		try {
+			failed.join();
+			fail("Failure not reported");
+		}
+		catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
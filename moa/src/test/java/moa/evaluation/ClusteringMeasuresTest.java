@@ -0,0 +1,85 @@
+package moa.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import moa.cluster.Clustering;
+import moa.clusterers.KMeans;
+import moa.clusterers.clustream.Clustream;
+import moa.gui.visualization.DataPoint;
+import moa.streams.clustering.RandomRBFGeneratorEvents;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Test the clustering measures computed in parallel and on samples
+ */
+public class ClusteringMeasuresTest {
+
+	private static ArrayList<DataPoint> points;
+	private static Clustering clustering;
+	private static Clustering trueClustering;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		RandomRBFGeneratorEvents stream = new RandomRBFGeneratorEvents();
+		stream.prepareForUse();
+		Clustream clusterer = new Clustream();
+		clusterer.prepareForUse();
+		points = new ArrayList<DataPoint>();
+		for (int timestamp = 1; timestamp <= 2000; timestamp++) {
+			DataPoint point = new DataPoint(stream.nextInstance().getData(), timestamp);
+			points.add(point);
+			Instance inst = new DenseInstance(point);
+			inst.deleteAttributeAt(point.classIndex());
+			clusterer.trainOnInstanceImpl(inst);
+		}
+		trueClustering = new Clustering(points);
+		clustering = KMeans.gaussianMeans(trueClustering, clusterer.getMicroClusteringResult());
+	}
+
+	private static void assertSameValues(MeasureCollection expected, MeasureCollection actual) {
+		for (int i = 0; i < expected.getNumMeasures(); i++) {
+			assertEquals(expected.getName(i), expected.getLastValue(i), actual.getLastValue(i), 0.0);
+		}
+	}
+
+	@Test
+	public void testParallelEqualsSequential() throws Exception {
+		MeasureCollection[][] measures = new MeasureCollection[][]{
+			{new SilhouetteCoefficient(), new SilhouetteCoefficient()},
+			{new CMM(), new CMM()},
+			{new F1(), new F1()},
+		};
+		for (MeasureCollection[] pair : measures) {
+			pair[1].setParallel(true);
+			for (MeasureCollection measure : pair) {
+				measure.evaluateClusteringPerformance(clustering, trueClustering, points);
+			}
+			assertSameValues(pair[0], pair[1]);
+		}
+	}
+
+	@Test
+	public void testSampledSilhouette() throws Exception {
+		SilhouetteCoefficient exact = new SilhouetteCoefficient();
+		exact.evaluateClusteringPerformance(clustering, trueClustering, points);
+		SilhouetteCoefficient sampled = new SilhouetteCoefficient();
+		sampled.setSampleSize(500);
+		sampled.evaluateClusteringPerformance(clustering, trueClustering, points);
+		assertTrue(sampled.getErrorBound() > 0.0);
+		// the coefficient ranges over [-1,1], twice the normalized range
+		assertEquals(exact.getLastValue(0), sampled.getLastValue(0), 2.0 * sampled.getErrorBound());
+		SilhouetteCoefficient all = new SilhouetteCoefficient();
+		all.setSampleSize(points.size());
+		all.evaluateClusteringPerformance(clustering, trueClustering, points);
+		assertEquals(0.0, all.getErrorBound(), 0.0);
+		assertSameValues(exact, all);
+	}
+}
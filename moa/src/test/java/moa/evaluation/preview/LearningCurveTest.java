@@ -0,0 +1,103 @@
+/*
+ *    LearningCurveTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation.preview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import moa.core.Measurement;
+import moa.evaluation.LearningEvaluation;
+
+/**
+ * Tests the storage of learning curves by measurement, in memory and spilled
+ * to a file.
+ */
+public class LearningCurveTest {
+
+	protected static final String ORDER = "instances";
+
+	/**
+	 * Returns an entry whose measurements depend on its position, with more
+	 * measurements for the later entries.
+	 */
+	protected static LearningEvaluation entry(int i) {
+		int numMeasurements = 2 + i / 1500;
+		Measurement[] measurements = new Measurement[numMeasurements];
+		measurements[0] = new Measurement(ORDER, i);
+		for (int m = 1; m < numMeasurements; m++) {
+			measurements[m] = new Measurement("measurement " + m, i * 10.0 + m);
+		}
+		return new LearningEvaluation(measurements);
+	}
+
+	protected static void assertCurvesEqual(LearningCurve expected, LearningCurve actual) {
+		assertEquals(expected.headerToString(), actual.headerToString());
+		assertEquals(expected.numEntries(), actual.numEntries());
+		for (int i = 0; i < expected.numEntries(); i++) {
+			assertEquals(expected.getEntryMeasurementCount(i), actual.getEntryMeasurementCount(i));
+			assertEquals(expected.entryToString(i), actual.entryToString(i));
+		}
+	}
+
+	@Test
+	public void testEntriesByOrder() {
+		LearningCurve curve = new LearningCurve(ORDER);
+		for (int i : new int[]{3, 1, 2, 0, 1600, 4}) {
+			curve.insertEntry(entry(i));
+		}
+		assertEquals(6, curve.numEntries());
+		assertEquals(ORDER + ",measurement 1,measurement 2", curve.headerToString());
+		double[] order = {0, 1, 2, 3, 4, 1600};
+		for (int i = 0; i < order.length; i++) {
+			assertEquals(order[i], curve.getMeasurement(i, 0), 0.0);
+			assertEquals(order[i] * 10.0 + 1, curve.getMeasurement(i, 1), 0.0);
+		}
+		// entries without the measurements added later
+		assertEquals(2, curve.getEntryMeasurementCount(0));
+		assertEquals("0.0,1.0,?", curve.entryToString(0));
+		assertEquals("1600.0,16001.0,16002.0", curve.entryToString(5));
+	}
+
+	@Test
+	public void testSpilled() throws Exception {
+		File file = File.createTempFile("learningcurve", ".bin");
+		file.deleteOnExit();
+		LearningCurve expected = new LearningCurve(ORDER);
+		LearningCurve spilled = new LearningCurve(ORDER);
+		spilled.spillTo(file);
+		for (int i = 0; i < 5000; i++) {
+			expected.insertEntry(entry(i));
+			spilled.insertEntry(entry(i));
+		}
+		assertTrue(spilled.numSpilledEntries() > 0);
+		assertTrue(spilled.numEntriesInMemory < 2 * LearningCurve.MIN_ENTRIES_IN_MEMORY);
+		assertCurvesEqual(expected, spilled);
+		// copies read the spilled entries from the file
+		assertCurvesEqual(expected, (LearningCurve) spilled.copy());
+		spilled.closeSpillFile();
+		for (int i = 5000; i < 5100; i++) {
+			expected.insertEntry(entry(i));
+			spilled.insertEntry(entry(i));
+		}
+		assertCurvesEqual(expected, spilled);
+	}
+}
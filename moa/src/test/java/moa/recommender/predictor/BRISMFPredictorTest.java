@@ -0,0 +1,151 @@
+/*
+ *    BRISMFPredictorTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.recommender.predictor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+import moa.evaluation.preview.LearningCurve;
+import moa.options.ClassOption;
+import moa.recommender.rc.data.RecommenderData;
+import moa.recommender.rc.data.impl.MemRecommenderData;
+import moa.tasks.Task;
+
+/**
+ * Tests the batched online updates of BRISMFPredictor against the immediate
+ * ones.
+ */
+public class BRISMFPredictorTest {
+
+	protected static final int NUM_USERS = 30;
+
+	protected static final int NUM_ITEMS = 20;
+
+	protected static final int NUM_RATINGS = 1500;
+
+	/**
+	 * Returns the ratings (user, item, rating) of users and items with two
+	 * hidden features each.
+	 */
+	protected static int[][] newRatings() {
+		Random random = new Random(1);
+		double[][] users = new double[NUM_USERS][2];
+		double[][] items = new double[NUM_ITEMS][2];
+		for (double[] u : users) {
+			u[0] = random.nextDouble();
+			u[1] = random.nextDouble();
+		}
+		for (double[] i : items) {
+			i[0] = random.nextDouble();
+			i[1] = random.nextDouble();
+		}
+		int[][] ratings = new int[NUM_RATINGS][];
+		for (int r = 0; r < NUM_RATINGS; r++) {
+			int user = random.nextInt(NUM_USERS);
+			int item = random.nextInt(NUM_ITEMS);
+			double score = users[user][0] * items[item][0] + users[user][1] * items[item][1];
+			ratings[r] = new int[]{user, item, 1 + (int) Math.min(4, Math.round(4 * score))};
+		}
+		return ratings;
+	}
+
+	protected static moa.recommender.rc.predictor.impl.BRISMFPredictor newPredictor(int updateBatchSize) {
+		RecommenderData data = new MemRecommenderData();
+		moa.recommender.rc.predictor.impl.BRISMFPredictor predictor =
+				new moa.recommender.rc.predictor.impl.BRISMFPredictor(10, data, 0.001, 0.01, false);
+		predictor.setNIterations(20);
+		predictor.setUpdateBatchSize(updateBatchSize);
+		return predictor;
+	}
+
+	@Test
+	public void testPredictionsFlushPendingUpdates() {
+		int[][] ratings = newRatings();
+		moa.recommender.rc.predictor.impl.BRISMFPredictor lazy = newPredictor(1000);
+		moa.recommender.rc.predictor.impl.BRISMFPredictor flushed = newPredictor(1000);
+		for (int r = 0; r < 100; r++) {
+			lazy.getData().setRating(ratings[r][0], ratings[r][1], ratings[r][2]);
+			flushed.getData().setRating(ratings[r][0], ratings[r][1], ratings[r][2]);
+		}
+		flushed.flushUpdates();
+		int user = ratings[99][0];
+		int item = ratings[99][1];
+		assertEquals(flushed.predictRating(user, item), lazy.predictRating(user, item), 0.0);
+		int[] items = new int[NUM_ITEMS];
+		for (int i = 0; i < NUM_ITEMS; i++) {
+			items[i] = i;
+		}
+		assertEquals(flushed.topNItems(ratings[0][0], items, 5).length, lazy.topNItems(ratings[0][0], items, 5).length);
+		for (int r = 0; r < 100; r++) {
+			assertNotNull(lazy.getUserFeatures(ratings[r][0]));
+			assertNotNull(lazy.getItemFeatures(ratings[r][1]));
+		}
+	}
+
+	/**
+	 * Returns the RMSE of the online predictions of a predictor that is
+	 * updated after every rating.
+	 */
+	protected static double onlineRMSE(moa.recommender.rc.predictor.impl.BRISMFPredictor predictor, int[][] ratings) {
+		double sum = 0;
+		for (int[] r : ratings) {
+			double error = predictor.predictRating(r[0], r[1]) - r[2];
+			sum += error * error;
+			predictor.getData().setRating(r[0], r[1], r[2]);
+		}
+		return Math.sqrt(sum / ratings.length);
+	}
+
+	@Test
+	public void testBatchedCloseToImmediate() {
+		int[][] ratings = newRatings();
+		double immediate = onlineRMSE(newPredictor(1), ratings);
+		for (int updateBatchSize : new int[]{4, 16}) {
+			double batched = onlineRMSE(newPredictor(updateBatchSize), ratings);
+			assertEquals("-b " + updateBatchSize, immediate, batched, 0.05);
+		}
+	}
+
+	@Test
+	public void testEvaluateOnlineRecommender() throws Exception {
+		File file = File.createTempFile("ratings", ".dat");
+		file.deleteOnExit();
+		PrintWriter writer = new PrintWriter(file);
+		for (int[] r : newRatings()) {
+			writer.println(r[0] + "::" + r[1] + "::" + r[2] + "::0");
+		}
+		writer.close();
+		double[] rmse = new double[2];
+		int[] batchSizes = {1, 8};
+		for (int i = 0; i < batchSizes.length; i++) {
+			Task task = (Task) ClassOption.cliStringToObject("EvaluateOnlineRecommender -d (moa.recommender.dataset.impl.MovielensDataset -f "
+					+ file.getAbsolutePath() + ") -s (moa.recommender.predictor.BRISMFPredictor -i 20 -b " + batchSizes[i] + ") -f 500",
+					Task.class, null);
+			LearningCurve curve = (LearningCurve) task.doTask();
+			assertEquals(3, curve.numEntries());
+			rmse[i] = curve.getMeasurement(curve.numEntries() - 1, 1);
+		}
+		assertEquals(rmse[0], rmse[1], 0.05);
+	}
+}
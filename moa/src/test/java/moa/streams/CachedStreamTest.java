@@ -0,0 +1,206 @@
+/*
+ *    CachedStreamTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.streams.generators.RandomTreeGenerator;
+import moa.tasks.NullMonitor;
+import moa.tasks.StandardTaskMonitor;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Tests the replay of cached instances.
+ */
+public class CachedStreamTest {
+
+	protected static final int NUM_INSTANCES = 500;
+
+	/**
+	 * Generator counting how many times generators of its class are prepared.
+	 */
+	public static class CountingGenerator extends RandomTreeGenerator {
+
+		private static final long serialVersionUID = 1L;
+
+		protected static int numPrepared;
+
+		@Override
+		public void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+			numPrepared++;
+			super.prepareForUseImpl(monitor, repository);
+		}
+	}
+
+	/**
+	 * Generator failing once it has generated some instances.
+	 */
+	public static class FailingGenerator extends RandomTreeGenerator {
+
+		private static final long serialVersionUID = 1L;
+
+		protected int numGenerated;
+
+		@Override
+		public InstanceExample nextInstance() {
+			if (++this.numGenerated > NUM_INSTANCES / 2) {
+				throw new IllegalStateException("Generator failed");
+			}
+			return super.nextInstance();
+		}
+	}
+
+	protected static RandomTreeGenerator prepared(RandomTreeGenerator generator) {
+		generator.prepareForUse();
+		return generator;
+	}
+
+	protected static CachedStream newStream(String order) {
+		CachedStream stream = new CachedStream();
+		stream.maximumCacheSizeOption.setValue(NUM_INSTANCES);
+		stream.orderOption.setChosenLabel(order);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	protected static List<String> replay(CachedStream stream) {
+		List<String> result = new ArrayList<String>();
+		while (stream.hasMoreInstances()) {
+			result.add(stream.nextInstance().getData().toString());
+		}
+		return result;
+	}
+
+	@After
+	public void clearCache() {
+		StreamCache.clear();
+	}
+
+	@Test
+	public void testStreamOrder() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < NUM_INSTANCES; i++) {
+			expected.add(generator.nextInstance().getData().toString());
+		}
+		CachedStream stream = newStream("Stream");
+		assertEquals(expected, replay(stream));
+		stream.restart();
+		assertEquals(expected, replay(stream));
+	}
+
+	@Test
+	public void testShared() {
+		CachedStream first = newStream("Stream");
+		CachedStream second = newStream("Shuffled");
+		assertSame(first.cachedInstances, second.cachedInstances);
+	}
+
+	@Test
+	public void testShuffled() {
+		List<String> inOrder = replay(newStream("Stream"));
+		List<String> shuffled = replay(newStream("Shuffled"));
+		assertNotEquals(inOrder, shuffled);
+		assertEquals(shuffled, replay(newStream("Shuffled")));
+		Collections.sort(inOrder);
+		Collections.sort(shuffled);
+		assertEquals(inOrder, shuffled);
+	}
+
+	@Test
+	public void testBootstrapped() {
+		List<String> inOrder = replay(newStream("Stream"));
+		List<String> bootstrapped = replay(newStream("Bootstrapped"));
+		assertEquals(bootstrapped, replay(newStream("Bootstrapped")));
+		// each instance is repeated where it was, in the order of the stream
+		int pos = 0;
+		for (String inst : bootstrapped) {
+			while (!inOrder.get(pos).equals(inst)) {
+				pos++;
+			}
+		}
+		assertFalse(bootstrapped.isEmpty());
+	}
+
+	@Test
+	public void testFailedReadStartsOver() {
+		StreamCache.CachedInstances instances = new StreamCache.CachedInstances();
+		try {
+			instances.read(() -> prepared(new FailingGenerator()), NUM_INSTANCES, new NullMonitor());
+			fail("The failure of the stream was not reported");
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(0, instances.numInstances());
+		assertEquals(0, instances.blocks.size());
+		assertEquals(true, instances.read(() -> prepared(new RandomTreeGenerator()), NUM_INSTANCES, new NullMonitor()));
+		assertEquals(NUM_INSTANCES, instances.numInstances());
+	}
+
+	@Test
+	public void testAborted() {
+		StandardTaskMonitor monitor = new StandardTaskMonitor();
+		monitor.requestCancel();
+		CachedStream stream = new CachedStream();
+		stream.maximumCacheSizeOption.setValue(NUM_INSTANCES);
+		stream.prepareForUse(monitor, null);
+		assertNotNull(stream.getHeader());
+		assertFalse(stream.hasMoreInstances());
+		assertEquals(0, stream.estimatedRemainingInstances());
+		// the aborted read is not cached
+		assertEquals(NUM_INSTANCES, replay(newStream("Stream")).size());
+	}
+
+	@Test
+	public void testPreparedOnlyIfNotCached() {
+		CountingGenerator.numPrepared = 0;
+		for (String order : new String[]{"Stream", "Shuffled"}) {
+			CachedStream stream = new CachedStream();
+			stream.streamOption.setCurrentObject(new CountingGenerator());
+			stream.maximumCacheSizeOption.setValue(NUM_INSTANCES);
+			stream.orderOption.setChosenLabel(order);
+			stream.prepareForUse();
+			assertEquals(NUM_INSTANCES, replay(stream).size());
+		}
+		assertEquals(1, CountingGenerator.numPrepared);
+	}
+
+	@Test
+	public void testDescription() {
+		StringBuilder sb = new StringBuilder();
+		newStream("Shuffled").getDescription(sb, 0);
+		assertEquals("Instances of generators.RandomTreeGenerator replayed from the stream cache ("
+				+ NUM_INSTANCES + " cached), in shuffled order.", sb.toString());
+	}
+}
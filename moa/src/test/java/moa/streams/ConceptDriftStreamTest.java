@@ -0,0 +1,81 @@
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test ConceptDriftStream
+ */
+public class ConceptDriftStreamTest {
+
+	private static ConceptDriftStream newStream(String stream, String driftStream) {
+		ConceptDriftStream result = new ConceptDriftStream();
+		result.streamOption.setValueViaCLIString(stream);
+		result.driftstreamOption.setValueViaCLIString(driftStream);
+		result.positionOption.setValue(500);
+		result.widthOption.setValue(200);
+		result.prepareForUse();
+		return result;
+	}
+
+	private static String arffStream() {
+		return "ArffFileStream -c 1 -f " + ClassLoader.getSystemResource("moa/classifiers/data/small_classification.arff").getPath();
+	}
+
+	@Test
+	public void testBlocksEqualInstances() {
+		String stream = "generators.BlockGeneratedStream -b 64";
+		String driftStream = "generators.BlockGeneratedStream -g (RandomTreeGenerator -r 2) -b 64";
+		ConceptDriftStream byInstances = newStream(stream, driftStream);
+		ConceptDriftStream byBlocks = newStream(stream, driftStream);
+		assertTrue(byBlocks.readsBlocks());
+		int read = 0;
+		while (read < 10000) {
+			InstanceBlock block = byBlocks.nextBlock();
+			for (int row = 0; row < block.numRows(); row++, read++) {
+				assertEquals("Instance " + read, byInstances.nextInstance().getData().toString(), block.instance(row).toString());
+			}
+		}
+	}
+
+	@Test
+	public void testInstanceStreamsNotReadByBlocks() {
+		ConceptDriftStream stream = newStream("generators.RandomTreeGenerator", "generators.BlockGeneratedStream");
+		assertFalse(stream.readsBlocks());
+		assertFalse(BlockStream.isReadByBlocks(stream));
+	}
+
+	@Test
+	public void testExhaustedStreams() {
+		ConceptDriftStream stream = newStream(arffStream(), arffStream());
+		int read = 0;
+		while (stream.hasMoreInstances()) {
+			stream.nextInstance().getData();
+			read++;
+		}
+		assertEquals(6, read);
+		stream = newStream(arffStream(), arffStream());
+		InstanceBlock block = stream.nextBlock();
+		assertEquals(6, block.numRows());
+		assertFalse(stream.hasMoreInstances());
+	}
+
+	@Test
+	public void testRecurrentExhaustedStreams() {
+		RecurrentConceptDriftStream stream = new RecurrentConceptDriftStream();
+		stream.streamOption.setValueViaCLIString(arffStream());
+		stream.driftstreamOption.setValueViaCLIString(arffStream());
+		// no drift while the first stream has instances
+		stream.positionOption.setValue(1000);
+		stream.prepareForUse();
+		int read = 0;
+		while (stream.hasMoreInstances()) {
+			stream.nextInstance().getData();
+			read++;
+		}
+		assertEquals(6, read);
+	}
+}
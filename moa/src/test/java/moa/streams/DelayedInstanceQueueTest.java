@@ -0,0 +1,102 @@
+/*
+ *    DelayedInstanceQueueTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+/**
+ * Tests that the queue of delayed instances gives back the instances added,
+ * in order, across its pages.
+ */
+public class DelayedInstanceQueueTest {
+
+	protected static void assertInstanceEquals(Instance expected, Instance actual) {
+		assertSame(expected.dataset(), actual.dataset());
+		assertEquals(expected.weight(), actual.weight(), 0.0);
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testFirstInFirstOut() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		DelayedInstanceQueue queue = new DelayedInstanceQueue();
+		ArrayDeque<Instance> expected = new ArrayDeque<Instance>();
+		ArrayDeque<Double> times = new ArrayDeque<Double>();
+		// adds more instances than removed, then empties the queue, over
+		// several pages and twice from an empty queue
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < 3 * DelayedInstanceQueue.PAGE_SIZE; i++) {
+				Instance inst = generator.nextInstance().getData();
+				inst.setWeight(1 + i % 3);
+				queue.addLast(inst, i / 2);
+				expected.addLast(inst);
+				times.addLast((double) (i / 2));
+				if (i % 3 == 0) {
+					assertEquals(times.removeFirst(), queue.firstTime(), 0.0);
+					assertInstanceEquals(expected.removeFirst(), queue.removeFirst());
+				}
+				assertEquals(expected.size(), queue.size());
+			}
+			while (!expected.isEmpty()) {
+				assertEquals(times.removeFirst(), queue.firstTime(), 0.0);
+				assertInstanceEquals(expected.removeFirst(), queue.removeFirst());
+			}
+			assertTrue(queue.isEmpty());
+		}
+	}
+
+	@Test
+	public void testOtherInstancesKept() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		DelayedInstanceQueue queue = new DelayedInstanceQueue();
+		Instance dense = generator.nextInstance().getData();
+		Instance sparse = new SparseInstance(2.0, new double[]{1.0}, new int[]{0}, dense.numAttributes());
+		sparse.setDataset(dense.dataset());
+		queue.addLast(dense, 0);
+		queue.addLast(sparse, 1);
+		assertInstanceEquals(dense, queue.removeFirst());
+		assertSame(sparse, queue.removeFirst());
+		queue.addLast(sparse, 2);
+		queue.clear();
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testRemoveFromEmpty() {
+		try {
+			new DelayedInstanceQueue().removeFirst();
+			fail("removed an instance from an empty queue");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
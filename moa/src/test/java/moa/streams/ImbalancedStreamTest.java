@@ -0,0 +1,266 @@
+/*
+ *    ImbalancedStreamTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import moa.core.Example;
+import moa.streams.generators.BlockGeneratedStream;
+import moa.streams.generators.RandomTreeGenerator;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests the imbalanced stream.
+ */
+public class ImbalancedStreamTest {
+
+	/**
+	 * Block stream generating a fixed number of blocks.
+	 */
+	public static class FiniteBlockStream extends BlockGeneratedStream {
+
+		private static final long serialVersionUID = 1L;
+
+		protected int numBlocksLeft;
+
+		public FiniteBlockStream(int numBlocks) {
+			this.numBlocksLeft = numBlocks;
+			this.blockSizeOption.setValue(100);
+		}
+
+		@Override
+		public boolean hasMoreInstances() {
+			return this.numBlocksLeft > 0;
+		}
+
+		@Override
+		public InstanceBlock nextBlock() {
+			if (this.numBlocksLeft == 0) {
+				return null;
+			}
+			this.numBlocksLeft--;
+			return super.nextBlock();
+		}
+	}
+
+	protected static ImbalancedStream newStream(ExampleStream original, String options) {
+		ImbalancedStream result = new ImbalancedStream();
+		result.getOptions().setViaCLIString(options);
+		result.streamOption.setCurrentObject(original);
+		result.prepareForUse();
+		return result;
+	}
+
+	protected static RandomTreeGenerator newGenerator() {
+		RandomTreeGenerator result = new RandomTreeGenerator();
+		result.prepareForUse();
+		return result;
+	}
+
+	protected static BlockGeneratedStream newBlockStream() {
+		BlockGeneratedStream result = new BlockGeneratedStream();
+		result.blockSizeOption.setValue(100);
+		result.numThreadsOption.setValue(1);
+		result.prepareForUse();
+		return result;
+	}
+
+	protected static int bufferSize(ImbalancedStream stream, int classValue) {
+		return stream.rowBuffers != null ? stream.rowBuffers[classValue].size() : stream.instancesBuffer[classValue].size();
+	}
+
+	protected static List<String> buffered(ImbalancedStream stream, int classValue) {
+		List<String> result = new ArrayList<String>();
+		if (stream.rowBuffers != null) {
+			ImbalancedStream.RowBuffer buffer = stream.rowBuffers[classValue];
+			for (int i = 0; i < buffer.size(); i++) {
+				int start = ((buffer.first + i) % buffer.capacity()) * buffer.numAttributes;
+				result.add(Arrays.toString(Arrays.copyOfRange(buffer.values, start, start + buffer.numAttributes)));
+			}
+		}
+		else {
+			for (int i = 0; i < stream.instancesBuffer[classValue].size(); i++) {
+				result.add(stream.instancesBuffer[classValue].get(i).toString());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads instances, checking the size of the buffers after each one.
+	 *
+	 * @return the number of instances of each class read
+	 */
+	protected static int[] read(ImbalancedStream stream, int numInstances, int maxBufferSize) {
+		int[] result = new int[stream.getHeader().numClasses()];
+		for (int i = 0; i < numInstances; i++) {
+			result[(int) stream.nextInstance().getData().classValue()]++;
+			for (int c = 0; c < result.length; c++) {
+				assertTrue("Buffer of class " + c + " exceeds " + maxBufferSize, bufferSize(stream, c) <= maxBufferSize);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads blocks, checking the size of the buffers after each one.
+	 *
+	 * @return the number of instances of each class read
+	 */
+	protected static int[] readBlocks(ImbalancedStream stream, int numBlocks, int maxBufferSize) {
+		int[] result = new int[stream.getHeader().numClasses()];
+		for (int i = 0; i < numBlocks; i++) {
+			InstanceBlock block = stream.nextBlock();
+			for (int row = 0; row < block.numRows(); row++) {
+				result[(int) block.classValue(row)]++;
+			}
+			for (int c = 0; c < result.length; c++) {
+				assertTrue("Buffer of class " + c + " exceeds " + maxBufferSize, bufferSize(stream, c) <= maxBufferSize);
+			}
+		}
+		return result;
+	}
+
+	protected static void assertRatio(double expected, int[] counts, int classValue) {
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		assertEquals("Ratio of class " + classValue, expected, (double) counts[classValue] / total, 0.01);
+	}
+
+	private static String arffFile() {
+		return ClassLoader.getSystemResource("moa/classifiers/data/small_classification.arff").getPath();
+	}
+
+	@Test
+	public void testExhaustedBlocks() {
+		ImbalancedStream stream = newStream(new FiniteBlockStream(4), "-c 0.5;0.5");
+		assertTrue(stream.readsBlocks());
+		int read = 0;
+		InstanceBlock block;
+		while ((block = stream.nextBlock()) != null) {
+			assertTrue(block.numRows() > 0);
+			read += block.numRows();
+		}
+		assertTrue("Rows read: " + read, read > 0 && read <= 400);
+		assertFalse(stream.hasMoreInstances());
+		assertNull(stream.nextBlock());
+	}
+
+	@Test
+	public void testExhaustedInstances() {
+		ArffFileStream original = new ArffFileStream(arffFile(), 1);
+		ImbalancedStream stream = newStream(original, "-c 0.5;0.5");
+		int read = 0;
+		Example<Instance> inst;
+		while (stream.hasMoreInstances() && (inst = stream.nextInstance()) != null) {
+			inst.getData();
+			read++;
+		}
+		assertTrue("Instances read: " + read, read <= 3);
+		assertNull(stream.nextBlock());
+	}
+
+	@Test
+	public void testDropBoundsBuffers() {
+		for (int maxBufferSize : new int[]{5, 50}) {
+			ImbalancedStream stream = newStream(newGenerator(), "-c 0.99;0.01 -b Drop -m " + maxBufferSize);
+			int[] counts = read(stream, 20000, maxBufferSize);
+			assertEquals(maxBufferSize, bufferSize(stream, 1));
+			assertTrue(stream.numDropped > 0);
+			assertRatio(0.01, counts, 1);
+
+			stream = newStream(newBlockStream(), "-c 0.99;0.01 -b Drop -m " + maxBufferSize);
+			assertTrue(stream.readsBlocks());
+			counts = readBlocks(stream, 200, maxBufferSize);
+			assertEquals(maxBufferSize, bufferSize(stream, 1));
+			assertTrue(stream.numDropped > 0);
+			assertRatio(0.01, counts, 1);
+		}
+	}
+
+	@Test
+	public void testReservoirSamplesBuffers() {
+		ImbalancedStream drop = newStream(newGenerator(), "-c 0.99;0.01 -b Drop -m 20");
+		ImbalancedStream reservoir = newStream(newGenerator(), "-c 0.99;0.01 -b Reservoir -m 20");
+		read(drop, 20000, 20);
+		int[] counts = read(reservoir, 20000, 20);
+		assertEquals(20, bufferSize(reservoir, 1));
+		assertRatio(0.01, counts, 1);
+		// the reservoir replaced buffered instances, which the drop policy keeps
+		assertNotEquals(buffered(drop, 1), buffered(reservoir, 1));
+		assertTrue(reservoir.numSeen[1] > 20);
+
+		drop = newStream(newBlockStream(), "-c 0.99;0.01 -b Drop -m 20");
+		reservoir = newStream(newBlockStream(), "-c 0.99;0.01 -b Reservoir -m 20");
+		readBlocks(drop, 200, 20);
+		counts = readBlocks(reservoir, 200, 20);
+		assertEquals(20, bufferSize(reservoir, 1));
+		assertRatio(0.01, counts, 1);
+		assertNotEquals(buffered(drop, 1), buffered(reservoir, 1));
+	}
+
+	@Test
+	public void testUnboundedBuffers() {
+		ImbalancedStream stream = newStream(newGenerator(), "-c 0.99;0.01 -m 5");
+		read(stream, 20000, Integer.MAX_VALUE);
+		assertTrue(bufferSize(stream, 1) > 5);
+		assertEquals(0, stream.numDropped);
+	}
+
+	@Test
+	public void testClassConditionalRatios() {
+		for (String ratios : new String[]{"0.9;0.1", "0.5;0.5", "0.2;0.8"}) {
+			double ratio = Double.parseDouble(ratios.split(";")[1]);
+			ImbalancedStream stream = newStream(newGenerator(), "-c " + ratios + " -g");
+			int[] counts = read(stream, 20000, 0);
+			assertRatio(ratio, counts, 1);
+			// no instance generated in vain
+			assertEquals(1.0, stream.getGenerationEfficiency(), 0.0);
+
+			stream = newStream(newGenerator(), "-c " + ratios + " -g");
+			counts = readBlocks(stream, 200, 0);
+			assertRatio(ratio, counts, 1);
+			assertEquals(1.0, stream.getGenerationEfficiency(), 0.0);
+		}
+	}
+
+	@Test
+	public void testClassConditionalRequiresConditionalStream() {
+		try {
+			newStream(newBlockStream(), "-c 0.9;0.1 -g");
+			fail("-g was accepted for a stream that is not class conditional");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *    ReadAheadStreamTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+/**
+ * Tests that a read ahead stream gives the examples of the wrapped stream.
+ */
+public class ReadAheadStreamTest {
+
+	protected static RandomTreeGenerator newGenerator() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		return generator;
+	}
+
+	@Test
+	public void testExamplesInOrder() {
+		RandomTreeGenerator expected = newGenerator();
+		ReadAheadStream stream = new ReadAheadStream(newGenerator(), 100, 1000);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(stream.hasMoreInstances());
+			Instance expectedInst = expected.nextInstance().getData();
+			Instance inst = (Instance) stream.nextInstance().getData();
+			assertEquals(expectedInst.toString(), inst.toString());
+		}
+		assertFalse(stream.hasMoreInstances());
+	}
+
+	@Test
+	public void testDescription() {
+		ReadAheadStream stream = new ReadAheadStream(newGenerator(), 100, -1);
+		StringBuilder sb = new StringBuilder();
+		stream.getDescription(sb, 0);
+		stream.close();
+		assertEquals("Examples of RandomTreeGenerator read ahead on a separate thread, up to 100 at a time.",
+				sb.toString());
+	}
+}
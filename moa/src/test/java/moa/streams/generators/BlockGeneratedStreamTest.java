@@ -0,0 +1,73 @@
+package moa.streams.generators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import moa.streams.InstanceBlock;
+
+import org.junit.Test;
+
+/**
+ * Test BlockGeneratedStream
+ */
+public class BlockGeneratedStreamTest {
+
+	private static BlockGeneratedStream newStream(String options) {
+		BlockGeneratedStream stream = new BlockGeneratedStream();
+		stream.getOptions().setViaCLIString(options);
+		stream.prepareForUse();
+		return stream;
+	}
+
+	private static String nextInstances(BlockGeneratedStream stream, int numInstances) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < numInstances; i++) {
+			sb.append(stream.nextInstance().getData()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testSameInstancesWhateverTheThreads() {
+		String expected = nextInstances(newStream("-b 100 -t 1"), 1000);
+		assertEquals(expected, nextInstances(newStream("-b 100 -t 4"), 1000));
+		assertEquals(expected, nextInstances(newStream("-b 100 -t 0"), 1000));
+	}
+
+	@Test
+	public void testBlocksAndInstancesInterleaved() {
+		String expected = nextInstances(newStream("-b 100"), 1000);
+		BlockGeneratedStream stream = newStream("-b 100 -t 2");
+		StringBuilder sb = new StringBuilder();
+		sb.append(nextInstances(stream, 30));
+		while (sb.length() < expected.length()) {
+			InstanceBlock block = stream.nextBlock();
+			for (int row = 0; row < block.numRows(); row++) {
+				sb.append(block.instance(row)).append('\n');
+			}
+			sb.append(nextInstances(stream, 10));
+		}
+		assertEquals(expected, sb.substring(0, expected.length()));
+	}
+
+	@Test
+	public void testRestart() {
+		BlockGeneratedStream stream = newStream("-b 100 -t 3");
+		String expected = nextInstances(stream, 500);
+		stream.restart();
+		assertEquals(expected, nextInstances(stream, 500));
+	}
+
+	@Test
+	public void testDriftingCentroidsGeneratedOneByOne() {
+		RandomRBFGeneratorDrift generator = new RandomRBFGeneratorDrift();
+		generator.speedChangeOption.setValue(0.01);
+		generator.prepareForUse();
+		assertFalse(generator.canGenerateBlocks());
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 250; i++) {
+			sb.append(generator.nextInstance().getData()).append('\n');
+		}
+		BlockGeneratedStream stream = newStream("-g (RandomRBFGeneratorDrift -s 0.01) -b 100 -t 4");
+		assertEquals(sb.toString(), nextInstances(stream, 250));
+	}
+}
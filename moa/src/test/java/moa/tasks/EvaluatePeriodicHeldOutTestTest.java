@@ -0,0 +1,103 @@
+/*
+ *    EvaluatePeriodicHeldOutTestTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import moa.evaluation.preview.LearningCurve;
+import moa.options.ClassOption;
+
+/**
+ * Tests that testing on the cached test instances in parallel or in the
+ * background gives the same learning curve as testing serially.
+ */
+public class EvaluatePeriodicHeldOutTestTest {
+
+	protected static final String TASK = "EvaluatePeriodicHeldOutTest -c -n 500 -i 3000 -f 1000";
+
+	protected static LearningCurve evaluate(String options) throws Exception {
+		Task task = (Task) ClassOption.cliStringToObject(TASK + options, Task.class, null);
+		return (LearningCurve) task.doTask();
+	}
+
+	protected static void assertCurvesEqual(LearningCurve expected, LearningCurve actual) {
+		assertEquals(expected.numEntries(), actual.numEntries());
+		assertEquals(expected.getMeasurementNameCount(), actual.getMeasurementNameCount());
+		for (int m = 0; m < expected.getMeasurementNameCount(); m++) {
+			String name = expected.getMeasurementName(m);
+			assertEquals(name, actual.getMeasurementName(m));
+			if (name.contains("time") || name.contains("speed")) {
+				continue;
+			}
+			for (int entry = 0; entry < expected.numEntries(); entry++) {
+				assertEquals(name, expected.getMeasurement(entry, m),
+						actual.getMeasurement(entry, m), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelJobs() throws Exception {
+		assertCurvesEqual(evaluate(""), evaluate(" -j 3"));
+	}
+
+	@Test
+	public void testInBackground() throws Exception {
+		LearningCurve serial = evaluate("");
+		assertCurvesEqual(serial, evaluate(" -b"));
+		assertCurvesEqual(serial, evaluate(" -j 3 -b"));
+	}
+
+	/**
+	 * Monitor asking to abort as soon as testing starts.
+	 */
+	protected static class AbortTestingMonitor extends NullMonitor {
+
+		protected volatile String activityDescription = "";
+
+		protected volatile boolean trainedAfterTesting;
+
+		@Override
+		public void setCurrentActivityDescription(String activityDescription) {
+			if (this.activityDescription.startsWith("Testing")) {
+				this.trainedAfterTesting = true;
+			}
+			this.activityDescription = activityDescription;
+		}
+
+		@Override
+		public boolean taskShouldAbort() {
+			return this.activityDescription.startsWith("Testing");
+		}
+	}
+
+	@Test
+	public void testAbortWhileTesting() throws Exception {
+		Task task = (Task) ClassOption.cliStringToObject(TASK + " -j 3", Task.class, null);
+		AbortTestingMonitor monitor = new AbortTestingMonitor();
+		assertNull(task.doTask(monitor, null));
+		// aborted by the test jobs, not once training goes on
+		assertTrue(monitor.activityDescription.startsWith("Testing"));
+		assertFalse(monitor.trainedAfterTesting);
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *    EvaluatePrequentialDelayedTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import moa.evaluation.preview.LearningCurve;
+import moa.options.ClassOption;
+
+/**
+ * Tests the delay measured in the units of a time attribute (-y).
+ */
+public class EvaluatePrequentialDelayedTest {
+
+	protected static final String ACCURACY = "classifications correct (percent)";
+
+	/**
+	 * Writes a stream whose first attribute is the time of the instances,
+	 * ticking every given number of instances.
+	 */
+	protected static File writeStream(int instancesPerTick) throws Exception {
+		File file = File.createTempFile("delayed", ".arff");
+		file.deleteOnExit();
+		Random random = new Random(1);
+		try (PrintStream out = new PrintStream(file)) {
+			out.println("@relation delayed");
+			out.println("@attribute time numeric");
+			out.println("@attribute x numeric");
+			out.println("@attribute class {a,b}");
+			out.println("@data");
+			for (int i = 0; i < 3000; i++) {
+				double x = random.nextDouble();
+				// the concept changes every 500 instances
+				boolean positive = (x > 0.5) == ((i / 500) % 2 == 0);
+				out.println((1 + i / instancesPerTick) + "," + x + "," + (positive ? "a" : "b"));
+			}
+		}
+		return file;
+	}
+
+	protected static double[] accuracies(File stream, String options) throws Exception {
+		Task task = (Task) ClassOption.cliStringToObject("EvaluatePrequentialDelayed -s (ArffFileStream -f "
+				+ stream.getPath() + ") -e BasicClassificationPerformanceEvaluator -p 0 -f 500 " + options,
+				Task.class, null);
+		LearningCurve curve = (LearningCurve) task.doTask();
+		int column = -1;
+		for (int m = 0; m < curve.getMeasurementNameCount(); m++) {
+			if (curve.getMeasurementName(m).equals(ACCURACY)) {
+				column = m;
+			}
+		}
+		double[] result = new double[curve.numEntries()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = curve.getMeasurement(i, column);
+		}
+		return result;
+	}
+
+	@Test
+	public void testTimeOfInstances() throws Exception {
+		// a time attribute counting the instances gives the delay in instances
+		File stream = writeStream(1);
+		double[] expected = accuracies(stream, "-k 100");
+		double[] actual = accuracies(stream, "-k 100 -y 1");
+		assertEquals(6, expected.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testTimeUnits() throws Exception {
+		// with 10 instances per tick, a delay of 10 ticks is one of about 100 instances
+		File stream = writeStream(10);
+		double[] byTime = accuracies(stream, "-k 10 -y 1");
+		assertNotEquals(accuracies(stream, "-k 10")[5], byTime[5], 0.0);
+		assertEquals(accuracies(stream, "-k 100")[5], byTime[5], 1.0);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ *    EvaluatePrequentialTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.functions.NoChange;
+import moa.evaluation.preview.LearningCurve;
+import moa.options.ClassOption;
+
+/**
+ * Tests that reading the stream ahead (-p) gives the learning curve of the
+ * serial evaluation, and that the reading thread does not outlive the task.
+ */
+public class EvaluatePrequentialTest {
+
+	protected static final String TASK = "EvaluatePrequential -i 5000 -f 1000";
+
+	/**
+	 * Learner failing after some instances.
+	 */
+	public static class FailingLearner extends NoChange {
+
+		private static final long serialVersionUID = 1L;
+
+		protected int trained;
+
+		@Override
+		public void trainOnInstanceImpl(Instance inst) {
+			if (++this.trained == 100) {
+				throw new IllegalStateException("failing learner");
+			}
+			super.trainOnInstanceImpl(inst);
+		}
+	}
+
+	protected static EvaluatePrequential newTask(String options) throws Exception {
+		return (EvaluatePrequential) ClassOption.cliStringToObject(TASK + options, Task.class, null);
+	}
+
+	protected static boolean isReading() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("ReadAheadStream") && thread.isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		LearningCurve expected = (LearningCurve) newTask("").doTask();
+		LearningCurve actual = (LearningCurve) newTask(" -p 500").doTask();
+		assertEquals(expected.numEntries(), actual.numEntries());
+		for (int m = 0; m < expected.getMeasurementNameCount(); m++) {
+			String name = expected.getMeasurementName(m);
+			if (name.contains("time") || name.contains("RAM-Hours")) {
+				continue;
+			}
+			for (int entry = 0; entry < expected.numEntries(); entry++) {
+				assertEquals(name, expected.getMeasurement(entry, m),
+						actual.getMeasurement(entry, m), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testReaderStoppedOnFailure() throws Exception {
+		EvaluatePrequential task = newTask(" -p 500 -i -1");
+		task.learnerOption.setCurrentObject(new FailingLearner());
+		try {
+			task.doTask();
+			fail("the failure of the learner is not reported");
+		} catch (IllegalStateException e) {
+			assertEquals("failing learner", e.getMessage());
+		}
+		for (int i = 0; i < 100 && isReading(); i++) {
+			Thread.sleep(10);
+		}
+		assertFalse(isReading());
+	}
+}
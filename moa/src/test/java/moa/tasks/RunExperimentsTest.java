@@ -0,0 +1,77 @@
+/*
+ *    RunExperimentsTest.java
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import moa.options.ClassOption;
+
+/**
+ * Tests that the experiments run with the seed they report.
+ */
+public class RunExperimentsTest {
+
+	protected static final String TASK = "EvaluatePrequential -i 2000 -f 2000";
+
+	protected static final String ACCURACY = "classifications correct (percent)";
+
+	/**
+	 * Returns the seed and accuracy columns of the results, by learner and
+	 * seed.
+	 */
+	protected static Map<String, String[]> runExperiments(String learners, int numSeeds) throws Exception {
+		Task task = (Task) ClassOption.cliStringToObject("RunExperiments -t (" + TASK + ") -l ("
+				+ learners + ") -r " + numSeeds + " -n 1", Task.class, null);
+		String[] lines = ((String) task.doTask()).split("\n");
+		String[] header = lines[0].trim().split(",");
+		int accuracyColumn = -1;
+		for (int i = 0; i < header.length; i++) {
+			if (header[i].equals(ACCURACY)) {
+				accuracyColumn = i;
+			}
+		}
+		Map<String, String[]> results = new HashMap<String, String[]>();
+		for (int i = 1; i < lines.length; i++) {
+			String[] columns = lines[i].trim().split(",");
+			results.put(columns[1].replace("\"", "") + " " + columns[3],
+					new String[]{columns[3], columns[accuracyColumn]});
+		}
+		return results;
+	}
+
+	@Test
+	public void testSeedAlwaysApplied() throws Exception {
+		Map<String, String[]> oneSeed = runExperiments("meta.OzaBag", 1);
+		Map<String, String[]> twoSeeds = runExperiments("meta.OzaBag", 2);
+		// the single run uses the seed 1 it reports, as the first of several runs does
+		assertEquals(twoSeeds.get("meta.OzaBag 1")[1], oneSeed.get("meta.OzaBag 1")[1]);
+		assertNotEquals(twoSeeds.get("meta.OzaBag 2")[1], oneSeed.get("meta.OzaBag 1")[1]);
+	}
+
+	@Test
+	public void testSeedNotReportedIfUnused() throws Exception {
+		Map<String, String[]> results = runExperiments("trees.HoeffdingTree", 1);
+		assertEquals("?", results.get("trees.HoeffdingTree ?")[0]);
+	}
+}